@@ -0,0 +1,212 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+import org.objectweb.proactive.core.body.request.Request;
+import org.objectweb.proactive.core.body.request.RequestCompatibility;
+import org.objectweb.proactive.core.body.request.RequestFilter;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+import org.objectweb.proactive.utils.ThreadPools;
+
+
+/**
+ * <P>
+ * MultiActiveService serves several requests of an active object in parallel, on a bounded
+ * pool of threads of the active object.
+ * </P><P>
+ * The methods of the active object are put in groups declared with the
+ * {@link org.objectweb.proactive.annotation.DefineGroups} annotation of its class, each group
+ * telling the groups it is compatible with. A request is served as soon as a thread is
+ * available and its method is compatible with the methods of the requests being served.
+ * Requests are served in FIFO order otherwise: a request is never served before an older
+ * request incompatible with it. Requests on methods without group are served alone.
+ * </P><P>
+ * The replies are sent as for the other services, from the threads serving the requests.
+ * For instance:
+ * </P>
+ * <pre>
+ * &#064;DefineGroups( { &#064;Group(name = "read", selfCompatible = true), &#064;Group(name = "write") })
+ * public class Store implements RunActive {
+ *   &#064;MemberOf("read")
+ *   public Value get(Key key) { ... }
+ *
+ *   &#064;MemberOf("write")
+ *   public void put(Key key, Value value) { ... }
+ *
+ *   public void runActivity(Body body) {
+ *     new MultiActiveService(body).multiActiveServing();
+ *   }
+ * }
+ * </pre>
+ *
+ * @author The ProActive Team
+ * @see RunActive
+ */
+@PublicAPI
+public class MultiActiveService extends Service {
+
+    private final RequestCompatibility compatibility;
+
+    private final int maxThreads;
+
+    /** The requests being served */
+    private final List<Request> running = new ArrayList<Request>();
+
+    private final CompatibleRequestFilter compatibleRequestFilter = new CompatibleRequestFilter();
+
+    /**
+     * Creates a new instance of MultiActiveService serving requests on as many threads as
+     * available processors.
+     * @param body the body that helper service is for.
+     */
+    public MultiActiveService(Body body) {
+        this(body, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new instance of MultiActiveService.
+     * @param body the body that helper service is for.
+     * @param maxThreads the maximum number of requests served in parallel.
+     */
+    public MultiActiveService(Body body, int maxThreads) {
+        super(body);
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed to serve requests, not " + maxThreads);
+        }
+        this.maxThreads = maxThreads;
+        this.compatibility = new RequestCompatibility(body.getReifiedObject().getClass());
+    }
+
+    /**
+     * Serves the requests in parallel, as compatible requests allow.
+     * This does not return until the body terminates.
+     */
+    public void multiActiveServing() {
+        ThreadPoolExecutor threadPool = ThreadPools.newFixedThreadPool(this.maxThreads,
+                                                                       new NamedThreadFactory("MultiActiveService " +
+                                                                                              body.getID(),
+                                                                                              true));
+        try {
+            while (body.isActive()) {
+                try {
+                    this.waitForThread();
+                    Request request = requestQueue.blockingRemoveOldest(this.compatibleRequestFilter);
+                    if (request != null) {
+                        this.startServing(request, threadPool);
+                    }
+                } catch (InterruptedException e) {
+                    if (body.isActive()) {
+                        logger.warn("Interruption message received in " + body.getUrl(), e);
+                    }
+                }
+            }
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    private synchronized void waitForThread() throws InterruptedException {
+        while (this.running.size() >= this.maxThreads) {
+            this.wait();
+        }
+    }
+
+    private void startServing(final Request request, ThreadPoolExecutor threadPool) {
+        synchronized (this) {
+            this.running.add(request);
+        }
+        threadPool.execute(new Runnable() {
+            public void run() {
+                try {
+                    body.serve(request);
+                } finally {
+                    servingDone(request);
+                }
+            }
+        });
+    }
+
+    private void servingDone(Request request) {
+        synchronized (this) {
+            this.running.remove(request);
+            this.notifyAll();
+        }
+        // requests waiting for this one can now be served
+        requestQueue.wakeUpWaitingThreads();
+    }
+
+    private synchronized boolean isCompatibleWithRunning(Request request) {
+        for (Request other : this.running) {
+            if (!this.compatibility.areCompatible(request, other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Accepts the oldest request compatible with the requests being served and with the older
+     * requests of the queue.
+     * <p>
+     * The queue calls the filter on its requests from the oldest one, until one is accepted.
+     * The filter remembers the rejected requests to check the younger ones against them, and
+     * forgets them when the queue is scanned again.
+     */
+    private class CompatibleRequestFilter implements RequestFilter {
+        private final Set<Request> rejected = Collections.newSetFromMap(new IdentityHashMap<Request, Boolean>());
+
+        public boolean acceptRequest(Request request) {
+            if (this.rejected.contains(request)) {
+                // a new scan of the queue
+                this.rejected.clear();
+            }
+            boolean accepted = this.isCompatibleWithOlder(request) && isCompatibleWithRunning(request);
+            if (accepted) {
+                this.rejected.clear();
+            } else {
+                this.rejected.add(request);
+            }
+            return accepted;
+        }
+
+        private boolean isCompatibleWithOlder(Request request) {
+            for (Request older : this.rejected) {
+                if (!compatibility.areCompatible(request, older)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -30,21 +30,31 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.annotation.PublicAPI;
 import org.objectweb.proactive.core.ProActiveException;
 import org.objectweb.proactive.core.ProActiveTimeoutException;
 import org.objectweb.proactive.core.body.future.Future;
+import org.objectweb.proactive.core.body.future.FutureCompletionQueue;
 import org.objectweb.proactive.core.body.future.FutureMonitoring;
 import org.objectweb.proactive.core.body.future.FuturePool;
 import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
 import org.objectweb.proactive.core.mop.MOP;
 import org.objectweb.proactive.core.mop.StubObject;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 import org.objectweb.proactive.utils.TimeoutAccounter;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
 
 /**
  * This class provides wait primitives on a future or on a Vector of futures. It also provides an
@@ -359,35 +369,89 @@ public class PAFuture {
              */
             return PAFuture.INVALID_EMPTY_COLLECTION;
         }
-        FuturePool fp = PAActiveObject.getBodyOnThis().getFuturePool();
-        TimeoutAccounter time = TimeoutAccounter.getAccounter(timeout);
 
-        for (Object future : futures) {
-            if (PAFuture.isAwaited(future)) {
-                monitorFuture(future);
-            }
+        List<E> list = (futures instanceof List) ? (List<E>) futures : new ArrayList<E>(futures);
+        FutureCompletionQueue queue = new FutureCompletionQueue(list);
+        try {
+            return queue.take(timeout);
+        } catch (ProActiveTimeoutException e) {
+            throw new ProActiveException(e.getMessage(), e);
+        } finally {
+            queue.close();
         }
+    }
 
-        synchronized (fp) {
-            while (true) {
-                Iterator<E> it = futures.iterator();
-                int index = 0;
-
-                while (it.hasNext()) {
-                    Object current = it.next();
+    /**
+     * Blocks the calling thread until n futures of the list are available.
+     * 
+     * @param futures
+     *            a list of futures
+     * @param n
+     *            the number of futures to wait for
+     * @return the indexes of the n first available futures in the list, in the order they
+     *         became available
+     * @throws IllegalArgumentException
+     *             if n is negative or greater than the size of the list
+     */
+    public static List<Integer> waitForAnyN(List<?> futures, int n) {
+        try {
+            return waitForAnyN(futures, n, 0);
+        } catch (ProActiveTimeoutException e) {
+            //Exception above should never be thrown since timeout=0 means no timeout
+            logger.error("Timeout while receiving future", e);
+            return null;
+        }
+    }
 
-                    if (!PAFuture.isAwaited(current)) {
-                        return index;
-                    }
+    /**
+     * Blocks the calling thread until n futures of the list are available or until the timeout
+     * expires.
+     * 
+     * @param futures
+     *            a list of futures
+     * @param n
+     *            the number of futures to wait for
+     * @param timeout
+     *            to wait in ms
+     * @return the indexes of the n first available futures in the list, in the order they
+     *         became available
+     * @throws ProActiveTimeoutException
+     *             if the timeout expires
+     * @throws IllegalArgumentException
+     *             if n is negative or greater than the size of the list
+     */
+    public static List<Integer> waitForAnyN(List<?> futures, int n, long timeout) throws ProActiveTimeoutException {
+        if ((n < 0) || (n > futures.size())) {
+            throw new IllegalArgumentException("Cannot wait for " + n + " futures out of " + futures.size());
+        }
 
-                    index++;
-                }
+        TimeoutAccounter time = TimeoutAccounter.getAccounter(timeout);
+        FutureCompletionQueue queue = new FutureCompletionQueue(futures);
+        List<Integer> indexes = new ArrayList<Integer>(n);
+        try {
+            for (int i = 0; i < n; i++) {
                 if (time.isTimeoutElapsed()) {
-                    throw new ProActiveException("Timeout expired while waiting for future update");
+                    throw new ProActiveTimeoutException("Timeout expired while waiting for future update");
                 }
-                fp.waitForReply(time.getRemainingTimeout());
+                indexes.add(queue.take(time.getRemainingTimeout()));
             }
+        } finally {
+            queue.close();
         }
+        return indexes;
+    }
+
+    /**
+     * Return an iterator over the futures of the list, in the order they become available. Its
+     * next() method blocks the calling thread until the next future is available. Waiting for
+     * all the futures this way does not scan the list each time a future is updated.
+     * 
+     * @param futures
+     *            a list of futures
+     * @return an iterator returning the futures once available
+     */
+    public static <T> Iterator<T> inCompletionOrder(List<T> futures) {
+        return new CompletionOrderIterator<T>(futures);
     }
 
     /**
@@ -415,6 +479,114 @@ public class PAFuture {
         }
     }
 
+    /**
+     * Return a listenable view of a future. The view is completed when the future is updated,
+     * without any thread waiting for it: with the value of the future, or with the exception
+     * raised by the call. The view is completed in a shared pool of threads, so that the
+     * listeners added with a direct executor do not delay the update of other futures.
+     * This method is recursive, i.e. if the value of the future is a future too, the view is
+     * completed when this future is updated, and so on. If the parameter is not a future, the
+     * view is already completed with it.
+     * <p>
+     * The future is monitored, so the view is completed with an exception if the active object
+     * serving the call cannot be pinged.
+     * 
+     * @param future
+     *            the future to watch
+     * @return a view of the future
+     */
+    public static <T> ListenableFuture<T> toListenableFuture(T future) {
+        return toListenableFuture(future, ListenerExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Return a listenable view of a future, completed by the given executor when the future
+     * is updated.
+     * 
+     * @param future
+     *            the future to watch
+     * @param executor
+     *            the executor completing the view. A direct executor completes it in the
+     *            thread updating the future, its listeners must then not block.
+     * @return a view of the future
+     * @see #toListenableFuture(Object)
+     */
+    public static <T> ListenableFuture<T> toListenableFuture(T future, Executor executor) {
+        SettableFuture<T> view = SettableFuture.create();
+        completeWhenUpdated(view, future, executor);
+        return view;
+    }
+
+    /**
+     * Return a listenable future completed with the values of all the futures in the collection,
+     * in the same order, once they are all updated. It fails as soon as one of the calls raised
+     * an exception.
+     * 
+     * @param futures
+     *            a collection of futures
+     * @return a future of the list of values
+     * @see #toListenableFuture(Object)
+     */
+    public static <T> ListenableFuture<List<T>> allOf(Collection<? extends T> futures) {
+        return Futures.allAsList(toListenableFutures(futures));
+    }
+
+    /**
+     * Return a listenable future completed with the value of the first future updated in the
+     * collection, or with the exception raised by its call.
+     * 
+     * @param futures
+     *            a non empty collection of futures
+     * @return a future of the first value
+     * @throws IllegalArgumentException
+     *             if the collection is empty
+     * @see #toListenableFuture(Object)
+     */
+    public static <T> ListenableFuture<T> anyOf(Collection<? extends T> futures) {
+        if (futures.isEmpty()) {
+            throw new IllegalArgumentException("Cannot wait for any future of an empty collection");
+        }
+        return Futures.inCompletionOrder(toListenableFutures(futures)).get(0);
+    }
+
+    private static <T> List<ListenableFuture<T>> toListenableFutures(Collection<? extends T> futures) {
+        List<ListenableFuture<T>> views = new ArrayList<ListenableFuture<T>>(futures.size());
+        for (T future : futures) {
+            views.add(toListenableFuture(future));
+        }
+        return views;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void completeWhenUpdated(final SettableFuture<T> view, Object future,
+            final Executor executor) {
+        if (!MOP.isReifiedObject(future) || !(((StubObject) future).getProxy() instanceof FutureProxy)) {
+            view.set((T) future);
+            return;
+        }
+
+        final FutureProxy fp = (FutureProxy) ((StubObject) future).getProxy();
+        if (fp.isAwaited()) {
+            FutureMonitoring.monitorFutureProxy(fp);
+        }
+        fp.addListener(new Runnable() {
+            public void run() {
+                MethodCallResult result = fp.getMethodCallResult();
+                if (result.getException() != null) {
+                    view.setException(result.getException());
+                } else {
+                    completeWhenUpdated(view, result.getResultObjet(), executor);
+                }
+            }
+        }, executor);
+    }
+
+    /** The threads completing the listenable views of the futures, created on first use */
+    private static class ListenerExecutorHolder {
+        static final Executor EXECUTOR = Executors.newCachedThreadPool(new NamedThreadFactory("ProActive future listeners",
+                                                                                             true));
+    }
+
     /**
      * Add a future to the list of monitored future. This is automatically done when waiting a
      * future. If the active object serving the method for this future cannot be pinged, the future
@@ -431,4 +603,49 @@ public class PAFuture {
         FutureProxy fp = (FutureProxy) ((StubObject) future).getProxy();
         FutureMonitoring.monitorFutureProxy(fp);
     }
+
+    /**
+     * Iterator of {@link PAFuture#inCompletionOrder(List)}. Its queue is closed once all the
+     * futures are returned, or when the iterator is garbage collected before.
+     */
+    private static class CompletionOrderIterator<T> implements Iterator<T> {
+        private final List<T> futures;
+
+        private final FutureCompletionQueue queue;
+
+        CompletionOrderIterator(List<T> futures) {
+            this.futures = futures;
+            this.queue = new FutureCompletionQueue(futures);
+        }
+
+        public boolean hasNext() {
+            return queue.remaining() > 0;
+        }
+
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int index;
+            try {
+                index = queue.take(0);
+            } catch (ProActiveTimeoutException e) {
+                throw new IllegalStateException("Cannot happen", e);
+            }
+            if (!hasNext()) {
+                queue.close();
+            }
+            return futures.get(index);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /** The listeners hold the queue, not the iterator: an abandoned iterator can be collected */
+        @Override
+        protected void finalize() {
+            queue.close();
+        }
+    }
 }
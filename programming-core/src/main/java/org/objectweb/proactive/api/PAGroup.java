@@ -35,6 +35,7 @@ import org.objectweb.proactive.core.body.future.FutureProxy;
 import org.objectweb.proactive.core.group.DispatchMode;
 import org.objectweb.proactive.core.group.Group;
 import org.objectweb.proactive.core.group.ProxyForGroup;
+import org.objectweb.proactive.core.group.ReduceBehavior;
 import org.objectweb.proactive.core.mop.ClassNotReifiableException;
 import org.objectweb.proactive.core.mop.ConstructionOfProxyObjectFailedException;
 import org.objectweb.proactive.core.mop.ConstructionOfReifiedObjectFailedException;
@@ -1205,6 +1206,39 @@ public class PAGroup {
         }
     }
 
+    /**
+     * Sets the reduction of the results of the method calls on a group. The caller then receives
+     * a single future for the reduced result instead of a group of results, and the results are
+     * reduced as they arrive. This reduction has priority over the {@link org.objectweb.proactive.core.group.Reduce}
+     * annotation of the called methods.
+     * @param ogroup the typed group having its behavior changed
+     * @param reduction the reduction, for instance a {@link org.objectweb.proactive.core.group.ReduceMode},
+     * or null to get the results as specified by the called methods
+     */
+    public static void setReduction(Object ogroup, ReduceBehavior reduction) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroup);
+        if (proxytmp == null) {
+            throw new IllegalArgumentException("argument " + ogroup.getClass().getName() + " is not a group");
+        }
+        proxytmp.setReduction(reduction);
+    }
+
+    /**
+     * Sets the fanout of the multicast of the one-way calls on a group. Instead of sending a
+     * one-way call to every member, the caller sends it to at most <code>fanout</code> members,
+     * which forward it to the other members along a tree.
+     * @param ogroup the typed group having its behavior changed
+     * @param fanout the fanout of the multicast, 0 to send the calls to every member
+     * @see ProxyForGroup#setMulticastFanout(int)
+     */
+    public static void setMulticast(Object ogroup, int fanout) {
+        ProxyForGroup<?> proxytmp = PAGroup.findProxyForGroup(ogroup);
+        if (proxytmp == null) {
+            throw new IllegalArgumentException("argument " + ogroup.getClass().getName() + " is not a group");
+        }
+        proxytmp.setMulticastFanout(fanout);
+    }
+
     /**
      * By default, when a rendez-vous fails an exception is thrown. Instead,
      * when the automatic purge is enabled, failing objects are removed from
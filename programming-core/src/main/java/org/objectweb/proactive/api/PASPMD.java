@@ -33,6 +33,7 @@ import org.objectweb.proactive.annotation.PublicAPI;
 import org.objectweb.proactive.core.body.AbstractBody;
 import org.objectweb.proactive.core.group.Group;
 import org.objectweb.proactive.core.group.ProxyForGroup;
+import org.objectweb.proactive.core.group.spmd.BarrierAlgorithm;
 import org.objectweb.proactive.core.group.spmd.MethodCallBarrier;
 import org.objectweb.proactive.core.group.spmd.MethodCallBarrierWithMethodName;
 import org.objectweb.proactive.core.mop.ClassNotReifiableException;
@@ -386,7 +387,39 @@ public class PASPMD {
     public static void totalBarrier(String barrierName)
     // @snippet-end spmd_total_barrier
     {
-        PASPMD.neighbourBarrier(barrierName, PASPMD.getSPMDGroup());
+        AbstractBody body = (AbstractBody) PAActiveObject.getBodyOnThis();
+        PASPMD.totalBarrier(barrierName, body.getProActiveSPMDGroupManager().getBarrierAlgorithm());
+    }
+
+    /**
+     * Strongly synchronizes all the members of the spmd group, using the given algorithm.
+     * All the members must use the same algorithm for a given barrier.
+     * 
+     * @param barrierName
+     *            the name of the barrier (used as unique identifier)
+     * @param algorithm
+     *            the algorithm of the barrier
+     */
+    public static void totalBarrier(String barrierName, BarrierAlgorithm algorithm) {
+        if (algorithm == BarrierAlgorithm.ALL_TO_ALL) {
+            PASPMD.neighbourBarrier(barrierName, PASPMD.getSPMDGroup());
+        } else {
+            AbstractBody body = (AbstractBody) PAActiveObject.getBodyOnThis();
+            body.getProActiveSPMDGroupManager().enterBarrier(barrierName, algorithm, PASPMD.getMyRank());
+        }
+    }
+
+    /**
+     * Sets the algorithm used by the total barriers of the calling member of the spmd group.
+     * All the members must use the same algorithm. The default algorithm is
+     * {@link BarrierAlgorithm#ALL_TO_ALL}.
+     * 
+     * @param algorithm
+     *            the algorithm of the total barriers
+     */
+    public static void setBarrierAlgorithm(BarrierAlgorithm algorithm) {
+        AbstractBody body = (AbstractBody) PAActiveObject.getBodyOnThis();
+        body.getProActiveSPMDGroupManager().setBarrierAlgorithm(algorithm);
     }
 
     /**
@@ -28,6 +28,8 @@ package org.objectweb.proactive.core.body;
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -224,6 +226,22 @@ public abstract class AbstractBody extends AbstractUniversalBody implements Body
         }
     }
 
+    public void receiveRequests(List<Request> requests) throws java.io.IOException {
+        try {
+            this.enterInThreadStore();
+            if (this.isDead) {
+                throw new BodyTerminatedRequestException(shortString(),
+                                                         requests.isEmpty() ? null : requests.get(0).getMethodName());
+            }
+            this.registerIncomingFutures();
+            for (Request request : requests) {
+                this.internalReceiveRequest(request);
+            }
+        } finally {
+            this.exitFromThreadStore();
+        }
+    }
+
     public void receiveReply(Reply reply) throws java.io.IOException {
         // System.out.println(" --> receiveReply m="+reply.getMethodName());
         try {
@@ -431,7 +449,8 @@ public abstract class AbstractBody extends AbstractUniversalBody implements Body
     public void sendRequest(MethodCall methodCall, Future future, UniversalBody destinationBody) throws IOException {
         // Tag the outgoing request with the barrier tags
         if (!this.spmdManager.isTagsListEmpty()) {
-            methodCall.setBarrierTags(this.spmdManager.getBarrierTags());
+            // a copy, since the tags of this body change when its barriers are released
+            methodCall.setBarrierTags(new LinkedList<String>(this.spmdManager.getBarrierTags()));
         }
         this.localBodyStrategy.sendRequest(methodCall, future, destinationBody);
     }
@@ -54,7 +54,9 @@ import org.objectweb.proactive.core.body.tags.MessageTags;
 import org.objectweb.proactive.core.body.tags.Tag;
 import org.objectweb.proactive.core.body.tags.tag.DsiTag;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.group.MethodCallMulticast;
 import org.objectweb.proactive.core.jmx.mbean.BodyWrapper;
+import org.objectweb.proactive.core.jmx.mbean.BodyWrapperMBean;
 import org.objectweb.proactive.core.jmx.naming.FactoryName;
 import org.objectweb.proactive.core.jmx.notification.NotificationType;
 import org.objectweb.proactive.core.jmx.notification.RequestNotificationData;
@@ -119,6 +121,9 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
     // already checked methods
     private HashMap<String, HashSet<List<Class<?>>>> checkedMethodNames;
 
+    // forwards the multicast calls relayed by this body, created on first use
+    private transient MethodCallMulticast.Relay multicastRelay;
+
     //
     // -- CONSTRUCTORS -----------------------------------------------
     //
@@ -179,6 +184,13 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
     // -- PROTECTED METHODS -----------------------------------------------
     //
 
+    private synchronized MethodCallMulticast.Relay getMulticastRelay() {
+        if (this.multicastRelay == null) {
+            this.multicastRelay = new MethodCallMulticast.Relay();
+        }
+        return this.multicastRelay;
+    }
+
     /**
      * Receives a request for later processing. The call to this method is non blocking unless the
      * body cannot temporary receive the request.
@@ -188,8 +200,13 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
      */
     @Override
     protected void internalReceiveRequest(Request request) throws java.io.IOException {
+        if (request.getMethodCall() instanceof MethodCallMulticast) {
+            // forward the call to the subtree of this member, and serve the original call
+            request = ((MethodCallMulticast) request.getMethodCall()).relay(request, getMulticastRelay());
+        }
+
         // JMX Notification
-        if (!isProActiveInternalObject && (this.mbean != null)) {
+        if (hasNotificationListeners()) {
             String tagNotification = createTagNotification(request.getTags());
             RequestNotificationData requestNotificationData = new RequestNotificationData(request.getSourceBodyID(),
                                                                                           request.getSenderNodeURL(),
@@ -219,7 +236,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
     @Override
     protected void internalReceiveReply(Reply reply) throws java.io.IOException {
         // JMX Notification
-        if (!isProActiveInternalObject && (this.mbean != null) && reply.getResult().getException() == null) {
+        if (hasNotificationListeners() && reply.getResult().getException() == null) {
             String tagNotification = createTagNotification(reply.getTags());
             RequestNotificationData requestNotificationData = new RequestNotificationData(BodyImpl.this.bodyID,
                                                                                           BodyImpl.this.getNodeURL(),
@@ -246,6 +263,11 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
     protected void activityStopped(boolean completeACs) {
         super.activityStopped(completeACs);
 
+        // Sends the one-way requests still kept by the request batcher
+        if (this.localBodyStrategy instanceof ActiveLocalBodyStrategy) {
+            ((ActiveLocalBodyStrategy) this.localBodyStrategy).flushBatchedRequests();
+        }
+
         // Copies the requests to the remaining request queue of inactive body
         // because they are removed once the localBodyStrategy is changed
         RequestQueue queue = new RequestQueueImpl(getID());
@@ -409,6 +431,12 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
         }
     }
 
+    // Whether a JMX notification has someone to be delivered to, so that its data is only built when needed
+    private boolean hasNotificationListeners() {
+        BodyWrapperMBean wrapper = this.mbean;
+        return !isProActiveInternalObject && (wrapper != null) && wrapper.hasNotificationListeners();
+    }
+
     // Create the string from tag data for the notification
     private String createTagNotification(MessageTags tags) {
         String result = "";
@@ -443,6 +471,11 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
 
         private long absoluteSequenceID;
 
+        /**
+         * Coalesces the one-way requests sent to remote bodies, null if request batching is disabled
+         */
+        private transient RequestBatcher requestBatcher;
+
         //
         // -- CONSTRUCTORS -----------------------------------------------
         //
@@ -452,6 +485,9 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
             this.futures = new FuturePool();
             this.requestQueue = requestQueue;
             this.internalRequestFactory = requestFactory;
+            if (CentralPAPropertyRepository.PA_REQUEST_BATCHING.isTrue()) {
+                this.requestBatcher = new RequestBatcher();
+            }
         }
 
         //
@@ -479,13 +515,13 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
          * not ensured for custom calls on serve.
          */
         public void serve(Request request) {
-            // push the new context
-            LocalBodyStore.getInstance().pushContext(new Context(BodyImpl.this, request));
+            // push the new context, the Context object itself is only created if requested
+            LocalBodyStore.getInstance().pushContext(BodyImpl.this, request);
 
             try {
                 serveInternal(request, null);
             } finally {
-                LocalBodyStore.getInstance().popContext();
+                LocalBodyStore.getInstance().dropContext();
             }
         }
 
@@ -496,13 +532,13 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
          * not ensured for custom calls on serve.
          */
         public void serveWithException(Request request, Throwable exception) {
-            // push the new context
-            LocalBodyStore.getInstance().pushContext(new Context(BodyImpl.this, request));
+            // push the new context, the Context object itself is only created if requested
+            LocalBodyStore.getInstance().pushContext(BodyImpl.this, request);
 
             try {
                 serveInternal(request, exception);
             } finally {
-                LocalBodyStore.getInstance().popContext();
+                LocalBodyStore.getInstance().dropContext();
             }
         }
 
@@ -512,7 +548,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
             }
 
             // JMX Notification
-            if (!isProActiveInternalObject && (mbean != null)) {
+            if (hasNotificationListeners()) {
                 String tagNotification = createTagNotification(request.getTags());
                 RequestNotificationData data = new RequestNotificationData(request.getSourceBodyID(),
                                                                            request.getSenderNodeURL(),
@@ -569,7 +605,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
                 }
 
                 // JMX Notification
-                if (!isProActiveInternalObject && (mbean != null)) {
+                if (hasNotificationListeners()) {
                     String tagNotification = createTagNotification(request.getTags());
                     RequestNotificationData data = new RequestNotificationData(request.getSourceBodyID(),
                                                                                request.getSenderNodeURL(),
@@ -587,7 +623,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
             }
 
             // JMX Notification
-            if (!isProActiveInternalObject && (mbean != null) && reply.getResult().getException() == null) {
+            if (hasNotificationListeners() && reply.getResult().getException() == null) {
                 String tagNotification = createTagNotification(request.getTags());
                 RequestNotificationData data = new RequestNotificationData(request.getSourceBodyID(),
                                                                            request.getSenderNodeURL(),
@@ -706,7 +742,7 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
             // TODO Write this section, after the commit of Arnaud
             // TODO Send a notification only if the destination doesn't
             // implement ProActiveInternalObject
-            if (!isProActiveInternalObject && (mbean != null)) {
+            if (hasNotificationListeners()) {
                 ServerConnector serverConnector = ProActiveRuntimeImpl.getProActiveRuntime().getJMXServerConnector();
 
                 // If the connector server is not active the connectorID can be
@@ -732,7 +768,24 @@ public abstract class BodyImpl extends AbstractBody implements java.io.Serializa
 
             // END JMX Notification
 
-            request.send(destinationBody);
+            if (this.requestBatcher != null) {
+                this.requestBatcher.send(request, destinationBody);
+            } else {
+                request.send(destinationBody);
+            }
+        }
+
+        /**
+         * Sends the one-way requests kept by the request batcher, if any
+         */
+        public void flushBatchedRequests() {
+            if (this.requestBatcher != null) {
+                try {
+                    this.requestBatcher.flush();
+                } catch (IOException e) {
+                    bodyLogger.warn("Failed to send the batched one-way requests of " + BodyImpl.this.bodyID, e);
+                }
+            }
         }
 
         /**
@@ -0,0 +1,144 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body;
+
+import java.util.Arrays;
+
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.core.body.request.Request;
+
+
+/**
+ * The stack of execution contexts of a thread, see {@link LocalBodyStore}.
+ * <p>
+ * A stack is only ever accessed by its own thread, so unlike {@link java.util.Stack} it is not
+ * synchronized. Frames are kept as a body and a request, the {@link Context} object of a frame
+ * is only created the first time someone asks for it, then kept for the lifetime of the frame.
+ * Serving a request that never looks at its context thus does not allocate anything once the
+ * stack has grown to its working depth.
+ *
+ * @author The ProActive Team
+ */
+class ContextStack {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private Body[] bodies = new Body[INITIAL_CAPACITY];
+
+    private Request[] requests = new Request[INITIAL_CAPACITY];
+
+    /** The contexts already handed out, null for the frames nobody has looked at */
+    private Context[] contexts = new Context[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Pushes an existing context.
+     * @param context the new current context
+     */
+    void push(Context context) {
+        push(context.getBody(), context.getCurrentRequest(), context);
+    }
+
+    /**
+     * Pushes a new frame without creating its context.
+     * @param body the body associated to the frame
+     * @param request the currently served request, null if any
+     */
+    void push(Body body, Request request) {
+        push(body, request, null);
+    }
+
+    private void push(Body body, Request request, Context context) {
+        if (this.size == this.bodies.length) {
+            int capacity = this.size * 2;
+            this.bodies = Arrays.copyOf(this.bodies, capacity);
+            this.requests = Arrays.copyOf(this.requests, capacity);
+            this.contexts = Arrays.copyOf(this.contexts, capacity);
+        }
+        this.bodies[this.size] = body;
+        this.requests[this.size] = request;
+        this.contexts[this.size] = context;
+        this.size++;
+    }
+
+    /**
+     * Removes the current frame and returns its context.
+     * @return the context of the removed frame, null if the stack was empty
+     */
+    Context pop() {
+        if (this.size == 0) {
+            return null;
+        }
+        Context context = peek();
+        drop();
+        return context;
+    }
+
+    /**
+     * Removes the current frame without creating its context.
+     */
+    void drop() {
+        if (this.size > 0) {
+            this.size--;
+            // let the gc collect what the frame referenced
+            this.bodies[this.size] = null;
+            this.requests[this.size] = null;
+            this.contexts[this.size] = null;
+        }
+    }
+
+    /**
+     * @return the context of the current frame, null if the stack is empty
+     */
+    Context peek() {
+        if (this.size == 0) {
+            return null;
+        }
+        int top = this.size - 1;
+        Context context = this.contexts[top];
+        if (context == null) {
+            context = new Context(this.bodies[top], this.requests[top]);
+            this.contexts[top] = context;
+        }
+        return context;
+    }
+
+    /**
+     * @return the body of the current frame, null if the stack is empty
+     */
+    Body peekBody() {
+        return (this.size == 0) ? null : this.bodies[this.size - 1];
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.api.PALifeCycle;
 import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.request.Request;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.jmx.mbean.ProActiveRuntimeWrapperMBean;
 import org.objectweb.proactive.core.jmx.notification.BodyNotificationData;
@@ -104,7 +105,7 @@ public class LocalBodyStore {
     /**
      * Executions context associated to the calling thread.
      */
-    private ThreadLocal<Stack<Context>> contexts = new ThreadLocal<Stack<Context>>();
+    private ThreadLocal<ContextStack> contexts = new ThreadLocal<ContextStack>();
 
     //
     // -- CONSTRUCTORS -----------------------------------------------
@@ -144,16 +145,19 @@ public class LocalBodyStore {
      * @see org.objectweb.proactive.core.body.Context
      */
     public void pushContext(Context c) {
-        Stack<Context> s = this.contexts.get();
-        if (s == null) {
-            // cannot use initValue method
-            // see getContext()
-            s = new Stack<Context>();
-            s.push(c);
-            this.contexts.set(s);
-        } else {
-            s.push(c);
-        }
+        getContextStack().push(c);
+    }
+
+    /**
+     * Push a new context for the calling thread without creating the Context object, which
+     * is only built if someone asks for it while the context is current. Used on the serving
+     * path, where most requests never look at their context.
+     * @param body the body associated to the new context
+     * @param currentRequest the currently served request, null if any
+     * @see #dropContext()
+     */
+    void pushContext(Body body, Request currentRequest) {
+        getContextStack().push(body, currentRequest);
     }
 
     /**
@@ -163,23 +167,39 @@ public class LocalBodyStore {
      * @see org.objectweb.proactive.core.body.Context
      */
     public Context popContext() {
-        Stack<Context> stack = this.contexts.get();
+        ContextStack stack = this.contexts.get();
         return stack != null ? stack.pop() : null;
     }
 
+    /**
+     * Pop the current context without returning it.
+     * @see #pushContext(Body, Request)
+     */
+    void dropContext() {
+        ContextStack stack = this.contexts.get();
+        if (stack != null) {
+            stack.drop();
+        }
+    }
+
     public boolean isInAo() {
-        Stack<Context> sc = contexts.get();
-        if (sc != null) {
-            try {
-                UniqueID id = sc.peek().getBody().getID();
-                return LocalBodyStore.getInstance().getLocalBody(id) != null;
-            } catch (EmptyStackException e) {
-                logger.warn("Contexts stack was empty", e);
-                return false;
-            }
-        } else {
+        ContextStack stack = contexts.get();
+        if ((stack == null) || stack.isEmpty()) {
             return false;
         }
+        UniqueID id = stack.peekBody().getID();
+        return LocalBodyStore.getInstance().getLocalBody(id) != null;
+    }
+
+    private ContextStack getContextStack() {
+        ContextStack stack = this.contexts.get();
+        if (stack == null) {
+            // cannot use initValue method
+            // see getContext()
+            stack = new ContextStack();
+            this.contexts.set(stack);
+        }
+        return stack;
     }
 
     /**
@@ -191,7 +211,7 @@ public class LocalBodyStore {
      * @see org.objectweb.proactive.core.body.Context
      */
     public Context getContext() {
-        Stack<Context> s = this.contexts.get();
+        ContextStack s = this.contexts.get();
 
         // Note that the stack could have been created while being empty for RMI thread that have
         // performed immediate services.
@@ -200,7 +220,7 @@ public class LocalBodyStore {
             // is not the one from an active object. Therefore in this case we create an HalfBody
             // that handle the futures, and push a new context for this HalfBody.
             HalfBody body = HalfBody.getHalfBody(this.getHalfBodyMetaObjectFactory());
-            s = ((s == null) ? new Stack<Context>() : s);
+            s = ((s == null) ? new ContextStack() : s);
             Context c = new Context(body, null);
             s.push(c);
             this.contexts.set(s);
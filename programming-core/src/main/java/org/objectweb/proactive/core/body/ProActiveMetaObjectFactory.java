@@ -42,6 +42,7 @@ import org.objectweb.proactive.core.body.request.RequestReceiver;
 import org.objectweb.proactive.core.body.request.RequestReceiverFactory;
 import org.objectweb.proactive.core.body.tags.MessageTags;
 import org.objectweb.proactive.core.body.tags.MessageTagsFactory;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.group.spmd.ProActiveSPMDGroupManager;
 import org.objectweb.proactive.core.group.spmd.ProActiveSPMDGroupManagerFactory;
 import org.objectweb.proactive.core.mop.MethodCall;
@@ -255,6 +256,9 @@ public class ProActiveMetaObjectFactory implements MetaObjectFactory, java.io.Se
     // end inner class RequestReceiverFactoryImpl
     protected class RequestQueueFactoryImpl implements RequestQueueFactory, java.io.Serializable {
         public BlockingRequestQueue newRequestQueue(UniqueID ownerID) {
+            if (CentralPAPropertyRepository.PA_REQUEST_QUEUE_CONCURRENT.isTrue()) {
+                return new org.objectweb.proactive.core.body.request.ConcurrentBlockingRequestQueueImpl(ownerID);
+            }
             return new org.objectweb.proactive.core.body.request.BlockingRequestQueueImpl(ownerID);
         }
     }
@@ -27,6 +27,7 @@ package org.objectweb.proactive.core.body;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveException;
@@ -63,6 +64,14 @@ public interface UniversalBody extends Serializable {
      */
     public void receiveRequest(Request request) throws java.io.IOException;
 
+    /**
+     * Receives several requests sent by the same body, in the order of the list. This is
+     * equivalent to receiving each request with {@link #receiveRequest(Request)}, in a single call.
+     * @param requests the requests to process
+     * @exception java.io.IOException if the requests cannot be accepted
+     */
+    public void receiveRequests(List<Request> requests) throws java.io.IOException;
+
     /**
      * Receives a reply in response to a former request.
      * @param r the reply received
@@ -26,6 +26,7 @@
 package org.objectweb.proactive.core.body;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.objectweb.proactive.core.ProActiveException;
 import org.objectweb.proactive.core.UniqueID;
@@ -129,6 +130,10 @@ public class UniversalBodyRemoteObjectAdapter extends Adapter<UniversalBody> imp
         target.receiveRequest(request);
     }
 
+    public void receiveRequests(List<Request> requests) throws IOException {
+        target.receiveRequests(requests);
+    }
+
     public String registerByName(String name, boolean rebind) throws IOException, ProActiveException {
         return target.registerByName(name, rebind);
     }
@@ -0,0 +1,179 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.future;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.proactive.core.ProActiveTimeoutException;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.StubObject;
+import org.objectweb.proactive.utils.TimeoutAccounter;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+
+/**
+ * Delivers the indexes of the futures of a list in the order the futures are updated.
+ * <p>
+ * Each future of the list pushes its index in the queue when it is updated, so taking the
+ * next updated future does not scan the list. The futures already updated when the queue is
+ * created are delivered first, by increasing index. As for {@link org.objectweb.proactive.api.PAFuture#isAwaited(Object)},
+ * a future whose value is a future is considered as updated once this future is updated.
+ * Values that are not futures are delivered as updated futures.
+ * <p>
+ * A queue which is not needed anymore before all the futures are updated must be closed, so
+ * that the futures do not keep notifying it.
+ */
+public class FutureCompletionQueue {
+
+    /** The indexes of the updated futures not taken yet */
+    private final ArrayDeque<Integer> updated;
+
+    /** The number of indexes not taken yet */
+    private int remaining;
+
+    /** The listeners registered on the futures not updated yet, by index */
+    private final Map<Integer, Registration> registrations;
+
+    /** True once closed, futures are not registered anymore */
+    private boolean closed;
+
+    public FutureCompletionQueue(List<?> futures) {
+        this.updated = new ArrayDeque<Integer>();
+        this.registrations = new HashMap<Integer, Registration>();
+        this.remaining = futures.size();
+        int index = 0;
+        for (Object future : futures) {
+            this.register(index++, future);
+        }
+    }
+
+    /**
+     * Returns the index of the next updated future, blocking until a future is updated
+     * or the timeout expires.
+     *
+     * @param timeout to wait in ms, 0 means no timeout
+     * @return the index of the next updated future in the list
+     * @throws ProActiveTimeoutException if the timeout expires
+     * @throws IllegalStateException if the indexes of all the futures have been taken
+     */
+    public synchronized int take(long timeout) throws ProActiveTimeoutException {
+        if (this.remaining == 0) {
+            throw new IllegalStateException("All the futures have already been taken");
+        }
+
+        TimeoutAccounter time = TimeoutAccounter.getAccounter(timeout);
+        while (this.updated.isEmpty()) {
+            if (time.isTimeoutElapsed()) {
+                throw new ProActiveTimeoutException("Timeout expired while waiting for future update");
+            }
+            try {
+                this.wait(time.getRemainingTimeout());
+            } catch (InterruptedException e) {
+                FutureProxy.logger.debug(e);
+            }
+        }
+
+        this.remaining--;
+        return this.updated.poll();
+    }
+
+    /**
+     * @return the number of futures whose index has not been taken yet
+     */
+    public synchronized int remaining() {
+        return this.remaining;
+    }
+
+    /**
+     * Removes the listeners registered on the futures not updated yet. The indexes of these
+     * futures will not be delivered anymore.
+     */
+    public void close() {
+        Registration[] pending;
+        synchronized (this) {
+            this.closed = true;
+            pending = this.registrations.values().toArray(new Registration[this.registrations.size()]);
+            this.registrations.clear();
+        }
+        for (Registration r : pending) {
+            r.future.removeListener(r.listener);
+        }
+    }
+
+    private synchronized void push(int index) {
+        if (this.closed) {
+            return;
+        }
+        this.registrations.remove(index);
+        this.updated.add(index);
+        this.notifyAll();
+    }
+
+    private void register(final int index, Object future) {
+        if (!MOP.isReifiedObject(future) || !(((StubObject) future).getProxy() instanceof FutureProxy)) {
+            this.push(index);
+            return;
+        }
+
+        final FutureProxy fp = (FutureProxy) ((StubObject) future).getProxy();
+        // Only pushes an index, so it can be run by the thread updating the future
+        Runnable listener = new Runnable() {
+            public void run() {
+                register(index, fp.getMethodCallResult().getResultObjet());
+            }
+        };
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.registrations.put(index, new Registration(fp, listener));
+        }
+        FutureMonitoring.monitorFutureProxy(fp);
+        fp.addListener(listener, MoreExecutors.directExecutor());
+        synchronized (this) {
+            if (!this.closed) {
+                return;
+            }
+        }
+        // closed before the listener was added, close() could not remove it
+        fp.removeListener(listener);
+    }
+
+    private static class Registration {
+        private final FutureProxy future;
+
+        private final Runnable listener;
+
+        Registration(FutureProxy future, Runnable listener) {
+            this.future = future;
+            this.listener = listener;
+        }
+    }
+}
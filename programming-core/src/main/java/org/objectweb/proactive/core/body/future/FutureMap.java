@@ -26,32 +26,50 @@
 package org.objectweb.proactive.core.body.future;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import org.objectweb.proactive.core.ProActiveRuntimeException;
 import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.util.LongObjectHashMap;
 
 
 /**
  * Data structure which stores futures and corresponding automatic continuation to do.
  * This map is like :
  * [creatorID --> [sequenceID --> FuturesAndACs]]
+ * <p>
+ * Creators are spread over several stripes, each one guarded by its own lock, so that
+ * replies to futures created by different bodies do not contend. Sequence ids are
+ * stored as primitive keys. Callers needing several operations on the futures of a
+ * creator to be atomic hold the lock returned by {@link #getLock(UniqueID)}.
  * @see FuturePool
  * @see FutureProxy
  */
 public class FutureMap extends Object implements java.io.Serializable {
-    // main map
-    private Map<UniqueID, HashMap<Long, FuturesAndACs>> indexedByBodyID;
+    // must be a power of two
+    private static final int STRIPES = 16;
+
+    // main map, split by creatorID
+    private final Stripe[] stripes;
 
     //
     // -- CONSTRUCTORS -----------------------------------------------
     //
     public FutureMap() {
-        indexedByBodyID = new java.util.HashMap<UniqueID, HashMap<Long, FuturesAndACs>>();
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Return the lock guarding the futures created by creatorID.
+     * @param creatorID UniqueID of the creator body of the futures
+     */
+    public Object getLock(UniqueID creatorID) {
+        return stripeFor(creatorID);
     }
 
     /**
@@ -61,18 +79,21 @@ public class FutureMap extends Object implements java.io.Serializable {
      * @param creatorID UniqueID of the creator body of the future
      * @param bodyDest body which receives the future (id, bodyID)
      */
-    public synchronized void addAutomaticContinuation(long id, UniqueID creatorID, UniversalBody bodyDest) {
-        java.util.HashMap<Long, FuturesAndACs> indexedByID = (indexedByBodyID.get(creatorID));
-        if (indexedByID == null) {
-            throw new ProActiveRuntimeException("There is no map for creatorID " + creatorID);
-        }
-        FuturesAndACs listes = indexedByID.get(Long.valueOf(id));
+    public void addAutomaticContinuation(long id, UniqueID creatorID, UniversalBody bodyDest) {
+        Stripe stripe = stripeFor(creatorID);
+        synchronized (stripe) {
+            LongObjectHashMap<FuturesAndACs> indexedByID = stripe.indexedByBodyID.get(creatorID);
+            if (indexedByID == null) {
+                throw new ProActiveRuntimeException("There is no map for creatorID " + creatorID);
+            }
+            FuturesAndACs listes = indexedByID.get(id);
 
-        // add bodyDest to the list of dest for future (id, bodyID)
-        if (listes != null) {
-            listes.addDestinationsAC(bodyDest);
-        } else {
-            throw new ProActiveRuntimeException("There is no list for future " + id);
+            // add bodyDest to the list of dest for future (id, bodyID)
+            if (listes != null) {
+                listes.addDestinationsAC(bodyDest);
+            } else {
+                throw new ProActiveRuntimeException("There is no list for future " + id);
+            }
         }
     }
 
@@ -81,31 +102,28 @@ public class FutureMap extends Object implements java.io.Serializable {
      * exists, because a body can have multiple copies of the same future.
      * @param futureObject future to register
      */
-    public synchronized void receiveFuture(Future futureObject) {
+    public void receiveFuture(Future futureObject) {
         long id = futureObject.getID();
         UniqueID creatorID = futureObject.getCreatorID();
-        java.util.HashMap<Long, FuturesAndACs> indexedByID = indexedByBodyID.get(creatorID);
-
-        // entry does not exist
-        if (indexedByID == null) {
-            //sub-map
-            java.util.HashMap<Long, FuturesAndACs> newIndexedByID = new java.util.HashMap<Long, FuturesAndACs>();
+        Stripe stripe = stripeFor(creatorID);
+        synchronized (stripe) {
+            LongObjectHashMap<FuturesAndACs> indexedByID = stripe.indexedByBodyID.get(creatorID);
 
-            FuturesAndACs newf = new FuturesAndACs();
-            newf.addFuture(futureObject);
-            newIndexedByID.put(Long.valueOf(id), newf);
-            indexedByBodyID.put(creatorID, newIndexedByID);
-        }
-        // entry for creatorID exists, but there is no sub-entry for id
-        else if (indexedByID.get(Long.valueOf(id)) == null) {
-            //list of futures
-            FuturesAndACs newf = new FuturesAndACs();
-            newf.addFuture(futureObject);
-            indexedByID.put(Long.valueOf(id), newf);
-        }
-        // one copy of an existing future
-        else {
-            ((indexedByID.get(Long.valueOf(id)))).addFuture(futureObject);
+            // entry does not exist
+            if (indexedByID == null) {
+                //sub-map
+                indexedByID = new LongObjectHashMap<FuturesAndACs>();
+                stripe.indexedByBodyID.put(creatorID, indexedByID);
+            }
+            FuturesAndACs listes = indexedByID.get(id);
+            // there is no sub-entry for id
+            if (listes == null) {
+                //list of futures
+                listes = new FuturesAndACs();
+                indexedByID.put(id, listes);
+            }
+            // add the future, which may be one copy of an existing future
+            listes.addFuture(futureObject);
         }
     }
 
@@ -114,17 +132,9 @@ public class FutureMap extends Object implements java.io.Serializable {
      * @param id sequence id of the future
      * @param creatorID UniqueID of the creator body of the future
      */
-    public synchronized ArrayList<Future> getFuturesToUpdate(long id, UniqueID creatorID) {
-        java.util.HashMap<Long, FuturesAndACs> indexedByID = (indexedByBodyID.get(creatorID));
-        ArrayList<Future> result = null;
-
-        if (indexedByID != null) {
-            FuturesAndACs listes = indexedByID.get(Long.valueOf(id));
-            if (listes != null) {
-                result = listes.getFutures();
-            }
-        }
-        return result;
+    public ArrayList<Future> getFuturesToUpdate(long id, UniqueID creatorID) {
+        FuturesAndACs listes = get(id, creatorID);
+        return (listes != null) ? listes.getFutures() : null;
     }
 
     /**
@@ -132,16 +142,9 @@ public class FutureMap extends Object implements java.io.Serializable {
      * @param id sequence id of the future
      * @param bodyID UniqueID of the creator body of the future
      */
-    public synchronized ArrayList<UniversalBody> getAutomaticContinuation(long id, UniqueID bodyID) {
-        java.util.HashMap<Long, FuturesAndACs> indexedByID = (indexedByBodyID.get(bodyID));
-        ArrayList<UniversalBody> result = null;
-        if (indexedByID != null) {
-            FuturesAndACs listes = indexedByID.get(Long.valueOf(id));
-            if (listes != null) {
-                result = listes.getDestinationsAC();
-            }
-        }
-        return result;
+    public ArrayList<UniversalBody> getAutomaticContinuation(long id, UniqueID bodyID) {
+        FuturesAndACs listes = get(id, bodyID);
+        return (listes != null) ? listes.getDestinationsAC() : null;
     }
 
     /**
@@ -149,15 +152,15 @@ public class FutureMap extends Object implements java.io.Serializable {
      * @return true if some ACs are remaining is this futuremap, false otherwise.
      */
     public boolean remainingAC() {
-        Iterator<UniqueID> itAll = this.indexedByBodyID.keySet().iterator();
-        while (itAll.hasNext()) {
-            Map<Long, FuturesAndACs> currentMap = this.indexedByBodyID.get(itAll.next());
-            Iterator<Long> itCur = currentMap.keySet().iterator();
-            while (itCur.hasNext()) {
-                FuturesAndACs curFAC = currentMap.get(itCur.next());
-                if (curFAC.getDestinationsAC() != null) {
-                    if (curFAC.getDestinationsAC().size() != 0) {
-                        return true;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (LongObjectHashMap<FuturesAndACs> currentMap : stripe.indexedByBodyID.values()) {
+                    for (FuturesAndACs curFAC : currentMap.values()) {
+                        if (curFAC.getDestinationsAC() != null) {
+                            if (curFAC.getDestinationsAC().size() != 0) {
+                                return true;
+                            }
+                        }
                     }
                 }
             }
@@ -170,12 +173,15 @@ public class FutureMap extends Object implements java.io.Serializable {
      * @param id sequence id of the future
      * @param creatorID UniqueID of the creator body of the future
      */
-    public synchronized void removeFutures(long id, UniqueID creatorID) {
-        java.util.HashMap<Long, FuturesAndACs> indexedByID = (indexedByBodyID.get(creatorID));
-        if (indexedByID != null) {
-            indexedByID.remove(Long.valueOf(id));
-            if (indexedByID.size() == 0) {
-                indexedByBodyID.remove(creatorID);
+    public void removeFutures(long id, UniqueID creatorID) {
+        Stripe stripe = stripeFor(creatorID);
+        synchronized (stripe) {
+            LongObjectHashMap<FuturesAndACs> indexedByID = stripe.indexedByBodyID.get(creatorID);
+            if (indexedByID != null) {
+                indexedByID.remove(id);
+                if (indexedByID.isEmpty()) {
+                    stripe.indexedByBodyID.remove(creatorID);
+                }
             }
         }
     }
@@ -184,30 +190,48 @@ public class FutureMap extends Object implements java.io.Serializable {
      * Set the copy tag in all futures of the map.
      * @see FutureProxy
      */
-    public synchronized void setCopyMode(boolean mode) {
-        Collection<HashMap<Long, FuturesAndACs>> c1 = indexedByBodyID.values();
-        Iterator<HashMap<Long, FuturesAndACs>> it1 = c1.iterator();
-        while (it1.hasNext()) {
-            Collection<FuturesAndACs> c2 = (it1.next()).values();
-            Iterator<FuturesAndACs> it2 = c2.iterator();
-            while (it2.hasNext()) {
-                FuturesAndACs listes = it2.next();
-                Iterator<Future> itFutures = listes.getFutures().iterator();
-                while (itFutures.hasNext()) {
-                    Future f = itFutures.next();
-                    f.setCopyMode(mode);
+    public void setCopyMode(boolean mode) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (LongObjectHashMap<FuturesAndACs> currentMap : stripe.indexedByBodyID.values()) {
+                    for (FuturesAndACs listes : currentMap.values()) {
+                        for (Future f : listes.getFutures()) {
+                            f.setCopyMode(mode);
+                        }
+                    }
                 }
             }
         }
     }
 
+    private FuturesAndACs get(long id, UniqueID creatorID) {
+        Stripe stripe = stripeFor(creatorID);
+        synchronized (stripe) {
+            LongObjectHashMap<FuturesAndACs> indexedByID = stripe.indexedByBodyID.get(creatorID);
+            return (indexedByID != null) ? indexedByID.get(id) : null;
+        }
+    }
+
+    private Stripe stripeFor(UniqueID creatorID) {
+        int h = creatorID.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    /**
+     * Futures of the creators mapped to one stripe
+     */
+    private static class Stripe implements java.io.Serializable {
+        private final Map<UniqueID, LongObjectHashMap<FuturesAndACs>> indexedByBodyID = new HashMap<UniqueID, LongObjectHashMap<FuturesAndACs>>();
+    }
+
     /**
      * Simple container for futures and automatic continuations (i.e. destination bodies)
      * for a given future's unique id (i.e. [CreatorID,SequenceID])
      * @author The ProActive Team
      * @since 3.2
      */
-    private class FuturesAndACs {
+    private static class FuturesAndACs implements java.io.Serializable {
         // futures
         private ArrayList<Future> futures;
 
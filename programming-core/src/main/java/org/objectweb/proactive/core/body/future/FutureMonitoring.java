@@ -25,10 +25,18 @@
  */
 package org.objectweb.proactive.core.body.future;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveRuntimeException;
@@ -36,17 +44,34 @@ import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.body.exceptions.FutureMonitoringPingFailureException;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.runtime.ProActiveRuntime;
+import org.objectweb.proactive.core.runtime.RuntimeFactory;
 import org.objectweb.proactive.core.util.ActiveObjectLocationInfo;
 import org.objectweb.proactive.core.util.HeartbeatResponse;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 
 
+/**
+ * Pings the active objects awaited by futures, to update these futures with an exception
+ * when an active object cannot be reached anymore.
+ * <p>
+ * The monitored active objects are pinged every TTM, grouped by runtime: a single message
+ * pings all the active objects of a runtime. Runtimes are pinged concurrently, so that a
+ * slow or unreachable runtime does not delay the monitoring of the others.
+ */
 public class FutureMonitoring implements Runnable {
 
-    /** Ping one body every 15s */
+    /** Ping every body every 15s */
     private static int TTM = 15000;
 
+    /** Pings not answered within this delay fail, 0 to never time out */
+    private static final int PING_TIMEOUT = CentralPAPropertyRepository.PA_FUTUREMONITORING_PING_TIMEOUT.getValue();
+
+    /** Runs the pings of the runtimes */
+    private static ThreadPoolExecutor pingers;
+
     /**
      * For each body, the list of futures to monitor. We ping the updater body,
      * so we should detect a broken automatic continuations chain.
@@ -55,6 +80,12 @@ public class FutureMonitoring implements Runnable {
 
     private static final ConcurrentHashMap<UniqueID, String> nodeUrls = new ConcurrentHashMap<>();
 
+    /** The runtime of each node hosting monitored bodies, once looked up */
+    private static final ConcurrentHashMap<String, MonitoredRuntime> runtimes = new ConcurrentHashMap<>();
+
+    /** The pings in progress, by target. A target is not pinged again before its ping is over */
+    private static final ConcurrentHashMap<String, RuntimePing> pingsInProgress = new ConcurrentHashMap<>();
+
     static final Logger logger = ProActiveLogger.getLogger(Loggers.CORE);
     static {
 
@@ -71,6 +102,14 @@ public class FutureMonitoring implements Runnable {
         }
 
         if (TTM > 0) {
+            int threads = CentralPAPropertyRepository.PA_FUTUREMONITORING_THREADS.getValue();
+            pingers = new ThreadPoolExecutor(threads,
+                                             threads,
+                                             60,
+                                             TimeUnit.SECONDS,
+                                             new LinkedBlockingQueue<Runnable>(),
+                                             new NamedThreadFactory("ProActive future monitoring pings", true));
+            pingers.allowCoreThreadTimeOut(true);
             Thread t = new Thread(new FutureMonitoring(), "Monitoring the Futures");
             t.setDaemon(true);
             t.start();
@@ -156,15 +195,126 @@ public class FutureMonitoring implements Runnable {
     }
 
     /**
-     * Arrange to ping a single body every TTM
+     * Updates all the awaited futures of a body with an exception
+     */
+    private static void failFutures(UniqueID bodyId, FutureMonitoringPingFailureException bodyException) {
+        Collection<FutureProxy> futures = futuresToMonitor.get(bodyId);
+        if (futures != null) {
+            for (FutureProxy fp : futures) {
+                synchronized (fp) {
+                    if (fp.isAwaited()) {
+                        fp.receiveReply(new MethodCallResult(null, bodyException));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepares the pings of all the monitored bodies, one per runtime, or one per node while
+     * the runtime of the node is not known yet
+     */
+    static Collection<RuntimePing> preparePings() {
+        Map<String, RuntimePing> pings = new HashMap<>();
+        for (UniqueID bodyId : futuresToMonitor.keySet()) {
+            String nodeUrl = nodeUrls.get(bodyId);
+            if (nodeUrl == null) {
+                continue;
+            }
+            MonitoredRuntime runtime = runtimes.get(nodeUrl);
+            String target = (runtime != null) ? runtime.url : nodeUrl;
+            RuntimePing ping = pings.get(target);
+            if (ping == null) {
+                ping = new RuntimePing(target, nodeUrl);
+                pings.put(target, ping);
+            }
+            ping.bodyIds.add(bodyId);
+        }
+        return pings.values();
+    }
+
+    /**
+     * Pings all the monitored bodies, one message per runtime
+     */
+    private static void pingAll() {
+        List<java.util.concurrent.Future<?>> submitted = new ArrayList<>();
+        for (RuntimePing ping : preparePings()) {
+            RuntimePing previous = pingsInProgress.putIfAbsent(ping.target, ping);
+            if (previous == null) {
+                submitted.add(pingers.submit(ping));
+            } else if (previous.timedOut) {
+                // the target still does not answer the ping which timed out
+                ping.timeout();
+            }
+        }
+
+        if (PING_TIMEOUT > 0) {
+            // late pings are also checked at the next round
+            long deadline = System.currentTimeMillis() + Math.min(PING_TIMEOUT, TTM);
+            try {
+                for (java.util.concurrent.Future<?> f : submitted) {
+                    f.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+                }
+            } catch (TimeoutException e) {
+                // checked below
+            } catch (ExecutionException e) {
+                // cannot happen, pings catch their exceptions
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (RuntimePing ping : pingsInProgress.values()) {
+                if (ping.isLate(now)) {
+                    ping.timeout();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds or removes threads to the pool running the pings
+     */
+    private static void resizePingers(int delta) {
+        synchronized (pingers) {
+            int size = pingers.getMaximumPoolSize() + delta;
+            if (delta > 0) {
+                pingers.setMaximumPoolSize(size);
+                pingers.setCorePoolSize(size);
+            } else {
+                pingers.setCorePoolSize(size);
+                pingers.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    /**
+     * Looks up the runtime of a node
+     * @return the runtime, or null if it cannot be found
+     */
+    private static MonitoredRuntime getRuntime(String nodeUrl) {
+        MonitoredRuntime runtime = runtimes.get(nodeUrl);
+        if (runtime == null) {
+            try {
+                ProActiveRuntime part = RuntimeFactory.getRuntime(nodeUrl);
+                runtime = new MonitoredRuntime(part, part.getURL());
+                runtimes.put(nodeUrl, runtime);
+            } catch (Exception e) {
+                logger.debug("Cannot find the runtime of " + nodeUrl + ", its active objects are pinged one by one",
+                             e);
+            }
+        }
+        return runtime;
+    }
+
+    /**
+     * Arrange to ping every body every TTM
      * There is a single daemon thread running the monitoring, so
      * it will end with the JVM.
      */
     public void run() {
         while (!Thread.currentThread().isInterrupted()) {
-            for (UniqueID bodyId : futuresToMonitor.keySet()) {
-                pingBody(bodyId);
-            }
+            pingAll();
             monitoringDelay();
         }
     }
@@ -265,4 +415,131 @@ public class FutureMonitoring implements Runnable {
             }
         }
     }
+
+    private static class MonitoredRuntime {
+        private final ProActiveRuntime runtime;
+
+        private final String url;
+
+        MonitoredRuntime(ProActiveRuntime runtime, String url) {
+            this.runtime = runtime;
+            this.url = url;
+        }
+    }
+
+    /**
+     * Pings the monitored bodies of a runtime with a single message. The bodies the runtime
+     * does not know, typically because they have migrated, are pinged one by one as are
+     * all the bodies of a runtime that cannot be reached.
+     * <p>
+     * The timeout is measured from the start of the ping, a ping waiting for a thread of the
+     * pool is not late. A ping which times out while it runs is not counted against the threads
+     * of the pool anymore: the pool has one more thread until the ping is over, which runs the
+     * pings queued behind it.
+     */
+    static class RuntimePing implements Runnable {
+        private final String target;
+
+        private final String nodeUrl;
+
+        private final List<UniqueID> bodyIds = new ArrayList<>();
+
+        /** When a thread of the pool has started the ping, 0 before */
+        private volatile long started;
+
+        private volatile boolean timedOut;
+
+        private boolean finished;
+
+        /** True if a thread has been added to the pool to replace the one of this ping */
+        private boolean replaced;
+
+        RuntimePing(String target, String nodeUrl) {
+            this.target = target;
+            this.nodeUrl = nodeUrl;
+        }
+
+        String getTarget() {
+            return this.target;
+        }
+
+        List<UniqueID> getBodyIds() {
+            return this.bodyIds;
+        }
+
+        public void run() {
+            synchronized (this) {
+                this.started = System.currentTimeMillis();
+            }
+            try {
+                if (!this.timedOut) {
+                    ping();
+                }
+            } catch (Throwable t) {
+                logger.warn("Failed to ping the active objects of " + this.target, t);
+            } finally {
+                pingsInProgress.remove(this.target, this);
+                synchronized (this) {
+                    this.finished = true;
+                    if (this.replaced) {
+                        resizePingers(-1);
+                    }
+                }
+            }
+        }
+
+        private void ping() {
+            List<UniqueID> unknown = this.bodyIds;
+            MonitoredRuntime runtime = getRuntime(this.nodeUrl);
+            if (runtime != null) {
+                try {
+                    List<Integer> states = runtime.runtime.receiveHeartbeats(this.bodyIds);
+                    unknown = new ArrayList<>();
+                    for (int i = 0; i < this.bodyIds.size(); i++) {
+                        UniqueID bodyId = this.bodyIds.get(i);
+                        Integer state = states.get(i);
+                        if (state == null) {
+                            unknown.add(bodyId);
+                        } else if (state.equals(HeartbeatResponse.IS_DEAD) && !this.timedOut) {
+                            String url = nodeUrls.get(bodyId);
+                            Exception e = new ProActiveRuntimeException("Awaited body " + bodyId + " on " + url +
+                                                                        " has been terminated.");
+                            failFutures(bodyId, new FutureMonitoringPingFailureException(bodyId, url, e));
+                        }
+                    }
+                } catch (Exception e) {
+                    // unreachable runtime: let the pings of the bodies decide
+                    runtimes.remove(this.nodeUrl, runtime);
+                    logger.debug("Failed to ping the runtime " + runtime.url, e);
+                }
+            }
+            for (UniqueID bodyId : unknown) {
+                if (this.timedOut) {
+                    return;
+                }
+                pingBody(bodyId);
+            }
+        }
+
+        boolean isLate(long now) {
+            long start = this.started;
+            return (start > 0) && !this.timedOut && ((now - start) >= PING_TIMEOUT);
+        }
+
+        void timeout() {
+            this.timedOut = true;
+            synchronized (this) {
+                if ((this.started > 0) && !this.finished && !this.replaced) {
+                    this.replaced = true;
+                    resizePingers(1);
+                }
+            }
+            for (UniqueID bodyId : this.bodyIds) {
+                failFutures(bodyId,
+                            new FutureMonitoringPingFailureException(bodyId,
+                                                                     nodeUrls.get(bodyId),
+                                                                     "no answer within " + PING_TIMEOUT + " ms"));
+            }
+        }
+    }
 }
@@ -29,7 +29,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
@@ -42,9 +48,11 @@ import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.body.reply.Reply;
 import org.objectweb.proactive.core.body.reply.ReplyImpl;
 import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.StructuralCopy;
 import org.objectweb.proactive.core.mop.Utils;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 
 
 public class FuturePool extends Object implements java.io.Serializable {
@@ -54,6 +62,9 @@ public class FuturePool extends Object implements java.io.Serializable {
     //
     private static Logger logger = ProActiveLogger.getLogger(Loggers.BODY);
 
+    // number of ACs sent to a same set of destinations before serving other ones
+    private static final int AC_BATCH_SIZE = 64;
+
     // set to true each time any future is updated
     protected boolean newState;
 
@@ -237,85 +248,80 @@ public class FuturePool extends Object implements java.io.Serializable {
      * Return true if some ACs are remaining is this futurepool.
      * @return true if some ACs are remaining is this futurepool, false otherwise.
      */
-    public synchronized boolean remainingAC() {
+    public boolean remainingAC() {
         return this.futures.remainingAC();
     }
 
     /**
      * Method called when a reply is received, ie a value is available for a future.
      * This method perform local futures update, and put an ACService in the activeACqueue.
+     * Replies to futures of different creators are handled concurrently: the pool only
+     * holds the lock of the creator in the FutureMap, and never while updating a future,
+     * as the listeners of the future may call back into this pool.
      * @param id sequence id of the future to update
      * @param creatorID ID of the body creator of the future to update
      * @param result value to update with the futures
      */
-    public synchronized void receiveFutureValue(long id, UniqueID creatorID, MethodCallResult result, Reply reply)
+    public void receiveFutureValue(long id, UniqueID creatorID, MethodCallResult result, Reply reply)
             throws java.io.IOException {
-        // get all aiwated futures
-        ArrayList<Future> futuresToUpdate = futures.getFuturesToUpdate(id, creatorID);
-
-        if (futuresToUpdate != null) {
-            Future future = (futuresToUpdate.get(0));
-            if (future != null) {
-                future.receiveReply(result);
-            }
-
-            // if there are more than one future to update, we "give" deep copy
-            // of the result to the other futures to respect ProActive model
-            // We use here the migration tag to perform a simple serialization (ie
-            // without continuation side-effects)
-            int numOfFuturesToUpdate = futuresToUpdate.size();
-            if (numOfFuturesToUpdate > 1) {
-                setCopyMode(true);
-                for (int i = 1; i < numOfFuturesToUpdate; i++) {
-                    Future otherFuture = (futuresToUpdate.get(i));
-                    otherFuture.receiveReply((MethodCallResult) Utils.makeDeepCopy(result));
+        Object lock = futures.getLock(creatorID);
+        ArrayList<Future> futuresToUpdate;
+        synchronized (lock) {
+            // get all aiwated futures
+            futuresToUpdate = futures.getFuturesToUpdate(id, creatorID);
+            if (futuresToUpdate == null) {
+                // we have to store the result received by AC until future arrive
+                synchronized (valuesForFutures) {
+                    this.valuesForFutures.put("" + id + creatorID, result);
                 }
-                setCopyMode(false);
-                // register futures potentially generated during the copy of result
-                ((AbstractBody) ownerBody).registerIncomingFutures();
+                return;
+            }
+            futuresToUpdate = new ArrayList<Future>(futuresToUpdate);
+        }
+        updateFutures(futuresToUpdate, result, true);
+
+        ArrayList<Future> lateFutures = null;
+        ArrayList<UniversalBody> bodiesToContinue;
+        synchronized (lock) {
+            // copies of the future may have been registered during the update
+            ArrayList<Future> registered = futures.getFuturesToUpdate(id, creatorID);
+            if ((registered != null) && (registered.size() > futuresToUpdate.size())) {
+                lateFutures = new ArrayList<Future>(registered.subList(futuresToUpdate.size(),
+                                                                       registered.size()));
             }
-            stateChange();
+            bodiesToContinue = futures.getAutomaticContinuation(id, creatorID);
+            // remove futures from the futureMap
+            futures.removeFutures(id, creatorID);
+        }
+        if (lateFutures != null) {
+            updateFutures(lateFutures, result, false);
+        }
+        stateChange();
 
-            // 2) create and put ACservices
-            if (this.registerACs) {
-                @SuppressWarnings("unchecked")
-                ArrayList<UniversalBody> bodiesToContinue = (ArrayList<UniversalBody>) (futures.getAutomaticContinuation(id,
-                                                                                                                         creatorID)
-                                                                                               .clone());
-                if ((bodiesToContinue != null) && (bodiesToContinue.size() != 0)) {
-
-                    // lazy starting of the AC thread
-                    if (!this.queueAC.isAlive()) {
-                        this.queueAC.start();
-                    }
+        // create and put ACservices
+        if (this.registerACs && (bodiesToContinue != null) && (bodiesToContinue.size() != 0)) {
 
-                    // the added reply is a deep copy (concurrent modification of result)
-                    // ACs are registred during this deep copy (no copy mode)
-                    // Warn : this copy does not avoid the copy for local communications !
-                    this.registerDestinations(bodiesToContinue);
-                    MethodCallResult newResult = (MethodCallResult) Utils.makeDeepCopy(result);
-
-                    // the created futures should be set in copyMode to avoid AC registration
-                    // during the effective sending by the AC thread
-                    ArrayList<Future> incFutures = FuturePool.getIncomingFutures();
-                    if (incFutures != null) {
-                        for (Future f : incFutures) {
-                            f.setCopyMode(true);
-                        }
-                        FuturePool.removeIncomingFutures();
-                    }
-                    this.removeDestinations();
+            // lazy starting of the AC queue
+            if (!this.queueAC.isAlive()) {
+                this.queueAC.start();
+            }
 
-                    // add the deepcopied AC
-                    queueAC.addACRequest(new ACService(bodiesToContinue,
-                                                       new ReplyImpl(creatorID, id, null, newResult, true)));
-                }
+            // the added reply is a deep copy (concurrent modification of result)
+            // ACs are registred during this deep copy (no copy mode)
+            // Warn : this copy does not avoid the copy for local communications !
+            this.registerDestinations(bodiesToContinue);
+            MethodCallResult newResult = copyForContinuation(result);
+            this.removeDestinations();
+
+            // add one deepcopied AC per destination: the destinations are served
+            // concurrently, so they cannot share the result while it is sent
+            int nbDests = bodiesToContinue.size();
+            for (int i = 0; i < nbDests; i++) {
+                MethodCallResult toSend = (i == (nbDests - 1)) ? newResult : copyForContinuation(newResult);
+                ArrayList<UniversalBody> dest = new ArrayList<UniversalBody>(1);
+                dest.add(bodiesToContinue.get(i));
+                queueAC.addACRequest(new ACService(dest, new ReplyImpl(creatorID, id, null, toSend, true)));
             }
-            // 3) Remove futures from the futureMap
-            futures.removeFutures(id, creatorID);
-        } else {
-            // we have to store the result received by AC until future arrive
-            this.valuesForFutures.put("" + id + creatorID, result);
         }
     }
 
@@ -323,14 +329,21 @@ public class FuturePool extends Object implements java.io.Serializable {
      * To put a future in the FutureMap
      * @param futureObject future to register
      */
-    public synchronized void receiveFuture(Future futureObject) {
+    public void receiveFuture(Future futureObject) {
         futureObject.setSenderID(ownerBody.getID());
-        futures.receiveFuture(futureObject);
         long id = futureObject.getID();
         UniqueID creatorID = futureObject.getCreatorID();
-        if (valuesForFutures.get("" + id + creatorID) != null) {
+        MethodCallResult value;
+        // a value received before its future is stored under the same lock
+        synchronized (futures.getLock(creatorID)) {
+            futures.receiveFuture(futureObject);
+            synchronized (valuesForFutures) {
+                value = valuesForFutures.remove("" + id + creatorID);
+            }
+        }
+        if (value != null) {
             try {
-                this.receiveFutureValue(id, creatorID, valuesForFutures.remove("" + id + creatorID), null);
+                this.receiveFutureValue(id, creatorID, value, null);
             } catch (java.io.IOException e) {
                 logger.error("Error while receiving future value", e);
             }
@@ -392,7 +405,92 @@ public class FuturePool extends Object implements java.io.Serializable {
     //
     // -- PRIVATE METHODS -----------------------------------------------
     //
-    private void stateChange() {
+
+    /**
+     * Updates the given futures with a result. If there are more than one future to update,
+     * we "give" deep copy of the result to the other futures to respect ProActive model.
+     * Immutable values are shared, as are all values in shared results mode.
+     * Otherwise we use here the migration tag to perform a simple serialization (ie
+     * without continuation side-effects)
+     * @param futuresToUpdate the futures to update
+     * @param result the received result
+     * @param original true if the first future receives the result itself, false if all
+     * the futures receive a copy
+     */
+    private void updateFutures(ArrayList<Future> futuresToUpdate, MethodCallResult result, boolean original)
+            throws IOException {
+        int first = 0;
+        if (original) {
+            Future future = futuresToUpdate.get(0);
+            if (future != null) {
+                future.receiveReply(result);
+            }
+            first = 1;
+        }
+        int numOfFuturesToUpdate = futuresToUpdate.size();
+        if (numOfFuturesToUpdate <= first) {
+            return;
+        }
+        MethodCallResult shared = shareResult(result);
+        if (shared != null) {
+            for (int i = first; i < numOfFuturesToUpdate; i++) {
+                Future otherFuture = futuresToUpdate.get(i);
+                otherFuture.receiveReply((i == first) ? shared : shareResult(result));
+            }
+        } else {
+            MethodCallResult[] copies = new MethodCallResult[numOfFuturesToUpdate];
+            // the copy mode is set on the whole map, so concurrent copies must not overlap
+            synchronized (futures) {
+                setCopyMode(true);
+                for (int i = first; i < numOfFuturesToUpdate; i++) {
+                    copies[i] = (MethodCallResult) Utils.makeDeepCopy(result);
+                }
+                setCopyMode(false);
+            }
+            // register futures potentially generated during the copy of result
+            ((AbstractBody) ownerBody).registerIncomingFutures();
+            for (int i = first; i < numOfFuturesToUpdate; i++) {
+                futuresToUpdate.get(i).receiveReply(copies[i]);
+            }
+        }
+    }
+
+    /**
+     * Deep copies a result to send by automatic continuation. The futures created by the copy are
+     * set in copyMode to avoid AC registration during the effective sending by the AC thread.
+     */
+    private static MethodCallResult copyForContinuation(MethodCallResult result) throws IOException {
+        MethodCallResult copy = (MethodCallResult) Utils.makeDeepCopy(result);
+        ArrayList<Future> incFutures = FuturePool.getIncomingFutures();
+        if (incFutures != null) {
+            for (Future f : incFutures) {
+                f.setCopyMode(true);
+            }
+            FuturePool.removeIncomingFutures();
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a result holding the same value as the given one, if this value can be shared
+     * by several futures. The holder itself is never shared as it can be modified by the future.
+     * @param result the received result
+     * @return a new result, or null if the value has to be deep copied
+     */
+    private static MethodCallResult shareResult(MethodCallResult result) {
+        if (result.getException() != null) {
+            // the exception is augmented with the stack of the caller
+            return null;
+        }
+        Object value = result.getResultObjet();
+        if ((value == null) || CentralPAPropertyRepository.PA_FUTURE_SHARED_RESULTS.isTrue()) {
+            return new MethodCallResult(value, null);
+        }
+        Object[] copy = StructuralCopy.copy(new Object[] { value });
+        return (copy != null) ? new MethodCallResult(copy[0], null) : null;
+    }
+
+    private synchronized void stateChange() {
         this.newState = true;
         notifyAll();
     }
@@ -401,7 +499,9 @@ public class FuturePool extends Object implements java.io.Serializable {
     // -- PRIVATE METHODS FOR SERIALIZATION -----------------------------------------------
     //
     private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
-        out.defaultWriteObject();
+        synchronized (valuesForFutures) {
+            out.defaultWriteObject();
+        }
         if (this.sendACs) {
             // queue could not be created because of lazy creation
             if (!this.queueAC.isAlive()) {
@@ -412,7 +512,7 @@ public class FuturePool extends Object implements java.io.Serializable {
                 out.writeBoolean(true);
                 // send the queue of AC requests
                 out.writeObject(queueAC.getQueue());
-                // stop the ActiveQueue thread
+                // stop the ActiveQueue
                 queueAC.killMe(false);
             }
         }
@@ -453,16 +553,20 @@ public class FuturePool extends Object implements java.io.Serializable {
     }
 
     /**
-     * Active Queue for AC. This queue has his own thread to perform ACservices
-     * available in the queue. This thread is compliant with migration by using
-     * the threadStore of the body correponding to this FutureMap.
-     * Note that the ACServices are served in FIFO manner.
+     * Active Queue for AC. The ACServices available in the queue are performed by the threads
+     * of an executor shared by all the bodies of the runtime. These threads are compliant with
+     * migration by using the threadStore of the body correponding to this FutureMap.
+     * An ACService is split into one ACService per destination body, and the ACServices are
+     * grouped by destination: the ACServices of a destination are served in FIFO manner, and
+     * several destinations are served in parallel, so that a slow destination does not delay
+     * the continuations sent to other bodies.
      * @see ACservice
      */
-    private class ActiveACQueue extends Thread {
-        private ArrayList<ACService> queue;
+    private class ActiveACQueue {
+        // pending ACServices, by destination body
+        private final Map<UniqueID, Lane> lanes;
 
-        private int counter;
+        private boolean started;
 
         private KillStatus status;
 
@@ -470,27 +574,47 @@ public class FuturePool extends Object implements java.io.Serializable {
         // -- CONSTRUCTORS -----------------------------------------------
         //
         public ActiveACQueue() {
-            queue = new ArrayList<ACService>();
-            counter = 0;
+            lanes = new LinkedHashMap<UniqueID, Lane>();
+            started = false;
             status = KillStatus.ALIVE;
-            this.setName("Thread for AC");
         }
 
         public ActiveACQueue(ArrayList<ACService> queue) {
-            this.queue = queue;
-            counter = queue.size();
-            status = KillStatus.ALIVE;
-            this.setName("Thread for AC");
+            this();
+            for (ACService r : queue) {
+                addACRequest(r);
+            }
         }
 
         //
         // -- PUBLIC METHODS -----------------------------------------------
         //
 
+        /**
+         * Start performing the queued ACServices
+         */
+        public synchronized void start() {
+            started = true;
+            for (Lane lane : lanes.values()) {
+                lane.schedule();
+            }
+        }
+
+        /**
+         * return true if the queue has been started and not killed
+         */
+        public synchronized boolean isAlive() {
+            return started && (status != KillStatus.KILL_NOW);
+        }
+
         /**
          * return the current queue of ACServices to perform
          */
-        public ArrayList<ACService> getQueue() {
+        public synchronized ArrayList<ACService> getQueue() {
+            ArrayList<ACService> queue = new ArrayList<ACService>();
+            for (Lane lane : lanes.values()) {
+                queue.addAll(lane.pending);
+            }
             return queue;
         }
 
@@ -498,95 +622,152 @@ public class FuturePool extends Object implements java.io.Serializable {
          * Add a ACservice in the active queue.
          */
         public synchronized void addACRequest(ACService r) {
-            queue.add(r);
-            counter++;
-            notifyAll();
+            if ((r.dests == null) || r.dests.isEmpty()) {
+                return;
+            }
+            UniqueID key = r.dests.get(0).getID();
+            Lane lane = lanes.get(key);
+            if (lane == null) {
+                lane = new Lane(key);
+                lanes.put(key, lane);
+            }
+            lane.pending.add(r);
+            if (started) {
+                lane.schedule();
+            }
         }
 
         /**
-         * Return the oldest request in queue and remove it from the queue
+         * To stop performing ACServices.
          */
-        public synchronized ACService removeACRequest() {
-            counter--;
-            return (queue.remove(0));
+        public synchronized void killMe(boolean completeACs) {
+            status = completeACs ? KillStatus.KILL_AFTER_COMPLETION : KillStatus.KILL_NOW;
         }
 
         /**
-         * To stop the thread.
+         * Return the next ACService of a lane, or null if the lane has to be stopped
          */
-        public synchronized void killMe(boolean completeACs) {
-            status = completeACs ? KillStatus.KILL_AFTER_COMPLETION : KillStatus.KILL_NOW;
-            notifyAll();
+        private synchronized ACService next(Lane lane, boolean remove) {
+            if ((status == KillStatus.KILL_NOW) || lane.pending.isEmpty()) {
+                lane.scheduled = false;
+                if (lane.pending.isEmpty()) {
+                    lanes.remove(lane.key);
+                }
+                return null;
+            }
+            return remove ? lane.pending.remove() : lane.pending.peek();
         }
 
-        @Override
-        public void run() {
-            // push an initial context for this thread : associate this thread to the owner body
-            LocalBodyStore.getInstance().pushContext(new Context(FuturePool.this.getOwnerBody(), null));
-            try {
-                while (true) {
-                    // if there is no AC to do, wait...
-                    waitForAC();
-                    // if body is dead, kill the thread
-                    if (status == KillStatus.KILL_NOW) {
-                        break;
+        /**
+         * Kill the queue if it is waiting for the completion of the remaining ACs, and
+         * none remain
+         */
+        private void checkCompletion() {
+            synchronized (this) {
+                if ((status != KillStatus.KILL_AFTER_COMPLETION) || !lanes.isEmpty()) {
+                    return;
+                }
+            }
+            if (!FuturePool.this.getOwnerBody().getFuturePool().remainingAC()) {
+                synchronized (this) {
+                    if ((status != KillStatus.KILL_AFTER_COMPLETION) || !lanes.isEmpty()) {
+                        return;
                     }
+                    status = KillStatus.KILL_NOW;
+                }
+                // if the body is not active, the queue has been killed by a call to terminateAC().
+                // Then complete the termination.
+                if (!FuturePool.this.getOwnerBody().isActive()) {
+                    FuturePool.this.getOwnerBody().terminate(false);
+                }
+                // else the queue has been killed by a call to disableAC().
+                // no need to terminate the body.
+            }
+        }
 
-                    // there are ACs to do !
-                    try {
-                        // enter in the threadStore
-                        FuturePool.this.getOwnerBody().enterInThreadStore();
+        /**
+         * The ACServices sent to a given destination body. A lane is served by at most one
+         * thread at a time.
+         */
+        private class Lane implements Runnable {
+            private final UniqueID key;
 
-                        // if body has migrated, kill the thread
-                        if (status == KillStatus.KILL_NOW) {
-                            break;
-                        }
+            private final LinkedList<ACService> pending = new LinkedList<ACService>();
 
-                        ACService toDo = this.removeACRequest();
-                        if (toDo != null) {
-                            toDo.doAutomaticContinuation();
+            private boolean scheduled;
+
+            Lane(UniqueID key) {
+                this.key = key;
+            }
+
+            // called with the queue lock held
+            void schedule() {
+                if (!scheduled) {
+                    scheduled = true;
+                    ACExecutorHolder.EXECUTOR.execute(this);
+                }
+            }
+
+            public void run() {
+                Body owner = FuturePool.this.getOwnerBody();
+                // push a context for this thread : associate this thread to the owner body
+                LocalBodyStore.getInstance().pushContext(new Context(owner, null));
+                try {
+                    // serve a batch of ACs, then let the other lanes be served
+                    for (int i = 0; i < AC_BATCH_SIZE; i++) {
+                        if (next(this, false) == null) {
+                            return;
                         }
-                    } catch (Exception e2) {
-                        // an exception occurs when sending the current reply 
-                        // the AC thread should not be stopped
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Automatic continuation cannot be performed.", e2);
+                        try {
+                            // enter in the threadStore
+                            owner.enterInThreadStore();
+
+                            // if body has migrated, stop
+                            ACService toDo = next(this, true);
+                            if (toDo == null) {
+                                return;
+                            }
+                            toDo.doAutomaticContinuation();
+                        } catch (Exception e2) {
+                            // an exception occurs when sending the current reply
+                            // the other ACs should still be performed
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("Automatic continuation cannot be performed.", e2);
+                            }
+                        } finally {
+                            // exit from the threadStore
+                            owner.exitFromThreadStore();
                         }
-                    } finally {
-                        // exit from the threadStore
-                        FuturePool.this.getOwnerBody().exitFromThreadStore();
                     }
-
-                    // kill it after completion of the remaining ACs...
-                    if ((status == KillStatus.KILL_AFTER_COMPLETION) &&
-                        (!FuturePool.this.getOwnerBody().getFuturePool().remainingAC())) {
-                        // if the body is not active, the ACthread has been killed by a call to terminateAC().
-                        // Then complete the termination.
-                        if (!FuturePool.this.getOwnerBody().isActive()) {
-                            FuturePool.this.getOwnerBody().terminate(false);
+                    synchronized (ActiveACQueue.this) {
+                        scheduled = false;
+                        if (pending.isEmpty()) {
+                            lanes.remove(key);
+                        } else if (status != KillStatus.KILL_NOW) {
+                            schedule();
                         }
-                        // else the ACthread has been killed by a call to disableAC().
-                        // no need to terminate the body.
-                        status = KillStatus.KILL_NOW;
-                        break;
                     }
+                } finally {
+                    LocalBodyStore.getInstance().popContext();
+                    checkCompletion();
                 }
-            } finally {
-                // remove contexts stack for this thread
-                LocalBodyStore.getInstance().clearAllContexts();
             }
-
         }
+    }
 
-        // synchronized wait on ACRequest queue
-        private synchronized void waitForAC() {
-            try {
-                while ((counter == 0) && (status != KillStatus.KILL_NOW)) {
-                    wait();
-                }
-            } catch (InterruptedException e) {
-                logger.error("Waiting for automatic continuation interrupted", e);
-            }
+    /** The threads performing the automatic continuations of all the bodies, created on first use */
+    private static class ACExecutorHolder {
+        static final ThreadPoolExecutor EXECUTOR;
+
+        static {
+            int threads = CentralPAPropertyRepository.PA_FUTURE_AC_THREADS.getValue();
+            EXECUTOR = new ThreadPoolExecutor(threads,
+                                              threads,
+                                              10,
+                                              TimeUnit.SECONDS,
+                                              new LinkedBlockingQueue<Runnable>(),
+                                              new NamedThreadFactory("ProActive automatic continuations"));
+            EXECUTOR.allowCoreThreadTimeOut(true);
         }
     }
 
@@ -612,6 +793,7 @@ public class FuturePool extends Object implements java.io.Serializable {
         //
         // -- PUBLIC METHODS -----------------------------------------------
         //
+
         public void doAutomaticContinuation() throws java.io.IOException {
             if (dests != null) {
                 // for several *local* destinations, the deepcopy of the result in the reply object
@@ -28,6 +28,10 @@ package org.objectweb.proactive.core.body.future;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
@@ -129,6 +133,11 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
      */
     private transient LocalFutureUpdateCallbacks callbacks;
 
+    /**
+     * The listeners to notify when this future is updated
+     */
+    private transient List<Listener> listeners;
+
     // returns future update info used during dynamic dispatch for groups
     private transient DispatchMonitor dispatchMonitor;
 
@@ -238,6 +247,13 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
             this.callbacks = null;
         }
 
+        if (this.listeners != null) {
+            for (Listener listener : this.listeners) {
+                listener.notifyUpdate();
+            }
+            this.listeners = null;
+        }
+
         this.notifyAll();
     }
 
@@ -654,6 +670,66 @@ public class FutureProxy implements Future, Proxy, java.io.Serializable {
         }
     }
 
+    /**
+     * Add a listener to run by the given executor when the future is updated, or
+     * submit it now if the future is already updated. Unlike callbacks, listeners
+     * do not need to be added by an active object. Listeners are local, so are not
+     * copied when a future is serialized.
+     */
+    public void addListener(Runnable listener, Executor executor) {
+        Listener l = new Listener(listener, executor);
+        synchronized (this) {
+            if (!this.isAvailable()) {
+                if (this.listeners == null) {
+                    this.listeners = new ArrayList<Listener>(1);
+                }
+                this.listeners.add(l);
+                return;
+            }
+        }
+        l.notifyUpdate();
+    }
+
+    /**
+     * Remove a listener added by {@link #addListener(Runnable, Executor)} and not run yet,
+     * typically when the update of this future is not awaited anymore.
+     */
+    public synchronized void removeListener(Runnable listener) {
+        if (this.listeners != null) {
+            for (Iterator<Listener> it = this.listeners.iterator(); it.hasNext();) {
+                if (it.next().runnable == listener) {
+                    it.remove();
+                    return;
+                }
+            }
+        }
+    }
+
+    synchronized int getListenerCount() {
+        return (this.listeners == null) ? 0 : this.listeners.size();
+    }
+
+    private static class Listener {
+        private final Runnable runnable;
+
+        private final Executor executor;
+
+        Listener(Runnable runnable, Executor executor) {
+            this.runnable = runnable;
+            this.executor = executor;
+        }
+
+        void notifyUpdate() {
+            try {
+                this.executor.execute(this.runnable);
+            } catch (RejectedExecutionException e) {
+                logger.error("Failed to notify a listener of a future update", e);
+            } catch (RuntimeException e) {
+                logger.error("A listener of a future update failed", e);
+            }
+        }
+    }
+
     //////////////////////////
     //////////////////////////
     ////FOR DEBUG PURPOSE/////
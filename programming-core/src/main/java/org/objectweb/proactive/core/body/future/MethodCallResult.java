@@ -25,9 +25,15 @@
  */
 package org.objectweb.proactive.core.body.future;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 import org.objectweb.proactive.core.exceptions.ExceptionHandler;
+import org.objectweb.proactive.core.util.converter.ObjectCodec;
+import org.objectweb.proactive.core.util.converter.ObjectCodecRegistry;
 
 
 class ThisIsNotAnException extends Exception {
@@ -127,4 +133,36 @@ public class MethodCallResult implements Serializable {
         this.exception = exception;
     }
 
+    //
+    // -- PRIVATE METHODS FOR SERIALIZATION -----------------------------------------------
+    //
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectCodec codec = ObjectCodecRegistry.getSelectedCodec();
+        if (codec == null) {
+            out.defaultWriteObject();
+            return;
+        }
+
+        // the result is written by the codec after the fields
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("result", null);
+        fields.put("exception", this.exception);
+        out.writeFields();
+        out.writeByte(codec.getId());
+        codec.writeValue(this.result, out);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // -1 if nothing has been written after the fields
+        int id = in.read();
+        if (id != -1) {
+            ObjectCodec codec = ObjectCodecRegistry.get((byte) id);
+            if (codec == null) {
+                throw new InvalidObjectException("Unknown codec " + id + " for method call result");
+            }
+            this.result = codec.readValue(in);
+        }
+    }
+
 }
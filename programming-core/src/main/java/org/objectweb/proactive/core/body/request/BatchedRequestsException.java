@@ -0,0 +1,58 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import java.io.IOException;
+import java.util.List;
+
+
+/**
+ * Raised when one-way requests kept by a {@link RequestBatcher} could not be sent.
+ * <p>
+ * The requests which have not been sent are given by {@link #getRequests()}, the cause being the
+ * failure of their destination.
+ */
+public class BatchedRequestsException extends IOException {
+
+    private final transient List<Request> requests;
+
+    /**
+     * @param s the detail message
+     * @param requests the one-way requests which could not be sent
+     * @param ex the failure to send them
+     */
+    public BatchedRequestsException(String s, List<Request> requests, Throwable ex) {
+        super(s, ex);
+        this.requests = requests;
+    }
+
+    /**
+     * Returns the one-way requests which could not be sent, in the order they have been sent
+     */
+    public List<Request> getRequests() {
+        return this.requests;
+    }
+}
@@ -158,4 +158,11 @@ public interface BlockingRequestQueue extends RequestQueue {
      * Resumes the service of requests.
      */
     public void resume();
+
+    /**
+     * Wakes up the threads blocked waiting for a request, so that they look
+     * for a request again. To be called when a request filter may accept
+     * requests it rejected before.
+     */
+    public void wakeUpWaitingThreads();
 }
@@ -61,6 +61,9 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
 
     private boolean waitingForRequest = false;
 
+    /** The owner body, looked up once to send JMX notifications */
+    private transient Body ownerBody = null;
+
     //
     // -- CONSTRUCTORS -----------------------------------------------
     //
@@ -84,6 +87,15 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
 
     @Override
     public synchronized void add(Request r) {
+        this.enqueue(r);
+        this.notifyAll();
+    }
+
+    /**
+     * Adds a request to the queue and updates the barriers state, without waking up
+     * the threads waiting for a request. Must be called while holding the queue lock.
+     */
+    protected void enqueue(Request r) {
         super.add(r);
         if (logger.isDebugEnabled()) {
             logger.debug("Adding request " + r.getMethodName());
@@ -116,7 +128,6 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
             this.methodBarriers.add(new MethodBarrier(mcbwmn.getMethodNames()));
             this.suspend();
         }
-        this.notifyAll();
     }
 
     @Override
@@ -179,15 +190,25 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
      */
     private synchronized void internalWait(long timeout) throws InterruptedException {
         // JMX Notification
-        Body body = LocalBodyStore.getInstance().getLocalBody(ownerID);
-        if (body != null) {
-            BodyWrapperMBean mbean = body.getMBean();
+        if (this.ownerBody == null) {
+            this.ownerBody = LocalBodyStore.getInstance().getLocalBody(ownerID);
+        }
+        if (this.ownerBody != null) {
+            BodyWrapperMBean mbean = this.ownerBody.getMBean();
             if (mbean != null) {
                 mbean.sendNotification(NotificationType.waitForRequest);
             }
         }
         // END JMX Notification
 
+        this.waitOnQueue(timeout);
+    }
+
+    /**
+     * Waits until the queue is notified or the timeout is elapsed.
+     * Must be called while holding the queue lock.
+     */
+    protected void waitOnQueue(long timeout) throws InterruptedException {
         this.wait(timeout);
     }
 
@@ -225,7 +246,7 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
         // we have to wait the queue becomes active again
         while (suspended && !time.isTimeoutElapsed()) {
             try {
-                this.wait(time.getRemainingTimeout());
+                this.waitOnQueue(time.getRemainingTimeout());
             } catch (InterruptedException e) {
                 // Do nothing
             }
@@ -247,7 +268,7 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
             if (this.spmdManager == null) {
                 this.spmdManager = ((AbstractBody) PAActiveObject.getBodyOnThis()).getProActiveSPMDGroupManager();
             }
-            if (!spmdManager.isCurrentBarriersEmpty()) {
+            if (spmdManager.isBarrierCheckNeeded()) {
                 return this.barrierBlockingRemove(); // the oospmd way ...
             }
         }
@@ -332,7 +353,8 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
      */
     protected Request barrierBlockingRemoveOldest(long timeout) throws InterruptedException {
         TimeoutAccounter time = TimeoutAccounter.getAccounter(timeout);
-        while (((this.isEmpty() && this.shouldWait) || this.suspended || (this.indexOfRequestToServe() == -1)) &&
+        while (((this.isEmpty() && this.shouldWait) || this.suspended ||
+                    (!this.isEmpty() && (this.indexOfRequestToServe() == -1))) &&
                !this.specialExecution) {
             if (time.isTimeoutElapsed()) {
                 return removeOldest();
@@ -347,7 +369,12 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
     }
 
     protected Request barrierRemoveOldest() {
-        Request r = (Request) requestQueue.remove(indexOfRequestToServe());
+        int index = indexOfRequestToServe();
+        if (index == -1) {
+            // the queue is empty and the body terminates
+            return null;
+        }
+        Request r = removeFromQueue(index);
 
         // ProActiveEvent
         if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
@@ -366,9 +393,15 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
      * @return the request found in the queue.
      */
     protected Request barrierBlockingRemove() throws InterruptedException {
-        while (((this.isEmpty() && this.shouldWait) || this.suspended || (this.indexOfRequestToServe() == -1)) &&
-               !this.specialExecution) {
-            internalWait(0);
+        try {
+            this.waitingForRequest = true;
+            while (((this.isEmpty() && this.shouldWait) || this.suspended ||
+                    (!this.isEmpty() && (this.indexOfRequestToServe() == -1))) &&
+                   !this.specialExecution) {
+                internalWait(0);
+            }
+        } finally {
+            this.waitingForRequest = false;
         }
         if (this.specialExecution) {
             this.specialExecution = false;
@@ -392,6 +425,10 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
         this.notifyAll();
     }
 
+    public synchronized void wakeUpWaitingThreads() {
+        this.notifyAll();
+    }
+
     /**
      * Returns the index of the first servable request in the requestQueue
      *
@@ -399,26 +436,25 @@ public class BlockingRequestQueueImpl extends RequestQueueImpl implements java.i
      *         request to serve
      */
     private int indexOfRequestToServe() {
-        // if there is no barrier currently active, avoid the iteration
-        if (this.spmdManager.isCurrentBarriersEmpty()) {
+        purgeRemovedRequests();
+        // if there is no barrier to check, avoid the iteration
+        if (!this.spmdManager.isBarrierCheckNeeded()) {
             return 0;
-        } else { // there is at least one active barrier
-            int index = -1;
-            boolean isServable = false;
-            Iterator<Request> it = this.requestQueue.iterator();
-
+        } else { // there may be an active barrier
             // look for the first request in the queue we can serve
-            while (!isServable && it.hasNext()) {
-                index++;
-                MethodCall mc = it.next().getMethodCall();
+            int size = this.requestQueue.size();
+            for (int index = 0; index < size; index++) {
+                MethodCall mc = this.requestQueue.get(index).getMethodCall();
 
                 // FT : mc could be an awaited request
                 if (mc == null) {
                     return -1;
                 }
-                isServable = this.spmdManager.checkExecution(mc.getBarrierTags());
+                if (this.spmdManager.checkExecution(mc.getBarrierTags())) {
+                    return index;
+                }
             }
-            return isServable ? index : (-1);
+            return -1;
         }
     }
 }
@@ -0,0 +1,254 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.util.CircularArrayList;
+
+
+/**
+ * A {@link BlockingRequestQueue} designed for active objects receiving requests from many
+ * concurrent senders.
+ * <p>
+ * Incoming requests are appended to a lock-free queue: {@link #add(Request)} never takes
+ * the queue lock unless a thread is waiting for a request. In that case, only one thread is
+ * notified when it is the single waiter, all of them otherwise.
+ * <p>
+ * Every other operation takes the queue lock, first transfers the pending incoming requests
+ * into the request queue, then relies on {@link BlockingRequestQueueImpl}. Request filters,
+ * SPMD barriers and suspension therefore keep exactly the same semantics; the barriers state
+ * is updated when a request is transferred instead of when it is received.
+ * <p>
+ * This queue is used when {@link org.objectweb.proactive.core.config.CentralPAPropertyRepository#PA_REQUEST_QUEUE_CONCURRENT}
+ * is set.
+ *
+ * @author The ProActive Team
+ */
+public class ConcurrentBlockingRequestQueueImpl extends BlockingRequestQueueImpl {
+
+    /** Requests received but not yet transferred into the request queue */
+    private final ConcurrentLinkedQueue<Request> incoming;
+
+    /** Number of threads waiting on this queue. Only modified while holding the queue lock */
+    private transient volatile int waiters;
+
+    //
+    // -- CONSTRUCTORS -----------------------------------------------
+    //
+    public ConcurrentBlockingRequestQueueImpl(UniqueID ownerID) {
+        super(ownerID);
+        this.incoming = new ConcurrentLinkedQueue<Request>();
+    }
+
+    //
+    // -- PUBLIC METHODS -----------------------------------------------
+    //
+    @Override
+    public void add(Request r) {
+        this.incoming.offer(r);
+
+        // The waiter increments the counter before checking the incoming queue,
+        // so a request offered before this read cannot be missed
+        if (this.waiters > 0) {
+            synchronized (this) {
+                if (this.waiters == 1) {
+                    this.notify();
+                } else if (this.waiters > 1) {
+                    this.notifyAll();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void addToFront(Request r) {
+        this.drain();
+        super.addToFront(r);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        this.incoming.clear();
+        super.destroy();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        this.drain();
+        return super.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        this.drain();
+        return super.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.incoming.clear();
+        super.clear();
+    }
+
+    @Override
+    public synchronized Iterator<Request> iterator() {
+        this.drain();
+        return super.iterator();
+    }
+
+    @Override
+    public synchronized CircularArrayList<Request> getInternalQueue() {
+        this.drain();
+        return super.getInternalQueue();
+    }
+
+    @Override
+    public synchronized Request getOldest() {
+        this.drain();
+        return super.getOldest();
+    }
+
+    @Override
+    public synchronized Request getOldest(String methodName) {
+        this.drain();
+        return super.getOldest(methodName);
+    }
+
+    @Override
+    public synchronized Request getOldest(RequestFilter requestFilter) {
+        this.drain();
+        return super.getOldest(requestFilter);
+    }
+
+    @Override
+    public synchronized Request removeOldest() {
+        this.drain();
+        return super.removeOldest();
+    }
+
+    @Override
+    public synchronized Request removeOldest(String methodName) {
+        this.drain();
+        return super.removeOldest(methodName);
+    }
+
+    @Override
+    public synchronized Request removeOldest(RequestFilter requestFilter) {
+        this.drain();
+        return super.removeOldest(requestFilter);
+    }
+
+    @Override
+    public synchronized Request getYoungest() {
+        this.drain();
+        return super.getYoungest();
+    }
+
+    @Override
+    public synchronized Request getYoungest(String methodName) {
+        this.drain();
+        return super.getYoungest(methodName);
+    }
+
+    @Override
+    public synchronized Request getYoungest(RequestFilter requestFilter) {
+        this.drain();
+        return super.getYoungest(requestFilter);
+    }
+
+    @Override
+    public synchronized Request removeYoungest() {
+        this.drain();
+        return super.removeYoungest();
+    }
+
+    @Override
+    public synchronized Request removeYoungest(String methodName) {
+        this.drain();
+        return super.removeYoungest(methodName);
+    }
+
+    @Override
+    public synchronized Request removeYoungest(RequestFilter requestFilter) {
+        this.drain();
+        return super.removeYoungest(requestFilter);
+    }
+
+    @Override
+    public void processRequests(RequestProcessor processor, Body body) {
+        synchronized (this) {
+            this.drain();
+        }
+        super.processRequests(processor, body);
+    }
+
+    @Override
+    public synchronized String toString() {
+        this.drain();
+        return super.toString();
+    }
+
+    //
+    // -- PROTECTED METHODS -----------------------------------------------
+    //
+    @Override
+    protected void waitOnQueue(long timeout) throws InterruptedException {
+        this.waiters++;
+        try {
+            // Requests offered before the increment have to be seen here,
+            // the callers check the queue again when this method returns
+            if (!this.drain()) {
+                this.wait(timeout);
+            }
+        } finally {
+            this.waiters--;
+        }
+    }
+
+    //
+    // -- PRIVATE METHODS -----------------------------------------------
+    //
+
+    /**
+     * Transfers the incoming requests into the request queue, in arrival order.
+     * Must be called while holding the queue lock.
+     *
+     * @return true if at least one request has been transferred
+     */
+    private boolean drain() {
+        boolean drained = false;
+        Request r;
+        while ((r = this.incoming.poll()) != null) {
+            this.enqueue(r);
+            drained = true;
+        }
+        return drained;
+    }
+}
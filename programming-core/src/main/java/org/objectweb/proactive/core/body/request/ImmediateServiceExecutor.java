@@ -0,0 +1,316 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+
+/**
+ * Serves the immediate services with unique thread of all the active objects of the runtime.
+ * <p>
+ * Requests are served by {@link CentralPAPropertyRepository#PA_IMMEDIATE_SERVICE_POOL_SIZE}
+ * threads, whatever the number of callers. Each caller of an active object has a serial
+ * executor bound to one of the threads when it is given its first request: its requests are
+ * served one at a time, in order, and by the same thread. The serial executor of a caller is
+ * evicted once the caller has sent no request for an idle time, and the threads stop once
+ * they have served no request for the same time.
+ * <p>
+ * A serial executor is bound to the thread with the fewest callers among the threads which are
+ * not blocked, that is not running a request for more than {@link #BLOCKED_TIME}. When all the
+ * threads are blocked, a thread is added, so that a blocked request does not delay the callers
+ * not bound to its thread yet. The added threads are removed once their callers are evicted.
+ *
+ * @author The ProActive Team
+ */
+public class ImmediateServiceExecutor {
+
+    private static ImmediateServiceExecutor instance;
+
+    /** A thread running a request for longer than this, in ns, is blocked and gets no new caller */
+    static final long BLOCKED_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** The thread running the current task, null outside of these threads */
+    private static final ThreadLocal<Worker> currentWorker = new ThreadLocal<Worker>();
+
+    private final long idleTime;
+
+    /** The number of threads when none is blocked */
+    private final int maxThreads;
+
+    /** The threads, created on demand */
+    private final List<Worker> threads;
+
+    private int createdThreads;
+
+    private final AtomicLong servedRequests = new AtomicLong();
+
+    private final AtomicInteger serialExecutors = new AtomicInteger();
+
+    private final AtomicLong evictedSerialExecutors = new AtomicLong();
+
+    ImmediateServiceExecutor(int maxThreads, long idleTime, TimeUnit unit) {
+        this.idleTime = unit.toNanos(idleTime);
+        this.maxThreads = maxThreads;
+        this.threads = new ArrayList<Worker>(maxThreads);
+    }
+
+    public static synchronized ImmediateServiceExecutor getInstance() {
+        if (instance == null) {
+            instance = new ImmediateServiceExecutor(CentralPAPropertyRepository.PA_IMMEDIATE_SERVICE_POOL_SIZE.getValue(),
+                                                    RequestReceiverImpl.THREAD_FOR_IS_PING_PERIOD,
+                                                    TimeUnit.SECONDS);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a new serial executor, for the requests of a caller
+     */
+    SerialExecutor newSerialExecutor() {
+        this.serialExecutors.incrementAndGet();
+        return new SerialExecutor();
+    }
+
+    /**
+     * Returns the thread a new caller is bound to
+     */
+    private Worker bind() {
+        // a request served by one of the threads calling another active object would wait for itself
+        Worker current = currentWorker.get();
+        long now = System.nanoTime();
+        synchronized (this.threads) {
+            Worker best = null;
+            for (Worker thread : this.threads) {
+                if ((thread != current) && !thread.isBlocked(now) &&
+                    ((best == null) || (thread.load < best.load))) {
+                    best = thread;
+                }
+            }
+            if ((best == null) || ((best.load > 0) && (this.threads.size() < this.maxThreads))) {
+                best = new Worker(this.createdThreads++);
+                this.threads.add(best);
+            }
+            best.load++;
+            return best;
+        }
+    }
+
+    /**
+     * Unbinds a caller from its thread, and removes the thread if it was added while the
+     * others were blocked and has no caller anymore
+     */
+    private void unbind(Worker thread) {
+        synchronized (this.threads) {
+            thread.load--;
+            if ((thread.load == 0) && (this.threads.size() > this.maxThreads)) {
+                // its thread stops once idle, after the tasks already given
+                this.threads.remove(thread);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of requests served
+     */
+    public long getServedRequests() {
+        return this.servedRequests.get();
+    }
+
+    /**
+     * Returns the number of serial executors, that is of callers served recently
+     */
+    public int getSerialExecutors() {
+        return this.serialExecutors.get();
+    }
+
+    /**
+     * Returns the number of serial executors evicted after being idle
+     */
+    public long getEvictedSerialExecutors() {
+        return this.evictedSerialExecutors.get();
+    }
+
+    /**
+     * Returns the number of running threads
+     */
+    public int getPoolSize() {
+        int poolSize = 0;
+        synchronized (this.threads) {
+            for (Worker thread : this.threads) {
+                poolSize += thread.executor.getPoolSize();
+            }
+        }
+        return poolSize;
+    }
+
+    /**
+     * Returns the number of requests waiting for their thread
+     */
+    public int getQueuedRequests() {
+        int queued = 0;
+        synchronized (this.threads) {
+            for (Worker thread : this.threads) {
+                queued += thread.executor.getQueue().size();
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the number of threads serving callers, including the ones stopped while idle
+     */
+    int getThreads() {
+        synchronized (this.threads) {
+            return this.threads.size();
+        }
+    }
+
+    /**
+     * A single thread executor, and the number of callers bound to it
+     */
+    private class Worker {
+        final ThreadPoolExecutor executor;
+
+        /** The number of serial executors bound to this thread, guarded by the list of threads */
+        int load;
+
+        /** When the running task started, 0 if no task runs */
+        volatile long taskStart;
+
+        Worker(int index) {
+            this.executor = new ThreadPoolExecutor(1,
+                                                   1,
+                                                   idleTime,
+                                                   TimeUnit.NANOSECONDS,
+                                                   new LinkedBlockingQueue<Runnable>(),
+                                                   new NamedThreadFactory("Immediate Service Thread " + index, true));
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        boolean isBlocked(long now) {
+            long start = this.taskStart;
+            return (start != 0) && ((now - start) > BLOCKED_TIME);
+        }
+    }
+
+    /**
+     * Runs the tasks of a caller on its thread, one at a time and in order
+     */
+    class SerialExecutor {
+        /** The thread of the caller, null until the first task */
+        private Worker thread;
+
+        /** The tasks given and not run yet */
+        private int pending;
+
+        /** True once evicted: a new serial executor must be used */
+        private boolean evicted;
+
+        private long lastUse = System.nanoTime();
+
+        /**
+         * Runs the given task after the ones given before.
+         * @return false if this serial executor is evicted, and did not accept the task
+         */
+        boolean execute(final Runnable task) {
+            final Worker thread;
+            synchronized (this) {
+                if (this.evicted) {
+                    return false;
+                }
+                if (this.thread == null) {
+                    this.thread = bind();
+                }
+                thread = this.thread;
+                this.pending++;
+            }
+            if (currentWorker.get() == thread) {
+                // already on the thread of this serial executor
+                this.run(task);
+                return true;
+            }
+            thread.executor.execute(new Runnable() {
+                public void run() {
+                    currentWorker.set(thread);
+                    thread.taskStart = System.nanoTime();
+                    try {
+                        SerialExecutor.this.run(task);
+                    } finally {
+                        thread.taskStart = 0;
+                    }
+                }
+            });
+            return true;
+        }
+
+        private void run(Runnable task) {
+            try {
+                task.run();
+            } finally {
+                servedRequests.incrementAndGet();
+                synchronized (this) {
+                    this.pending--;
+                    this.lastUse = System.nanoTime();
+                }
+            }
+        }
+
+        /**
+         * Evicts this serial executor if it has run no task for the idle time.
+         * @return true if evicted
+         */
+        synchronized boolean evictIfIdle() {
+            if (!this.evicted && (this.pending == 0) && ((System.nanoTime() - this.lastUse) > idleTime)) {
+                this.evict();
+                evictedSerialExecutors.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Evicts this serial executor, which still runs the tasks already given
+         */
+        synchronized void evict() {
+            if (!this.evicted) {
+                this.evicted = true;
+                serialExecutors.decrementAndGet();
+                if (this.thread != null) {
+                    unbind(this.thread);
+                }
+            }
+        }
+    }
+}
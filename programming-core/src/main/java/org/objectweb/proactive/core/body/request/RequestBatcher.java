@@ -0,0 +1,295 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MethodCall;
+import org.objectweb.proactive.core.mop.StructuralCopy;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+
+/**
+ * Coalesces the one-way requests sent by a body to the same remote body.
+ * <p>
+ * Consecutive one-way requests sent to a remote body are kept until
+ * {@link CentralPAPropertyRepository#PA_REQUEST_BATCHING_MAX_SIZE} of them are pending, or until the
+ * oldest one has been kept {@link CentralPAPropertyRepository#PA_REQUEST_BATCHING_MAX_DELAY} milliseconds.
+ * They are then sent in a single message with {@link UniversalBody#receiveRequests(List)}. Any other
+ * request sent to this body first sends the pending ones, so the requests of a sender are still
+ * received in the order they have been sent.
+ * <p>
+ * The arguments of a kept request are copied when the request is kept, as the caller may modify them
+ * once the call has returned. A batch sent when the delay expires is sent by one of the
+ * {@link CentralPAPropertyRepository#PA_REQUEST_BATCHING_THREADS} threads shared by all the batchers,
+ * so that a slow destination does not delay the batches of the others. A batch which cannot be sent
+ * is reported by a {@link BatchedRequestsException} giving its requests: if it was sent when the delay
+ * expired, the failure is logged and raised by the next request sent to the same body. The batch of a
+ * body is dropped once it has been sent, so that the bodies no longer called are forgotten.
+ */
+public class RequestBatcher {
+    public static Logger logger = ProActiveLogger.getLogger(Loggers.REQUESTS);
+
+    /** Hands the batches whose delay has expired over to the senders */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ProActive request batching timer",
+                                                                                                                          true));
+
+    /** Sends the batches whose delay has expired */
+    private static final ThreadPoolExecutor senders;
+
+    static {
+        int threads = Math.max(1, CentralPAPropertyRepository.PA_REQUEST_BATCHING_THREADS.getValue());
+        senders = new ThreadPoolExecutor(threads,
+                                         threads,
+                                         60,
+                                         TimeUnit.SECONDS,
+                                         new LinkedBlockingQueue<Runnable>(),
+                                         new NamedThreadFactory("ProActive request batching", true));
+        senders.allowCoreThreadTimeOut(true);
+    }
+
+    /** The pending requests, by destination body */
+    private final ConcurrentHashMap<UniqueID, Batch> batches;
+
+    private final int maxSize;
+
+    private final long maxDelay;
+
+    public RequestBatcher() {
+        this.batches = new ConcurrentHashMap<UniqueID, Batch>();
+        this.maxSize = Math.max(1, CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_SIZE.getValue());
+        this.maxDelay = Math.max(0, CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_DELAY.getValue());
+    }
+
+    /**
+     * Sends a request to a body, or keeps it to send it later with the next requests sent to this body
+     *
+     * @param request the request to send
+     * @param destination the body to send the request to
+     * @throws IOException if the request cannot be sent, or a {@link BatchedRequestsException} if
+     *         pending requests sent before it cannot be sent
+     */
+    public void send(Request request, UniversalBody destination) throws IOException {
+        if (isBatchable(request, destination)) {
+            while (true) {
+                Batch batch = this.batches.get(destination.getID());
+                if (batch == null) {
+                    Batch newBatch = new Batch(destination);
+                    batch = this.batches.putIfAbsent(destination.getID(), newBatch);
+                    if (batch == null) {
+                        batch = newBatch;
+                    }
+                }
+                if (batch.add((RequestImpl) request)) {
+                    return;
+                }
+                // sent and dropped meanwhile
+            }
+        } else {
+            Batch batch = this.batches.get(destination.getID());
+            if (batch != null) {
+                batch.flush();
+            }
+            request.send(destination);
+        }
+    }
+
+    /**
+     * Sends all the pending requests
+     *
+     * @throws BatchedRequestsException if the pending requests of a body cannot be sent. The
+     *         pending requests of the other bodies are sent anyway.
+     */
+    public void flush() throws BatchedRequestsException {
+        BatchedRequestsException failure = null;
+        for (Batch batch : this.batches.values()) {
+            try {
+                batch.flush();
+            } catch (BatchedRequestsException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the number of bodies with pending requests, or with a failure to report
+     */
+    int getBatches() {
+        return this.batches.size();
+    }
+
+    /**
+     * Only the plain functional one-way requests sent to remote bodies are batched: a request sent to
+     * a local body is not serialized, and other requests expect to be received when the call returns.
+     */
+    private static boolean isBatchable(Request request, UniversalBody destination) {
+        // isFunctionalRequest() actually tells whether the request is a non functional one
+        return request.isOneWay() && !request.isFunctionalRequest() && (request.getClass() == RequestImpl.class) &&
+               !(destination instanceof Body);
+    }
+
+    /** The pending requests to a body */
+    private class Batch implements Runnable {
+        private final UniversalBody destination;
+
+        private List<Request> requests;
+
+        private ScheduledFuture<?> timeout;
+
+        /** The requests which could not be sent when the delay expired, raised by the next request */
+        private BatchedRequestsException failure;
+
+        /** True once sent and dropped: the requests must be added to a new batch */
+        private boolean dropped;
+
+        Batch(UniversalBody destination) {
+            this.destination = destination;
+            this.requests = new ArrayList<Request>();
+        }
+
+        /**
+         * Keeps a request
+         * @return false if this batch has been dropped, and did not keep the request
+         */
+        synchronized boolean add(RequestImpl request) throws IOException {
+            if (this.dropped) {
+                return false;
+            }
+            this.reportFailure();
+
+            MethodCall methodCall = request.getMethodCall();
+            Object[] arguments = methodCall.getEffectiveArguments();
+            if (arguments != null) {
+                Object[] copy = StructuralCopy.copy(arguments);
+                if (copy != null) {
+                    methodCall.setEffectiveArguments(copy);
+                } else {
+                    methodCall.serializeEffectiveArguments();
+                }
+            }
+
+            request.sendCounter++;
+            this.requests.add(request);
+            if (this.requests.size() >= maxSize) {
+                flush();
+            } else if (this.timeout == null) {
+                this.timeout = timer.schedule(new Runnable() {
+                    public void run() {
+                        senders.execute(Batch.this);
+                    }
+                }, maxDelay, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+
+        /**
+         * Sends the pending requests, and drops this batch
+         */
+        synchronized void flush() throws BatchedRequestsException {
+            try {
+                this.reportFailure();
+                this.send();
+            } finally {
+                this.drop();
+            }
+        }
+
+        /**
+         * Sends the pending requests once the delay has expired
+         */
+        public synchronized void run() {
+            if (this.dropped) {
+                return;
+            }
+            try {
+                this.send();
+                this.drop();
+            } catch (BatchedRequestsException e) {
+                logger.warn(e.getMessage(), e.getCause());
+                // kept until the next request to this body reports the failure
+                this.failure = e;
+            }
+        }
+
+        private void send() throws BatchedRequestsException {
+            if (this.timeout != null) {
+                this.timeout.cancel(false);
+                this.timeout = null;
+            }
+
+            if (this.requests.isEmpty()) {
+                return;
+            }
+
+            List<Request> pending = this.requests;
+            this.requests = new ArrayList<Request>(pending.size());
+            try {
+                if (pending.size() == 1) {
+                    this.destination.receiveRequest(pending.get(0));
+                } else {
+                    this.destination.receiveRequests(pending);
+                }
+            } catch (IOException e) {
+                throw new BatchedRequestsException("Failed to send " + pending.size() +
+                                                   " batched one-way requests to " + this.destination.getID(),
+                                                   pending,
+                                                   e);
+            }
+        }
+
+        private void reportFailure() throws BatchedRequestsException {
+            if (this.failure != null) {
+                BatchedRequestsException e = this.failure;
+                this.failure = null;
+                throw e;
+            }
+        }
+
+        private void drop() {
+            this.dropped = true;
+            batches.remove(this.destination.getID(), this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.proactive.annotation.DefineGroups;
+import org.objectweb.proactive.annotation.Group;
+import org.objectweb.proactive.annotation.MemberOf;
+import org.objectweb.proactive.core.mop.MethodCall;
+
+
+/**
+ * Tells whether two requests on an active object can be served in parallel, according to the
+ * groups of methods declared by the class of the active object with {@link DefineGroups} and
+ * {@link MemberOf}.
+ * <p>
+ * Requests on methods without group, and requests without method call, are compatible with
+ * no other request.
+ *
+ * @author The ProActive Team
+ * @see org.objectweb.proactive.MultiActiveService
+ */
+public class RequestCompatibility {
+
+    /** Marks the methods without group in the cache, which does not accept null values */
+    private static final String NO_GROUP = "";
+
+    private final Class<?> reifiedClass;
+
+    private final Map<String, Group> groups = new HashMap<String, Group>();
+
+    /** The group of each method called so far */
+    private final ConcurrentHashMap<Method, String> groupOfMethods = new ConcurrentHashMap<Method, String>();
+
+    /**
+     * @param reifiedClass the class of the active object
+     * @throws IllegalArgumentException if a method or a group refers to an undefined group
+     */
+    public RequestCompatibility(Class<?> reifiedClass) {
+        this.reifiedClass = reifiedClass;
+        DefineGroups definition = reifiedClass.getAnnotation(DefineGroups.class);
+        if (definition != null) {
+            for (Group group : definition.value()) {
+                this.groups.put(group.name(), group);
+            }
+        }
+        for (Group group : this.groups.values()) {
+            for (String other : group.compatibleWith()) {
+                if (!this.groups.containsKey(other)) {
+                    throw new IllegalArgumentException("Group " + group.name() + " of " + reifiedClass.getName() +
+                                                       " is compatible with undefined group " + other);
+                }
+            }
+        }
+        for (Method method : reifiedClass.getMethods()) {
+            MemberOf member = method.getAnnotation(MemberOf.class);
+            if ((member != null) && !this.groups.containsKey(member.value())) {
+                throw new IllegalArgumentException("Method " + method + " is member of undefined group " +
+                                                   member.value());
+            }
+        }
+    }
+
+    /**
+     * Returns true if the two requests can be served in parallel.
+     */
+    public boolean areCompatible(Request request1, Request request2) {
+        String group1 = this.getGroup(request1);
+        String group2 = this.getGroup(request2);
+        if ((group1 == null) || (group2 == null)) {
+            return false;
+        }
+        if (group1.equals(group2)) {
+            return this.groups.get(group1).selfCompatible();
+        }
+        return this.lists(group1, group2) || this.lists(group2, group1);
+    }
+
+    private boolean lists(String group, String other) {
+        for (String name : this.groups.get(group).compatibleWith()) {
+            if (name.equals(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the name of the group of the method called by a request, or null if the method
+     * has no group.
+     */
+    public String getGroup(Request request) {
+        MethodCall mc = request.getMethodCall();
+        if ((mc == null) || this.groups.isEmpty()) {
+            return null;
+        }
+        Method method = mc.getReifiedMethod();
+        String group = this.groupOfMethods.get(method);
+        if (group == null) {
+            group = this.findGroup(method);
+            this.groupOfMethods.put(method, group);
+        }
+        return (group == NO_GROUP) ? null : group;
+    }
+
+    private String findGroup(Method method) {
+        MemberOf member = method.getAnnotation(MemberOf.class);
+        if (member == null) {
+            // the reified method can be the one of a superclass or of an interface
+            try {
+                member = this.reifiedClass.getMethod(method.getName(), method.getParameterTypes())
+                                          .getAnnotation(MemberOf.class);
+            } catch (NoSuchMethodException e) {
+                // not a method of the active object, like the methods of the body
+            }
+        }
+        if ((member == null) || !this.groups.containsKey(member.value())) {
+            return NO_GROUP;
+        }
+        return member.value();
+    }
+}
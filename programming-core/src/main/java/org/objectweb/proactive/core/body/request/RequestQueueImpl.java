@@ -25,14 +25,21 @@
  */
 package org.objectweb.proactive.core.body.request;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.LocalBodyStore;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.event.AbstractEventProducer;
 import org.objectweb.proactive.core.event.ProActiveEvent;
 import org.objectweb.proactive.core.event.ProActiveListener;
@@ -55,6 +62,19 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
 
     protected NonFunctionalRequestsProcessor nfRequestsProcessor;
 
+    /**
+     * The requests of the queue, in the same order, indexed by method name.
+     * null if the index is disabled (see {@link CentralPAPropertyRepository#PA_REQUEST_QUEUE_METHOD_INDEX})
+     */
+    private Map<String, ArrayDeque<Request>> methodIndex;
+
+    /**
+     * The requests removed through the method index but still in the queue, to avoid scanning
+     * the queue on each removal. They are dropped from the queue when they reach one of its
+     * ends, or all at once before the queue is accessed by position. null if there are none.
+     */
+    private transient Set<Request> removedRequests;
+
     //
     // -- CONSTRUCTORS -----------------------------------------------
     //
@@ -63,25 +83,52 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
         this.ownerID = ownerID;
         this.requestFilterOnMethodName = new RequestFilterOnMethodName();
         this.nfRequestsProcessor = new NonFunctionalRequestsProcessor();
+        if (CentralPAPropertyRepository.PA_REQUEST_QUEUE_METHOD_INDEX.isTrue()) {
+            this.methodIndex = new HashMap<String, ArrayDeque<Request>>();
+        }
     }
 
     //
     // -- PUBLIC METHODS -----------------------------------------------
     //
     public java.util.Iterator<Request> iterator() {
-        return requestQueue.iterator();
+        purgeRemovedRequests();
+        if (methodIndex == null) {
+            return requestQueue.iterator();
+        }
+
+        // Keeps the method index in sync when the caller removes requests
+        final Iterator<Request> it = requestQueue.iterator();
+        return new Iterator<Request>() {
+            private Request current;
+
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public Request next() {
+                current = it.next();
+                return current;
+            }
+
+            public void remove() {
+                it.remove();
+                removeFromIndex(current);
+            }
+        };
     }
 
     public CircularArrayList<Request> getInternalQueue() {
+        purgeRemovedRequests();
         return this.requestQueue;
     }
 
     public synchronized boolean isEmpty() {
-        return requestQueue.isEmpty();
+        return size() == 0;
     }
 
     public synchronized int size() {
-        return requestQueue.size();
+        return requestQueue.size() - ((removedRequests == null) ? 0 : removedRequests.size());
     }
 
     public boolean hasRequest(String s) {
@@ -90,9 +137,14 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
 
     public synchronized void clear() {
         requestQueue.clear();
+        removedRequests = null;
+        if (methodIndex != null) {
+            methodIndex.clear();
+        }
     }
 
     public synchronized Request getOldest() {
+        dropRemovedRequests(true);
         if (requestQueue.isEmpty()) {
             return null;
             //serves the non functional requests first.
@@ -112,15 +164,16 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
     }
 
     public synchronized Request removeOldest() {
+        dropRemovedRequests(true);
         if (requestQueue.isEmpty()) {
             return null;
         } else if (!nfRequestsProcessor.isEmpty()) {
             Request r = nfRequestsProcessor.getOldestPriorityNFRequest(true);
-            requestQueue.remove(r);
+            removeFromQueue(r);
             return r;
         }
 
-        Request r = (Request) requestQueue.remove(0);
+        Request r = removeFromQueue(0);
 
         // ProActiveEvent
         if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
@@ -141,6 +194,7 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
     }
 
     public synchronized Request getYoungest() {
+        dropRemovedRequests(false);
         if (requestQueue.isEmpty()) {
             return null;
         } else if (!nfRequestsProcessor.isEmpty()) {
@@ -159,14 +213,15 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
     }
 
     public synchronized Request removeYoungest() {
+        dropRemovedRequests(false);
         if (requestQueue.isEmpty()) {
             return null;
         } else if (!nfRequestsProcessor.isEmpty()) {
             Request r = nfRequestsProcessor.getYoungestPriorityNFRequest(true);
-            requestQueue.remove(r);
+            removeFromQueue(r);
             return r;
         }
-        Request r = (Request) requestQueue.remove(requestQueue.size() - 1);
+        Request r = removeFromQueue(requestQueue.size() - 1);
 
         // ProActiveEvent
         if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
@@ -196,6 +251,9 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
         }
 
         requestQueue.add(request);
+        if (methodIndex != null) {
+            indexOf(request.getMethodName()).addLast(request);
+        }
 
         // ProActiveEvent
         if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
@@ -213,6 +271,9 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
         }
 
         requestQueue.add(0, request);
+        if (methodIndex != null) {
+            indexOf(request.getMethodName()).addFirst(request);
+        }
 
         // ProActiveEvent
         if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
@@ -226,6 +287,7 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
         List<Request> reqToServe = new ArrayList<Request>();
         Throwable exceptionToTrow = processor.getExceptionToThrow();
         synchronized (this) {
+            purgeRemovedRequests();
 
             for (int i = 0; i < requestQueue.size(); i++) {
                 Request r;
@@ -234,8 +296,9 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
                 while (!nfRequestsProcessor.isEmpty()) {
                     r = nfRequestsProcessor.getOldestPriorityNFRequest(true);
                     LocalBodyStore.getInstance().getLocalBody(ownerID).serve(r);
-                    requestQueue.remove(r);
+                    removeFromQueue(r);
                 }
+                purgeRemovedRequests();
                 if (requestQueue.isEmpty()) {
                     return;
                 }
@@ -244,7 +307,7 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
                 int result = processor.processRequest(r);
                 switch (result) {
                     case RequestProcessor.REMOVE_AND_SERVE:
-                        requestQueue.remove(i);
+                        removeFromQueue(i);
                         i--;
 
                         // ProActiveEvent
@@ -257,7 +320,7 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
 
                         break;
                     case RequestProcessor.REMOVE:
-                        requestQueue.remove(i);
+                        removeFromQueue(i);
                         i--;
                         if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
                             notifyAllListeners(new RequestQueueEvent(ownerID, RequestQueueEvent.REMOVE_REQUEST));
@@ -280,6 +343,7 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
 
     @Override
     public synchronized String toString() {
+        purgeRemovedRequests();
         String ls = System.getProperty("line.separator");
         StringBuilder sb = new StringBuilder();
         sb.append("--- RequestQueueImpl n=");
@@ -306,6 +370,66 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
     //
     // -- PROTECTED METHODS -----------------------------------------------
     //
+
+    /**
+     * Removes the request at the given position of the queue. The position must have been taken
+     * after {@link #purgeRemovedRequests()}.
+     * @param index the position of the request in the queue
+     * @return the removed request
+     */
+    protected Request removeFromQueue(int index) {
+        Request r = requestQueue.remove(index);
+        removeFromIndex(r);
+        return r;
+    }
+
+    /**
+     * Removes the given request from the queue
+     * @param r the request to remove
+     */
+    protected void removeFromQueue(Request r) {
+        // The oldest request is the most likely to be removed
+        if (!requestQueue.isEmpty() && (requestQueue.get(0) == r)) {
+            requestQueue.remove(0);
+            removeFromIndex(r);
+        } else if (methodIndex != null) {
+            // The index holds the same requests as the queue: the request is only marked as
+            // removed, rather than searched in the queue
+            if (!removeFromIndex(r)) {
+                return;
+            }
+            if (requestQueue.get(requestQueue.size() - 1) == r) {
+                requestQueue.remove(requestQueue.size() - 1);
+            } else {
+                if (removedRequests == null) {
+                    removedRequests = Collections.newSetFromMap(new IdentityHashMap<Request, Boolean>());
+                }
+                removedRequests.add(r);
+            }
+        } else {
+            requestQueue.remove(r);
+        }
+    }
+
+    /**
+     * Drops from the queue the requests removed through the method index, so that the queue can
+     * be accessed by position
+     */
+    protected synchronized void purgeRemovedRequests() {
+        if (removedRequests == null) {
+            return;
+        }
+        List<Request> remaining = new ArrayList<Request>(requestQueue.size() - removedRequests.size());
+        for (Request r : requestQueue) {
+            if (!removedRequests.contains(r)) {
+                remaining.add(r);
+            }
+        }
+        requestQueue.clear();
+        requestQueue.addAll(remaining);
+        removedRequests = null;
+    }
+
     @Override
     protected void notifyOneListener(ProActiveListener listener, ProActiveEvent event) {
         ((RequestQueueEventListener) listener).requestQueueModified((RequestQueueEvent) event);
@@ -315,6 +439,28 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
     // -- PRIVATE METHODS -----------------------------------------------
     //
 
+    /**
+     * Drops the requests removed through the method index from one end of the queue
+     * @param oldest true for the oldest end, false for the youngest one
+     */
+    private void dropRemovedRequests(boolean oldest) {
+        while ((removedRequests != null) && !requestQueue.isEmpty()) {
+            int index = oldest ? 0 : (requestQueue.size() - 1);
+            if (!removedRequests.remove(requestQueue.get(index))) {
+                return;
+            }
+            requestQueue.remove(index);
+            if (removedRequests.isEmpty()) {
+                removedRequests = null;
+            }
+        }
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+        purgeRemovedRequests();
+        out.defaultWriteObject();
+    }
+
     /**
      * Return the oldest fullfilling the criteria defined by the
      * given filter or null if no match
@@ -332,10 +478,27 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
             while (!nfRequestsProcessor.isEmpty()) {
                 r = nfRequestsProcessor.getOldestPriorityNFRequest(true);
                 LocalBodyStore.getInstance().getLocalBody(ownerID).serve(r);
-                requestQueue.remove(r);
+                removeFromQueue(r);
             }
         }
 
+        if ((methodIndex != null) && (requestFilter == requestFilterOnMethodName)) {
+            ArrayDeque<Request> requests = methodIndex.get(requestFilterOnMethodName.getMethodName());
+            r = (requests == null) ? null : requests.peekFirst();
+            if ((r != null) && shouldRemove) {
+                removeFromQueue(r);
+
+                // ProActiveEvent
+                if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
+                    notifyAllListeners(new RequestQueueEvent(ownerID, RequestQueueEvent.REMOVE_REQUEST));
+                }
+
+                // END ProActiveEvent
+            }
+            return r;
+        }
+
+        purgeRemovedRequests();
         iterator = requestQueue.iterator();
         //then we look for the oldest request fullfilling the criteria defined by the given filter
         while (iterator.hasNext()) {
@@ -343,6 +506,7 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
             if (requestFilter.acceptRequest(r)) {
                 if (shouldRemove) {
                     iterator.remove();
+                    removeFromIndex(r);
 
                     // ProActiveEvent
                     if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
@@ -372,15 +536,33 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
         while (!nfRequestsProcessor.isEmpty()) {
             r = nfRequestsProcessor.getYoungestPriorityNFRequest(true);
             LocalBodyStore.getInstance().getLocalBody(ownerID).serve(r);
-            requestQueue.remove(r);
+            removeFromQueue(r);
+        }
+
+        if ((methodIndex != null) && (requestFilter == requestFilterOnMethodName)) {
+            ArrayDeque<Request> requests = methodIndex.get(requestFilterOnMethodName.getMethodName());
+            r = (requests == null) ? null : requests.peekLast();
+            if ((r != null) && shouldRemove) {
+                removeFromQueue(r);
+
+                // ProActiveEvent
+                if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
+                    notifyAllListeners(new RequestQueueEvent(ownerID, RequestQueueEvent.REMOVE_REQUEST));
+                }
+
+                // END ProActiveEvent
+            }
+            return r;
         }
 
+        purgeRemovedRequests();
         ListIterator<Request> iterator = requestQueue.listIterator(requestQueue.size());
         while (iterator.hasPrevious()) {
             r = iterator.previous();
             if (requestFilter.acceptRequest(r)) {
                 if (shouldRemove) {
                     iterator.remove();
+                    removeFromIndex(r);
 
                     // ProActiveEvent
                     if (SEND_ADD_REMOVE_EVENT && hasListeners()) {
@@ -395,6 +577,44 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
         return null;
     }
 
+    private ArrayDeque<Request> indexOf(String methodName) {
+        ArrayDeque<Request> requests = methodIndex.get(methodName);
+        if (requests == null) {
+            requests = new ArrayDeque<Request>();
+            methodIndex.put(methodName, requests);
+        }
+        return requests;
+    }
+
+    /**
+     * @return true if the request was in the index
+     */
+    private boolean removeFromIndex(Request r) {
+        if (methodIndex == null) {
+            return false;
+        }
+
+        ArrayDeque<Request> requests = methodIndex.get(r.getMethodName());
+        if (requests == null) {
+            return false;
+        }
+
+        // Requests are mostly removed in FIFO order
+        boolean removed = true;
+        if (requests.peekFirst() == r) {
+            requests.pollFirst();
+        } else if (requests.peekLast() == r) {
+            requests.pollLast();
+        } else {
+            removed = requests.removeFirstOccurrence(r);
+        }
+
+        if (requests.isEmpty()) {
+            methodIndex.remove(r.getMethodName());
+        }
+        return removed;
+    }
+
     //
     // -- INNER CLASSES -----------------------------------------------
     //
@@ -411,5 +631,9 @@ public class RequestQueueImpl extends AbstractEventProducer implements java.io.S
         public void setMethodName(String methodName) {
             this.methodName = methodName;
         }
+
+        public String getMethodName() {
+            return this.methodName;
+        }
     }
 }
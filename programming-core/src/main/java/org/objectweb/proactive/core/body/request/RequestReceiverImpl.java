@@ -28,23 +28,19 @@ package org.objectweb.proactive.core.body.request;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
-import org.objectweb.proactive.core.ProActiveException;
-import org.objectweb.proactive.core.ProActiveRuntimeException;
 import org.objectweb.proactive.core.UniqueID;
-import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.body.exceptions.InactiveBodyException;
-import org.objectweb.proactive.core.util.HeartbeatResponse;
+import org.objectweb.proactive.core.body.request.ImmediateServiceExecutor.SerialExecutor;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 
@@ -52,7 +48,7 @@ import org.objectweb.proactive.core.util.log.ProActiveLogger;
 public class RequestReceiverImpl implements RequestReceiver, java.io.Serializable {
     public static Logger logger = ProActiveLogger.getLogger(Loggers.REQUESTS);
 
-    // time of inactivity after which a thread for caller is stopped (in sec)
+    // time of inactivity after which the serial executor of a caller is evicted (in sec)
     public final static int THREAD_FOR_IS_PING_PERIOD = 21;
 
     // Classwrapper that characterizes method with any parameters
@@ -101,8 +97,9 @@ public class RequestReceiverImpl implements RequestReceiver, java.io.Serializabl
     /**
      * Defines the service mode, i.e. the way the incoming request has to be served.
      * It could be normal service (request in put in queue), immediate service multi-thread 
-     * (request is served by the incoming thread) or immediate service unique thread (request
-     * id served by a dedicated thread, which is the same for a given caller).
+     * (request is served by the incoming thread) or immediate service unique thread (requests
+     * of a given caller are served one at a time, in order and by the same thread, see
+     * {@link ImmediateServiceExecutor}).
      */
     public enum ServiceMode {
         NORMAL_SERVICE,
@@ -116,8 +113,13 @@ public class RequestReceiverImpl implements RequestReceiver, java.io.Serializabl
     // immediate services are currently executed if != 0
     private AtomicInteger inImmediateService;
 
-    // Thread associated to a given caller for immediate service with unique thread
-    private transient Map<UniqueID, ThreadForImmediateService> threadsForCallers;
+    // Serial executor associated to a given caller for immediate service with unique thread
+    private transient Map<UniqueID, SerialExecutor> executorsForCallers;
+
+    // last time idle serial executors were evicted (in ns)
+    private transient volatile long lastEviction;
+
+    private transient volatile boolean terminated;
 
     public RequestReceiverImpl() {
         serviceModes = new Hashtable<String, Map<ClassArrayWrapper, ServiceMode>>(3);
@@ -132,7 +134,8 @@ public class RequestReceiverImpl implements RequestReceiver, java.io.Serializabl
         ti.put(ANY_PARAMETERS, ServiceMode.IMMEDIATE_MULTI_THREAD);
         serviceModes.put("_terminateAOImmediately", ti);
         this.inImmediateService = new AtomicInteger(0);
-        this.threadsForCallers = new Hashtable<UniqueID, ThreadForImmediateService>();
+        this.executorsForCallers = new ConcurrentHashMap<UniqueID, SerialExecutor>();
+        this.lastEviction = System.nanoTime();
     }
 
     public void receiveRequest(Request request, Body bodyReceiver) {
@@ -149,14 +152,7 @@ public class RequestReceiverImpl implements RequestReceiver, java.io.Serializabl
                 this.inImmediateService.incrementAndGet();
                 try {
                     if (mode.equals(ServiceMode.IMMEDIATE_UNIQUE_THREAD)) {
-                        final UniversalBody caller = request.getSender();
-                        ThreadForImmediateService serviceThread = this.threadsForCallers.get(caller.getID());
-                        if (serviceThread == null) {
-                            serviceThread = new ThreadForImmediateService(caller);
-                            serviceThread.start();
-                            this.threadsForCallers.put(caller.getID(), serviceThread);
-                        }
-                        serviceThread.deleguateServe(request, bodyReceiver);
+                        this.serveWithUniqueThread(request, bodyReceiver);
                     } else {
                         bodyReceiver.serve(request);
                     }
@@ -182,6 +178,86 @@ public class RequestReceiverImpl implements RequestReceiver, java.io.Serializabl
         }
     }
 
+    /**
+     * Serves the request after the requests of the same caller received before, and blocks
+     * the calling thread until the end of the service.
+     */
+    private void serveWithUniqueThread(final Request request, final Body bodyReceiver) {
+        if (this.terminated) {
+            logger.info("Request " + request.getMethodName() + " from " + request.getSourceBodyID() +
+                        " cannot be served: the request receiver is terminated");
+            return;
+        }
+        final CountDownLatch served = new CountDownLatch(1);
+        Runnable service = new Runnable() {
+            public void run() {
+                try {
+                    if (terminated) {
+                        logger.info("Request " + request.getMethodName() + " from " + request.getSourceBodyID() +
+                                    " cannot be served: the request receiver is terminated");
+                    } else {
+                        bodyReceiver.serve(request);
+                    }
+                } catch (Throwable e) {
+                    logger.error("An exception occured in the service of " + request.getMethodName() +
+                                 " for caller " + request.getSourceBodyID(), e);
+                } finally {
+                    served.countDown();
+                }
+            }
+        };
+        while (!this.getExecutorForCaller(request.getSourceBodyID()).execute(service)) {
+            // evicted meanwhile
+        }
+
+        boolean interrupted = false;
+        while (served.getCount() > 0) {
+            try {
+                served.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SerialExecutor getExecutorForCaller(UniqueID caller) {
+        this.evictIdleExecutors();
+        SerialExecutor executor = this.executorsForCallers.get(caller);
+        if (executor == null) {
+            synchronized (this.executorsForCallers) {
+                executor = this.executorsForCallers.get(caller);
+                if (executor == null) {
+                    executor = ImmediateServiceExecutor.getInstance().newSerialExecutor();
+                    this.executorsForCallers.put(caller, executor);
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Evicts the serial executors of the callers without request for the last
+     * THREAD_FOR_IS_PING_PERIOD seconds, at most once per period.
+     */
+    private void evictIdleExecutors() {
+        long now = System.nanoTime();
+        if ((now - this.lastEviction) < TimeUnit.SECONDS.toNanos(THREAD_FOR_IS_PING_PERIOD)) {
+            return;
+        }
+        this.lastEviction = now;
+        synchronized (this.executorsForCallers) {
+            Iterator<SerialExecutor> it = this.executorsForCallers.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().evictIfIdle()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
     /**
      * Return the service mode for the incoming request
      */
@@ -278,158 +354,24 @@ public class RequestReceiverImpl implements RequestReceiver, java.io.Serializabl
     }
 
     public boolean hasThreadsForImmediateService() {
-        return this.threadsForCallers.size() != 0;
+        return this.executorsForCallers.size() != 0;
     }
 
     /**
-     * Terminate all the ThreadForImmediateService.
+     * Terminate the service of the immediate services with unique thread: the requests not
+     * served yet are dropped.
      */
     public void terminate() {
-        // must get a snapshot of threadForCallers, as t.kill() modifies it.
-        Set<ThreadForImmediateService> allThreads = new HashSet<ThreadForImmediateService>();
-        for (ThreadForImmediateService t : this.threadsForCallers.values()) {
-            allThreads.add(t);
-        }
-        // kill all threads for caller
-        for (ThreadForImmediateService t : allThreads) {
-            t.kill();
-        }
-        this.threadsForCallers.clear();
-    }
-
-    /**
-     * Thread for serving "immediate service with unique thread". 
-     * This thread is associated to a given caller.
-     */
-    private class ThreadForImmediateService extends Thread {
-
-        private final UniversalBody associatedCaller;
-
-        private final Semaphore callerLock;
-
-        private final Semaphore localLock;
-
-        private Request currentRequest;
-
-        private Body currentReceiver;
-
-        private final AtomicBoolean isActive;
-
-        private final AtomicBoolean isInService;
-
-        /**
-         * Create a new ThreadForImmediateService that serve request coming from the specified caller only.
-         * @param caller a reference to the specified caller.
-         */
-        public ThreadForImmediateService(UniversalBody caller) {
-            this.associatedCaller = caller;
-            this.setName("Immediate Service Thread for caller " + this.associatedCaller.getID());
-            this.isActive = new AtomicBoolean(true);
-            this.isInService = new AtomicBoolean(false);
-            this.callerLock = new Semaphore(0);
-            this.localLock = new Semaphore(0);
-        }
-
-        /**
-         * Execute the request on the receiver body. The thread calling this method is blocked until the service
-         * of the request ends.
-         * Note that this method cannot be called concurrently as it is dedicated to a single caller, which is blocked 
-         * until the current service ends.
-         * @param request the request to serve
-         * @param receiver the body on which the request is served
-         * @throws ProActiveException if this ThreadForImmediateService is no more active
-         */
-        public void deleguateServe(Request request, Body receiver) throws ProActiveException {
-            if (isActive.get()) {
-                // sanity check
-                if (!this.isInService.compareAndSet(false, true)) {
-                    throw new ProActiveRuntimeException("Deleguate services cannot be concurrent.");
-                }
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Serving IS with unique thread : " + request.getMethodName() + " for caller " +
-                                 this.associatedCaller);
-                }
-                this.currentRequest = request;
-                this.currentReceiver = receiver;
-                this.localLock.release();
-                // wait for the completion of the call
-                this.callerLock.acquireUninterruptibly();
-                this.isInService.set(false);
-            } else {
-                throw new ProActiveException("" + this.getName() + " is no more active. Request " +
-                                             request.getMethodName() + " from " + request.getSourceBodyID() +
-                                             " cannot be served");
+        this.terminated = true;
+        synchronized (this.executorsForCallers) {
+            for (SerialExecutor executor : this.executorsForCallers.values()) {
+                executor.evict();
             }
+            this.executorsForCallers.clear();
         }
-
-        public void run() {
-            boolean didCall = false;
-            while (isActive.get()) {
-                try {
-                    didCall = this.localLock.tryAcquire(RequestReceiverImpl.THREAD_FOR_IS_PING_PERIOD,
-                                                        TimeUnit.SECONDS);
-                } catch (InterruptedException e) {
-                    // interruption is ignored
-                    if (isActive.get()) {
-                        continue;
-                    } else {
-                        this.kill();
-                        break;
-                    }
-                }
-                // test if a service is required
-                if (didCall && isActive.get()) {
-                    try {
-                        this.currentReceiver.serve(this.currentRequest);
-                    } catch (Throwable e) {
-                        logger.error("An exception occured in the service of " + this.currentRequest.getMethodName() +
-                                     " by " + this, e);
-                    }
-                    // the following set do not have to be synchronized since only one deleguateServe call at a time is possible 
-                    this.currentRequest = null;
-                    this.currentReceiver = null;
-                    this.callerLock.release();
-                } else {
-                    // if didCall is false, timeout occurs : check caller livness
-                    if (!this.pingAssociatedCaller()) {
-                        this.kill();
-                    }
-                }
-            }
-        }
-
-        /**
-         * Stop this ThreadForImmediateService. Calling doCall() after calling kill() will throw 
-         * a ProActiveException.
-         */
-        public void kill() {
-            if (isActive.compareAndSet(true, false)) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("" + this + " is terminating...");
-                }
-                this.interrupt();
-                RequestReceiverImpl.this.threadsForCallers.remove(this.associatedCaller.getID());
-                this.callerLock.release();
-            }
-        }
-
-        /**
-         * Return true is the associated caller is alive, false otherwise
-         * @return true is the associated caller is alive, false otherwise
-         */
-        private boolean pingAssociatedCaller() {
-            try {
-                // PROACTIVE-267 : should not use explicitly FT package.
-                Object ping = this.associatedCaller.receiveHeartbeat();
-                return HeartbeatResponse.OK.equals(ping);
-            } catch (IOException e) {
-                return false;
-            }
-        }
-
     }
 
-    // Serilization methods are redefined because of threads for caller
+    // Serilization methods are redefined because of serial executors for caller
 
     private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
         out.defaultWriteObject();
@@ -437,7 +379,8 @@ public class RequestReceiverImpl implements RequestReceiver, java.io.Serializabl
 
     private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
         in.defaultReadObject();
-        this.threadsForCallers = new Hashtable<UniqueID, ThreadForImmediateService>();
+        this.executorsForCallers = new ConcurrentHashMap<UniqueID, SerialExecutor>();
+        this.lastEviction = System.nanoTime();
     }
 
 }
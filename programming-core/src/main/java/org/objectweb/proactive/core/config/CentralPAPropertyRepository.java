@@ -139,6 +139,13 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
      */
     static public PAPropertyBoolean PA_FUTURE_AC = new PAPropertyBoolean("proactive.future.ac", false, true);
 
+    /**
+     * Maximum number of threads sending the automatic continuations of all the active objects of this runtime
+     */
+    static public PAPropertyInteger PA_FUTURE_AC_THREADS = new PAPropertyInteger("proactive.future.ac.threads",
+                                                                                 false,
+                                                                                 16);
+
     /**
      * Timeout value for future in synchronous requests.
      * can be used to set timeout on synchronous calls. Impossible otherwise
@@ -148,6 +155,17 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
                                                                                      false,
                                                                                      0);
 
+    /**
+     * Shares the value of a reply between the local copies of a future
+     * <p/>
+     * When a body holds several copies of the same future, each copy receives a deep copy of the value,
+     * unless the value is immutable (see {@link org.objectweb.proactive.annotation.Immutable}).
+     * If true, all the copies receive the same value, which must then never be modified by its consumers.
+     */
+    static public PAPropertyBoolean PA_FUTURE_SHARED_RESULTS = new PAPropertyBoolean("proactive.future.shared_results",
+                                                                                     false,
+                                                                                     false);
+
     /**
      * Period of the future monitoring ping, in milliseconds
      * <p/>
@@ -156,6 +174,135 @@ public class CentralPAPropertyRepository implements PAPropertiesLoaderSPI {
     static public PAPropertyInteger PA_FUTUREMONITORING_TTM = new PAPropertyInteger("proactive.futuremonitoring.ttm",
                                                                                     false);
 
+    /**
+     * Maximum number of runtimes pinged concurrently by the future monitoring
+     */
+    static public PAPropertyInteger PA_FUTUREMONITORING_THREADS = new PAPropertyInteger("proactive.futuremonitoring.threads",
+                                                                                        false,
+                                                                                        8);
+
+    /**
+     * Timeout of the future monitoring pings, in milliseconds
+     * <p/>
+     * If a ping is not answered within this delay, the futures awaiting the pinged active objects
+     * are updated with a {@link org.objectweb.proactive.core.body.exceptions.FutureMonitoringPingFailureException}.
+     * The delay is measured from the start of the ping, and a ping which timed out no longer
+     * holds one of the {@link #PA_FUTUREMONITORING_THREADS} threads. If set to 0, then pings do not
+     * time out.
+     */
+    static public PAPropertyInteger PA_FUTUREMONITORING_PING_TIMEOUT = new PAPropertyInteger("proactive.futuremonitoring.ping_timeout",
+                                                                                             false,
+                                                                                             60000);
+
+    /**
+     * Fanout of the multicast of the one-way calls on groups
+     * <p/>
+     * If greater than 0, a one-way call on a group is sent to at most this number of members, which
+     * forward it to the other members along a tree. If set to 0, then the caller sends the call
+     * to every member.
+     */
+    static public PAPropertyInteger PA_GROUP_MULTICAST_FANOUT = new PAPropertyInteger("proactive.group.multicast.fanout",
+                                                                                      false,
+                                                                                      0);
+
+    /**
+     * Selects the request queue of the active objects
+     * <p/>
+     * If true, requests are received in a lock-free queue and the queue lock is only taken by the
+     * threads serving requests. Useful for active objects receiving requests from many concurrent senders.
+     */
+    static public PAPropertyBoolean PA_REQUEST_QUEUE_CONCURRENT = new PAPropertyBoolean("proactive.requestqueue.concurrent",
+                                                                                        false,
+                                                                                        false);
+
+    /**
+     * Indexes the requests of the request queues by method name
+     * <p/>
+     * If true, serving or looking for the oldest or youngest request of a given method name
+     * does not scan the whole request queue. Useful for active objects selectively serving large backlogs.
+     */
+    static public PAPropertyBoolean PA_REQUEST_QUEUE_METHOD_INDEX = new PAPropertyBoolean("proactive.requestqueue.method_index",
+                                                                                          false,
+                                                                                          false);
+
+    /**
+     * Maximum number of threads serving the immediate services with unique thread
+     * <p/>
+     * The callers of all the active objects of the runtime are spread over these threads: the requests of
+     * a caller are served in order by the same thread. With more callers than threads, a request can wait
+     * for the requests of the other callers served by its thread. New callers are not given to a thread
+     * blocked in a request, and a thread is added while all of them are blocked.
+     */
+    static public PAPropertyInteger PA_IMMEDIATE_SERVICE_POOL_SIZE = new PAPropertyInteger("proactive.immediateservice.pool_size",
+                                                                                           false,
+                                                                                           32);
+
+    /**
+     * Coalesces the one-way requests sent to a remote active object
+     * <p/>
+     * If true, consecutive one-way requests sent by a body to the same remote body are sent in a single
+     * message, once {@link #PA_REQUEST_BATCHING_MAX_SIZE} requests are pending or after
+     * {@link #PA_REQUEST_BATCHING_MAX_DELAY} milliseconds. One-way calls then return before their request
+     * is received. Useful for active objects sending many small one-way calls to the same active object.
+     */
+    static public PAPropertyBoolean PA_REQUEST_BATCHING = new PAPropertyBoolean("proactive.request.batching",
+                                                                                false,
+                                                                                false);
+
+    /**
+     * Maximum number of one-way requests sent in a single message when request batching is enabled
+     */
+    static public PAPropertyInteger PA_REQUEST_BATCHING_MAX_SIZE = new PAPropertyInteger("proactive.request.batching.max_size",
+                                                                                         false,
+                                                                                         128);
+
+    /**
+     * Maximum time in milliseconds a one-way request is kept before being sent when request batching is enabled
+     */
+    static public PAPropertyInteger PA_REQUEST_BATCHING_MAX_DELAY = new PAPropertyInteger("proactive.request.batching.max_delay",
+                                                                                          false,
+                                                                                          5);
+
+    /**
+     * Maximum number of threads sending the batches of one-way requests whose delay has expired
+     */
+    static public PAPropertyInteger PA_REQUEST_BATCHING_THREADS = new PAPropertyInteger("proactive.request.batching.threads",
+                                                                                        false,
+                                                                                        8);
+
+    /**
+     * Reuses the object streams and buffers of the serialization converters
+     * <p/>
+     * If true, each thread keeps its object streams and buffers from one message to the next instead
+     * of creating new ones for each message. The serialized bytes are the same.
+     */
+    static public PAPropertyBoolean PA_CONVERTER_REUSE_STREAMS = new PAPropertyBoolean("proactive.converter.reuse_streams",
+                                                                                       false,
+                                                                                       true);
+
+    /**
+     * Name of the codec writing the method calls and their results
+     * <p/>
+     * If not set, method calls and results are written with the standard Java serialization.
+     * Runtimes receiving the messages must know the selected codec.
+     *
+     * @see org.objectweb.proactive.core.util.converter.ObjectCodecRegistry
+     */
+    static public PAPropertyString PA_CONVERTER_CODEC = new PAPropertyString("proactive.converter.codec", false);
+
+    /**
+     * Writes the class descriptors and the methods of the messages with a dictionary per connection
+     * <p/>
+     * If true, the messages sent through PNP and PAMR only carry an identifier for the class descriptors,
+     * and the methods when the compact codec is selected, already read by the receiver.
+     * Runtimes receiving the messages must support the dictionaries.
+     *
+     * @see org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary
+     */
+    static public PAPropertyBoolean PA_CONVERTER_DESCRIPTOR_DICTIONARY = new PAPropertyBoolean("proactive.converter.descriptor_dictionary",
+                                                                                               false,
+                                                                                               false);
+
     /**
      * When this property is set to true, at each proactive call, the stack trace context of the call is embedded in the future.
      * It is specially useful when debugging automatic continuations. If an exception is thrown consecutively to a proactive call,
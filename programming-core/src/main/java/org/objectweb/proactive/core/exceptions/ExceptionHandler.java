@@ -105,6 +105,10 @@ public class ExceptionHandler {
         synchronized (stack) {
             boolean runtime = stack.isRuntimeExceptionHandled();
             boolean async = stack.areExceptionTypesCaught(m.getExceptionTypes());
+            if (!runtime && !async) {
+                // Immutable, so the common case can share a single instance
+                return MethodCallExceptionContext.DEFAULT;
+            }
             MethodCallExceptionContext res = new MethodCallExceptionContext(runtime, async);
 
             //            System.out.println(m + " => " + res);
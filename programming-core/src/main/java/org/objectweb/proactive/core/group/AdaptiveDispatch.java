@@ -0,0 +1,452 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.proactive.core.ProActiveRuntimeException;
+import org.objectweb.proactive.core.body.future.FutureMonitoring;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.MOPException;
+import org.objectweb.proactive.core.mop.StubObject;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+
+/**
+ * Dispatches the tasks of a group call to the members as they complete their previous tasks.
+ * <p>
+ * The service time of each member is estimated by the {@link Dispatcher} with a moving
+ * average. A member is given at most <code>maxPrefetch</code> tasks ahead, fewer the slower it
+ * is compared to the fastest member, so that slow members do not hold back tasks that fast
+ * members could serve. Once all the tasks are dispatched, an idle member re-issues the oldest
+ * task still waiting for its result on a slower or straggling member: the first copy to
+ * complete provides the result, the other one is ignored. As a task may only become straggling
+ * once all the members are idle, the idle members look again for a task to re-issue when the
+ * next task is expected to straggle.
+ * <p>
+ * The result group is filled with local futures when the dispatch starts, and each one is
+ * updated with the first result for its task. When the results are reduced, the first result
+ * of each task is passed to the reduction instead.
+ *
+ * @author The ProActive Team
+ */
+class AdaptiveDispatch {
+
+    /** A task is straggling when it waits for longer than this factor of its expected time */
+    private static final int STRAGGLER_FACTOR = 2;
+
+    /** Looks again for straggling tasks when members are idle */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ProActive adaptive dispatch timer",
+                                                                                                                          true));
+
+    private final Dispatcher dispatcher;
+
+    private final int maxPrefetch;
+
+    /** The handler of the results of the tasks, null if results are added to the result group */
+    private final ResultHandler resultHandler;
+
+    /** The tasks not dispatched yet */
+    private final Queue<TaskState> pending = new ArrayDeque<TaskState>();
+
+    /** The dispatched tasks without result yet, in dispatch order */
+    private final LinkedHashSet<TaskState> unresolved = new LinkedHashSet<TaskState>();
+
+    private final WorkerState[] workers;
+
+    /** True while a check for straggling tasks is scheduled */
+    private boolean checkScheduled;
+
+    /**
+     * @param tasks
+     *            the tasks to dispatch, all of them instances of {@link ProcessForAsyncCall}.
+     * @param nbWorkers
+     *            the number of members.
+     * @param maxPrefetch
+     *            the maximum number of tasks dispatched to a member ahead of their completion.
+     */
+    AdaptiveDispatch(Dispatcher dispatcher, Queue<AbstractProcessForGroup> tasks, int nbWorkers, int maxPrefetch) {
+        this.dispatcher = dispatcher;
+        this.maxPrefetch = Math.max(1, maxPrefetch);
+        this.workers = new WorkerState[nbWorkers];
+        for (int i = 0; i < nbWorkers; i++) {
+            this.workers[i] = new WorkerState(i);
+        }
+
+        ResultHandler handler = null;
+        for (AbstractProcessForGroup task : tasks) {
+            ProcessForAsyncCall process = (ProcessForAsyncCall) task;
+            handler = process.getResultHandler();
+            FutureProxy relay = null;
+            if (handler == null) {
+                relay = newRelay(process);
+            }
+            this.pending.add(new TaskState(process, relay));
+        }
+        this.resultHandler = handler;
+    }
+
+    /**
+     * Creates the future of the result of a task, and puts it into the result group.
+     */
+    @SuppressWarnings("unchecked")
+    private static FutureProxy newRelay(ProcessForAsyncCall process) {
+        try {
+            Object future = ProxyForGroup.newLocalFuture(ProxyForGroup.getReturnType(process.getMethodCall()));
+            process.memberListOfResultGroup.set(process.resultIndex, future);
+            return (FutureProxy) ((StubObject) future).getProxy();
+        } catch (MOPException e) {
+            throw new ProActiveRuntimeException("cannot create future for the result of a group call", e);
+        } catch (ClassNotFoundException e) {
+            throw new ProActiveRuntimeException("cannot create future for the result of a group call", e);
+        }
+    }
+
+    /**
+     * Dispatches the first tasks, to the fastest members first, and returns once they are sent.
+     * The other tasks are dispatched when the results of the first ones are received.
+     */
+    void start() {
+        List<Attempt> attempts = new ArrayList<Attempt>();
+        synchronized (this) {
+            WorkerState[] byServiceTime = this.workers.clone();
+            final double[] serviceTimes = new double[byServiceTime.length];
+            for (int i = 0; i < serviceTimes.length; i++) {
+                serviceTimes[i] = this.dispatcher.getServiceTime(i);
+            }
+            // members without estimate first, to get one
+            Arrays.sort(byServiceTime, new Comparator<WorkerState>() {
+                public int compare(WorkerState w1, WorkerState w2) {
+                    return Double.compare(serviceTimes[w1.index], serviceTimes[w2.index]);
+                }
+            });
+            for (WorkerState worker : byServiceTime) {
+                this.fill(worker, attempts);
+            }
+        }
+        CountDownLatch firstWave = new CountDownLatch(attempts.size());
+        for (Attempt attempt : attempts) {
+            attempt.sent = firstWave;
+        }
+        this.send(attempts);
+        try {
+            firstWave.await();
+        } catch (InterruptedException e) {
+            Dispatcher.logger.warn("", e);
+        }
+    }
+
+    private void send(List<Attempt> attempts) {
+        for (Attempt attempt : attempts) {
+            this.dispatcher.execute(attempt);
+        }
+    }
+
+    /**
+     * Dispatches pending tasks to a member, up to its prefetch capacity.
+     */
+    private void fill(WorkerState worker, List<Attempt> attempts) {
+        int capacity = this.getCapacity(worker.index);
+        while ((worker.inFlight < capacity) && !this.pending.isEmpty()) {
+            TaskState state = this.pending.poll();
+            this.unresolved.add(state);
+            attempts.add(this.newAttempt(state, worker));
+        }
+    }
+
+    /**
+     * Returns the number of tasks a member may have in flight: one while its service time is
+     * unknown, then in proportion to its speed relative to the fastest member.
+     */
+    private int getCapacity(int index) {
+        double serviceTime = this.dispatcher.getServiceTime(index);
+        if ((serviceTime <= 0) || (this.maxPrefetch == 1)) {
+            return 1;
+        }
+        double fastest = serviceTime;
+        for (int i = 0; i < this.workers.length; i++) {
+            double t = this.dispatcher.getServiceTime(i);
+            if ((t > 0) && (t < fastest)) {
+                fastest = t;
+            }
+        }
+        return (int) Math.max(1, Math.min(this.maxPrefetch, Math.round((this.maxPrefetch * fastest) / serviceTime)));
+    }
+
+    /**
+     * Returns the oldest unresolved task that an idle member should re-issue, if any: a task
+     * of a member that is slower, or that is straggling.
+     */
+    private TaskState getSpeculativeTask(WorkerState worker) {
+        long now = System.nanoTime();
+        double serviceTime = this.dispatcher.getServiceTime(worker.index);
+        Iterator<TaskState> it = this.unresolved.iterator();
+        while (it.hasNext()) {
+            TaskState state = it.next();
+            if ((state.copies > 1) || (state.owner == worker)) {
+                continue;
+            }
+            boolean slowerOwner = (serviceTime > 0) &&
+                                  (serviceTime < this.dispatcher.getServiceTime(state.owner.index));
+            if (slowerOwner || (this.getStragglingTime(state, serviceTime) < now)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the time after which a task is straggling for a member, Long.MAX_VALUE if nothing
+     * is known to decide.
+     */
+    private long getStragglingTime(TaskState state, double serviceTime) {
+        double ownerServiceTime = this.dispatcher.getServiceTime(state.owner.index);
+        // without estimate for the owner, the task is expected to take as long as here
+        double expectedTime = (ownerServiceTime > 0) ? ownerServiceTime : serviceTime;
+        if (expectedTime <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return state.dispatchTime + (long) (STRAGGLER_FACTOR * expectedTime * Math.max(1, state.owner.inFlight));
+    }
+
+    /**
+     * Re-issues the straggling tasks on the idle members, and schedules the next check if some
+     * members are still idle.
+     */
+    private void checkStragglers() {
+        List<Attempt> attempts = new ArrayList<Attempt>();
+        synchronized (this) {
+            this.checkScheduled = false;
+            for (WorkerState worker : this.workers) {
+                if (worker.inFlight == 0) {
+                    TaskState speculative = this.getSpeculativeTask(worker);
+                    if (speculative != null) {
+                        attempts.add(this.newAttempt(speculative, worker));
+                    }
+                }
+            }
+            this.scheduleStragglersCheck();
+        }
+        this.send(attempts);
+    }
+
+    /**
+     * Schedules a check for when the next task of another member is expected to straggle, if
+     * there are idle members once all the tasks are dispatched.
+     */
+    private void scheduleStragglersCheck() {
+        if (this.checkScheduled || !this.pending.isEmpty()) {
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        for (WorkerState worker : this.workers) {
+            if (worker.inFlight > 0) {
+                continue;
+            }
+            double serviceTime = this.dispatcher.getServiceTime(worker.index);
+            for (TaskState state : this.unresolved) {
+                if ((state.copies == 1) && (state.owner != worker)) {
+                    next = Math.min(next, this.getStragglingTime(state, serviceTime));
+                }
+            }
+        }
+        if (next != Long.MAX_VALUE) {
+            this.checkScheduled = true;
+            timer.schedule(new Runnable() {
+                public void run() {
+                    checkStragglers();
+                }
+            }, Math.max(0, next - System.nanoTime()) + 1, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Attempt newAttempt(TaskState state, WorkerState worker) {
+        ProcessForAsyncCall process;
+        if (state.copies == 0) {
+            process = state.task;
+            process.setGroupIndex(worker.index);
+            state.owner = worker;
+            state.dispatchTime = System.nanoTime();
+        } else {
+            process = state.task.copy(worker.index);
+        }
+        state.copies++;
+        worker.inFlight++;
+        Attempt attempt = new Attempt(state, worker, process);
+        process.setResultHandler(attempt);
+        return attempt;
+    }
+
+    /**
+     * Handles the result of an attempt, once available.
+     */
+    private void received(final Attempt attempt, Object result) {
+        if (result instanceof ExceptionInGroup) {
+            this.completed(attempt, new MethodCallResult(null, ((ExceptionInGroup) result).getThrowable()));
+        } else if (MOP.isReifiedObject(result) && (((StubObject) result).getProxy() instanceof FutureProxy)) {
+            final FutureProxy fp = (FutureProxy) ((StubObject) result).getProxy();
+            FutureMonitoring.monitorFutureProxy(fp);
+            fp.addListener(new Runnable() {
+                public void run() {
+                    MethodCallResult mcr = fp.getMethodCallResult();
+                    if (mcr.getException() == null) {
+                        // the value can be a future itself
+                        received(attempt, mcr.getResultObjet());
+                    } else {
+                        completed(attempt, mcr);
+                    }
+                }
+            }, MoreExecutors.directExecutor());
+        } else {
+            this.completed(attempt, new MethodCallResult(result, null));
+        }
+    }
+
+    private void completed(Attempt attempt, MethodCallResult result) {
+        WorkerState worker = attempt.worker;
+        TaskState state = attempt.state;
+        boolean first;
+        List<Attempt> attempts = new ArrayList<Attempt>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            // the time spent on this task only, whether prefetched or not
+            this.dispatcher.updateServiceTime(worker.index, now - Math.max(attempt.sendTime, worker.lastCompletion));
+            worker.lastCompletion = now;
+            worker.inFlight--;
+            first = this.unresolved.remove(state);
+
+            this.fill(worker, attempts);
+            if ((worker.inFlight == 0) && this.pending.isEmpty()) {
+                TaskState speculative = this.getSpeculativeTask(worker);
+                if (speculative != null) {
+                    attempts.add(this.newAttempt(speculative, worker));
+                } else {
+                    this.scheduleStragglersCheck();
+                }
+            }
+        }
+        if (first) {
+            this.deliver(state, result);
+        }
+        this.send(attempts);
+    }
+
+    private void deliver(TaskState state, MethodCallResult result) {
+        if (this.resultHandler == null) {
+            ProxyForGroup.updateLocalFuture(state.relay, result);
+        } else if (result.getException() != null) {
+            ProcessForAsyncCall task = state.task;
+            this.resultHandler.add(new ExceptionInGroup(task.memberList.get(task.getGroupIndex()),
+                                                        task.resultIndex,
+                                                        result.getException()));
+        } else {
+            this.resultHandler.add(result.getResultObjet());
+        }
+    }
+
+    private static class TaskState {
+        final ProcessForAsyncCall task;
+
+        /** The future in the result group, null if results are not added to the result group */
+        final FutureProxy relay;
+
+        /** The member of the first copy of the task */
+        WorkerState owner;
+
+        long dispatchTime;
+
+        int copies;
+
+        TaskState(ProcessForAsyncCall task, FutureProxy relay) {
+            this.task = task;
+            this.relay = relay;
+        }
+    }
+
+    private static class WorkerState {
+        final int index;
+
+        int inFlight;
+
+        long lastCompletion;
+
+        WorkerState(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * A copy of a task sent to a member
+     */
+    private class Attempt implements Runnable, ResultHandler {
+        final TaskState state;
+
+        final WorkerState worker;
+
+        final ProcessForAsyncCall process;
+
+        volatile long sendTime;
+
+        /** Counted down once the task is sent, null if nobody waits for it */
+        CountDownLatch sent;
+
+        Attempt(TaskState state, WorkerState worker, ProcessForAsyncCall process) {
+            this.state = state;
+            this.worker = worker;
+            this.process = process;
+        }
+
+        public void run() {
+            this.sendTime = System.nanoTime();
+            try {
+                this.process.run();
+            } finally {
+                if (this.sent != null) {
+                    this.sent.countDown();
+                }
+            }
+        }
+
+        public void add(Object result) {
+            received(this, result);
+        }
+    }
+}
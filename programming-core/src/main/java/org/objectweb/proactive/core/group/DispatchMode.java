@@ -69,6 +69,17 @@ public enum DispatchMode implements DispatchBehavior, Serializable {
      */
     DYNAMIC,
 
+    /**
+     * Tasks are allocated to workers as they complete their previous tasks. Each worker is
+     * given up to the buffer size of tasks ahead, fewer if its average service time is longer than
+     * the one of the fastest worker. Once all tasks are allocated, idle workers re-issue the
+     * tasks of slower or straggling workers, and the first result of each task is kept.
+     * The call returns once the first tasks are sent, the other ones are sent as results come.
+     * 
+     * Only applies to calls with a result: other calls use the default allocation mode.
+     */
+    ADAPTIVE,
+
     /**
      * Custom static partitioning of tasks can be specified in an external class file that
      * implements the {@link DispatchBehavior} interface.
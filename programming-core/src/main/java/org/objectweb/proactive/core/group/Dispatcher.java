@@ -25,12 +25,15 @@
  */
 package org.objectweb.proactive.core.group;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Queue;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.Body;
@@ -55,6 +58,10 @@ import org.objectweb.proactive.utils.ThreadPools;
  * previous performance. (This technique does not consider heterogeneity of tasks, but
  * copes with network latency).
  * 
+ * In the adaptive mode, tasks are allocated to workers as they complete their previous tasks,
+ * based on a moving average of the service time of each worker, and the last tasks are
+ * speculatively re-issued to idle workers (see {@link DispatchMode#ADAPTIVE}).
+ * 
  * @author The ProActive Team
  *
  */
@@ -63,13 +70,14 @@ public class Dispatcher {
 
     protected static Logger logger = ProActiveLogger.getLogger(Loggers.FILETRANSFER);
 
+    /** Created on the first dispatch, as most groups (like groups of results) are never called */
     ThreadPoolExecutor threadPool;
 
     ProxyForGroup groupProxy;
 
     Body body;
 
-    static int dispatcherIndex = 0;
+    static final AtomicInteger dispatcherIndex = new AtomicInteger();
 
     int nbAdditionalThreads = 3;
 
@@ -77,38 +85,150 @@ public class Dispatcher {
 
     public static volatile int counter = 0;
 
+    /** Weight of a new measure in the moving averages of the task times */
+    private static final double SMOOTHING = 0.125;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    /** Moving average of the elapsed time of a task, in ns */
+    private double averageElapsedTime = 0;
+
+    /** Moving average of the CPU time of a task, in ns, 0 if unknown */
+    private double averageCpuTime = 0;
+
+    /** Weight of a new measure in the moving averages of the service times of the members */
+    private static final double SERVICE_TIME_SMOOTHING = 0.25;
+
+    /** Moving averages of the service times of the members, in ns, 0 if unknown */
+    private double[] serviceTimes = new double[0];
+
     // boolean dynamic = false;
 
     public Dispatcher(ProxyForGroup groupProxy, boolean dynamic, int bufferSize) {
         this.groupProxy = groupProxy;
 
         body = PAActiveObject.getBodyOnThis();
-        // thread pool is configurable
-        ThreadFactory tf = new NamedThreadFactory("PAGroup", true);
-        threadPool = ThreadPools.newFixedThreadPool(1, tf);
     }
 
-    protected int getOptimalPoolSize(int nbMembers) {
-        // return (nbMembers == 0 ? 1 : nbMembers);
-        // ((ThreadPoolExecutor) threadPool).setCorePoolSize(nbMembers);
-        // if (nbMembers ==0) {
-        // return 1;
-        // }
-        // return nbMembers+10;
+    private synchronized ThreadPoolExecutor getThreadPool() {
+        if (this.threadPool == null) {
+            // thread pool is configurable
+            ThreadFactory tf = new NamedThreadFactory("PAGroup", true);
+            this.threadPool = ThreadPools.newFixedThreadPool(1, tf);
+        }
+        return this.threadPool;
+    }
 
+    /**
+     * Returns the number of threads sending the tasks to the members.
+     * <p>
+     * The number of threads is at most one thread per <code>memberToThreadRatio</code> members,
+     * plus <code>nbAdditionalThreads</code>. Below this bound, the pool is sized from the
+     * observed times of the tasks: sending a task mostly waits for the network, so the pool
+     * keeps the available cores busy with <code>cores * (elapsed time / CPU time)</code> threads.
+     */
+    protected int getOptimalPoolSize(int nbMembers) {
+        int maxPoolSize;
         if (this.memberToThreadRatio != 0) {
-            // TODO also depends on the nb of processors available
-            int corePoolSize = ((int) Math.ceil(((float) nbMembers) / ((float) this.memberToThreadRatio))) +
-                               this.nbAdditionalThreads;
-            return corePoolSize;
+            maxPoolSize = ((int) Math.ceil(((float) nbMembers) / ((float) this.memberToThreadRatio))) +
+                          this.nbAdditionalThreads;
         } else {
-            return nbAdditionalThreads;
+            maxPoolSize = nbAdditionalThreads;
         }
+
+        double elapsedTime;
+        double cpuTime;
+        synchronized (this) {
+            elapsedTime = this.averageElapsedTime;
+            cpuTime = this.averageCpuTime;
+        }
+        if (cpuTime <= 0) {
+            // no measure yet
+            return maxPoolSize;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        double poolSize = Math.ceil(cores * (elapsedTime / cpuTime));
+        return (int) Math.max(Math.min(poolSize, maxPoolSize), Math.min(cores, maxPoolSize));
     }
 
     private void checkOptimalPoolSize() {
-        threadPool.setCorePoolSize(getOptimalPoolSize(groupProxy.getMemberList().size()));
-        threadPool.setMaximumPoolSize(getOptimalPoolSize(groupProxy.getMemberList().size()));
+        int poolSize = getOptimalPoolSize(groupProxy.getMemberList().size());
+        ThreadPoolExecutor pool = getThreadPool();
+        synchronized (pool) {
+            // the core size cannot exceed the maximum size
+            if (poolSize > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(poolSize);
+                pool.setCorePoolSize(poolSize);
+            } else {
+                pool.setCorePoolSize(poolSize);
+                pool.setMaximumPoolSize(poolSize);
+            }
+        }
+    }
+
+    void execute(Runnable task) {
+        getThreadPool().execute(new TimedTask(task));
+    }
+
+    /**
+     * Returns the moving average of the service time of a member, in ns, or 0 if unknown.
+     */
+    synchronized double getServiceTime(int memberIndex) {
+        return (memberIndex < this.serviceTimes.length) ? this.serviceTimes[memberIndex] : 0;
+    }
+
+    /**
+     * Updates the moving average of the service time of a member with a new measure, in ns.
+     */
+    synchronized void updateServiceTime(int memberIndex, long serviceTime) {
+        if (memberIndex >= this.serviceTimes.length) {
+            this.serviceTimes = Arrays.copyOf(this.serviceTimes,
+                                              Math.max(memberIndex + 1, groupProxy.getMemberList().size()));
+        }
+        double average = this.serviceTimes[memberIndex];
+        if (average <= 0) {
+            this.serviceTimes[memberIndex] = Math.max(1, serviceTime);
+        } else {
+            this.serviceTimes[memberIndex] = average + (SERVICE_TIME_SMOOTHING * (serviceTime - average));
+        }
+    }
+
+    private synchronized void taskDone(long elapsedTime, long cpuTime) {
+        this.averageElapsedTime += SMOOTHING * (elapsedTime - this.averageElapsedTime);
+        if (cpuTime > 0) {
+            this.averageCpuTime += SMOOTHING * (cpuTime - this.averageCpuTime);
+        }
+    }
+
+    private static long currentThreadCpuTime() {
+        try {
+            return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Measures the elapsed and CPU times of a task
+     */
+    private class TimedTask implements Runnable {
+        private final Runnable task;
+
+        TimedTask(Runnable task) {
+            this.task = task;
+        }
+
+        public void run() {
+            long cpuStart = currentThreadCpuTime();
+            long start = System.nanoTime();
+            try {
+                this.task.run();
+            } finally {
+                long elapsedTime = System.nanoTime() - start;
+                long cpuTime = (cpuStart < 0) ? -1 : (currentThreadCpuTime() - cpuStart);
+                taskDone(elapsedTime, cpuTime);
+            }
+        }
     }
 
     public void dispatchTasks(Queue<AbstractProcessForGroup> taskList, CountDownLatch doneSignal,
@@ -125,17 +245,23 @@ public class Dispatcher {
             balancingMode = loadBalancingAnnotation.mode();
             bufferSize = loadBalancingAnnotation.bufferSize();
         }
+        if (balancingMode.equals(DispatchMode.ADAPTIVE) && isAdaptivelyDispatchable(taskList)) {
+            // the other tasks are sent as the members complete the first ones
+            new AdaptiveDispatch(this, taskList, groupProxy.getMemberList().size(), bufferSize).start();
+            return;
+        }
         DispatchMonitor dispatchMonitor = (balancingMode.equals(DispatchMode.DYNAMIC) ||
                                            balancingMode.equals(DispatchMode.STATIC_RANDOM)) ? new DispatchMonitor(groupProxy,
-                                                                                                                   dispatcherIndex++)
+                                                                                                                   dispatcherIndex.getAndIncrement())
                                                                                              : null;
 
         // BlockingQueue<AbstractProcessForGroup> spawnedTasks = new
         // LinkedBlockingQueue<AbstractProcessForGroup>();
         // TODO verify some stuff about nbTasks vs bufferSize vs nbMembers
         // if simple group call, do not use buffering
+        BitSet alreadyTargeted = new BitSet(groupProxy.getMemberList().size());
         for (int i = 0; (i < bufferSize && taskList.size() > 0); i++) {
-            SortedSet<Integer> alreadyTargeted = new TreeSet<Integer>();
+            alreadyTargeted.clear();
 
             // TODO NO NEED FOR ALREADY TARGETED : JUST USE RANDOMIZATION FOR
             // DYNAMIC DISPATCH!
@@ -152,15 +278,15 @@ public class Dispatcher {
                         // partial multicast or unicast: less tasks than workers
                         break;
                     }
-                    if (alreadyTargeted.contains(task.getGroupIndex())) {
+                    if (alreadyTargeted.get(task.getGroupIndex())) {
                         // re-enqueue
                         taskList.offer(task);
                     } else {
                         // group index and result index are kept as they have
                         // been generated (i.e. round robin or random for group
                         // index)
-                        threadPool.execute(new BufferedTaskContainer(task, dispatchMonitor));
-                        alreadyTargeted.add(task.getGroupIndex());
+                        execute(new BufferedTaskContainer(task, dispatchMonitor));
+                        alreadyTargeted.set(task.getGroupIndex());
                         foundTaskWithAvailableTarget = true;
                     }
                     iterations++;
@@ -171,8 +297,8 @@ public class Dispatcher {
         for (int i = (bufferSize * groupProxy.getMemberList().size()); i < nbTasks; i++) {
             AbstractProcessForGroup task = taskList.poll();
             // dynamic dispatch is set on a per-task basis
-            threadPool.execute(task.isDynamicallyDispatchable() ? new DynamicTaskContainer(task, dispatchMonitor)
-                                                                : new BufferedTaskContainer(task, dispatchMonitor));
+            execute(task.isDynamicallyDispatchable() ? new DynamicTaskContainer(task, dispatchMonitor)
+                                                     : new BufferedTaskContainer(task, dispatchMonitor));
         }
 
         try {
@@ -183,6 +309,26 @@ public class Dispatcher {
 
     }
 
+    /**
+     * Only the tasks of asynchronous calls can be re-issued, as their results tell when the
+     * members are done with them.
+     */
+    private static boolean isAdaptivelyDispatchable(Queue<AbstractProcessForGroup> taskList) {
+        for (AbstractProcessForGroup task : taskList) {
+            if (!(task instanceof ProcessForAsyncCall)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the number of members served by one thread
+     */
+    public void setMemberToThreadRatio(int memberToThreadRatio) {
+        this.memberToThreadRatio = memberToThreadRatio;
+    }
+
     public int getBufferSize() {
         return groupProxy.bufferSize;
     }
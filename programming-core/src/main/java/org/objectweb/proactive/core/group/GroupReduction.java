@@ -0,0 +1,186 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import org.objectweb.proactive.core.body.future.FutureMonitoring;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.StubObject;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+
+/**
+ * Reduces the results of a group method call as they arrive, and updates a single future
+ * with the reduced value once all the results are reduced.
+ * <p>
+ * Only the partial reduction is kept: the results, and the futures for them, can be collected
+ * as soon as they are reduced. The future is updated with the first exception raised by a
+ * member or by the reduction, if any. The exceptions of the members can also be collected, for
+ * instance to purge the group once all the members have answered, which can be after the future
+ * is updated with an exception.
+ *
+ * @author The ProActive Team
+ */
+class GroupReduction implements ResultHandler {
+
+    private final ReduceBehavior behavior;
+
+    private final FutureProxy future;
+
+    /** The number of results not reduced yet */
+    private int remaining;
+
+    private Object partial;
+
+    private boolean done;
+
+    /** The number of members which have not answered yet */
+    private int unanswered;
+
+    /** Collects the exceptions of the members, if not null */
+    private final ExceptionListException exceptions;
+
+    /** Run once all the members have answered, if not null */
+    private final Runnable onAnswered;
+
+    GroupReduction(ReduceBehavior behavior, FutureProxy future, int nbExpectedResults) {
+        this(behavior, future, nbExpectedResults, null, null);
+    }
+
+    /**
+     * @param exceptions
+     *            if not null, collects the exceptions of the members.
+     * @param onAnswered
+     *            if not null, run once all the members have answered, and their exceptions
+     *            have been collected.
+     */
+    GroupReduction(ReduceBehavior behavior, FutureProxy future, int nbExpectedResults,
+            ExceptionListException exceptions, Runnable onAnswered) {
+        this.behavior = behavior;
+        this.future = future;
+        this.exceptions = exceptions;
+        this.onAnswered = onAnswered;
+        this.remaining = nbExpectedResults;
+        this.unanswered = nbExpectedResults;
+        if (nbExpectedResults == 0) {
+            this.update(this.complete(null));
+            if (onAnswered != null) {
+                onAnswered.run();
+            }
+        }
+    }
+
+    public void add(Object result) {
+        if (result instanceof ExceptionInGroup) {
+            this.update(this.memberFailed((ExceptionInGroup) result));
+            this.answered();
+        } else if (MOP.isReifiedObject(result) && (((StubObject) result).getProxy() instanceof FutureProxy)) {
+            final FutureProxy fp = (FutureProxy) ((StubObject) result).getProxy();
+            FutureMonitoring.monitorFutureProxy(fp);
+            fp.addListener(new Runnable() {
+                public void run() {
+                    MethodCallResult mcr = fp.getMethodCallResult();
+                    if (mcr.getException() != null) {
+                        fail(mcr.getException());
+                        answered();
+                    } else {
+                        add(mcr.getResultObjet());
+                    }
+                }
+            }, MoreExecutors.directExecutor());
+        } else {
+            this.reduce(result);
+            this.answered();
+        }
+    }
+
+    private synchronized MethodCallResult memberFailed(ExceptionInGroup exception) {
+        if (this.exceptions != null) {
+            this.exceptions.add(exception);
+        }
+        return this.failed(exception.getThrowable());
+    }
+
+    private void answered() {
+        boolean all;
+        synchronized (this) {
+            this.unanswered--;
+            all = (this.unanswered == 0);
+        }
+        if (all && (this.onAnswered != null)) {
+            this.onAnswered.run();
+        }
+    }
+
+    private void reduce(Object result) {
+        this.update(this.reduced(result));
+    }
+
+    private void fail(Throwable exception) {
+        this.update(this.failed(exception));
+    }
+
+    /**
+     * The future is updated out of the lock of the reduction: updating it takes the lock of the
+     * future pool, under which the listeners of the futures of the members call the reduction.
+     */
+    private void update(MethodCallResult result) {
+        if (result != null) {
+            ProxyForGroup.updateLocalFuture(this.future, result);
+        }
+    }
+
+    /**
+     * @return the result to update the future with, or null if the reduction is not complete.
+     */
+    private synchronized MethodCallResult reduced(Object result) {
+        if (this.done) {
+            return null;
+        }
+        try {
+            this.partial = this.behavior.reduce(this.partial, result);
+        } catch (ReductionException e) {
+            return this.failed(e);
+        } catch (RuntimeException e) {
+            return this.failed(new ReductionException("The reduction of the results failed", e));
+        }
+        this.remaining--;
+        return (this.remaining == 0) ? this.complete(null) : null;
+    }
+
+    private synchronized MethodCallResult failed(Throwable exception) {
+        return this.done ? null : this.complete(exception);
+    }
+
+    private MethodCallResult complete(Throwable exception) {
+        this.done = true;
+        Object value = (exception == null) ? this.partial : null;
+        this.partial = null;
+        return new MethodCallResult(value, exception);
+    }
+}
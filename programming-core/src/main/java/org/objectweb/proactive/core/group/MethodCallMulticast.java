@@ -0,0 +1,275 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.body.proxy.UniversalBodyProxy;
+import org.objectweb.proactive.core.body.request.Request;
+import org.objectweb.proactive.core.body.request.RequestImpl;
+import org.objectweb.proactive.core.mop.MethodCall;
+import org.objectweb.proactive.core.mop.MethodCallExecutionFailedException;
+import org.objectweb.proactive.core.mop.Proxy;
+import org.objectweb.proactive.core.mop.StubObject;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+
+/**
+ * This class represents a one-way call on a group, multicast along a tree of the members.
+ * <p>
+ * The members are split into at most <code>fanout</code> subtrees of contiguous members. The
+ * first member of each subtree receives the call with the rest of its subtree. When its body
+ * receives the request, it forwards the call the same way, on behalf of the sender, and queues
+ * the original call as the request to serve: the members serve the call with its name, its
+ * barrier tags and its sender, as if it had been sent directly. The sender of a call on N members
+ * thus only sends <code>fanout</code> messages, and the call reaches every member in O(log N) hops.
+ * <p>
+ * A member forwards the calls it relays with a {@link Relay}, once its body has received the
+ * request: receiving a multicast request does not wait for the subtree to receive the call.
+ * @author The ProActive Team
+ */
+public class MethodCallMulticast extends MethodCallControlForGroup {
+
+    private static final Logger logger = ProActiveLogger.getLogger(Loggers.GROUPS);
+
+    private static final int FORWARDING_THREADS = 16;
+
+    /** Forwards the calls relayed by the members of the runtime */
+    private static final ThreadPoolExecutor forwarders;
+
+    static {
+        forwarders = new ThreadPoolExecutor(FORWARDING_THREADS,
+                                            FORWARDING_THREADS,
+                                            60,
+                                            TimeUnit.SECONDS,
+                                            new LinkedBlockingQueue<Runnable>(),
+                                            new NamedThreadFactory("ProActive multicast relay", true));
+        forwarders.allowCoreThreadTimeOut(true);
+    }
+
+    /** The call to execute on the members */
+    private MethodCall methodCall;
+
+    /** The members this member forwards the call to */
+    private ArrayList<Object> subtree;
+
+    private int fanout;
+
+    /**
+     * Constructor
+     * @param methodCall the call to execute on the members
+     * @param subtree the members the receiver forwards the call to
+     * @param fanout the maximum number of members the call is forwarded to by each member
+     */
+    public MethodCallMulticast(MethodCall methodCall, ArrayList<Object> subtree, int fanout) {
+        this.methodCall = methodCall;
+        this.subtree = subtree;
+        this.fanout = fanout;
+    }
+
+    /**
+     * Returns the name of the call
+     * @return the String "MethodCallMulticast"
+     */
+    @Override
+    public String getName() {
+        return "MethodCallMulticast";
+    }
+
+    /**
+     * The barrier tags are the ones of the call to execute
+     * @param barrierTags the tags of the sender
+     */
+    @Override
+    public void setBarrierTags(LinkedList<String> barrierTags) {
+        this.methodCall.setBarrierTags(barrierTags);
+    }
+
+    /**
+     * The barrier tags are the ones of the call to execute
+     * @return the tags of the call to execute
+     */
+    @Override
+    public LinkedList<String> getBarrierTags() {
+        return this.methodCall.getBarrierTags();
+    }
+
+    /**
+     * Forwards a received multicast request to the subtree of the receiver, on behalf of its sender.
+     * The call is forwarded later by the relay of the receiver.
+     * @param request the request received, whose method call is this multicast call
+     * @param relay the relay of the receiver
+     * @return the request to serve: the original call, from the sender of the multicast request
+     * @throws IOException if the arguments of the call cannot be copied to be forwarded
+     */
+    public Request relay(final Request request, Relay relay) throws IOException {
+        // the receiver may serve the call, and modify its arguments, before it is forwarded
+        final MethodCall mc = this.methodCall.getShallowCopy();
+        mc.makeDeepCopyOfArguments();
+        final ArrayList<Object> members = this.subtree;
+        final int fanout = this.fanout;
+        this.subtree = null;
+        relay.forward(new Runnable() {
+            public void run() {
+                multicast(mc, members, fanout, null, null, request);
+            }
+        });
+        return new RequestImpl(this.methodCall,
+                               request.getSender(),
+                               true,
+                               request.getSequenceNumber(),
+                               request.getTags());
+    }
+
+    /**
+     * Execution of a multicast call that has not been relayed when received is to forward it to
+     * the subtree of the receiver, then to execute the call on the receiver.
+     * @param target the reified object of the receiver
+     * @return null
+     */
+    @Override
+    public Object execute(Object target) throws InvocationTargetException, MethodCallExecutionFailedException {
+        multicast(this.methodCall, this.subtree, this.fanout, null, null, null);
+        this.subtree = null;
+        return this.methodCall.execute(target);
+    }
+
+    /**
+     * Sends a call to the roots of at most <code>fanout</code> subtrees of the given members.
+     * The subtree of a member that cannot be reached is sent the call directly.
+     * 
+     * @param mc the call to execute on the members
+     * @param members the stubs of the members, all active objects
+     * @param fanout the maximum number of members the call is sent to
+     * @param memberList the members of the group called, to index the members that cannot be reached
+     * @param exceptionList the list where to add the members that cannot be reached, or null to log them
+     */
+    static void multicast(MethodCall mc, List<?> members, int fanout, List<?> memberList,
+            ExceptionListException exceptionList) {
+        multicast(mc, members, fanout, memberList, exceptionList, null);
+    }
+
+    /**
+     * Sends a call to the roots of at most <code>fanout</code> subtrees of the given members, on
+     * behalf of the sender of a request if any.
+     * 
+     * @param mc the call to execute on the members
+     * @param members the stubs of the members, all active objects
+     * @param fanout the maximum number of members the call is sent to
+     * @param memberList the members of the group called, to index the members that cannot be reached
+     * @param exceptionList the list where to add the members that cannot be reached, or null to log them
+     * @param request the multicast request relayed, or null to send the call from the current body
+     */
+    private static void multicast(MethodCall mc, List<?> members, int fanout, List<?> memberList,
+            ExceptionListException exceptionList, Request request) {
+        int size = members.size();
+        int nbSubtrees = Math.min(fanout, size);
+        int start = 0;
+        for (int i = 0; i < nbSubtrees; i++) {
+            int end = start + ((size - start) / (nbSubtrees - i));
+            Object root = members.get(start);
+            ArrayList<Object> subtree = new ArrayList<Object>(members.subList(start + 1, end));
+            try {
+                Proxy proxy = ((StubObject) root).getProxy();
+                MethodCall call = mc;
+                if ((proxy instanceof UniversalBodyProxy) && ((UniversalBodyProxy) proxy).isLocal()) {
+                    // the arguments of a local call are copied by its sender
+                    call = mc.getShallowCopy();
+                    call.makeDeepCopyOfArguments();
+                }
+                MethodCallMulticast multicast = new MethodCallMulticast(call, subtree, fanout);
+                if (request == null) {
+                    proxy.reify(multicast);
+                } else {
+                    ((UniversalBodyProxy) proxy).getBody().receiveRequest(new RequestImpl(multicast,
+                                                                                          request.getSender(),
+                                                                                          true,
+                                                                                          request.getSequenceNumber(),
+                                                                                          request.getTags()));
+                }
+            } catch (Throwable e) {
+                if (exceptionList != null) {
+                    exceptionList.add(new ExceptionInGroup(root, memberList.indexOf(root), e));
+                } else {
+                    logger.warn("Failed to forward " + mc.getName() + " to a member of a group", e);
+                }
+                multicast(mc, subtree, fanout, memberList, exceptionList, request);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Forwards the multicast calls relayed by a member, in the order the member received them,
+     * with the threads shared by all the members of the runtime.
+     */
+    public static class Relay implements Runnable {
+        private final Queue<Runnable> forwards = new ArrayDeque<Runnable>();
+
+        private boolean scheduled;
+
+        void forward(Runnable forward) {
+            synchronized (this) {
+                this.forwards.add(forward);
+                if (this.scheduled) {
+                    return;
+                }
+                this.scheduled = true;
+            }
+            forwarders.execute(this);
+        }
+
+        public void run() {
+            while (true) {
+                Runnable forward;
+                synchronized (this) {
+                    forward = this.forwards.poll();
+                    if (forward == null) {
+                        this.scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    forward.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to forward a multicast call", e);
+                }
+            }
+        }
+    }
+}
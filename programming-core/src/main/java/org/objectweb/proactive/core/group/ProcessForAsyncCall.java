@@ -52,6 +52,9 @@ public class ProcessForAsyncCall extends AbstractProcessForGroup implements Runn
 
     DispatchMonitor dispatchMonitor;
 
+    /** The handler of the results, null if results are added to the result group */
+    ResultHandler resultHandler;
+
     @SuppressWarnings("unchecked")
     public ProcessForAsyncCall(ProxyForGroup proxyGroup, Vector memberList, Vector memberListOfResultGroup,
             int groupIndex, MethodCall mc, int resultIndex, Body body, CountDownLatch doneSignal) {
@@ -69,6 +72,33 @@ public class ProcessForAsyncCall extends AbstractProcessForGroup implements Runn
         this.dispatchMonitor = dispatchMonitor;
     }
 
+    void setResultHandler(ResultHandler resultHandler) {
+        this.resultHandler = resultHandler;
+    }
+
+    ResultHandler getResultHandler() {
+        return this.resultHandler;
+    }
+
+    MethodCall getMethodCall() {
+        return this.mc;
+    }
+
+    /**
+     * Returns a copy of this task for another member, which does not count down the signal of
+     * the dispatch.
+     */
+    ProcessForAsyncCall copy(int groupIndex) {
+        return new ProcessForAsyncCall(this.proxyGroup,
+                                       this.memberList,
+                                       this.memberListOfResultGroup,
+                                       groupIndex,
+                                       this.mc,
+                                       this.resultIndex,
+                                       this.body,
+                                       new CountDownLatch(1));
+    }
+
     public void run() {
         Object object = this.memberList.get(this.groupIndex);
         // push an initial context for this thread
@@ -83,13 +113,9 @@ public class ProcessForAsyncCall extends AbstractProcessForGroup implements Runn
                  * when an exception occurs, put it in the result group instead of the (unreturned)
                  * value
                  */
-                ProxyForGroup.addToListOfResult(this.memberListOfResultGroup,
-                                                new ExceptionInGroup(this.memberList.get(this.groupIndex),
-                                                                     this.resultIndex,
-                                                                     e.fillInStackTrace()),
-                                                this.resultIndex,
-                                                dispatchMonitor,
-                                                groupIndex);
+                this.addToListOfResult(new ExceptionInGroup(this.memberList.get(this.groupIndex),
+                                                            this.resultIndex,
+                                                            e.fillInStackTrace()));
             }
         } else {
             /*
@@ -97,11 +123,7 @@ public class ProcessForAsyncCall extends AbstractProcessForGroup implements Runn
              * to the result group
              */
             // FIXME weird semantics : should add an exception instead
-            ProxyForGroup.addToListOfResult(this.memberListOfResultGroup,
-                                            null,
-                                            this.resultIndex,
-                                            dispatchMonitor,
-                                            groupIndex);
+            this.addToListOfResult(null);
         }
 
         doneSignal.countDown();
@@ -131,7 +153,18 @@ public class ProcessForAsyncCall extends AbstractProcessForGroup implements Runn
     }
 
     protected void addToListOfResult(Object result) {
-        ProxyForGroup.addToListOfResult(memberListOfResultGroup, result, this.resultIndex, dispatchMonitor, groupIndex);
+        if (this.resultHandler != null) {
+            if (result != null) {
+                ProxyForGroup.notifyDispatchMonitor(result, dispatchMonitor, groupIndex);
+            }
+            this.resultHandler.add(result);
+        } else {
+            ProxyForGroup.addToListOfResult(memberListOfResultGroup,
+                                            result,
+                                            this.resultIndex,
+                                            dispatchMonitor,
+                                            groupIndex);
+        }
     }
 
 }
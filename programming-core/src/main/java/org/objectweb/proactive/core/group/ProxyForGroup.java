@@ -25,12 +25,16 @@
  */
 package org.objectweb.proactive.core.group;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.rmi.dgc.VMID;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -41,18 +45,26 @@ import java.util.Vector;
 import java.util.concurrent.CountDownLatch;
 
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.Body;
 import org.objectweb.proactive.annotation.PublicAPI;
+import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.api.PAFuture;
 import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.Constants;
 import org.objectweb.proactive.core.ProActiveRuntimeException;
 import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.body.future.FutureProxy;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
 import org.objectweb.proactive.core.body.proxy.AbstractProxy;
+import org.objectweb.proactive.core.body.proxy.UniversalBodyProxy;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.group.spmd.MethodCallSetSPMDGroup;
 import org.objectweb.proactive.core.mop.ClassNotReifiableException;
 import org.objectweb.proactive.core.mop.ConstructionOfReifiedObjectFailedException;
 import org.objectweb.proactive.core.mop.ConstructorCall;
 import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.MOPException;
 import org.objectweb.proactive.core.mop.MethodCall;
 import org.objectweb.proactive.core.mop.Proxy;
 import org.objectweb.proactive.core.mop.StubObject;
@@ -125,6 +137,18 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      */
     private boolean autoPurge = false;
 
+    /**
+     * The reduction of the results of the method calls on the group, null when results are returned
+     * as a group
+     */
+    protected ReduceBehavior reduction = null;
+
+    /**
+     * The maximum number of members a one-way call is sent to by the caller and forwarded to by each
+     * member, 0 to send the call to every member
+     */
+    protected int multicastFanout = CentralPAPropertyRepository.PA_GROUP_MULTICAST_FANOUT.getValue();
+
     /* ----------------------- CONSTRUCTORS ----------------------- */
     public ProxyForGroup(String nameOfClass) throws ConstructionOfReifiedObjectFailedException {
         this();
@@ -180,6 +204,41 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         this.uniqueSerialization = false;
     }
 
+    /**
+     * Sets the reduction of the results of the method calls on the group, which has priority
+     * over the {@link Reduce} annotation of the called method.
+     * 
+     * @param reduction the reduction, or null to get the results as specified by the called method
+     */
+    public void setReduction(ReduceBehavior reduction) {
+        this.reduction = reduction;
+    }
+
+    public ReduceBehavior getReduction() {
+        return this.reduction;
+    }
+
+    /**
+     * Sets the fanout of the multicast of the one-way calls on the group: the caller sends a
+     * one-way call to at most <code>fanout</code> members, which forward it to the other members
+     * along a tree. Members in the same runtime are placed in the same subtrees.
+     * <p>
+     * Only one-way calls broadcast to groups of active objects are multicast. The order of the
+     * calls received by a member is only kept among calls multicast by the same group.
+     * 
+     * @param fanout the fanout of the multicast, 0 to send the calls to every member
+     */
+    public void setMulticastFanout(int fanout) {
+        if (fanout < 0) {
+            throw new IllegalArgumentException("The fanout must be positive: " + fanout);
+        }
+        this.multicastFanout = fanout;
+    }
+
+    public int getMulticastFanout() {
+        return this.multicastFanout;
+    }
+
     public boolean isUniqueSerializationOn() {
         return uniqueSerialization;
     }
@@ -205,7 +264,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * Remove failing elements from the group according either to a group of potential exceptions or
      * an exception list. result == null XOR exceptionList == null
      */
-    private void purge(Object result, ExceptionListException exceptionList) {
+    private synchronized void purge(Object result, ExceptionListException exceptionList) {
         if (result != null) {
             @SuppressWarnings("unchecked")
             ProxyForGroup<E> resultGroup = (ProxyForGroup<E>) ((StubObject) result).getProxy();
@@ -237,7 +296,8 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @throws InvocationTargetException
      *             if a problem occurs when invoking the method on the members of the Group
      */
-    public synchronized Object reify(MethodCall mc) throws InvocationTargetException {
+    public Object reify(MethodCall mc) throws InvocationTargetException {
+        // not synchronized: concurrent calls on the group are dispatched concurrently
         // System.out.println("A method is called : \"" + mc.getName() + "\" on
         // " + this.memberList.size() + " membres.");
 
@@ -291,6 +351,12 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
          * if the call is asynchronous the group of result will be a group a future
          */
         else { // with group in general case : SYNC == ASYNC !!!!
+            ReduceBehavior reduceBehavior = this.getReduceBehavior(mc);
+            if (reduceBehavior != null) {
+                // the result is not a group: the failing members, reported to the reduction, are
+                // purged once all of them have answered
+                return this.reducedCallOnGroup(mc, reduceBehavior, this.autoPurge);
+            }
             result = this.asynchronousCallOnGroup(mc);
         }
 
@@ -345,6 +411,11 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      * @return the result of the call.
      */
     protected Object asynchronousCallOnGroup(MethodCall mc) throws InvocationTargetException {
+        ReduceBehavior reduceBehavior = this.getReduceBehavior(mc);
+        if (reduceBehavior != null) {
+            return this.reducedCallOnGroup(mc, reduceBehavior);
+        }
+
         Object result;
 
         // Creates a stub + ProxyForGroup for representing the result
@@ -386,31 +457,174 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         // dispatch
         dispatcher.dispatchTasks(tasksToDispatch, doneSignal, mc.getReifiedMethod().getAnnotation(Dispatch.class));
 
-        // TODO rely on API or method call rather than annotation?
-        // Reduce reduceAnnotation = mc.getReifiedMethod().getAnnotation(Reduce.class);
-        // if (reduceAnnotation != null) {
-        // try {
-        // if (!ReduceMode.CUSTOM.equals(reduceAnnotation.reductionMode())) {
-        // result = reduceAnnotation.reductionMode().reduce(PAGroup.getGroup(result));
-        // // result = reduceAnnotation.reductionMode().reduce((List<?>)result);
-        // } else {
-        // ReduceBehavior reduction = (ReduceBehavior) reduceAnnotation.customReductionMode()
-        // .newInstance();
-        // result = reduction.reduce(PAGroup.getGroup(result));
-        // }
-        // } catch (ReductionException e) {
-        // throw new InvocationTargetException(e, "cannot reduce results from group invocation");
-        // } catch (InstantiationException e) {
-        // throw new InvocationTargetException(e, "cannot reduce results from group invocation");
-        // } catch (IllegalAccessException e) {
-        // throw new InvocationTargetException(e, "cannot reduce results from group invocation");
-        // }
-        // }
-
         // LocalBodyStore.getInstance().setCurrentThreadBody(body);
         return result;
     }
 
+    /**
+     * Returns the reduction to apply to the results of the given call: the reduction set on the
+     * group, or else the one specified by the {@link Reduce} annotation of the called method.
+     * 
+     * @return the reduction, or null if the results are returned as a group
+     */
+    protected ReduceBehavior getReduceBehavior(MethodCall mc) throws InvocationTargetException {
+        if (this.reduction != null) {
+            return this.reduction;
+        }
+        Reduce reduceAnnotation = mc.getReifiedMethod().getAnnotation(Reduce.class);
+        if (reduceAnnotation == null) {
+            return null;
+        }
+        if (!ReduceMode.CUSTOM.equals(reduceAnnotation.mode())) {
+            return reduceAnnotation.mode();
+        }
+        try {
+            return reduceAnnotation.customMode().newInstance();
+        } catch (InstantiationException e) {
+            throw new InvocationTargetException(e, "cannot reduce results from group invocation");
+        } catch (IllegalAccessException e) {
+            throw new InvocationTargetException(e, "cannot reduce results from group invocation");
+        }
+    }
+
+    /**
+     * Launches the calls on each member of the Group and reduces their results as they arrive.
+     * 
+     * @param mc
+     *            the MethodCall to be applied on each member of the Group.
+     * @param reduceBehavior
+     *            the reduction of the results.
+     * @return a future for the reduced result, or the reduced result itself if the return type of
+     *         the method is not reifiable.
+     */
+    protected Object reducedCallOnGroup(MethodCall mc, ReduceBehavior reduceBehavior)
+            throws InvocationTargetException {
+        return this.reducedCallOnGroup(mc, reduceBehavior, false);
+    }
+
+    /**
+     * Launches the calls on each member of the Group and reduces their results as they arrive.
+     * 
+     * @param mc
+     *            the MethodCall to be applied on each member of the Group.
+     * @param reduceBehavior
+     *            the reduction of the results.
+     * @param purgeMembers
+     *            if true, the members whose exceptions are reported to the reduction are removed
+     *            from the group once all the members have answered.
+     * @return a future for the reduced result, or the reduced result itself if the return type of
+     *         the method is not reifiable.
+     */
+    protected Object reducedCallOnGroup(MethodCall mc, ReduceBehavior reduceBehavior, boolean purgeMembers)
+            throws InvocationTargetException {
+        Object future = null;
+        FutureProxy fp;
+        try {
+            future = newLocalFuture(getReturnType(mc));
+            fp = (FutureProxy) ((StubObject) future).getProxy();
+        } catch (ClassNotReifiableException e) {
+            // no future can represent the result: wait for it
+            fp = FutureProxy.getFutureProxy();
+            setCallerAsUpdater(fp);
+        } catch (MOPException e) {
+            throw new InvocationTargetException(e,
+                                                "Method " + mc.getReifiedMethod().toGenericString() +
+                                                   " : cannot create future for the reduced result");
+        } catch (ClassNotFoundException e) {
+            throw new InvocationTargetException(e,
+                                                "Method " + mc.getReifiedMethod().toGenericString() +
+                                                   " : cannot create future for the reduced result");
+        }
+
+        List<MethodCall> methodsToDispatch = taskFactory.generateMethodCalls(mc);
+        int nbExpectedCalls = methodsToDispatch.size();
+        GroupReduction reduction;
+        if (purgeMembers) {
+            final ExceptionListException exceptionList = new ExceptionListException();
+            reduction = new GroupReduction(reduceBehavior, fp, nbExpectedCalls, exceptionList, new Runnable() {
+                public void run() {
+                    purge(null, exceptionList);
+                }
+            });
+        } else {
+            reduction = new GroupReduction(reduceBehavior, fp, nbExpectedCalls);
+        }
+        CountDownLatch doneSignal = new CountDownLatch(nbExpectedCalls);
+        Queue<AbstractProcessForGroup> tasksToDispatch = taskFactory.generateTasks(mc,
+                                                                                   methodsToDispatch,
+                                                                                   null,
+                                                                                   null,
+                                                                                   doneSignal,
+                                                                                   this);
+        for (AbstractProcessForGroup task : tasksToDispatch) {
+            if (task instanceof ProcessForAsyncCall) {
+                ((ProcessForAsyncCall) task).setResultHandler(reduction);
+            }
+        }
+        dispatcher.dispatchTasks(tasksToDispatch, doneSignal, mc.getReifiedMethod().getAnnotation(Dispatch.class));
+
+        if (future != null) {
+            return future;
+        }
+        return fp.getResult();
+    }
+
+    /**
+     * Returns the class of the result of the given call.
+     */
+    static Class<?> getReturnType(MethodCall mc) {
+        Type t = mc.getReifiedMethod().getGenericReturnType();
+        if (t instanceof TypeVariable) {
+            return mc.getGenericTypesMapping().get(t);
+        }
+        return mc.getReifiedMethod().getReturnType();
+    }
+
+    /**
+     * Creates a future that is updated by the caller itself, from the results of the members.
+     * This future is registered in the future pool of the caller, as the futures of its requests,
+     * so that automatic continuations are registered when it is passed awaited. It must be
+     * updated with {@link #updateLocalFuture(FutureProxy, MethodCallResult)}.
+     * 
+     * @param type
+     *            the class of the result.
+     * @return the stub of the future.
+     * @throws ClassNotReifiableException
+     *             if no future can represent the result.
+     */
+    static Object newLocalFuture(Class<?> type) throws MOPException, ClassNotFoundException {
+        MOP.checkClassIsReifiable(type);
+        Object future = MOP.newInstance(type, null, Constants.DEFAULT_FUTURE_PROXY_CLASS_NAME, null);
+        setCallerAsUpdater((FutureProxy) ((StubObject) future).getProxy());
+        return future;
+    }
+
+    private static void setCallerAsUpdater(FutureProxy fp) {
+        Body body = PAActiveObject.getBodyOnThis();
+        fp.setCreatorID(body.getID());
+        fp.setCreator(body);
+        fp.setUpdater(body);
+        fp.setID(body.getNextSequenceID());
+        body.getFuturePool().receiveFuture(fp);
+    }
+
+    /**
+     * Updates a future created by {@link #newLocalFuture(Class)}, through the future pool of the
+     * caller, which also sends the value to the automatic continuations of the future.
+     */
+    static void updateLocalFuture(FutureProxy fp, MethodCallResult result) {
+        UniversalBody updater = fp.getUpdater();
+        if (!(updater instanceof Body)) {
+            fp.receiveReply(result);
+            return;
+        }
+        try {
+            ((Body) updater).getFuturePool().receiveFutureValue(fp.getID(), fp.getCreatorID(), result, null);
+        } catch (IOException e) {
+            logger.error("Error while updating the result of a group call", e);
+        }
+    }
+
     /**
      * Add the results (Future) into the typed group result at the correct position.
      * 
@@ -434,6 +648,21 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
             memberListOfResultGroup.set(resultIndex, result);
             return;
         }
+        notifyDispatchMonitor(result, dispatchMonitor, groupIndex);
+        memberListOfResultGroup.set(resultIndex, result);
+    }
+
+    /**
+     * Notifies the monitor of a dynamic dispatch of the result of a call on a member of a Group.
+     * 
+     * @param result
+     *            the result of a call on member of a Group.
+     * @param dispatchMonitor
+     *            the monitor of the dispatch, null if the dispatch is not dynamic.
+     * @param groupIndex
+     *            the index of the member.
+     */
+    static void notifyDispatchMonitor(Object result, DispatchMonitor dispatchMonitor, int groupIndex) {
         if (dispatchMonitor != null) {
             // in other words, dispatch is dynamic
             // future
@@ -460,7 +689,6 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
                 // (standard object)
             }
         }
-        memberListOfResultGroup.set(resultIndex, result);
     }
 
     /* -------------------- FOR ONEWAY CALL ---------------------- */
@@ -473,6 +701,14 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      */
     protected void oneWayCallOnGroup(MethodCall mc, ExceptionListException exceptionList)
             throws InvocationTargetException {
+        if (this.isMulticastCall(mc)) {
+            List<Object> members = this.getMembersByLocality();
+            if (members != null) {
+                MethodCallMulticast.multicast(mc, members, this.multicastFanout, this.memberList, exceptionList);
+                return;
+            }
+        }
+
         List<MethodCall> methodsToDispatch = taskFactory.generateMethodCalls(mc);
         int nbExpectedCalls = methodsToDispatch.size();
         CountDownLatch doneSignal = new CountDownLatch(nbExpectedCalls);
@@ -486,6 +722,42 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
         // LocalBodyStore.getInstance().setCurrentThreadBody(body);
     }
 
+    /**
+     * Checks whether a call is multicast along a tree of the members: it must be a one-way call
+     * whose parameters are broadcast.
+     */
+    protected boolean isMulticastCall(MethodCall mc) {
+        return (this.multicastFanout > 0) && mc.isOneWayCall() && !(mc instanceof MethodCallControlForGroup) &&
+               !this.dispatching && (this.dispatchMode == DispatchMode.UNSPECIFIED) &&
+               (mc.getReifiedMethod().getAnnotation(Dispatch.class) == null) && !this.isDispatchingCall(mc);
+    }
+
+    /**
+     * Returns the members ordered by runtime, so that the members of a runtime are contiguous.
+     * 
+     * @return the members, or null if some members are not active objects
+     */
+    private List<Object> getMembersByLocality() {
+        Map<VMID, List<Object>> membersByVM = new LinkedHashMap<VMID, List<Object>>();
+        for (E member : this.memberList) {
+            if (!MOP.isReifiedObject(member) || !(((StubObject) member).getProxy() instanceof UniversalBodyProxy)) {
+                return null;
+            }
+            VMID vmid = ((UniversalBodyProxy) ((StubObject) member).getProxy()).getBodyID().getVMID();
+            List<Object> members = membersByVM.get(vmid);
+            if (members == null) {
+                members = new ArrayList<Object>();
+                membersByVM.put(vmid, members);
+            }
+            members.add(member);
+        }
+        List<Object> result = new ArrayList<Object>(this.memberList.size());
+        for (List<Object> members : membersByVM.values()) {
+            result.addAll(members);
+        }
+        return result;
+    }
+
     /* ------------------- java.util.List methods------------------ */
 
     /**
@@ -1219,8 +1491,7 @@ public class ProxyForGroup<E> extends AbstractProxy implements Proxy, Group<E>,
      *            - the new ratio
      */
     public void setRatioMemberToThread(int i) {
-        // this.threadpool.ratio(i);
-        // TODO replace this method
+        this.dispatcher.setMemberToThreadRatio(i);
     }
 
     /*
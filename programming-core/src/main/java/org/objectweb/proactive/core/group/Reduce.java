@@ -0,0 +1,51 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * An annotation for specifying the reduction of the results of a group method call.
+ * <p>
+ * Instead of a group of futures, the caller of an annotated method receives a single future
+ * for the reduction of the results of all the members, computed as the results arrive.
+ * 
+ * @author The ProActive Team
+ *
+ */
+@PublicAPI
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Reduce {
+
+    ReduceMode mode();
+
+    Class<? extends ReduceBehavior> customMode() default ReduceMode.class;
+
+}
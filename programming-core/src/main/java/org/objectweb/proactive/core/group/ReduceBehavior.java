@@ -0,0 +1,55 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * Specifies how the results of a group method call are combined into a single result.
+ * <p>
+ * Results are combined one at a time, in the order they arrive, so the reduction must be
+ * associative and commutative. It is run by the thread updating the futures, and should
+ * therefore be short.
+ * 
+ * @author The ProActive Team
+ *
+ */
+@PublicAPI
+public interface ReduceBehavior {
+
+    /**
+     * Combines the result of a member with the results reduced so far.
+     * 
+     * @param partial the reduction of the results received so far, <code>null</code> for the
+     * first result
+     * @param result the result of a member
+     * @return the reduction of <code>partial</code> and <code>result</code>
+     * @throws ReductionException if the results cannot be combined
+     */
+    public Object reduce(Object partial, Object result) throws ReductionException;
+
+}
@@ -0,0 +1,143 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * This enumeration defines the built-in reductions of the results of a group method call.
+ * <p>
+ * Built-in reductions ignore <code>null</code> results, and reduce to <code>null</code> when
+ * all the results are <code>null</code>.
+ * 
+ * @author The ProActive Team
+ *
+ */
+@PublicAPI
+public enum ReduceMode implements ReduceBehavior, Serializable {
+    /**
+     * Sum of numeric results. The sum has the type of the results (Integer, Long, Double, BigInteger...).
+     */
+    SUM,
+
+    /**
+     * Smallest of comparable results.
+     */
+    MIN,
+
+    /**
+     * Greatest of comparable results.
+     */
+    MAX,
+
+    /**
+     * Concatenation of String results, or of Collection results into a List.
+     */
+    CONCAT,
+
+    /**
+     * Custom reduction specified in an external class file that implements the
+     * {@link ReduceBehavior} interface.
+     */
+    CUSTOM;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public Object reduce(Object partial, Object result) throws ReductionException {
+        if (result == null) {
+            return partial;
+        }
+
+        switch (this) {
+            case SUM:
+                if (!(result instanceof Number)) {
+                    throw new ReductionException("Cannot sum a non numeric result: " + result.getClass().getName());
+                }
+                return (partial == null) ? result : sum((Number) partial, (Number) result);
+            case MIN:
+            case MAX:
+                if (!(result instanceof Comparable)) {
+                    throw new ReductionException("Cannot compare a non comparable result: " +
+                                                 result.getClass().getName());
+                }
+                if (partial == null) {
+                    return result;
+                }
+                try {
+                    int cmp = ((Comparable) result).compareTo(partial);
+                    return ((this == MIN) ? (cmp < 0) : (cmp > 0)) ? result : partial;
+                } catch (ClassCastException e) {
+                    throw new ReductionException("Cannot compare the results", e);
+                }
+            case CONCAT:
+                if (result instanceof String) {
+                    return (partial == null) ? result : ((String) partial).concat((String) result);
+                } else if (result instanceof Collection) {
+                    // the first result is copied so the results of the members are never modified
+                    List<Object> list = (partial == null) ? new ArrayList<Object>() : (List<Object>) partial;
+                    list.addAll((Collection<?>) result);
+                    return list;
+                }
+                throw new ReductionException("Cannot concatenate a result that is neither a String nor a Collection: " +
+                                             result.getClass().getName());
+            default:
+                throw new ReductionException("A custom reduction must be specified by a class implementing " +
+                                             ReduceBehavior.class.getName());
+        }
+    }
+
+    private static Number sum(Number a, Number b) throws ReductionException {
+        if (a.getClass() != b.getClass()) {
+            throw new ReductionException("Cannot sum results of different types: " + a.getClass().getName() +
+                                         " and " + b.getClass().getName());
+        }
+        if (a instanceof Integer) {
+            return a.intValue() + b.intValue();
+        } else if (a instanceof Long) {
+            return a.longValue() + b.longValue();
+        } else if (a instanceof Double) {
+            return a.doubleValue() + b.doubleValue();
+        } else if (a instanceof Float) {
+            return a.floatValue() + b.floatValue();
+        } else if (a instanceof Short) {
+            return (short) (a.shortValue() + b.shortValue());
+        } else if (a instanceof Byte) {
+            return (byte) (a.byteValue() + b.byteValue());
+        } else if (a instanceof BigInteger) {
+            return ((BigInteger) a).add((BigInteger) b);
+        } else if (a instanceof BigDecimal) {
+            return ((BigDecimal) a).add((BigDecimal) b);
+        }
+        throw new ReductionException("Cannot sum results of type " + a.getClass().getName());
+    }
+}
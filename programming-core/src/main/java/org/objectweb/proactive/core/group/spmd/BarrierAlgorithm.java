@@ -0,0 +1,58 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.spmd;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * The algorithms implementing the total barrier of a SPMD group.
+ * <p>
+ * Whatever the algorithm, a member of the group does not serve the requests sent by the
+ * other members after they entered the barrier until all the members entered it.
+ * All the members must use the same algorithm for a given barrier. The tree and dissemination
+ * barriers are told apart by the order they are entered in, whatever their name: all the
+ * members must enter them in the same order.
+ *
+ * @author The ProActive Team
+ */
+@PublicAPI
+public enum BarrierAlgorithm {
+    /**
+     * Every member notifies every member: N<sup>2</sup> messages in one step
+     */
+    ALL_TO_ALL,
+    /**
+     * Members notify their parent in a tree once their subtree entered the barrier, then the
+     * root releases the barrier down the tree: 2(N-1) messages in 2log(N) steps
+     */
+    TREE,
+    /**
+     * At round k, every member notifies the member 2<sup>k</sup> ranks further: Nlog(N)
+     * messages in log(N) steps
+     */
+    DISSEMINATION;
+}
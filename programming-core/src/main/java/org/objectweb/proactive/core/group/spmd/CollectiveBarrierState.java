@@ -0,0 +1,165 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.spmd;
+
+/**
+ * The state of a member of a SPMD group in a tree or dissemination barrier.
+ * <p>
+ * The barrier progresses as the member enters it and receives the messages of the other
+ * members. The messages to send are given to a {@link Messenger}. For a tree barrier, message
+ * {@link #ARRIVAL} is sent to the parent once the whole subtree entered the barrier and message
+ * {@link #RELEASE} is sent to the children. For a dissemination barrier, the message of round
+ * k is sent to the member 2<sup>k</sup> ranks further once the message of round k-1 has been
+ * received.
+ *
+ * @author The ProActive Team
+ */
+public class CollectiveBarrierState extends BarrierState {
+
+    /** Arity of the tree barriers */
+    public static final int TREE_ARITY = 4;
+
+    /** Message sent up the tree */
+    public static final int ARRIVAL = 0;
+
+    /** Message sent down the tree */
+    public static final int RELEASE = 1;
+
+    /**
+     * Sends the messages of a barrier to the other members
+     */
+    public interface Messenger {
+        /**
+         * @param rank the rank of the destination member
+         * @param round the message to send
+         */
+        void send(int rank, int round);
+    }
+
+    private final BarrierAlgorithm algorithm;
+
+    private final int size;
+
+    /** Rank of this member, -1 until it enters the barrier */
+    private int rank = -1;
+
+    /** Messages received, by round */
+    private final int[] received;
+
+    /** Number of messages sent: dissemination rounds, or tree arrival */
+    private int sent;
+
+    private boolean released;
+
+    /**
+     * @param algorithm TREE or DISSEMINATION
+     * @param size the size of the SPMD group
+     */
+    public CollectiveBarrierState(BarrierAlgorithm algorithm, int size) {
+        if ((algorithm != BarrierAlgorithm.TREE) && (algorithm != BarrierAlgorithm.DISSEMINATION)) {
+            throw new IllegalArgumentException("Unsupported barrier algorithm " + algorithm);
+        }
+        this.algorithm = algorithm;
+        this.size = size;
+        int rounds = 0;
+        if (algorithm == BarrierAlgorithm.TREE) {
+            rounds = 2;
+        } else {
+            while ((1 << rounds) < size) {
+                rounds++;
+            }
+        }
+        this.received = new int[rounds];
+    }
+
+    public BarrierAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * Returns true if this member has entered the barrier
+     */
+    public boolean isEntered() {
+        return this.rank >= 0;
+    }
+
+    /**
+     * Returns true once all the members have entered the barrier
+     */
+    public boolean isReleased() {
+        return this.released;
+    }
+
+    /**
+     * This member enters the barrier
+     * @param rank the rank of this member in the SPMD group
+     * @param messenger sends the messages to the other members
+     */
+    public void enter(int rank, Messenger messenger) {
+        this.rank = rank;
+        progress(messenger);
+    }
+
+    /**
+     * A message of another member is received
+     * @param round the received message
+     * @param messenger sends the messages to the other members
+     */
+    public void receive(int round, Messenger messenger) {
+        this.received[round]++;
+        incrementReceivedCalls();
+        progress(messenger);
+    }
+
+    private void progress(Messenger messenger) {
+        if (!isEntered() || this.released) {
+            return;
+        }
+        if (this.algorithm == BarrierAlgorithm.TREE) {
+            int firstChild = (this.rank * TREE_ARITY) + 1;
+            int nbChildren = Math.max(0, Math.min(TREE_ARITY, this.size - firstChild));
+            if ((this.sent == 0) && (this.received[ARRIVAL] == nbChildren)) {
+                this.sent = 1;
+                if (this.rank != 0) {
+                    messenger.send((this.rank - 1) / TREE_ARITY, ARRIVAL);
+                }
+            }
+            if ((this.sent == 1) && ((this.rank == 0) || (this.received[RELEASE] > 0))) {
+                this.released = true;
+                for (int child = firstChild; child < (firstChild + nbChildren); child++) {
+                    messenger.send(child, RELEASE);
+                }
+            }
+        } else {
+            int rounds = this.received.length;
+            while ((this.sent < rounds) && ((this.sent == 0) || (this.received[this.sent - 1] > 0))) {
+                messenger.send((this.rank + (1 << this.sent)) % this.size, this.sent);
+                this.sent++;
+            }
+            this.released = (this.sent == rounds) && ((rounds == 0) || (this.received[rounds - 1] > 0));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.spmd;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.core.body.AbstractBody;
+import org.objectweb.proactive.core.group.MethodCallControlForGroup;
+import org.objectweb.proactive.core.mop.MethodCallExecutionFailedException;
+
+
+/**
+ * This class represents a message of a tree or dissemination barrier, sent by a member of a
+ * SPMD group to another one.
+ * @see CollectiveBarrierState
+ * @author The ProActive Team
+ */
+public class MethodCallCollectiveBarrier extends MethodCallControlForGroup {
+
+    /** The unique ID of the barrier */
+    private String IDName;
+
+    /** The number of tree or dissemination barriers entered before this one */
+    private int epoch;
+
+    private BarrierAlgorithm algorithm;
+
+    /** The message in the barrier algorithm */
+    private int round;
+
+    /**
+     * Constructor
+     * @param idname the id name of the barrier
+     * @param epoch the number of tree or dissemination barriers entered before this one
+     * @param algorithm the barrier algorithm
+     * @param round the message in the barrier algorithm
+     */
+    public MethodCallCollectiveBarrier(String idname, int epoch, BarrierAlgorithm algorithm, int round) {
+        this.IDName = idname;
+        this.epoch = epoch;
+        this.algorithm = algorithm;
+        this.round = round;
+    }
+
+    /**
+     * Returns the name of the call
+     * @return the String "MethodCallCollectiveBarrier"
+     */
+    @Override
+    public String getName() {
+        return "MethodCallCollectiveBarrier";
+    }
+
+    /**
+     * Returns the ID name of the barrier
+     * @return the ID name of the barrier
+     */
+    public String getIDName() {
+        return this.IDName;
+    }
+
+    /**
+     * Execution of a barrier message is to make the barrier progress, and to release it once all
+     * the members have entered it.
+     * @param target this object is not used.
+     * @return null
+     */
+    @Override
+    public Object execute(Object target) throws InvocationTargetException, MethodCallExecutionFailedException {
+        ProActiveSPMDGroupManager spmdManager = ((AbstractBody) PAActiveObject.getBodyOnThis()).getProActiveSPMDGroupManager();
+        spmdManager.receiveBarrierMessage(this.IDName, this.epoch, this.algorithm, this.round);
+        return null;
+    }
+}
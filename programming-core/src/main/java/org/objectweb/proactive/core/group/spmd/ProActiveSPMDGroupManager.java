@@ -29,12 +29,20 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.mop.StubObject;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
 
 /**
  * @author The ProActive Team
  */
 public class ProActiveSPMDGroupManager implements java.io.Serializable {
 
+    private static final Logger logger = ProActiveLogger.getLogger(Loggers.GROUPS);
+
     /**
      *  The spmd group he object belongs to
      */
@@ -54,6 +62,36 @@ public class ProActiveSPMDGroupManager implements java.io.Serializable {
      */
     private LinkedList<String> barrierTags = new LinkedList<String>();
 
+    /**
+     * The algorithm of the total barriers of this active object.
+     */
+    private BarrierAlgorithm barrierAlgorithm = BarrierAlgorithm.ALL_TO_ALL;
+
+    /**
+     * The number of tree or dissemination barriers entered, whatever their name.
+     * Successive barriers are told apart by this number, their epoch, so the members
+     * must enter them in the same order.
+     */
+    private int enteredEpochs = 0;
+
+    /**
+     * The number of tree or dissemination barriers released, in the order they were entered.
+     * The requests tagged with a later epoch are not served.
+     */
+    private int releasedEpochs = 0;
+
+    /**
+     * The states of the tree or dissemination barriers not released yet, by epoch.
+     */
+    private HashMap<Integer, CollectiveBarrierState> collectiveBarriers = new HashMap<Integer, CollectiveBarrierState>(4);
+
+    /**
+     * Prefix of the tags of the tree or dissemination barriers, followed by the epoch of the
+     * barrier. A member may receive such a tag before knowing anything of the barrier, so the
+     * tag alone tells whether the request can be served.
+     */
+    private static final String COLLECTIVE_TAG_PREFIX = "\0";
+
     /**
      * Set the SPMD group for the active object.
      * @param o - the new SPMD group
@@ -70,6 +108,98 @@ public class ProActiveSPMDGroupManager implements java.io.Serializable {
         return this.spmdGroup;
     }
 
+    /**
+     * Returns the algorithm of the total barriers of this active object
+     * @return the algorithm of the total barriers
+     */
+    public BarrierAlgorithm getBarrierAlgorithm() {
+        return this.barrierAlgorithm;
+    }
+
+    /**
+     * Sets the algorithm of the total barriers of this active object.
+     * All the members of the SPMD group must use the same algorithm.
+     * @param barrierAlgorithm the algorithm of the total barriers
+     */
+    public void setBarrierAlgorithm(BarrierAlgorithm barrierAlgorithm) {
+        this.barrierAlgorithm = barrierAlgorithm;
+    }
+
+    /**
+     * Enters a tree or dissemination barrier over the SPMD group.
+     * @param barrierName the name of the barrier
+     * @param algorithm TREE or DISSEMINATION
+     * @param rank the rank of the active object in the SPMD group
+     */
+    public void enterBarrier(String barrierName, BarrierAlgorithm algorithm, int rank) {
+        int epoch = this.enteredEpochs++;
+        this.addToBarrierTags(collectiveTag(epoch));
+        CollectiveBarrierState bs = this.getCollectiveBarrierState(epoch, algorithm);
+        bs.enter(rank, new GroupMessenger(barrierName, epoch, algorithm));
+        this.checkRelease();
+    }
+
+    /**
+     * Receives a message of a tree or dissemination barrier from another member of the SPMD group.
+     * @param barrierName the name of the barrier
+     * @param epoch the number of tree or dissemination barriers entered before this one
+     * @param algorithm TREE or DISSEMINATION
+     * @param round the received message
+     */
+    public void receiveBarrierMessage(String barrierName, int epoch, BarrierAlgorithm algorithm, int round) {
+        if (epoch < this.releasedEpochs) {
+            logger.warn("Ignoring a message of the released barrier " + barrierName + " (epoch " + epoch + ")");
+            return;
+        }
+        CollectiveBarrierState bs = this.getCollectiveBarrierState(epoch, algorithm);
+        bs.receive(round, new GroupMessenger(barrierName, epoch, algorithm));
+        this.checkRelease();
+    }
+
+    private CollectiveBarrierState getCollectiveBarrierState(int epoch, BarrierAlgorithm algorithm) {
+        CollectiveBarrierState bs = this.collectiveBarriers.get(epoch);
+        if (bs == null) {
+            bs = new CollectiveBarrierState(algorithm, PAGroup.size(this.spmdGroup));
+            this.collectiveBarriers.put(epoch, bs);
+        }
+        return bs;
+    }
+
+    /**
+     * Releases the barriers in the order they were entered. Nothing is kept of a released
+     * barrier but the number of released barriers.
+     */
+    private void checkRelease() {
+        CollectiveBarrierState bs = this.collectiveBarriers.get(this.releasedEpochs);
+        while ((bs != null) && bs.isReleased()) {
+            this.collectiveBarriers.remove(this.releasedEpochs);
+            // stop tagging the outgoing messages with this barrier
+            this.barrierTags.remove(collectiveTag(this.releasedEpochs));
+            this.releasedEpochs++;
+            bs = this.collectiveBarriers.get(this.releasedEpochs);
+        }
+    }
+
+    /**
+     * Returns the tag of a tree or dissemination barrier
+     * @param epoch the number of tree or dissemination barriers entered before this one
+     * @return the tag of the barrier
+     */
+    static String collectiveTag(int epoch) {
+        return COLLECTIVE_TAG_PREFIX + epoch;
+    }
+
+    /**
+     * Check if a request tagged with a tree or dissemination barrier can be served, that is if
+     * this member released the barrier
+     * @param tag the tag of the barrier
+     * @return true if the barrier is released
+     */
+    private boolean isCollectiveTagReleased(String tag) {
+        int epoch = Integer.parseInt(tag.substring(COLLECTIVE_TAG_PREFIX.length()));
+        return epoch < this.releasedEpochs;
+    }
+
     /**
      * Adds the barrier ID into the list of barrier ID used to tag messages.
      * @param barrierID the barrier name
@@ -154,7 +284,12 @@ public class ProActiveSPMDGroupManager implements java.io.Serializable {
         }
         Iterator<String> it = barrierTags.iterator();
         while (it.hasNext()) {
-            if (this.currentBarriers.get(it.next()) != null) {
+            String tag = it.next();
+            if (tag.startsWith(COLLECTIVE_TAG_PREFIX)) {
+                if (!this.isCollectiveTagReleased(tag)) {
+                    return false;
+                }
+            } else if (this.currentBarriers.get(tag) != null) {
                 return false;
             }
         }
@@ -168,4 +303,44 @@ public class ProActiveSPMDGroupManager implements java.io.Serializable {
     public boolean isCurrentBarriersEmpty() {
         return (this.currentBarriers.size() == 0);
     }
+
+    /**
+     * Check if the requests have to be checked against the barriers before being served: a
+     * barrier is active, or this active object belongs to a SPMD group and may receive requests
+     * tagged with a tree or dissemination barrier it has not entered yet
+     * @return true if the barrier tags of the requests must be checked
+     */
+    public boolean isBarrierCheckNeeded() {
+        return !this.currentBarriers.isEmpty() || (this.spmdGroup != null);
+    }
+
+    /**
+     * Sends the messages of a barrier to the members of the SPMD group
+     */
+    private class GroupMessenger implements CollectiveBarrierState.Messenger {
+        private final String barrierName;
+
+        private final int epoch;
+
+        private final BarrierAlgorithm algorithm;
+
+        GroupMessenger(String barrierName, int epoch, BarrierAlgorithm algorithm) {
+            this.barrierName = barrierName;
+            this.epoch = epoch;
+            this.algorithm = algorithm;
+        }
+
+        public void send(int rank, int round) {
+            Object member = PAGroup.getGroup(ProActiveSPMDGroupManager.this.spmdGroup).get(rank);
+            try {
+                ((StubObject) member).getProxy()
+                                     .reify(new MethodCallCollectiveBarrier(this.barrierName,
+                                                                            this.epoch,
+                                                                            this.algorithm,
+                                                                            round));
+            } catch (Throwable t) {
+                logger.error("Unable to send barrier " + this.barrierName + " to member " + rank, t);
+            }
+        }
+    }
 }
@@ -29,14 +29,18 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
+import javax.management.ListenerNotFoundException;
 import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServer;
 import javax.management.NotCompliantMBeanException;
 import javax.management.Notification;
 import javax.management.NotificationBroadcasterSupport;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
 
 import org.apache.log4j.Logger;
@@ -104,6 +108,13 @@ public class BodyWrapper extends NotificationBroadcasterSupport implements Seria
      */
     private transient ConcurrentLinkedQueue<Notification> notifications;
 
+    /**
+     * The listeners currently subscribed to this MBean, one entry per subscription. Only used to
+     * know whether there is someone to notify, the subscriptions themselves are managed by
+     * {@link NotificationBroadcasterSupport}.
+     */
+    private transient CopyOnWriteArrayList<NotificationListener> listeners = new CopyOnWriteArrayList<NotificationListener>();
+
     /**
      * Empty constructor required by JMX
      */
@@ -151,6 +162,31 @@ public class BodyWrapper extends NotificationBroadcasterSupport implements Seria
         return this.nodeUrl;
     }
 
+    public boolean hasNotificationListeners() {
+        return !this.listeners.isEmpty();
+    }
+
+    @Override
+    public void addNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) {
+        super.addNotificationListener(listener, filter, handback);
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeNotificationListener(NotificationListener listener) throws ListenerNotFoundException {
+        super.removeNotificationListener(listener);
+        while (this.listeners.remove(listener)) {
+            // a listener may have been added several times with different filters
+        }
+    }
+
+    @Override
+    public void removeNotificationListener(NotificationListener listener, NotificationFilter filter,
+            Object handback) throws ListenerNotFoundException {
+        super.removeNotificationListener(listener, filter, handback);
+        this.listeners.remove(listener);
+    }
+
     public void sendNotification(String type) {
         this.sendNotification(type, null);
     }
@@ -296,6 +332,9 @@ public class BodyWrapper extends NotificationBroadcasterSupport implements Seria
         // Warning notifications is transient
         this.notifications = new ConcurrentLinkedQueue<Notification>();
 
+        // Warning listeners is transient, they subscribe again to the new MBean
+        this.listeners = new CopyOnWriteArrayList<NotificationListener>();
+
         // Register the MBean into the MBean Server
         try {
             ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
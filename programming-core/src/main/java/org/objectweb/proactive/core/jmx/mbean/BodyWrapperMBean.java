@@ -62,6 +62,14 @@ public interface BodyWrapperMBean extends Serializable {
      */
     public String getNodeUrl();
 
+    /**
+     * Returns <code>True</code> if at least one listener is subscribed to the notifications of
+     * this MBean. Callers can skip building the data of a notification nobody will receive.
+     *
+     * @return <code>True</code> if at least one listener is subscribed, <code>False</code> otherwise
+     */
+    public boolean hasNotificationListeners();
+
     /**
      * Send a new notification.
      *
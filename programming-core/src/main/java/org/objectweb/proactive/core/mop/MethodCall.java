@@ -34,11 +34,14 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.api.PAFuture;
 import org.objectweb.proactive.core.exceptions.ExceptionHandler;
 import org.objectweb.proactive.core.mop.MethodCallInfo.SynchronousReason;
+import org.objectweb.proactive.core.util.converter.ObjectCodec;
+import org.objectweb.proactive.core.util.converter.ObjectCodecRegistry;
 import org.objectweb.proactive.core.util.converter.ObjectToByteConverter;
 import org.objectweb.proactive.core.util.converter.ProActiveByteToObjectConverter;
 import org.objectweb.proactive.core.util.log.Loggers;
@@ -60,13 +63,19 @@ public class MethodCall implements java.io.Serializable, Cloneable {
     /**
      * The hashtable that caches Method/isAsynchronousCall
      * This dramatically improves performances, since we do not have to call
-     * isAsynchronousCall for every call, but only once for a given method
+     * isAsynchronousCall for every call, but only once for a given method.
+     * It is read on every call by every thread, so it must not be guarded by a global lock.
      */
-    private static transient java.util.Hashtable<String, ReifiableAndExceptions> REIF_AND_EXCEP = new java.util.Hashtable<String, ReifiableAndExceptions>();
+    private static transient ConcurrentHashMap<String, ReifiableAndExceptions> REIF_AND_EXCEP = new ConcurrentHashMap<String, ReifiableAndExceptions>();
 
     protected static Logger logger = ProActiveLogger.getLogger(Loggers.MOP);
 
-    private static java.util.Hashtable<String, Method> reifiedMethodsTable = new java.util.Hashtable<String, Method>();
+    private static ConcurrentHashMap<String, Method> reifiedMethodsTable = new ConcurrentHashMap<String, Method>();
+
+    /**
+     * The keys of the methods called without generic types mapping, built once per method
+     */
+    private static ConcurrentHashMap<Method, String> keysTable = new ConcurrentHashMap<Method, String>();
 
     //
     // --- PRIVATE MEMBERS -----------------------------------------------------------------------
@@ -116,6 +125,19 @@ public class MethodCall implements java.io.Serializable, Cloneable {
         }
     }
 
+    /**
+     * Transforms the effective arguments into a byte[], so that they are no longer
+     * shared with the caller
+     *
+     * @throws java.io.IOException if the arguments cannot be serialized, they are then left unchanged
+     */
+    public void serializeEffectiveArguments() throws java.io.IOException {
+        if ((this.serializedEffectiveArguments == null) && (this.effectiveArguments != null)) {
+            this.serializedEffectiveArguments = ObjectToByteConverter.MarshallStream.convert(this.effectiveArguments);
+            this.effectiveArguments = null;
+        }
+    }
+
     /**
      *        Factory method for getting MethodCall objects
      *
@@ -128,8 +150,11 @@ public class MethodCall implements java.io.Serializable, Cloneable {
      *  primitive type <code>int</code> for example).
      *        @return        a MethodCall object representing an invocation of method
      *        <code>reifiedMethod</code> with arguments <code>effectiveArguments</code>
+     *
+     *        This factory does not hold any lock: it is called by every stub invocation,
+     *        from any thread, and must scale with the number of callers.
      */
-    public synchronized static MethodCall getMethodCall(Method reifiedMethod,
+    public static MethodCall getMethodCall(Method reifiedMethod,
             Map<TypeVariable<?>, Class<?>> genericTypesMapping, Object[] effectiveArguments,
             MethodCallExceptionContext exceptioncontext) {
         exceptioncontext = MethodCallExceptionContext.optimize(exceptioncontext);
@@ -137,7 +162,7 @@ public class MethodCall implements java.io.Serializable, Cloneable {
         return new MethodCall(reifiedMethod, genericTypesMapping, effectiveArguments, exceptioncontext);
     }
 
-    public synchronized static MethodCall getMethodCall(Method reifiedMethod, Object[] effectiveArguments,
+    public static MethodCall getMethodCall(Method reifiedMethod, Object[] effectiveArguments,
             Map<TypeVariable<?>, Class<?>> genericTypesMapping) {
         MethodCallExceptionContext exceptioncontext = ExceptionHandler.getContextForCall(reifiedMethod);
         return getMethodCall(reifiedMethod, genericTypesMapping, effectiveArguments, exceptioncontext);
@@ -231,16 +256,11 @@ public class MethodCall implements java.io.Serializable, Cloneable {
             logger.debug("MethodCall.execute() targetObject " + targetObject);
         }
 
-        if (this.reifiedMethod.getParameterTypes().length > 0) {
-            this.reifiedMethod.setAccessible(true);
-        }
-
         try {
             targetObject = PAFuture.getFutureValue(targetObject);
-            // In order to call from this class protected methods of the Active Object,
-            // we need to bypass the Java Runtime security. 
-            this.reifiedMethod.setAccessible(true);
-            return this.reifiedMethod.invoke(targetObject, this.effectiveArguments);
+            // The invoker bypasses the Java Runtime security once per method, so that
+            // protected methods of the Active Object can be called from this class
+            return MethodInvoker.get(this.reifiedMethod).invoke(targetObject, this.effectiveArguments);
         } catch (IllegalAccessException e) {
             throw new MethodCallExecutionFailedException("Access rights to the method denied: " + e);
         } catch (IllegalArgumentException e) {
@@ -314,6 +334,19 @@ public class MethodCall implements java.io.Serializable, Cloneable {
 
     // build a key for uniquely identifying methods, including parameterized ones
     private static String buildKey(Method reifiedMethod, Map<TypeVariable<?>, Class<?>> genericTypesMapping) {
+        if ((genericTypesMapping == null) || genericTypesMapping.isEmpty()) {
+            String key = keysTable.get(reifiedMethod);
+            if (key == null) {
+                key = computeKey(reifiedMethod, null).intern();
+                keysTable.put(reifiedMethod, key);
+            }
+            return key;
+        }
+
+        return computeKey(reifiedMethod, genericTypesMapping);
+    }
+
+    private static String computeKey(Method reifiedMethod, Map<TypeVariable<?>, Class<?>> genericTypesMapping) {
         //TODO It seems genericTypesMapping is always an empty map, It is either useless or not correctly built.
         final StringBuilder sb = new StringBuilder((reifiedMethod.getDeclaringClass().getName()));
 
@@ -352,6 +385,12 @@ public class MethodCall implements java.io.Serializable, Cloneable {
     }
 
     protected void writeTheObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+        ObjectCodec codec = ObjectCodecRegistry.getSelectedCodec();
+        if ((codec != null) && (this.genericTypesMapping == null)) {
+            this.writeEncoded(out, codec);
+            return;
+        }
+
         out.defaultWriteObject();
         // The Method object needs to be converted
         out.writeObject(this.reifiedMethod.getDeclaringClass());
@@ -365,6 +404,25 @@ public class MethodCall implements java.io.Serializable, Cloneable {
 
     protected void readTheObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
         in.defaultReadObject();
+        if (this.key == null) {
+            // the key is only left out by codecs
+            this.readEncoded(in);
+        } else {
+            this.readMethod(in);
+        }
+
+        if ((this.serializedEffectiveArguments != null) && (this.effectiveArguments == null)) {
+            try {
+                this.effectiveArguments = (Object[]) ProActiveByteToObjectConverter.MarshallStream.convert(this.serializedEffectiveArguments);
+            } catch (Exception e) {
+                logger.error("", e);
+            }
+
+            this.serializedEffectiveArguments = null;
+        }
+    }
+
+    private void readMethod(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
         this.reifiedMethod = reifiedMethodsTable.get(this.key);
         if (this.reifiedMethod == null) {
             // Reads several pieces of data that we need for looking up the method
@@ -381,15 +439,47 @@ public class MethodCall implements java.io.Serializable, Cloneable {
                                             ". This may be caused by having different versions of the same class on different VMs. Check your CLASSPATH settings.");
             }
         }
+    }
 
-        if ((this.serializedEffectiveArguments != null) && (this.effectiveArguments == null)) {
-            try {
-                this.effectiveArguments = (Object[]) ProActiveByteToObjectConverter.MarshallStream.convert(this.serializedEffectiveArguments);
-            } catch (Exception e) {
-                logger.error("", e);
+    /**
+     * Writes the method and the arguments with a codec. The key is left out, it is rebuilt from
+     * the method by the reader.
+     */
+    private void writeEncoded(java.io.ObjectOutputStream out, ObjectCodec codec) throws java.io.IOException {
+        java.io.ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("effectiveArguments", null);
+        fields.put("tagsForBarrier", this.tagsForBarrier);
+        fields.put("key", null);
+        fields.put("serializedEffectiveArguments", this.serializedEffectiveArguments);
+        out.writeFields();
+
+        out.writeByte(codec.getId());
+        codec.writeMethod(this.reifiedMethod, out);
+        if (this.effectiveArguments == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(this.effectiveArguments.length);
+            for (Object argument : this.effectiveArguments) {
+                codec.writeValue(argument, out);
             }
+        }
+    }
 
-            this.serializedEffectiveArguments = null;
+    private void readEncoded(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        byte id = in.readByte();
+        ObjectCodec codec = ObjectCodecRegistry.get(id);
+        if (codec == null) {
+            throw new java.io.InvalidObjectException("Unknown codec " + id + " for method call");
+        }
+
+        this.reifiedMethod = codec.readMethod(in);
+        this.key = buildKey(this.reifiedMethod, null);
+        int length = in.readInt();
+        if (length >= 0) {
+            this.effectiveArguments = new Object[length];
+            for (int i = 0; i < length; i++) {
+                this.effectiveArguments[i] = codec.readValue(in);
+            }
         }
     }
 
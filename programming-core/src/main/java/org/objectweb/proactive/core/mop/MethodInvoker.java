@@ -0,0 +1,159 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
+
+/**
+ * Executes a reified method on the serving side.
+ * <p>
+ * An invoker is built once per {@link Method}: the access check is performed when it
+ * is created and the method is then invoked through a {@link MethodHandle} whose type is
+ * <code>(Object, Object[])Object</code>. Calls whose arguments do not exactly match the
+ * parameter types (null for a primitive, primitive widening, wrong target...) go through
+ * core reflection so that errors are reported exactly as before.
+ */
+final class MethodInvoker {
+    static final Logger logger = ProActiveLogger.getLogger(Loggers.MOP);
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private static final ConcurrentHashMap<Method, MethodInvoker> INVOKERS = new ConcurrentHashMap<Method, MethodInvoker>();
+
+    private final Method method;
+
+    private final boolean isStatic;
+
+    /** The parameter types, primitive types being replaced by their wrapper */
+    private final Class<?>[] parameterTypes;
+
+    private final boolean[] primitives;
+
+    /** null if the method cannot be invoked through a method handle */
+    private final MethodHandle handle;
+
+    static MethodInvoker get(Method method) {
+        MethodInvoker invoker = INVOKERS.get(method);
+        if (invoker == null) {
+            invoker = new MethodInvoker(method);
+            MethodInvoker previous = INVOKERS.putIfAbsent(method, invoker);
+            if (previous != null) {
+                invoker = previous;
+            }
+        }
+        return invoker;
+    }
+
+    private MethodInvoker(Method method) {
+        this.method = method;
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+
+        Class<?>[] types = method.getParameterTypes();
+        this.parameterTypes = new Class<?>[types.length];
+        this.primitives = new boolean[types.length];
+        for (int i = 0; i < types.length; i++) {
+            this.primitives[i] = types[i].isPrimitive();
+            this.parameterTypes[i] = this.primitives[i] ? Utils.getWrapperClass(types[i]) : types[i];
+        }
+
+        // In order to call from this class protected methods of the Active Object,
+        // we need to bypass the Java Runtime security. Done once per method.
+        this.method.setAccessible(true);
+        this.handle = buildHandle(method, types.length, this.isStatic);
+    }
+
+    private static MethodHandle buildHandle(Method method, int arity, boolean isStatic) {
+        try {
+            MethodHandle mh = MethodHandles.lookup().unreflect(method).asFixedArity();
+            if (isStatic) {
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            }
+            return mh.asType(MethodType.genericMethodType(arity + 1)).asSpreader(Object[].class, arity);
+        } catch (Exception e) {
+            logger.debug("Cannot build a method handle for " + method + ", reflection will be used", e);
+            return null;
+        }
+    }
+
+    Method getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Invokes the method on <code>target</code>, with the same contract as {@link Method#invoke(Object, Object...)}
+     */
+    Object invoke(Object target, Object[] args)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+        if (args == null) {
+            args = NO_ARGUMENTS;
+        }
+
+        if ((this.handle == null) || !accepts(target, args)) {
+            return this.method.invoke(target, args);
+        }
+
+        try {
+            return (Object) this.handle.invokeExact(target, args);
+        } catch (Throwable t) {
+            // Arguments have been checked: anything thrown comes from the method itself
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    private boolean accepts(Object target, Object[] args) {
+        if (!this.isStatic && !this.method.getDeclaringClass().isInstance(target)) {
+            return false;
+        }
+
+        if (args.length != this.parameterTypes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (this.primitives[i]) {
+                if ((arg == null) || (arg.getClass() != this.parameterTypes[i])) {
+                    return false;
+                }
+            } else if ((arg != null) && !this.parameterTypes[i].isInstance(arg)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
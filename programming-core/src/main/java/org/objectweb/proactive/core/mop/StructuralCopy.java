@@ -0,0 +1,194 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.proactive.annotation.Immutable;
+
+
+/**
+ * Deep copies values without serialization when they are made of immutable objects.
+ * <p>
+ * Immutable objects (strings, primitive wrappers, enums, classes annotated with {@link Immutable}...)
+ * are passed by reference. Arrays and the common <code>java.util</code> collections holding such
+ * values are copied structurally, shared references being preserved as a serialization would do.
+ * Any other value cannot be copied by this class and must be deep copied by serialization.
+ */
+public final class StructuralCopy {
+
+    /** Exact classes whose instances are immutable */
+    private static final Set<Class<?>> IMMUTABLE_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>> asList(String.class,
+                                                                                                             Boolean.class,
+                                                                                                             Byte.class,
+                                                                                                             Character.class,
+                                                                                                             Short.class,
+                                                                                                             Integer.class,
+                                                                                                             Long.class,
+                                                                                                             Float.class,
+                                                                                                             Double.class,
+                                                                                                             BigInteger.class,
+                                                                                                             BigDecimal.class,
+                                                                                                             UUID.class));
+
+    private static final ConcurrentHashMap<Class<?>, Boolean> IMMUTABLE_CACHE = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    /** Maximum nesting of arrays and collections copied structurally */
+    private static final int MAX_DEPTH = 32;
+
+    /** Returned when a value cannot be copied structurally */
+    private static final Object NOT_COPYABLE = new Object();
+
+    private StructuralCopy() {
+    }
+
+    /**
+     * Tells whether the instances of a class can be shared instead of being deep copied.
+     * Subclasses of immutable classes are not immutable unless they are annotated.
+     *
+     * @param cl the class to check
+     * @return true if the instances of this exact class are immutable
+     */
+    public static boolean isImmutable(Class<?> cl) {
+        Boolean immutable = IMMUTABLE_CACHE.get(cl);
+        if (immutable == null) {
+            immutable = IMMUTABLE_CLASSES.contains(cl) || Enum.class.isAssignableFrom(cl) ||
+                        cl.isAnnotationPresent(Immutable.class);
+            IMMUTABLE_CACHE.put(cl, immutable);
+        }
+        return immutable;
+    }
+
+    /**
+     * Deep copies an array of values.
+     *
+     * @param source the array to copy
+     * @return the copy, or null if the array contains values that must be copied by serialization
+     */
+    public static Object[] copy(Object[] source) {
+        Object copy = copy(source, new IdentityHashMap<Object, Object>(), 0);
+        return (copy == NOT_COPYABLE) ? null : (Object[]) copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object o, IdentityHashMap<Object, Object> copies, int depth) {
+        if (o == null) {
+            return null;
+        }
+
+        Class<?> cl = o.getClass();
+        if (isImmutable(cl)) {
+            return o;
+        }
+
+        Object copy = copies.get(o);
+        if (copy != null) {
+            return copy;
+        }
+
+        if (depth > MAX_DEPTH) {
+            return NOT_COPYABLE;
+        }
+
+        if (cl.isArray()) {
+            int len = Array.getLength(o);
+            copy = Array.newInstance(cl.getComponentType(), len);
+            copies.put(o, copy);
+            if (cl.getComponentType().isPrimitive()) {
+                System.arraycopy(o, 0, copy, 0, len);
+            } else {
+                Object[] src = (Object[]) o;
+                Object[] dst = (Object[]) copy;
+                for (int i = 0; i < len; i++) {
+                    Object element = copy(src[i], copies, depth + 1);
+                    if (element == NOT_COPYABLE) {
+                        return NOT_COPYABLE;
+                    }
+                    dst[i] = element;
+                }
+            }
+            return copy;
+        }
+
+        if ((cl == ArrayList.class) || (cl == LinkedList.class) || (cl == HashSet.class) ||
+            (cl == LinkedHashSet.class)) {
+            Collection<Object> src = (Collection<Object>) o;
+            Collection<Object> dst;
+            if (cl == ArrayList.class) {
+                dst = new ArrayList<Object>(src.size());
+            } else if (cl == LinkedList.class) {
+                dst = new LinkedList<Object>();
+            } else if (cl == HashSet.class) {
+                dst = new HashSet<Object>(Math.max(src.size() * 2, 16));
+            } else {
+                dst = new LinkedHashSet<Object>(Math.max(src.size() * 2, 16));
+            }
+            copies.put(o, dst);
+            for (Object element : src) {
+                Object elementCopy = copy(element, copies, depth + 1);
+                if (elementCopy == NOT_COPYABLE) {
+                    return NOT_COPYABLE;
+                }
+                dst.add(elementCopy);
+            }
+            return dst;
+        }
+
+        if (cl == HashMap.class) {
+            Map<Object, Object> src = (Map<Object, Object>) o;
+            Map<Object, Object> dst = new HashMap<Object, Object>(Math.max(src.size() * 2, 16));
+            copies.put(o, dst);
+            for (Map.Entry<Object, Object> entry : src.entrySet()) {
+                Object key = copy(entry.getKey(), copies, depth + 1);
+                if (key == NOT_COPYABLE) {
+                    return NOT_COPYABLE;
+                }
+                Object value = copy(entry.getValue(), copies, depth + 1);
+                if (value == NOT_COPYABLE) {
+                    return NOT_COPYABLE;
+                }
+                dst.put(key, value);
+            }
+            return dst;
+        }
+
+        return NOT_COPYABLE;
+    }
+}
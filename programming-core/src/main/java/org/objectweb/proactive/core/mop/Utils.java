@@ -27,7 +27,6 @@ package org.objectweb.proactive.core.mop;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -435,10 +434,12 @@ public abstract class Utils extends Object {
     }
 
     /**
-     * This method optimizes the copy of primitive arrays.
+     * This method optimizes the copy of arrays of arguments.
      * This deep copy method does not replace the standard one
-     * and uses it. The deep copy is replaced only for arrays of primitive
-     * data type of 1 dimension by using the System.arraycopy method.
+     * and uses it. Immutable values are passed by reference and arrays or collections
+     * of such values are copied structurally (see {@link StructuralCopy}). Any other
+     * value makes the whole array copied by serialization, preserving the references
+     * shared between its elements.
      * @param source The source array to copy
      * @return The deep copy of the source array
      */
@@ -446,57 +447,13 @@ public abstract class Utils extends Object {
         if (source == null) {
             return null;
         }
-        Class<?> cl;
-        Object obj;
 
-        // Check if there is only primitive type or array of primitive types
-        for (int i = source.length; --i >= 0;) {
-            if ((obj = source[i]) == null) {
-                continue;
-            }
-
-            // If the class of the current obj is not a string or a primitive wrapper or an
-            // array of primitive type use the classic deep copy method
-            if (((cl = obj.getClass()) != String.class) && !Utils.isWrapperClass(cl) &&
-                (!cl.isArray() || !cl.getComponentType().isPrimitive())) {
-                return (Object[]) Utils.makeDeepCopy((Object) source);
-            }
+        Object[] ret = StructuralCopy.copy(source);
+        if (ret != null) {
+            return ret;
         }
 
-        // At this point we can be sure that elements in the source array
-        // are not complex type objects so we can optimize the copy of the source array
-        int i;
-        int j;
-        int len = 0;
-
-        // The result array will be the copy of the source array
-        final Object[] ret = new Object[source.length];
-        for (i = source.length; --i >= 0;) {
-            // If the current source element was already copied by
-            // the internal loop continue to the next element  
-            if (ret[i] != null) {
-                continue;
-            }
-
-            // If the current element is an array of primitive type use the arraycopy method
-            if (((obj = source[i]) != null) && (cl = obj.getClass()).isArray()) {
-                len = Array.getLength(obj);
-                ret[i] = Array.newInstance(cl.getComponentType(), len);
-                System.arraycopy(obj, 0, ret[i], 0, len);
-                // Here we need to seek through all other source args to find same references
-                // to preserve the sematics of the source array
-                for (j = i; --j >= 0;) {
-                    if ((ret[j] == null) && (source[i] == source[j])) {
-                        ret[j] = ret[i];
-                    }
-                }
-            } else {
-                // If the source element is a primitive wrapper or a string (immutable type)
-                // just pass the reference 
-                ret[i] = obj;
-            }
-        }
-        return ret;
+        return (Object[]) Utils.makeDeepCopy((Object) source);
     }
 
     /**
@@ -31,6 +31,7 @@ import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.descriptor.data.ProActiveDescriptorInternal;
 import org.objectweb.proactive.core.descriptor.data.VirtualNodeInternal;
@@ -358,4 +359,13 @@ public interface ProActiveRuntime {
      * @return thread dump
      */
     public String getThreadDump();
+
+    /**
+     * Sends a heartbeat to several active objects of this runtime at once
+     *
+     * @param bodyIds the IDs of the bodies to ping
+     * @return for each body, in the same order, its heartbeat response (see
+     * {@link org.objectweb.proactive.core.util.HeartbeatResponse}) or null if the body is not in this runtime
+     */
+    public List<Integer> receiveHeartbeats(List<UniqueID> bodyIds);
 }
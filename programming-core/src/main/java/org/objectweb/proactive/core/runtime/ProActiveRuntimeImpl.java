@@ -1336,4 +1336,26 @@ public class ProActiveRuntimeImpl extends RuntimeRegistrationEventProducerImpl
     public String getThreadDump() {
         return StackTraceUtil.getAllStackTraces();
     }
+
+    @Override
+    public List<Integer> receiveHeartbeats(List<UniqueID> bodyIds) {
+        List<Integer> states = new ArrayList<Integer>(bodyIds.size());
+        LocalBodyStore store = LocalBodyStore.getInstance();
+        for (UniqueID bodyId : bodyIds) {
+            Body body = store.getLocalBody(bodyId);
+            if (body == null) {
+                body = store.getLocalHalfBody(bodyId);
+            }
+            Integer state = null;
+            if (body != null) {
+                try {
+                    state = (Integer) body.receiveHeartbeat();
+                } catch (IOException e) {
+                    // unknown state, the body has to be pinged on its own
+                }
+            }
+            states.add(state);
+        }
+        return states;
+    }
 }
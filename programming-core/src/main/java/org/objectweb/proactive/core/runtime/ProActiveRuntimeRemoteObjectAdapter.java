@@ -31,6 +31,7 @@ import java.rmi.AlreadyBoundException;
 import java.util.List;
 
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.descriptor.data.ProActiveDescriptorInternal;
 import org.objectweb.proactive.core.descriptor.data.VirtualNodeInternal;
@@ -237,4 +238,9 @@ public class ProActiveRuntimeRemoteObjectAdapter extends Adapter<ProActiveRuntim
     public String getThreadDump() {
         return target.getThreadDump();
     }
+
+    @Override
+    public List<Integer> receiveHeartbeats(List<UniqueID> bodyIds) {
+        return target.receiveHeartbeats(bodyIds);
+    }
 }
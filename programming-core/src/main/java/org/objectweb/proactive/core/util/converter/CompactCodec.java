@@ -0,0 +1,264 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.proactive.core.util.converter.remote.ProActiveMarshalInputStream;
+import org.objectweb.proactive.core.util.converter.remote.ProActiveMarshalOutputStream;
+
+
+/**
+ * A codec writing the strings and the primitive wrappers in binary form, and the methods as their
+ * name and parameter types, primitive types being written as a single byte. On connections having a
+ * {@link org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary}, the methods are
+ * written with the dictionary.
+ * <p>
+ * Other values are written with the standard serialization of the stream, so their sharing
+ * inside a message is preserved. Strings and primitive wrappers are immutable, their identity is
+ * not preserved.
+ */
+public class CompactCodec implements ObjectCodec {
+
+    public static final String NAME = "compact";
+
+    public static final byte ID = 1;
+
+    // value tags, also used as parameter type tags
+    private static final byte SERIALIZED = 0;
+
+    private static final byte NULL = 1;
+
+    private static final byte BOOLEAN = 2;
+
+    private static final byte BYTE = 3;
+
+    private static final byte CHAR = 4;
+
+    private static final byte SHORT = 5;
+
+    private static final byte INT = 6;
+
+    private static final byte LONG = 7;
+
+    private static final byte FLOAT = 8;
+
+    private static final byte DOUBLE = 9;
+
+    private static final byte STRING = 10;
+
+    /** Strings of at most this length fit in a modified UTF-8 string */
+    private static final int MAX_UTF_LENGTH = 65535 / 3;
+
+    private static final Class<?>[] PRIMITIVE_TYPES = new Class<?>[] { null, null, Boolean.TYPE, Byte.TYPE,
+                                                                       Character.TYPE, Short.TYPE, Integer.TYPE,
+                                                                       Long.TYPE, Float.TYPE, Double.TYPE };
+
+    private final ConcurrentHashMap<Signature, Method> methods = new ConcurrentHashMap<Signature, Method>();
+
+    public String getName() {
+        return NAME;
+    }
+
+    public byte getId() {
+        return ID;
+    }
+
+    public void writeMethod(Method method, ObjectOutputStream out) throws IOException {
+        if ((out instanceof ProActiveMarshalOutputStream) &&
+            ((ProActiveMarshalOutputStream) out).writeMethod(method)) {
+            // written with the dictionary of the connection
+            return;
+        }
+
+        out.writeObject(method.getDeclaringClass());
+        out.writeUTF(method.getName());
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        out.writeByte(parameterTypes.length);
+        for (Class<?> type : parameterTypes) {
+            byte tag = primitiveTag(type);
+            out.writeByte(tag);
+            if (tag == SERIALIZED) {
+                out.writeObject(type);
+            }
+        }
+    }
+
+    public Method readMethod(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        if ((in instanceof ProActiveMarshalInputStream) && ((ProActiveMarshalInputStream) in).hasDictionary()) {
+            return ((ProActiveMarshalInputStream) in).readMethod();
+        }
+
+        Class<?> declaringClass = (Class<?>) in.readObject();
+        String name = in.readUTF();
+        Class<?>[] parameterTypes = new Class<?>[in.readUnsignedByte()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            byte tag = in.readByte();
+            if (tag == SERIALIZED) {
+                parameterTypes[i] = (Class<?>) in.readObject();
+            } else if (tag > 0 && tag < PRIMITIVE_TYPES.length && PRIMITIVE_TYPES[tag] != null) {
+                parameterTypes[i] = PRIMITIVE_TYPES[tag];
+            } else {
+                throw new InvalidObjectException("Invalid parameter type tag " + tag);
+            }
+        }
+
+        Signature signature = new Signature(declaringClass, name, parameterTypes);
+        Method method = this.methods.get(signature);
+        if (method == null) {
+            try {
+                method = declaringClass.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                InvalidObjectException ioe = new InvalidObjectException("Lookup for method failed: " + e +
+                                                                        ". This may be caused by having different versions of the same class on different VMs. Check your CLASSPATH settings.");
+                ioe.initCause(e);
+                throw ioe;
+            }
+            this.methods.put(signature, method);
+        }
+        return method;
+    }
+
+    public void writeValue(Object value, ObjectOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        Class<?> cl = value.getClass();
+        if (cl == String.class && ((String) value).length() <= MAX_UTF_LENGTH) {
+            out.writeByte(STRING);
+            out.writeUTF((String) value);
+        } else if (cl == Integer.class) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (cl == Long.class) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (cl == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (cl == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (cl == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (cl == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (cl == Short.class) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (cl == Character.class) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else {
+            out.writeByte(SERIALIZED);
+            out.writeObject(value);
+        }
+    }
+
+    public Object readValue(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case SERIALIZED:
+                return in.readObject();
+            case NULL:
+                return null;
+            case STRING:
+                return in.readUTF();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case CHAR:
+                return in.readChar();
+            default:
+                throw new InvalidObjectException("Invalid value tag " + tag);
+        }
+    }
+
+    private static byte primitiveTag(Class<?> type) {
+        if (type.isPrimitive()) {
+            for (byte tag = 0; tag < PRIMITIVE_TYPES.length; tag++) {
+                if (PRIMITIVE_TYPES[tag] == type) {
+                    return tag;
+                }
+            }
+        }
+        return SERIALIZED;
+    }
+
+    /**
+     * Key of the methods read
+     */
+    private static final class Signature {
+        private final Class<?> declaringClass;
+
+        private final String name;
+
+        private final Class<?>[] parameterTypes;
+
+        Signature(Class<?> declaringClass, String name, Class<?>[] parameterTypes) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * this.declaringClass.hashCode() + this.name.hashCode()) * 31 +
+                   Arrays.hashCode(this.parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Signature)) {
+                return false;
+            }
+            Signature other = (Signature) obj;
+            return this.declaringClass == other.declaringClass && this.name.equals(other.name) &&
+                   Arrays.equals(this.parameterTypes, other.parameterTypes);
+        }
+    }
+}
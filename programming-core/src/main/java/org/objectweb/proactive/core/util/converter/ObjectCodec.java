@@ -0,0 +1,99 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+
+
+/**
+ * A codec encodes the reified methods, the arguments and the results of method calls when they
+ * are serialized, instead of the standard Java serialization.
+ * <p>
+ * A codec writes its data in the object stream of the message, it can thus use the stream to write
+ * the values it does not handle with the standard Java serialization. The identifier of the codec
+ * is written before its data, so that any runtime where the codec is registered can read it,
+ * whatever codec is used by this runtime to write its own messages.
+ * <p>
+ * Codecs are registered in the {@link ObjectCodecRegistry}, either programmatically or as
+ * services of the {@link java.util.ServiceLoader}. The codec used to write messages is selected by
+ * {@link org.objectweb.proactive.core.config.CentralPAPropertyRepository#PA_CONVERTER_CODEC}.
+ *
+ * @see CompactCodec
+ */
+public interface ObjectCodec {
+
+    /**
+     * @return the name of this codec, used to select it
+     */
+    String getName();
+
+    /**
+     * @return the identifier of this codec, written before its data. Must be strictly positive.
+     */
+    byte getId();
+
+    /**
+     * Writes a method.
+     *
+     * @param method the method to write
+     * @param out the stream of the message
+     * @throws IOException
+     */
+    void writeMethod(Method method, ObjectOutputStream out) throws IOException;
+
+    /**
+     * Reads a method written by {@link #writeMethod(Method, ObjectOutputStream)}.
+     *
+     * @param in the stream of the message
+     * @return the method
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    Method readMethod(ObjectInputStream in) throws IOException, ClassNotFoundException;
+
+    /**
+     * Writes a value, such as an argument or a result. Any object must be accepted,
+     * the standard serialization of the stream being used for the objects the codec does not handle.
+     *
+     * @param value the value to write, may be null
+     * @param out the stream of the message
+     * @throws IOException
+     */
+    void writeValue(Object value, ObjectOutputStream out) throws IOException;
+
+    /**
+     * Reads a value written by {@link #writeValue(Object, ObjectOutputStream)}.
+     *
+     * @param in the stream of the message
+     * @return the value
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    Object readValue(ObjectInputStream in) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,128 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter;
+
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.util.log.Loggers;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+
+
+/**
+ * The registry of the {@link ObjectCodec}s known by this runtime.
+ * <p>
+ * The {@link CompactCodec} is always registered. Other codecs are registered with
+ * {@link #put(ObjectCodec)} or found by the {@link ServiceLoader} as providers of
+ * {@link ObjectCodec}.
+ */
+public class ObjectCodecRegistry {
+    private static Logger logger = ProActiveLogger.getLogger(Loggers.UTIL);
+
+    protected static Hashtable<String, ObjectCodec> codecsByName;
+
+    protected static Hashtable<Byte, ObjectCodec> codecsById;
+
+    /** The codec last resolved by {@link #getSelectedCodec()}, with the name it was resolved from */
+    private static volatile Selection selected = new Selection(null, null);
+
+    static {
+        codecsByName = new Hashtable<String, ObjectCodec>();
+        codecsById = new Hashtable<Byte, ObjectCodec>();
+        put(new CompactCodec());
+
+        Iterator<ObjectCodec> iter = ServiceLoader.load(ObjectCodec.class).iterator();
+        while (iter.hasNext()) {
+            try {
+                ObjectCodec codec = iter.next();
+                if (!codecsByName.containsKey(codec.getName()) && !codecsById.containsKey(codec.getId())) {
+                    logger.debug("Codec provider <" + codec.getName() + ", " + codec.getId() + "> found");
+                    put(codec);
+                } else {
+                    logger.warn("Codec provider <" + codec.getName() + ", " + codec.getId() +
+                                "> ignored, its name or identifier is already registered");
+                }
+            } catch (Throwable err) {
+                logger.error("Failed to load codec: " + err);
+            }
+        }
+    }
+
+    public static void put(ObjectCodec codec) {
+        if (codec.getId() <= 0) {
+            throw new IllegalArgumentException("The identifier of the codec " + codec.getName() +
+                                               " must be strictly positive: " + codec.getId());
+        }
+        codecsByName.put(codec.getName(), codec);
+        codecsById.put(codec.getId(), codec);
+    }
+
+    public static ObjectCodec get(String name) {
+        return codecsByName.get(name);
+    }
+
+    public static ObjectCodec get(byte id) {
+        return codecsById.get(id);
+    }
+
+    /**
+     * @return the codec selected to write the messages of this runtime, or null if the messages
+     *         are written with the standard Java serialization
+     * @see CentralPAPropertyRepository#PA_CONVERTER_CODEC
+     */
+    public static ObjectCodec getSelectedCodec() {
+        String name = CentralPAPropertyRepository.PA_CONVERTER_CODEC.getValue();
+        if (name == null) {
+            return null;
+        }
+
+        Selection selection = selected;
+        if (!name.equals(selection.name)) {
+            ObjectCodec codec = codecsByName.get(name);
+            if (codec == null) {
+                logger.warn("Unknown codec " + name + ", the standard serialization is used");
+            }
+            selection = new Selection(name, codec);
+            selected = selection;
+        }
+        return selection.codec;
+    }
+
+    /** A codec name and the codec registered under this name, null if none */
+    private static final class Selection {
+        final String name;
+
+        final ObjectCodec codec;
+
+        Selection(String name, ObjectCodec codec) {
+            this.name = name;
+            this.codec = codec;
+        }
+    }
+}
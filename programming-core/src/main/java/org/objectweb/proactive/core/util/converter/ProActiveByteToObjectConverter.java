@@ -25,7 +25,6 @@
  */
 package org.objectweb.proactive.core.util.converter;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -40,6 +39,20 @@ import org.objectweb.proactive.core.mop.PAObjectInputStream;
  */
 public class ProActiveByteToObjectConverter {
 
+    private static final ReusableObjectInput MARSHALL_INPUT = new ReusableObjectInput() {
+        @Override
+        protected ObjectInputStream newStream(InputStream in) throws IOException {
+            return new SunMarshalInputStream(in);
+        }
+    };
+
+    private static final ReusableObjectInput PAOBJECT_INPUT = new ReusableObjectInput() {
+        @Override
+        protected ObjectInputStream newStream(InputStream in) throws IOException {
+            return new PAObjectInputStream(in);
+        }
+    };
+
     public static class MarshallStream {
 
         /**
@@ -51,8 +64,7 @@ public class ProActiveByteToObjectConverter {
          * @throws ClassNotFoundException
          */
         public static Object convert(byte[] byteArray) throws IOException, ClassNotFoundException {
-            InputStream bais = new ByteArrayInputStream(byteArray);
-            return convert(bais);
+            return MARSHALL_INPUT.readObject(byteArray);
         }
 
         /**
@@ -79,8 +91,7 @@ public class ProActiveByteToObjectConverter {
          * @throws ClassNotFoundException
          */
         public static Object convert(byte[] byteArray) throws IOException, ClassNotFoundException {
-            InputStream bais = new ByteArrayInputStream(byteArray);
-            return convert(bais, null);
+            return PAOBJECT_INPUT.readObject(byteArray);
         }
 
         /**
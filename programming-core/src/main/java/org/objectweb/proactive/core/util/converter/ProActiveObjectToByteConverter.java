@@ -28,6 +28,7 @@ package org.objectweb.proactive.core.util.converter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 import org.objectweb.proactive.core.mop.PAObjectOutputStream;
 import org.objectweb.proactive.core.runtime.ProActiveRuntimeImpl;
@@ -46,6 +47,20 @@ public class ProActiveObjectToByteConverter {
         ProActiveRuntimeImpl.getProActiveRuntime();
     }
 
+    private static final ReusableObjectOutput MARSHALL_OUTPUT = new ReusableObjectOutput() {
+        @Override
+        protected ObjectOutputStream newStream(OutputStream out) throws IOException {
+            return new SunMarshalOutputStream(out);
+        }
+    };
+
+    private static final ReusableObjectOutput PAOBJECT_OUTPUT = new ReusableObjectOutput() {
+        @Override
+        protected ObjectOutputStream newStream(OutputStream out) throws IOException {
+            return new PAObjectOutputStream(out);
+        }
+    };
+
     public static class MarshallStream {
 
         /**
@@ -78,9 +93,25 @@ public class ProActiveObjectToByteConverter {
         public static byte[] convert(Object o) throws IOException {
             return ProActiveObjectToByteConverter.convert(o, ConversionMode.PAOBJECT);
         }
+
+        /**
+         * Convert an object using a proactive object stream and write it to an output stream,
+         * without copying it into an intermediate byte array
+         * @param o The object to convert.
+         * @param out The stream receiving the converted object
+         * @throws java.io.IOException
+         */
+        public static void convert(Object o, OutputStream out) throws IOException {
+            PAOBJECT_OUTPUT.writeTo(o, out);
+        }
     }
 
     private static byte[] convert(Object o, ConversionMode conversionMode) throws IOException {
+        if (conversionMode == ConversionMode.MARSHALL) {
+            return MARSHALL_OUTPUT.toByteArray(o);
+        } else if (conversionMode == ConversionMode.PAOBJECT) {
+            return PAOBJECT_OUTPUT.toByteArray(o);
+        }
         return standardConvert(o, conversionMode);
     }
 
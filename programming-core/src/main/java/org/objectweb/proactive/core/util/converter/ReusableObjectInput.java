@@ -0,0 +1,213 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamConstants;
+
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+
+/**
+ * Deserializes byte arrays with an object input stream kept by each thread.
+ * <p>
+ * The byte arrays are the ones produced by a new object output stream, or by a
+ * {@link ReusableObjectOutput}. The header of each byte array is checked and skipped, then the
+ * object is read from the stream of the thread. Once read, the stream is given a
+ * <code>TC_RESET</code> marker so that it does not keep any reference to the objects read.
+ * <p>
+ * Instances are meant to be stored in static fields. A stream is not reused by nested calls made
+ * from the same thread (for instance from a <code>readObject</code> method), after a failure, or
+ * for byte arrays larger than {@link ReusableObjectOutput#MAX_RETAINED_BUFFER_SIZE}.
+ *
+ * @see CentralPAPropertyRepository#PA_CONVERTER_REUSE_STREAMS
+ */
+public abstract class ReusableObjectInput {
+
+    private static final byte[] STREAM_HEADER = new byte[] { (byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8),
+                                                             (byte) ObjectStreamConstants.STREAM_MAGIC,
+                                                             (byte) (ObjectStreamConstants.STREAM_VERSION >>> 8),
+                                                             (byte) ObjectStreamConstants.STREAM_VERSION };
+
+    /** Clears the handles of the stream then reads a null reference */
+    private static final byte[] RESET = new byte[] { ObjectStreamConstants.TC_RESET,
+                                                     ObjectStreamConstants.TC_NULL };
+
+    private final ThreadLocal<Entry> entries = new ThreadLocal<Entry>();
+
+    /**
+     * Creates the object input stream reading from the given input stream
+     */
+    protected abstract ObjectInputStream newStream(InputStream in) throws IOException;
+
+    /**
+     * Deserializes an object.
+     *
+     * @param bytes the serialized object
+     * @return the deserialized object
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public Object readObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        Entry entry = null;
+        if (bytes.length <= ReusableObjectOutput.MAX_RETAINED_BUFFER_SIZE && hasStreamHeader(bytes)) {
+            entry = acquire();
+        }
+
+        if (entry == null) {
+            ObjectInputStream ois = newStream(new ByteArrayInputStream(bytes));
+            try {
+                return ois.readObject();
+            } finally {
+                ois.close();
+            }
+        }
+
+        boolean reusable = false;
+        try {
+            Object result = entry.read(bytes);
+            reusable = entry.recycle();
+            return result;
+        } finally {
+            entry.source.clear();
+            entry.inUse = false;
+            if (!reusable) {
+                this.entries.remove();
+            }
+        }
+    }
+
+    private Entry acquire() throws IOException {
+        if (!CentralPAPropertyRepository.PA_CONVERTER_REUSE_STREAMS.isTrue()) {
+            return null;
+        }
+
+        Entry entry = this.entries.get();
+        if (entry == null) {
+            entry = new Entry();
+            this.entries.set(entry);
+        } else if (entry.inUse) {
+            return null;
+        }
+        entry.inUse = true;
+        return entry;
+    }
+
+    private static boolean hasStreamHeader(byte[] bytes) {
+        if (bytes.length < STREAM_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < STREAM_HEADER.length; i++) {
+            if (bytes[i] != STREAM_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class Entry {
+        final Source source;
+
+        final ObjectInputStream stream;
+
+        boolean inUse;
+
+        Entry() throws IOException {
+            this.source = new Source();
+            this.source.set(STREAM_HEADER, 0);
+            this.stream = newStream(this.source);
+        }
+
+        Object read(byte[] bytes) throws IOException, ClassNotFoundException {
+            this.source.set(bytes, STREAM_HEADER.length);
+            return this.stream.readObject();
+        }
+
+        /**
+         * Drops the references to the objects read so far
+         *
+         * @return false if this entry must not be reused
+         */
+        boolean recycle() throws IOException, ClassNotFoundException {
+            // trailing bytes may have been buffered by the stream
+            if (this.source.available() != 0) {
+                return false;
+            }
+            this.source.set(RESET, 0);
+            return this.stream.readObject() == null && this.source.available() == 0;
+        }
+    }
+
+    /**
+     * An input stream over a byte array which can be replaced
+     */
+    private static final class Source extends InputStream {
+        private byte[] bytes;
+
+        private int pos;
+
+        void set(byte[] bytes, int offset) {
+            this.bytes = bytes;
+            this.pos = offset;
+        }
+
+        void clear() {
+            this.bytes = null;
+            this.pos = 0;
+        }
+
+        @Override
+        public int read() {
+            if (this.bytes == null || this.pos >= this.bytes.length) {
+                return -1;
+            }
+            return this.bytes[this.pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int n = available();
+            if (n == 0) {
+                return -1;
+            }
+            n = Math.min(n, len);
+            System.arraycopy(this.bytes, this.pos, b, off, n);
+            this.pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return this.bytes == null ? 0 : this.bytes.length - this.pos;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+
+/**
+ * Serializes objects with an object output stream and a buffer kept by each thread.
+ * <p>
+ * Once an object has been written, the stream is reset and the buffer rewound to the stream
+ * header, so the next object is written as if a new stream had been created: the produced bytes
+ * are the same and can be read by any object input stream. This saves the allocation of the
+ * buffer, its growth, the creation of the stream and the writing of its header for each message.
+ * <p>
+ * Instances are meant to be stored in static fields. A stream is not reused by nested calls made
+ * from the same thread (for instance from a <code>writeObject</code> method), after a failure, or
+ * when its buffer grew over {@link #MAX_RETAINED_BUFFER_SIZE}.
+ *
+ * @see CentralPAPropertyRepository#PA_CONVERTER_REUSE_STREAMS
+ */
+public abstract class ReusableObjectOutput {
+
+    /**
+     * Buffers larger than this are not kept between two messages. Each thread keeps one buffer per
+     * instance, so the cap is low: large messages allocate their own buffer, as without reuse.
+     */
+    public static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final ThreadLocal<Entry> entries = new ThreadLocal<Entry>();
+
+    /**
+     * Creates the object output stream writing into the given output stream
+     */
+    protected abstract ObjectOutputStream newStream(OutputStream out) throws IOException;
+
+    /**
+     * Serializes an object into a new byte array.
+     *
+     * @param o the object to serialize
+     * @return the serialized object
+     * @throws IOException
+     */
+    public byte[] toByteArray(Object o) throws IOException {
+        Entry entry = acquire();
+        if (entry == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+            ObjectOutputStream oos = newStream(baos);
+            try {
+                oos.writeObject(o);
+                oos.flush();
+                return baos.toByteArray();
+            } finally {
+                oos.close();
+            }
+        }
+
+        boolean reusable = false;
+        try {
+            entry.write(o);
+            byte[] result = entry.buffer.toByteArray();
+            reusable = entry.recycle();
+            return result;
+        } finally {
+            release(entry, reusable);
+        }
+    }
+
+    /**
+     * Serializes an object into an output stream, without copying the serialized object
+     * into an intermediate byte array.
+     *
+     * @param o the object to serialize
+     * @param out the stream receiving the serialized object
+     * @throws IOException
+     */
+    public void writeTo(Object o, OutputStream out) throws IOException {
+        Entry entry = acquire();
+        if (entry == null) {
+            out.write(toByteArray(o));
+            return;
+        }
+
+        boolean reusable = false;
+        try {
+            entry.write(o);
+            entry.buffer.writeTo(out);
+            reusable = entry.recycle();
+        } finally {
+            release(entry, reusable);
+        }
+    }
+
+    /**
+     * @return the size of the buffer kept by the current thread, 0 if none
+     */
+    int getRetainedBufferSize() {
+        Entry entry = this.entries.get();
+        return (entry == null) ? 0 : entry.buffer.capacity();
+    }
+
+    private Entry acquire() throws IOException {
+        if (!CentralPAPropertyRepository.PA_CONVERTER_REUSE_STREAMS.isTrue()) {
+            return null;
+        }
+
+        Entry entry = this.entries.get();
+        if (entry == null) {
+            entry = new Entry();
+            this.entries.set(entry);
+        } else if (entry.inUse) {
+            return null;
+        }
+        entry.inUse = true;
+        return entry;
+    }
+
+    private void release(Entry entry, boolean reusable) {
+        entry.inUse = false;
+        if (!reusable) {
+            this.entries.remove();
+        }
+    }
+
+    private final class Entry {
+        final Buffer buffer;
+
+        final ObjectOutputStream stream;
+
+        final byte[] header;
+
+        boolean inUse;
+
+        Entry() throws IOException {
+            this.buffer = new Buffer(INITIAL_BUFFER_SIZE);
+            this.stream = newStream(this.buffer);
+            this.stream.flush();
+            this.header = this.buffer.toByteArray();
+        }
+
+        void write(Object o) throws IOException {
+            this.stream.writeObject(o);
+            this.stream.flush();
+        }
+
+        /**
+         * Forgets the objects written so far and rewinds the buffer to the stream header
+         *
+         * @return false if this entry must not be reused
+         */
+        boolean recycle() throws IOException {
+            if (this.buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                return false;
+            }
+
+            // reset() writes a TC_RESET marker which is dropped with the rest of the buffer
+            this.stream.reset();
+            this.stream.flush();
+            this.buffer.reset();
+            this.buffer.write(this.header);
+            return true;
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        int capacity() {
+            return this.buf.length;
+        }
+    }
+}
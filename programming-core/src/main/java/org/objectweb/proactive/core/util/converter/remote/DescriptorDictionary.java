@@ -0,0 +1,214 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter.remote;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.proactive.core.remoteobject.SynchronousReplyImpl;
+
+
+/**
+ * Dictionaries of class descriptors and methods shared by the two ends of a connection.
+ * <p>
+ * The sender of the messages assigns an identifier to each class descriptor and method it writes.
+ * Until the receiver is known to have read its definition, a descriptor is written in full along
+ * with its identifier. Once the definition has been acknowledged, only the identifier is written.
+ * A definition is acknowledged when the response to a message carrying it has been received, so
+ * the messages can be read in any order by the receiver.
+ * <p>
+ * Each {@link Writer} has a random epoch written in the header of the messages, the receiver
+ * keeps a {@link Reader} by epoch. Resetting the dictionary of a connection, for instance when it
+ * reconnects, thus only requires a new {@link Writer}.
+ *
+ * @see ProActiveMarshaller#marshallObject(Object, Writer, Collection)
+ * @see ProActiveMarshaller#unmarshallObject(java.io.InputStream, Readers)
+ */
+public final class DescriptorDictionary {
+
+    /** First byte of the messages written with a dictionary, standard streams start with 0xAC */
+    static final byte MAGIC = (byte) 0xD1;
+
+    /** Version of the dictionary protocol */
+    static final byte VERSION = 1;
+
+    /** magic, version and epoch */
+    static final int HEADER_LENGTH = 10;
+
+    // tags written before the identifiers
+    static final byte DEFINITION = 1;
+
+    static final byte REFERENCE = 2;
+
+    private static final Random epochs = new Random();
+
+    private DescriptorDictionary() {
+    }
+
+    /**
+     * The identifier of a descriptor, and whether its definition has been read by the receiver
+     */
+    public static final class Entry {
+        final int id;
+
+        volatile boolean acknowledged;
+
+        Entry(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * The dictionary of the sender of a connection
+     */
+    public static final class Writer {
+        private final long epoch;
+
+        private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+
+        private final AtomicInteger nextId = new AtomicInteger();
+
+        public Writer() {
+            synchronized (epochs) {
+                this.epoch = epochs.nextLong();
+            }
+        }
+
+        public long getEpoch() {
+            return this.epoch;
+        }
+
+        /**
+         * Marks as read by the receiver the definitions written in a message, unless the response
+         * to the message reports that the receiver failed to read it.
+         *
+         * @param response the response to the message
+         * @param failureClass the exception used by the transport to report the messages it
+         *        failed to read or to answer
+         * @param definitions the definitions collected when the message was written
+         * @return true if the receiver did not know a descriptor referenced by the message. The
+         *         message has not been processed, it must be sent again with a new dictionary.
+         */
+        public boolean acknowledge(Object response, Class<? extends Throwable> failureClass,
+                Collection<Entry> definitions) {
+            if (response instanceof SynchronousReplyImpl) {
+                Throwable failure = ((SynchronousReplyImpl) response).getResult().getException();
+                if (failureClass.isInstance(failure)) {
+                    for (Throwable t = failure; t != null; t = t.getCause()) {
+                        if (t instanceof UnknownDescriptorException) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            }
+
+            for (Entry entry : definitions) {
+                entry.acknowledged = true;
+            }
+            return false;
+        }
+
+        Entry getEntry(Object descriptor) {
+            Entry entry = this.entries.get(descriptor);
+            if (entry == null) {
+                entry = new Entry(this.nextId.getAndIncrement());
+                Entry previous = this.entries.putIfAbsent(descriptor, entry);
+                if (previous != null) {
+                    entry = previous;
+                }
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * The dictionary of the receiver of a connection, for one epoch
+     */
+    public static final class Reader {
+        private final ConcurrentHashMap<Integer, Object> definitions = new ConcurrentHashMap<Integer, Object>();
+
+        void define(int id, Object descriptor) {
+            this.definitions.put(id, descriptor);
+        }
+
+        Object lookup(int id) throws UnknownDescriptorException {
+            Object descriptor = this.definitions.get(id);
+            if (descriptor == null) {
+                throw new UnknownDescriptorException("Unknown descriptor " + id +
+                                                     ", its definition has not been received");
+            }
+            return descriptor;
+        }
+    }
+
+    /**
+     * The dictionaries of the receiver of a connection. The dictionaries of the two last epochs
+     * are kept, so that the messages written before a reset can still be read.
+     */
+    public static final class Readers {
+        private final Map<Long, Reader> readers = new LinkedHashMap<Long, Reader>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Reader> eldest) {
+                return size() > 2;
+            }
+        };
+
+        synchronized Reader get(long epoch) {
+            Reader reader = this.readers.get(epoch);
+            if (reader == null) {
+                reader = new Reader();
+                this.readers.put(epoch, reader);
+            }
+            return reader;
+        }
+
+        /**
+         * Drops the dictionaries of a sender which disconnected. A sender which reconnects starts
+         * a new epoch, and its first messages can be received before its disconnection is
+         * notified: if several epochs are known, the dictionary of the newest one is kept.
+         *
+         * @return true if no dictionary is left
+         */
+        public synchronized boolean dropDisconnected() {
+            if (this.readers.size() > 1) {
+                Map.Entry<Long, Reader> newest = null;
+                for (Map.Entry<Long, Reader> entry : this.readers.entrySet()) {
+                    newest = entry;
+                }
+                this.readers.clear();
+                this.readers.put(newest.getKey(), newest.getValue());
+                return false;
+            }
+            this.readers.clear();
+            return true;
+        }
+    }
+}
@@ -27,8 +27,11 @@ package org.objectweb.proactive.core.util.converter.remote;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Method;
 
 
 /**
@@ -43,9 +46,76 @@ public class ProActiveMarshalInputStream extends ObjectInputStream {
 
     private final ProActiveRemoteClassLoader remoteLoader;
 
+    private final DescriptorDictionary.Reader dictionary;
+
     public ProActiveMarshalInputStream(InputStream in) throws IOException {
+        this(in, null);
+    }
+
+    /**
+     * @param dictionary the dictionary of the connection, for the epoch of the message
+     */
+    public ProActiveMarshalInputStream(InputStream in, DescriptorDictionary.Reader dictionary) throws IOException {
         super(in);
         remoteLoader = new ProActiveRemoteClassLoader();
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+        if (this.dictionary == null) {
+            return super.readClassDescriptor();
+        }
+
+        byte tag = readByte();
+        int id = readInt();
+        if (tag == DescriptorDictionary.REFERENCE) {
+            return (ObjectStreamClass) this.dictionary.lookup(id);
+        }
+        checkDefinition(tag);
+        ObjectStreamClass desc = super.readClassDescriptor();
+        this.dictionary.define(id, desc);
+        return desc;
+    }
+
+    /**
+     * @return true if the methods of this stream are written with the dictionary of the connection
+     * @see ProActiveMarshalOutputStream#writeMethod(Method)
+     */
+    public boolean hasDictionary() {
+        return this.dictionary != null;
+    }
+
+    /**
+     * Reads a method written with the dictionary of the connection
+     */
+    public Method readMethod() throws IOException, ClassNotFoundException {
+        byte tag = readByte();
+        int id = readInt();
+        if (tag == DescriptorDictionary.REFERENCE) {
+            return (Method) this.dictionary.lookup(id);
+        }
+        checkDefinition(tag);
+
+        Class<?> declaringClass = (Class<?>) readObject();
+        String name = readUTF();
+        Class<?>[] parameterTypes = (Class<?>[]) readObject();
+        Method method;
+        try {
+            method = declaringClass.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            InvalidObjectException ioe = new InvalidObjectException("Lookup for method failed: " + e);
+            ioe.initCause(e);
+            throw ioe;
+        }
+        this.dictionary.define(id, method);
+        return method;
+    }
+
+    private static void checkDefinition(byte tag) throws StreamCorruptedException {
+        if (tag != DescriptorDictionary.DEFINITION) {
+            throw new StreamCorruptedException("Invalid descriptor tag " + tag);
+        }
     }
 
     @Override
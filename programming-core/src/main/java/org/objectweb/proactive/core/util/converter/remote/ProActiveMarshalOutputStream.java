@@ -27,7 +27,10 @@ package org.objectweb.proactive.core.util.converter.remote;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Collection;
 
 
 /**
@@ -43,9 +46,25 @@ public class ProActiveMarshalOutputStream extends ObjectOutputStream {
 
     private final String localRuntimeUrl;
 
+    private final DescriptorDictionary.Writer dictionary;
+
+    private final Collection<DescriptorDictionary.Entry> definitions;
+
     public ProActiveMarshalOutputStream(OutputStream out, String localRuntimeUrl) throws IOException {
+        this(out, localRuntimeUrl, null, null);
+    }
+
+    /**
+     * @param dictionary the dictionary of the connection
+     * @param definitions receives the entries of the dictionary whose definition is written
+     */
+    public ProActiveMarshalOutputStream(OutputStream out, String localRuntimeUrl,
+            DescriptorDictionary.Writer dictionary, Collection<DescriptorDictionary.Entry> definitions)
+            throws IOException {
         super(out);
         this.localRuntimeUrl = localRuntimeUrl;
+        this.dictionary = dictionary;
+        this.definitions = definitions;
     }
 
     @Override
@@ -53,4 +72,48 @@ public class ProActiveMarshalOutputStream extends ObjectOutputStream {
         // write the local runtime URL
         writeObject(this.localRuntimeUrl);
     }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+        if ((this.dictionary == null) || this.writeEntry(desc)) {
+            super.writeClassDescriptor(desc);
+        }
+    }
+
+    /**
+     * Writes a method with the dictionary of the connection
+     *
+     * @return false if this stream has no dictionary, nothing has been written
+     */
+    public boolean writeMethod(Method method) throws IOException {
+        if (this.dictionary == null) {
+            return false;
+        }
+
+        if (this.writeEntry(method)) {
+            writeObject(method.getDeclaringClass());
+            writeUTF(method.getName());
+            writeObject(method.getParameterTypes());
+        }
+        return true;
+    }
+
+    /**
+     * Writes the identifier of a descriptor
+     *
+     * @return true if the definition of the descriptor must follow
+     */
+    private boolean writeEntry(Object descriptor) throws IOException {
+        DescriptorDictionary.Entry entry = this.dictionary.getEntry(descriptor);
+        if (entry.acknowledged) {
+            writeByte(DescriptorDictionary.REFERENCE);
+            writeInt(entry.id);
+            return false;
+        }
+
+        writeByte(DescriptorDictionary.DEFINITION);
+        writeInt(entry.id);
+        this.definitions.add(entry);
+        return true;
+    }
 }
@@ -25,10 +25,22 @@
  */
 package org.objectweb.proactive.core.util.converter.remote;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.proactive.core.util.converter.ReusableObjectInput;
+import org.objectweb.proactive.core.util.converter.ReusableObjectOutput;
 
 
 /**
@@ -38,36 +50,146 @@ import java.io.InputStream;
  */
 public class ProActiveMarshaller {
 
+    /** Streams of each local runtime URL */
+    private static final ConcurrentHashMap<String, ReusableObjectOutput> OUTPUTS = new ConcurrentHashMap<String, ReusableObjectOutput>();
+
+    private static final ReusableObjectInput INPUT = new ReusableObjectInput() {
+        @Override
+        protected ObjectInputStream newStream(InputStream in) throws IOException {
+            return new ProActiveMarshalInputStream(in);
+        }
+    };
+
     private final String localRuntimeURL;
 
+    private final ReusableObjectOutput output;
+
     public ProActiveMarshaller(String localRuntimeURL) {
         this.localRuntimeURL = localRuntimeURL;
+        this.output = getOutput(localRuntimeURL);
+    }
+
+    private static ReusableObjectOutput getOutput(final String localRuntimeURL) {
+        ReusableObjectOutput output = localRuntimeURL == null ? null : OUTPUTS.get(localRuntimeURL);
+        if (output == null) {
+            output = new ReusableObjectOutput() {
+                @Override
+                protected ObjectOutputStream newStream(OutputStream out) throws IOException {
+                    return new ProActiveMarshalOutputStream(out, localRuntimeURL);
+                }
+            };
+            if (localRuntimeURL == null) {
+                return output;
+            }
+            ReusableObjectOutput previous = OUTPUTS.putIfAbsent(localRuntimeURL, output);
+            if (previous != null) {
+                output = previous;
+            }
+        }
+        return output;
     }
 
     public byte[] marshallObject(Object o) throws IOException {
-        ProActiveMarshalOutputStream serializer = null;
+        return this.output.toByteArray(o);
+    }
+
+    public Object unmarshallObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        return INPUT.readObject(bytes);
+    }
+
+    /**
+     * Serializes an object with the dictionary of a connection
+     *
+     * @param o the object to serialize
+     * @param dictionary the dictionary of the connection, or null to serialize the object
+     *        without dictionary
+     * @param definitions receives the entries of the dictionary defined by the message. They must be
+     *        acknowledged once the response to the message has been received.
+     * @return the serialized object
+     * @throws IOException
+     */
+    public byte[] marshallObject(Object o, DescriptorDictionary.Writer dictionary,
+            Collection<DescriptorDictionary.Entry> definitions) throws IOException {
+        if (dictionary == null) {
+            return marshallObject(o);
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(baos);
+        header.writeByte(DescriptorDictionary.MAGIC);
+        header.writeByte(DescriptorDictionary.VERSION);
+        header.writeLong(dictionary.getEpoch());
+
+        ProActiveMarshalOutputStream serializer = new ProActiveMarshalOutputStream(baos,
+                                                                                   this.localRuntimeURL,
+                                                                                   dictionary,
+                                                                                   definitions);
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            serializer = new ProActiveMarshalOutputStream(baos, this.localRuntimeURL);
             serializer.writeObject(o);
             serializer.flush();
             return baos.toByteArray();
         } finally {
-            // cleanup
-            if (serializer != null)
-                serializer.close(); // this will also close the underlying baos
+            serializer.close();
         }
     }
 
-    public Object unmarshallObject(byte[] bytes) throws IOException, ClassNotFoundException {
+    /**
+     * Deserializes an object serialized with or without the dictionary of a connection
+     *
+     * @param bytes the serialized object
+     * @param dictionaries the dictionaries of the connection
+     * @return the deserialized object
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public Object unmarshallObject(byte[] bytes, DescriptorDictionary.Readers dictionaries)
+            throws IOException, ClassNotFoundException {
+        if ((bytes.length == 0) || (bytes[0] != DescriptorDictionary.MAGIC)) {
+            return unmarshallObject(bytes);
+        }
+        return unmarshallObject(new ByteArrayInputStream(bytes), dictionaries);
+    }
+
+    /**
+     * Deserializes an object serialized with or without the dictionary of a connection
+     *
+     * @param is the serialized object
+     * @param dictionaries the dictionaries of the connection
+     * @return the deserialized object
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public Object unmarshallObject(InputStream is, DescriptorDictionary.Readers dictionaries)
+            throws IOException, ClassNotFoundException {
+        if (!is.markSupported()) {
+            is = new BufferedInputStream(is);
+        }
+        is.mark(1);
+        if (is.read() != (DescriptorDictionary.MAGIC & 0xff)) {
+            is.reset();
+            return unmarshallObject(is);
+        }
+
+        if (dictionaries == null) {
+            throw new StreamCorruptedException("Message written with a dictionary on a connection without dictionary");
+        }
+
+        DataInputStream header = new DataInputStream(is);
+        byte version = header.readByte();
+        if (version != DescriptorDictionary.VERSION) {
+            throw new StreamCorruptedException("Unsupported dictionary version " + version + ", expected " +
+                                               DescriptorDictionary.VERSION);
+        }
+        DescriptorDictionary.Reader dictionary = dictionaries.get(header.readLong());
+
         ProActiveMarshalInputStream deserializer = null;
         try {
-            deserializer = new ProActiveMarshalInputStream(new ByteArrayInputStream(bytes));
+            deserializer = new ProActiveMarshalInputStream(is, dictionary);
             return deserializer.readObject();
         } finally {
             // cleanup
             if (deserializer != null)
-                deserializer.close(); // this will also close the underlying bais
+                deserializer.close();
         }
     }
 
@@ -0,0 +1,116 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.util.HeartbeatResponse;
+
+
+/**
+ * A body standing for a local or remote active object in the unit tests.
+ * <p>
+ * It answers its identifier and node URL, is its own remote adapter, and answers the future monitoring pings.
+ * The other methods are handled by {@link #handle(Method, Object[])}. The stub is serializable, so
+ * that the futures and requests referencing it can be copied.
+ */
+public class BodyStub implements InvocationHandler, Serializable {
+    private final UniqueID id;
+
+    private final String nodeUrl;
+
+    /**
+     * Creates a stub with an empty node URL
+     */
+    public BodyStub(UniqueID id) {
+        this(id, "");
+    }
+
+    public BodyStub(UniqueID id, String nodeUrl) {
+        this.id = id;
+        this.nodeUrl = nodeUrl;
+    }
+
+    /**
+     * Returns a local body with a new identifier, not handling the other methods
+     */
+    public static Body newBody() {
+        return newBody(new BodyStub(new UniqueID()));
+    }
+
+    /**
+     * Returns a local body handled by a stub
+     */
+    public static Body newBody(BodyStub stub) {
+        return (Body) Proxy.newProxyInstance(Body.class.getClassLoader(), new Class<?>[] { Body.class }, stub);
+    }
+
+    /**
+     * Returns a remote body with a new identifier, not handling the other methods
+     */
+    public static UniversalBody newRemoteBody() {
+        return newRemoteBody(new BodyStub(new UniqueID()));
+    }
+
+    /**
+     * Returns a remote body handled by a stub
+     */
+    public static UniversalBody newRemoteBody(BodyStub stub) {
+        return (UniversalBody) Proxy.newProxyInstance(UniversalBody.class.getClassLoader(),
+                                                      new Class<?>[] { UniversalBody.class },
+                                                      stub);
+    }
+
+    public final Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+        if (method.getName().equals("getID")) {
+            return this.id;
+        }
+        if (method.getName().equals("getNodeURL")) {
+            return this.nodeUrl;
+        }
+        if (method.getName().equals("getRemoteAdapter")) {
+            return proxy;
+        }
+        if (method.getName().equals("receiveHeartbeat")) {
+            return HeartbeatResponse.OK;
+        }
+        return handle(method, args);
+    }
+
+    /**
+     * Handles the other methods of the body
+     *
+     * @throws UnsupportedOperationException unless overridden
+     */
+    protected Object handle(Method method, Object[] args) throws Exception {
+        throw new UnsupportedOperationException(method.getName());
+    }
+}
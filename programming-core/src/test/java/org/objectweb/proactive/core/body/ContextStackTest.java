@@ -0,0 +1,110 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.Body;
+
+
+public class ContextStackTest {
+    private Body body;
+
+    @Before
+    public void setUp() {
+        body = BodyStub.newBody();
+    }
+
+    @Test
+    public void lifo() {
+        ContextStack stack = new ContextStack();
+        Context first = new Context(body, null);
+        stack.push(first);
+        for (int i = 0; i < 10; i++) {
+            stack.push(body, null);
+        }
+        assertEquals(11, stack.size());
+        for (int i = 0; i < 10; i++) {
+            stack.drop();
+        }
+        assertSame(first, stack.pop());
+        assertTrue(stack.isEmpty());
+        assertNull(stack.pop());
+        assertNull(stack.peek());
+        assertNull(stack.peekBody());
+    }
+
+    @Test
+    public void contextCreatedOnceWhenRequested() {
+        ContextStack stack = new ContextStack();
+        stack.push(body, null);
+        assertSame(body, stack.peekBody());
+        Context context = stack.peek();
+        assertSame(body, context.getBody());
+        assertNull(context.getCurrentRequest());
+        assertSame(context, stack.peek());
+        assertSame(context, stack.pop());
+    }
+
+    @Test
+    public void servingPathDoesNotAllocate() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() &&
+                          allocations.isThreadAllocatedMemoryEnabled());
+
+        LocalBodyStore store = LocalBodyStore.getInstance();
+        long threadId = Thread.currentThread().getId();
+        // the first calls create the stack of the thread
+        serve(store, 1000);
+
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        serve(store, 100000);
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        // a Context per pushed frame would be several megabytes
+        assertTrue("serving allocated " + allocated + " bytes", allocated < 16 * 1024);
+        store.clearAllContexts();
+    }
+
+    private void serve(LocalBodyStore store, int nbRequests) {
+        for (int i = 0; i < nbRequests; i++) {
+            store.pushContext(body, null);
+            store.pushContext(body, null);
+            store.dropContext();
+            store.dropContext();
+        }
+    }
+}
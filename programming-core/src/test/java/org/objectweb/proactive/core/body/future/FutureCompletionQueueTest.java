@@ -0,0 +1,133 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.future;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.core.Constants;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.BodyStub;
+import org.objectweb.proactive.core.mop.MOP;
+import org.objectweb.proactive.core.mop.StubObject;
+
+
+public class FutureCompletionQueueTest {
+
+    private final UniqueID creatorID = new UniqueID();
+
+    private final Body creator = BodyStub.newBody(new BodyStub(creatorID));
+
+    @Test
+    public void updatesDeliveredInOrder() throws Exception {
+        List<Object> futures = newFutures(3);
+        FutureCompletionQueue queue = new FutureCompletionQueue(futures);
+        update(futures.get(2));
+        update(futures.get(0));
+        assertEquals(2, queue.take(0));
+        assertEquals(0, queue.take(0));
+        assertEquals(1, queue.remaining());
+    }
+
+    /**
+     * A closed queue leaves no listener on the futures still awaited, so that waiting
+     * several times on the same futures does not accumulate listeners
+     */
+    @Test
+    public void closeRemovesListeners() throws Exception {
+        List<Object> futures = newFutures(3);
+        for (int i = 0; i < 10; i++) {
+            FutureCompletionQueue queue = new FutureCompletionQueue(futures);
+            queue.close();
+        }
+        for (Object future : futures) {
+            assertEquals(0, proxy(future).getListenerCount());
+        }
+
+        FutureCompletionQueue queue = new FutureCompletionQueue(futures);
+        update(futures.get(1));
+        assertEquals(1, queue.take(0));
+        queue.close();
+        assertEquals(0, proxy(futures.get(0)).getListenerCount());
+        assertEquals(0, proxy(futures.get(2)).getListenerCount());
+    }
+
+    /**
+     * A future updated with another future registers a listener on the latter. If the queue
+     * is closed meanwhile, this listener must not be left behind
+     */
+    @Test
+    public void closeRacingWithRegistration() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            final List<Object> futures = newFutures(2);
+            final Object next = futures.remove(1);
+            FutureCompletionQueue queue = new FutureCompletionQueue(futures);
+            Thread updater = new Thread() {
+                @Override
+                public void run() {
+                    proxy(futures.get(0)).receiveReply(new MethodCallResult(next, null));
+                }
+            };
+            updater.start();
+            queue.close();
+            updater.join();
+            assertEquals(0, proxy(next).getListenerCount());
+            // stops monitoring it
+            update(next);
+        }
+    }
+
+    private List<Object> newFutures(int nb) throws Exception {
+        List<Object> futures = new ArrayList<>();
+        for (int i = 0; i < nb; i++) {
+            Object future = MOP.newInstance(Value.class, null, Constants.DEFAULT_FUTURE_PROXY_CLASS_NAME, null);
+            FutureProxy fp = proxy(future);
+            fp.setID(i);
+            fp.setCreatorID(creatorID);
+            fp.setCreator(creator);
+            fp.setUpdater(creator);
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    private static void update(Object future) {
+        proxy(future).receiveReply(new MethodCallResult(new Value(), null));
+    }
+
+    private static FutureProxy proxy(Object future) {
+        return (FutureProxy) ((StubObject) future).getProxy();
+    }
+
+    public static class Value {
+        public Value() {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.BodyStub;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.body.future.FutureMonitoring.RuntimePing;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+
+public class FutureMonitoringTest {
+
+    private final String nodeUrl = "pnp://localhost:1/Node" + new UniqueID().shortString();
+
+    private final List<FutureProxy> futures = new ArrayList<FutureProxy>();
+
+    @After
+    public void tearDown() {
+        for (FutureProxy future : futures) {
+            FutureMonitoring.removeFuture(future);
+        }
+    }
+
+    /**
+     * The active objects of a node are pinged with a single message
+     */
+    @Test
+    public void pingsBatchedPerNode() throws Exception {
+        List<UniqueID> bodyIds = new ArrayList<UniqueID>();
+        UniversalBody creator = newBody(new UniqueID(), nodeUrl);
+        bodyIds.add(creator.getID());
+        for (int i = 0; i < 20; i++) {
+            UniversalBody updater = newBody(new UniqueID(), nodeUrl);
+            bodyIds.add(updater.getID());
+            monitor(creator, updater);
+        }
+
+        RuntimePing ping = getPing(nodeUrl);
+        assertEquals(bodyIds.size(), ping.getBodyIds().size());
+        assertTrue(ping.getBodyIds().containsAll(bodyIds));
+    }
+
+    /**
+     * A ping waiting for a thread of the pool does not time out, and does not fail the futures
+     */
+    @Test
+    public void queuedPingNotLate() throws Exception {
+        monitor(newBody(new UniqueID(), nodeUrl), newBody(new UniqueID(), nodeUrl));
+        RuntimePing ping = getPing(nodeUrl);
+        int timeout = CentralPAPropertyRepository.PA_FUTUREMONITORING_PING_TIMEOUT.getValue();
+        assertFalse(ping.isLate(System.currentTimeMillis() + (10L * timeout)));
+    }
+
+    private void monitor(UniversalBody creator, UniversalBody updater) throws Exception {
+        FutureProxy future = new FutureProxy();
+        future.setCreatorID(creator.getID());
+        future.setCreator(creator);
+        future.setUpdater(updater);
+        FutureMonitoring.monitorFutureProxy(future);
+        futures.add(future);
+    }
+
+    private static RuntimePing getPing(String target) {
+        RuntimePing found = null;
+        for (RuntimePing ping : FutureMonitoring.preparePings()) {
+            if (ping.getTarget().equals(target)) {
+                assertEquals(null, found);
+                found = ping;
+            }
+        }
+        return found;
+    }
+
+    private static UniversalBody newBody(UniqueID id, String nodeUrl) {
+        return BodyStub.newRemoteBody(new BodyStub(id, nodeUrl));
+    }
+}
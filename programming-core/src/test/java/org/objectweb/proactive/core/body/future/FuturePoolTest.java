@@ -0,0 +1,245 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.BodyStub;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.body.reply.Reply;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+
+public class FuturePoolTest {
+
+    private FuturePool pool;
+
+    private final UniqueID creatorID = new UniqueID();
+
+    private final Body creator = newBody(creatorID);
+
+    @Before
+    public void setUp() {
+        CentralPAPropertyRepository.PA_FUTURE_AC.setValue(false);
+        pool = new FuturePool();
+        pool.setOwnerBody(newBody(new UniqueID()));
+    }
+
+    @After
+    public void tearDown() {
+        CentralPAPropertyRepository.PA_FUTURE_AC.unset();
+        CentralPAPropertyRepository.PA_FUTURE_SHARED_RESULTS.unset();
+    }
+
+    @Test
+    public void immutableValueShared() throws Exception {
+        String value = new String("value");
+        List<FutureProxy> copies = receiveCopies(3, value);
+        for (FutureProxy copy : copies) {
+            assertSame(value, copy.getResult());
+        }
+    }
+
+    @Test
+    public void collectionOfImmutablesCopied() throws Exception {
+        ArrayList<String> value = new ArrayList<String>(Arrays.asList("a", "b"));
+        List<FutureProxy> copies = receiveCopies(3, value);
+        assertSame(value, copies.get(0).getResult());
+        for (FutureProxy copy : copies.subList(1, 3)) {
+            assertNotSame(value, copy.getResult());
+            assertEquals(value, copy.getResult());
+        }
+    }
+
+    @Test
+    public void sharedResults() throws Exception {
+        CentralPAPropertyRepository.PA_FUTURE_SHARED_RESULTS.setValue(true);
+        // mutable value, deep copied by default
+        StringBuilder value = new StringBuilder("value");
+        List<FutureProxy> copies = receiveCopies(3, value);
+        for (FutureProxy copy : copies) {
+            assertSame(value, copy.getResult());
+        }
+    }
+
+    /**
+     * A continuation sent to several bodies does not delay the next continuations sent to one
+     * of them, nor let them overtake it
+     */
+    @Test
+    public void continuationsOrderedPerDestination() throws Exception {
+        CentralPAPropertyRepository.PA_FUTURE_AC.setValue(true);
+        pool = new FuturePool();
+        pool.setOwnerBody(newBody(new UniqueID()));
+
+        final List<Reply> receivedByA = Collections.synchronizedList(new ArrayList<Reply>());
+        final CountDownLatch bReleased = new CountDownLatch(1);
+        UniversalBody a = newDestination(new UniqueID(), receivedByA, null);
+        UniversalBody b = newDestination(new UniqueID(), new ArrayList<Reply>(), bReleased);
+
+        // the first continuation is sent to b, which does not answer, then to a
+        FutureProxy first = newFuture(1);
+        pool.addAutomaticContinuation(first.getFutureID(), b);
+        pool.addAutomaticContinuation(first.getFutureID(), a);
+        FutureProxy second = newFuture(2);
+        pool.addAutomaticContinuation(second.getFutureID(), a);
+
+        try {
+            pool.receiveFutureValue(1, creatorID, new MethodCallResult("first", null), null);
+            pool.receiveFutureValue(2, creatorID, new MethodCallResult("second", null), null);
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((receivedByA.size() < 2) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10);
+            }
+        } finally {
+            bReleased.countDown();
+        }
+        List<Long> sequenceNumbers = new ArrayList<Long>();
+        for (Reply reply : receivedByA) {
+            sequenceNumbers.add(reply.getSequenceNumber());
+        }
+        assertEquals(Arrays.asList(1L, 2L), sequenceNumbers);
+    }
+
+    /**
+     * The continuations of a result to several bodies are sent concurrently: each one has its
+     * own copy of the result, and of the futures it contains
+     */
+    @Test
+    public void continuationsDoNotShareResult() throws Exception {
+        CentralPAPropertyRepository.PA_FUTURE_AC.setValue(true);
+        pool = new FuturePool();
+        pool.setOwnerBody(newBody(new UniqueID()));
+
+        List<Reply> receivedByA = Collections.synchronizedList(new ArrayList<Reply>());
+        List<Reply> receivedByB = Collections.synchronizedList(new ArrayList<Reply>());
+        FutureProxy future = newFuture(1);
+        pool.addAutomaticContinuation(future.getFutureID(), newDestination(new UniqueID(), receivedByA, null));
+        pool.addAutomaticContinuation(future.getFutureID(), newDestination(new UniqueID(), receivedByB, null));
+
+        // the result contains an awaited future
+        FutureProxy awaited = new FutureProxy();
+        awaited.setID(2);
+        awaited.setCreatorID(creatorID);
+        awaited.setUpdater(creator);
+        awaited.setCreator(creator);
+        ArrayList<Object> value = new ArrayList<Object>();
+        value.add(awaited);
+        pool.receiveFutureValue(1, creatorID, new MethodCallResult(value, null), null);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (((receivedByA.size() < 1) || (receivedByB.size() < 1)) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        List<?> resultOfA = (List<?>) receivedByA.get(0).getResult().getResultObjet();
+        List<?> resultOfB = (List<?>) receivedByB.get(0).getResult().getResultObjet();
+        assertNotSame(resultOfA, resultOfB);
+        assertNotSame(resultOfA.get(0), resultOfB.get(0));
+        assertEquals(2, ((FutureProxy) resultOfA.get(0)).getID());
+        assertEquals(2, ((FutureProxy) resultOfB.get(0)).getID());
+    }
+
+    private FutureProxy newFuture(long id) throws Exception {
+        FutureProxy future = new FutureProxy();
+        future.setID(id);
+        future.setCreatorID(creatorID);
+        future.setUpdater(creator);
+        future.setCreator(creator);
+        pool.receiveFuture(future);
+        return future;
+    }
+
+    /**
+     * Registers several copies of the same future in the pool, then updates them
+     */
+    private List<FutureProxy> receiveCopies(int nbCopies, Object value) throws Exception {
+        List<FutureProxy> copies = new ArrayList<FutureProxy>();
+        for (int i = 0; i < nbCopies; i++) {
+            FutureProxy future = new FutureProxy();
+            future.setID(1);
+            future.setCreatorID(creatorID);
+            future.setUpdater(creator);
+            future.setCreator(creator);
+            pool.receiveFuture(future);
+            copies.add(future);
+        }
+        pool.receiveFutureValue(1, creatorID, new MethodCallResult(value, null), null);
+        return copies;
+    }
+
+    private static Body newBody(UniqueID id) {
+        return BodyStub.newBody(new OwnerStub(id));
+    }
+
+    private static class OwnerStub extends BodyStub {
+        OwnerStub(UniqueID id) {
+            super(id);
+        }
+
+        @Override
+        protected Object handle(Method method, Object[] args) throws Exception {
+            if (method.getName().endsWith("ThreadStore")) {
+                return null;
+            }
+            return super.handle(method, args);
+        }
+    }
+
+    /**
+     * Returns a body recording the replies it receives, after the latch is released if any
+     */
+    private static UniversalBody newDestination(UniqueID id, final List<Reply> received,
+            final CountDownLatch released) {
+        return BodyStub.newRemoteBody(new BodyStub(id) {
+            @Override
+            protected Object handle(Method method, Object[] args) throws Exception {
+                if (method.getName().equals("receiveReply")) {
+                    if (released != null) {
+                        released.await(10, TimeUnit.SECONDS);
+                    }
+                    received.add((Reply) args[0]);
+                    return null;
+                }
+                return super.handle(method, args);
+            }
+        });
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.TypeVariable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.BodyStub;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.mop.MethodCall;
+
+
+public class ConcurrentBlockingRequestQueueImplTest {
+
+    private ConcurrentBlockingRequestQueueImpl queue;
+
+    private UniversalBody sender;
+
+    @Before
+    public void setUp() {
+        queue = new ConcurrentBlockingRequestQueueImpl(new UniqueID());
+        sender = BodyStub.newRemoteBody();
+    }
+
+    /**
+     * Requests sent concurrently by several senders are served in FIFO order per sender
+     */
+    @Test
+    public void fifoPerSender() throws Exception {
+        final int nbSenders = 4;
+        final int nbRequests = 5000;
+
+        Thread[] senders = new Thread[nbSenders];
+        for (int s = 0; s < nbSenders; s++) {
+            final int senderIndex = s;
+            senders[s] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < nbRequests; i++) {
+                        queue.add(newRequest("foo", senderIndex, i));
+                    }
+                }
+            };
+            senders[s].start();
+        }
+
+        int[] next = new int[nbSenders];
+        for (int i = 0; i < nbSenders * nbRequests; i++) {
+            Request r = queue.blockingRemoveOldest(10000);
+            int senderIndex = (Integer) r.getMethodCall().getParameter(0);
+            assertEquals(next[senderIndex]++, r.getMethodCall().getParameter(1));
+        }
+
+        for (Thread t : senders) {
+            t.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * A thread waiting for a request is woken up by a lock-free add
+     */
+    @Test(timeout = 10000)
+    public void waiterIsNotified() throws Exception {
+        final AtomicReference<Request> served = new AtomicReference<Request>();
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    served.set(queue.blockingRemoveOldest(60000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        consumer.start();
+        while (!queue.isWaitingForRequest()) {
+            Thread.sleep(10);
+        }
+
+        Request r = newRequest("foo", 0, 0);
+        queue.add(r);
+        consumer.join();
+        assertEquals(r, served.get());
+    }
+
+    /**
+     * Requests filters keep the semantics of the blocking request queue
+     */
+    @Test
+    public void filters() throws Exception {
+        Request foo1 = newRequest("foo", 0, 1);
+        Request bar = newRequest("bar", 0, 2);
+        Request foo2 = newRequest("foo", 0, 3);
+        queue.add(foo1);
+        queue.add(bar);
+        queue.add(foo2);
+
+        assertEquals(3, queue.size());
+        assertTrue(queue.hasRequest("bar"));
+        assertEquals(bar, queue.removeOldest("bar"));
+        assertEquals(foo2, queue.removeYoungest("foo"));
+        assertNull(queue.blockingRemoveOldest(new RequestFilter() {
+            public boolean acceptRequest(Request request) {
+                return "bar".equals(request.getMethodName());
+            }
+        }, 10));
+        assertEquals(foo1, queue.removeOldest());
+        assertTrue(queue.isEmpty());
+    }
+
+    private Request newRequest(String methodName, int senderIndex, int sequence) {
+        try {
+            Method m = Target.class.getMethod(methodName, Integer.class, Integer.class);
+            MethodCall mc = MethodCall.getMethodCall(m,
+                                                     new Object[] { senderIndex, sequence },
+                                                     (Map<TypeVariable<?>, Class<?>>) null);
+            return new RequestImpl(mc, sender, true, sequence);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static public class Target {
+        public void foo(Integer sender, Integer sequence) {
+        }
+
+        public void bar(Integer sender, Integer sequence) {
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.body.request.ImmediateServiceExecutor.SerialExecutor;
+
+
+public class ImmediateServiceExecutorTest {
+
+    /**
+     * The tasks of a serial executor run in order on the same thread
+     */
+    @Test
+    public void affinityAndOrder() throws InterruptedException {
+        ImmediateServiceExecutor executor = new ImmediateServiceExecutor(4, 10, TimeUnit.SECONDS);
+        SerialExecutor serialExecutor = executor.newSerialExecutor();
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        int nbTasks = 100;
+        final CountDownLatch done = new CountDownLatch(nbTasks);
+        for (int i = 0; i < nbTasks; i++) {
+            final int index = i;
+            assertTrue(serialExecutor.execute(new Runnable() {
+                public void run() {
+                    order.add(index);
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                }
+            }));
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < nbTasks; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+        assertEquals(1, threads.size());
+    }
+
+    /**
+     * Many callers share a bounded number of threads
+     */
+    @Test
+    public void boundedThreads() throws InterruptedException {
+        ImmediateServiceExecutor executor = new ImmediateServiceExecutor(3, 10, TimeUnit.SECONDS);
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        int nbCallers = 50;
+        final CountDownLatch done = new CountDownLatch(nbCallers);
+        for (int i = 0; i < nbCallers; i++) {
+            executor.newSerialExecutor().execute(new Runnable() {
+                public void run() {
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, threads.size());
+        assertEquals(nbCallers, executor.getSerialExecutors());
+        assertEquals(nbCallers, executor.getServedRequests());
+    }
+
+    /**
+     * New callers are not bound to the threads blocked in a request, and a thread is added when
+     * all of them are blocked
+     */
+    @Test
+    public void blockedThreads() throws InterruptedException {
+        ImmediateServiceExecutor executor = new ImmediateServiceExecutor(2, 10, TimeUnit.SECONDS);
+        final CountDownLatch release = new CountDownLatch(1);
+        List<SerialExecutor> blocked = new ArrayList<SerialExecutor>();
+        for (int i = 0; i < 2; i++) {
+            SerialExecutor serialExecutor = executor.newSerialExecutor();
+            serialExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            blocked.add(serialExecutor);
+        }
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(ImmediateServiceExecutor.BLOCKED_TIME) * 2);
+
+        int nbCallers = 10;
+        final CountDownLatch done = new CountDownLatch(nbCallers);
+        List<SerialExecutor> callers = new ArrayList<SerialExecutor>();
+        try {
+            for (int i = 0; i < nbCallers; i++) {
+                SerialExecutor serialExecutor = executor.newSerialExecutor();
+                serialExecutor.execute(new Runnable() {
+                    public void run() {
+                        done.countDown();
+                    }
+                });
+                callers.add(serialExecutor);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(3, executor.getThreads());
+        } finally {
+            release.countDown();
+        }
+
+        for (SerialExecutor serialExecutor : callers) {
+            serialExecutor.evict();
+        }
+        assertEquals(2, executor.getThreads());
+    }
+
+    @Test
+    public void idleEviction() throws InterruptedException {
+        ImmediateServiceExecutor executor = new ImmediateServiceExecutor(1, 50, TimeUnit.MILLISECONDS);
+        SerialExecutor serialExecutor = executor.newSerialExecutor();
+        assertFalse(serialExecutor.evictIfIdle());
+        Thread.sleep(100);
+        assertTrue(serialExecutor.evictIfIdle());
+        assertFalse(serialExecutor.execute(new Runnable() {
+            public void run() {
+            }
+        }));
+        assertEquals(0, executor.getSerialExecutors());
+        assertEquals(1, executor.getEvictedSerialExecutors());
+    }
+
+    /**
+     * A task waiting for a task of another caller does not wait for its own thread
+     */
+    @Test
+    public void nestedCalls() throws InterruptedException {
+        final ImmediateServiceExecutor executor = new ImmediateServiceExecutor(1, 10, TimeUnit.SECONDS);
+        final CountDownLatch done = new CountDownLatch(1);
+        executor.newSerialExecutor().execute(new Runnable() {
+            public void run() {
+                final CountDownLatch nested = new CountDownLatch(1);
+                executor.newSerialExecutor().execute(new Runnable() {
+                    public void run() {
+                        nested.countDown();
+                    }
+                });
+                try {
+                    if (nested.await(10, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.BodyStub;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MethodCall;
+
+
+public class RequestBatcherTest {
+
+    private UniversalBody sender;
+
+    private UniversalBody destination;
+
+    /** The messages received by the destination, each one being a list of requests */
+    private final List<List<Request>> received = new ArrayList<List<Request>>();
+
+    @Before
+    public void setUp() {
+        sender = newBody(new UniqueID());
+        destination = newBody(new UniqueID());
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_SIZE.setValue(3);
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_DELAY.setValue(60000);
+    }
+
+    @After
+    public void tearDown() {
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_SIZE.unset();
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_DELAY.unset();
+    }
+
+    @Test
+    public void coalescedUpToMaxSize() throws Exception {
+        RequestBatcher batcher = new RequestBatcher();
+        List<Request> sent = new ArrayList<Request>();
+        for (int i = 0; i < 4; i++) {
+            Request request = newRequest("oneWay", true, i);
+            sent.add(request);
+            batcher.send(request, destination);
+        }
+        assertEquals(1, received.size());
+        assertEquals(sent.subList(0, 3), received.get(0));
+
+        batcher.flush();
+        assertEquals(2, received.size());
+        assertEquals(sent.subList(3, 4), received.get(1));
+        for (Request request : sent) {
+            assertFalse(request.hasBeenForwarded());
+        }
+    }
+
+    @Test
+    public void orderKeptWithOtherRequests() throws Exception {
+        RequestBatcher batcher = new RequestBatcher();
+        Request first = newRequest("oneWay", true, 0);
+        Request second = newRequest("oneWay", true, 1);
+        Request call = newRequest("call", false, 2);
+        batcher.send(first, destination);
+        batcher.send(second, destination);
+        batcher.send(call, destination);
+
+        assertEquals(2, received.size());
+        assertEquals(2, received.get(0).size());
+        assertSame(first, received.get(0).get(0));
+        assertSame(second, received.get(0).get(1));
+        assertEquals(1, received.get(1).size());
+        assertSame(call, received.get(1).get(0));
+    }
+
+    @Test
+    public void sentAfterMaxDelay() throws Exception {
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_DELAY.setValue(10);
+        RequestBatcher batcher = new RequestBatcher();
+        Request request = newRequest("oneWay", true, 0);
+        batcher.send(request, destination);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        synchronized (received) {
+            while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+                received.wait(100);
+            }
+            assertEquals(1, received.size());
+            assertSame(request, received.get(0).get(0));
+        }
+    }
+
+    /**
+     * A destination that does not answer does not delay the batches sent to the others
+     */
+    @Test
+    public void slowDestination() throws Exception {
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_DELAY.setValue(10);
+        RequestBatcher batcher = new RequestBatcher();
+        final CountDownLatch release = new CountDownLatch(1);
+        UniversalBody slow = newBody(new UniqueID(), new Callable<Void>() {
+            public Void call() throws Exception {
+                release.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        });
+        try {
+            batcher.send(newRequest("oneWay", true, 0), slow);
+            Thread.sleep(100);
+            Request request = newRequest("oneWay", true, 1);
+            batcher.send(request, destination);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            synchronized (received) {
+                while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+                    received.wait(100);
+                }
+                assertEquals(1, received.size());
+                assertSame(request, received.get(0).get(0));
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Slow destinations do not hold more than the batching threads
+     */
+    @Test
+    public void sendersBounded() throws Exception {
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_DELAY.setValue(10);
+        RequestBatcher batcher = new RequestBatcher();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger receiving = new AtomicInteger();
+        Callable<Void> slow = new Callable<Void>() {
+            public Void call() throws Exception {
+                receiving.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        };
+        int threads = CentralPAPropertyRepository.PA_REQUEST_BATCHING_THREADS.getValue();
+        try {
+            for (int i = 0; i < 2 * threads; i++) {
+                batcher.send(newRequest("oneWay", true, i), newBody(new UniqueID(), slow));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (receiving.get() < threads && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(200);
+            assertEquals(threads, receiving.get());
+        } finally {
+            release.countDown();
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (receiving.get() < 2 * threads && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2 * threads, receiving.get());
+    }
+
+    /**
+     * The failure to send a batch when its delay expires is raised by the next request, with the
+     * requests which have not been sent
+     */
+    @Test
+    public void failureReported() throws Exception {
+        CentralPAPropertyRepository.PA_REQUEST_BATCHING_MAX_DELAY.setValue(10);
+        RequestBatcher batcher = new RequestBatcher();
+        final AtomicInteger attempts = new AtomicInteger();
+        UniversalBody failing = newBody(new UniqueID(), new Callable<Void>() {
+            public Void call() throws Exception {
+                attempts.incrementAndGet();
+                throw new IOException("Test failure");
+            }
+        });
+        Request request = newRequest("oneWay", true, 0);
+        batcher.send(request, failing);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (attempts.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        try {
+            batcher.send(newRequest("oneWay", true, 1), failing);
+            fail("the failure of the batch should be reported");
+        } catch (BatchedRequestsException e) {
+            assertEquals("Test failure", e.getCause().getMessage());
+            assertEquals(1, e.getRequests().size());
+            assertSame(request, e.getRequests().get(0));
+        }
+    }
+
+    /**
+     * The failure to flush a batch is raised with the requests which have not been sent
+     */
+    @Test
+    public void flushFailureReported() throws Exception {
+        RequestBatcher batcher = new RequestBatcher();
+        UniversalBody failing = newBody(new UniqueID(), new Callable<Void>() {
+            public Void call() throws Exception {
+                throw new IOException("Test failure");
+            }
+        });
+        List<Request> sent = new ArrayList<Request>();
+        for (int i = 0; i < 2; i++) {
+            Request request = newRequest("oneWay", true, i);
+            sent.add(request);
+            batcher.send(request, failing);
+        }
+        batcher.send(newRequest("oneWay", true, 2), destination);
+
+        try {
+            batcher.flush();
+            fail("the failure of the batch should be reported");
+        } catch (BatchedRequestsException e) {
+            assertEquals("Test failure", e.getCause().getMessage());
+            assertEquals(sent, e.getRequests());
+        }
+        assertEquals(1, received.size());
+        assertEquals(0, batcher.getBatches());
+    }
+
+    /**
+     * The batch of a destination is dropped once sent
+     */
+    @Test
+    public void batchesDropped() throws Exception {
+        RequestBatcher batcher = new RequestBatcher();
+        batcher.send(newRequest("oneWay", true, 0), destination);
+        batcher.send(newRequest("oneWay", true, 1), newBody(new UniqueID()));
+        assertEquals(2, batcher.getBatches());
+
+        batcher.flush();
+        assertEquals(0, batcher.getBatches());
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void argumentsCopied() throws Exception {
+        RequestBatcher batcher = new RequestBatcher();
+        ArrayList<String> argument = new ArrayList<String>();
+        argument.add("foo");
+        Request request = newRequest("oneWay", true, 0, argument);
+        batcher.send(request, destination);
+        argument.add("bar");
+
+        batcher.flush();
+        Object[] arguments = received.get(0).get(0).getMethodCall().getEffectiveArguments();
+        assertEquals(1, ((List<?>) arguments[0]).size());
+    }
+
+    private UniversalBody newBody(UniqueID id) {
+        return newBody(id, null);
+    }
+
+    /**
+     * @param onReceive called before receiving requests, null to receive them right away
+     */
+    private UniversalBody newBody(UniqueID id, final Callable<Void> onReceive) {
+        return BodyStub.newRemoteBody(new BodyStub(id) {
+            @SuppressWarnings("unchecked")
+            @Override
+            protected Object handle(Method method, Object[] args) throws Exception {
+                if ((onReceive != null) && method.getName().startsWith("receiveRequest")) {
+                    onReceive.call();
+                }
+                List<Request> requests = null;
+                if ("receiveRequest".equals(method.getName())) {
+                    requests = new ArrayList<Request>();
+                    requests.add((Request) args[0]);
+                } else if ("receiveRequests".equals(method.getName())) {
+                    requests = new ArrayList<Request>((List<Request>) args[0]);
+                }
+                if (requests != null) {
+                    synchronized (received) {
+                        received.add(requests);
+                        received.notifyAll();
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private Request newRequest(String methodName, boolean isOneWay, int sequence) throws NoSuchMethodException {
+        return newRequest(methodName, isOneWay, sequence, null);
+    }
+
+    private Request newRequest(String methodName, boolean isOneWay, int sequence, Object argument)
+            throws NoSuchMethodException {
+        MethodCall mc;
+        if (isOneWay) {
+            mc = MethodCall.getMethodCall(Target.class.getMethod(methodName, Object.class),
+                                          new Object[] { argument },
+                                          (Map<TypeVariable<?>, Class<?>>) null);
+        } else {
+            mc = MethodCall.getMethodCall(Target.class.getMethod(methodName),
+                                          new Object[0],
+                                          (Map<TypeVariable<?>, Class<?>>) null);
+        }
+        return new RequestImpl(mc, sender, isOneWay, sequence);
+    }
+
+    static public class Target {
+        public void oneWay(Object argument) {
+        }
+
+        public int call() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.TypeVariable;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.annotation.DefineGroups;
+import org.objectweb.proactive.annotation.Group;
+import org.objectweb.proactive.annotation.MemberOf;
+import org.objectweb.proactive.core.body.BodyStub;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.mop.MethodCall;
+
+
+public class RequestCompatibilityTest {
+    private UniversalBody sender;
+
+    private RequestCompatibility compatibility;
+
+    @Before
+    public void setUp() {
+        sender = BodyStub.newRemoteBody();
+        compatibility = new RequestCompatibility(Store.class);
+    }
+
+    @Test
+    public void groups() {
+        assertEquals("read", compatibility.getGroup(newRequest(Store.class, "get")));
+        assertEquals("write", compatibility.getGroup(newRequest(Store.class, "put")));
+        assertNull(compatibility.getGroup(newRequest(Store.class, "clear")));
+    }
+
+    @Test
+    public void selfCompatibility() {
+        assertTrue(compatibility.areCompatible(newRequest(Store.class, "get"), newRequest(Store.class, "get")));
+        assertFalse(compatibility.areCompatible(newRequest(Store.class, "put"), newRequest(Store.class, "put")));
+    }
+
+    /**
+     * Compatibility is symmetric, whichever group declares it
+     */
+    @Test
+    public void compatibleGroups() {
+        assertTrue(compatibility.areCompatible(newRequest(Store.class, "get"), newRequest(Store.class, "size")));
+        assertTrue(compatibility.areCompatible(newRequest(Store.class, "size"), newRequest(Store.class, "get")));
+        assertTrue(compatibility.areCompatible(newRequest(Store.class, "size"), newRequest(Store.class, "put")));
+        assertFalse(compatibility.areCompatible(newRequest(Store.class, "get"), newRequest(Store.class, "put")));
+    }
+
+    @Test
+    public void methodsWithoutGroup() {
+        assertFalse(compatibility.areCompatible(newRequest(Store.class, "clear"), newRequest(Store.class, "get")));
+        assertFalse(compatibility.areCompatible(newRequest(Store.class, "get"), newRequest(Store.class, "clear")));
+    }
+
+    /**
+     * The groups of a method declared by a superclass are the ones of the active object
+     */
+    @Test
+    public void inheritedMethods() {
+        RequestCompatibility subclass = new RequestCompatibility(SubStore.class);
+        assertEquals("read", subclass.getGroup(newRequest(Store.class, "get")));
+        assertEquals("write", subclass.getGroup(newRequest(Store.class, "clear")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void undefinedGroup() {
+        new RequestCompatibility(Undefined.class);
+    }
+
+    private Request newRequest(Class<?> target, String methodName) {
+        try {
+            Method m = target.getMethod(methodName);
+            MethodCall mc = MethodCall.getMethodCall(m, new Object[0], (Map<TypeVariable<?>, Class<?>>) null);
+            return new RequestImpl(mc, sender, true, 0);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DefineGroups({ @Group(name = "read", selfCompatible = true), @Group(name = "write"),
+                    @Group(name = "stats", selfCompatible = true, compatibleWith = { "read", "write" }) })
+    static public class Store {
+        @MemberOf("read")
+        public Object get() {
+            return null;
+        }
+
+        @MemberOf("write")
+        public void put() {
+        }
+
+        @MemberOf("stats")
+        public int size() {
+            return 0;
+        }
+
+        public void clear() {
+        }
+    }
+
+    static public class SubStore extends Store {
+        @Override
+        @MemberOf("write")
+        public void clear() {
+        }
+    }
+
+    @DefineGroups({ @Group(name = "read") })
+    static public class Undefined {
+        @MemberOf("write")
+        public void put() {
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.body.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.body.BodyStub;
+import org.objectweb.proactive.core.body.UniversalBody;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MethodCall;
+
+
+public class RequestQueueImplTest {
+    private static final String[] METHODS = { "foo", "bar", "baz" };
+
+    private Random rand = new Random(42);
+
+    private UniversalBody sender;
+
+    private RequestQueueImpl indexed;
+
+    private RequestQueueImpl scanned;
+
+    @Before
+    public void setUp() {
+        sender = BodyStub.newRemoteBody();
+
+        CentralPAPropertyRepository.PA_REQUEST_QUEUE_METHOD_INDEX.setValue(true);
+        indexed = new RequestQueueImpl(new UniqueID());
+        CentralPAPropertyRepository.PA_REQUEST_QUEUE_METHOD_INDEX.setValue(false);
+        scanned = new RequestQueueImpl(new UniqueID());
+    }
+
+    @After
+    public void tearDown() {
+        CentralPAPropertyRepository.PA_REQUEST_QUEUE_METHOD_INDEX.setValue(false);
+    }
+
+    /**
+     * Oldest request by method name with a backlog of other requests
+     */
+    @Test
+    public void removeOldestByMethodName() {
+        for (int i = 0; i < 1000; i++) {
+            indexed.add(newRequest("foo", i));
+        }
+        Request bar = newRequest("bar", 1000);
+        indexed.add(bar);
+
+        assertTrue(indexed.hasRequest("bar"));
+        assertFalse(indexed.hasRequest("baz"));
+        assertSame(bar, indexed.removeOldest("bar"));
+        assertFalse(indexed.hasRequest("bar"));
+        assertEquals(1000, indexed.size());
+    }
+
+    /**
+     * The indexed queue behaves exactly like the scanned one for random operations
+     */
+    @Test
+    public void sameBehaviorAsScan() {
+        for (int i = 0; i < 10000; i++) {
+            String methodName = METHODS[rand.nextInt(METHODS.length)];
+            switch (rand.nextInt(11)) {
+                case 0:
+                case 1:
+                case 2:
+                    Request r = newRequest(methodName, i);
+                    indexed.add(r);
+                    scanned.add(r);
+                    break;
+                case 3:
+                    r = newRequest(methodName, i);
+                    indexed.addToFront(r);
+                    scanned.addToFront(r);
+                    break;
+                case 4:
+                    assertSame(scanned.removeOldest(methodName), indexed.removeOldest(methodName));
+                    break;
+                case 5:
+                    assertSame(scanned.removeYoungest(methodName), indexed.removeYoungest(methodName));
+                    break;
+                case 6:
+                    assertSame(scanned.removeOldest(), indexed.removeOldest());
+                    break;
+                case 7:
+                    assertSame(scanned.getYoungest(methodName), indexed.getYoungest(methodName));
+                    assertEquals(scanned.hasRequest(methodName), indexed.hasRequest(methodName));
+                    break;
+                case 8:
+                    // Removal through the iterator must keep the index in sync
+                    Iterator<Request> it = indexed.iterator();
+                    while (it.hasNext()) {
+                        if (it.next().getMethodName().equals(methodName)) {
+                            it.remove();
+                            break;
+                        }
+                    }
+                    it = scanned.iterator();
+                    while (it.hasNext()) {
+                        if (it.next().getMethodName().equals(methodName)) {
+                            it.remove();
+                            break;
+                        }
+                    }
+                    break;
+                case 9:
+                    assertSame(scanned.removeYoungest(), indexed.removeYoungest());
+                    break;
+                case 10:
+                    assertSame(scanned.getOldest(), indexed.getOldest());
+                    assertSame(scanned.getYoungest(), indexed.getYoungest());
+                    break;
+            }
+            assertEquals(scanned.size(), indexed.size());
+            assertEquals(scanned.isEmpty(), indexed.isEmpty());
+        }
+
+        List<Request> expected = new ArrayList<Request>(scanned.getInternalQueue());
+        for (String methodName : METHODS) {
+            assertSame(scanned.getOldest(methodName), indexed.getOldest(methodName));
+        }
+        assertEquals(expected, new ArrayList<Request>(indexed.getInternalQueue()));
+    }
+
+    private Request newRequest(String methodName, int sequence) {
+        try {
+            Method m = Target.class.getMethod(methodName);
+            MethodCall mc = MethodCall.getMethodCall(m, new Object[0], (Map<TypeVariable<?>, Class<?>>) null);
+            return new RequestImpl(mc, sender, true, sequence);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static public class Target {
+        public void foo() {
+        }
+
+        public void bar() {
+        }
+
+        public void baz() {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.body.future.FutureProxy;
+
+
+public class GroupReductionTest {
+
+    @Test
+    public void resultsAreReduced() {
+        FutureProxy future = FutureProxy.getFutureProxy();
+        GroupReduction reduction = new GroupReduction(ReduceMode.SUM, future, 3);
+        reduction.add(1);
+        reduction.add(2);
+        reduction.add(3);
+        assertEquals(6, future.getMethodCallResult().getResultObjet());
+    }
+
+    /**
+     * The exceptions of the members are collected, so that the group can be purged
+     */
+    @Test
+    public void memberExceptionsAreCollected() {
+        FutureProxy future = FutureProxy.getFutureProxy();
+        ExceptionListException exceptions = new ExceptionListException();
+        GroupReduction reduction = new GroupReduction(ReduceMode.SUM, future, 3, exceptions, null);
+        RuntimeException failure = new RuntimeException("Member failure");
+        Object member = new Object();
+
+        reduction.add(1);
+        reduction.add(new ExceptionInGroup(member, 1, failure));
+        reduction.add(3);
+
+        assertEquals(1, exceptions.size());
+        assertSame(member, exceptions.iterator().next().getObject());
+        assertSame(failure, future.getMethodCallResult().getException());
+    }
+
+    /**
+     * The group is purged once all the members have answered, not when the future is updated with
+     * the first exception: later exceptions must be collected too
+     */
+    @Test
+    public void answeredOnceAllMembersAnswer() {
+        FutureProxy future = FutureProxy.getFutureProxy();
+        final ExceptionListException exceptions = new ExceptionListException();
+        final AtomicBoolean answered = new AtomicBoolean();
+        GroupReduction reduction = new GroupReduction(ReduceMode.SUM, future, 3, exceptions, new Runnable() {
+            public void run() {
+                assertEquals(2, exceptions.size());
+                assertFalse(answered.getAndSet(true));
+            }
+        });
+
+        reduction.add(new ExceptionInGroup(new Object(), 0, new RuntimeException("First failure")));
+        assertTrue(future.isAvailable());
+        reduction.add(2);
+        assertFalse(answered.get());
+        reduction.add(new ExceptionInGroup(new Object(), 2, new RuntimeException("Late failure")));
+
+        assertTrue(answered.get());
+        assertEquals(2, exceptions.size());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class ReduceModeTest {
+
+    private static Object reduceAll(ReduceBehavior behavior, Object... results) throws ReductionException {
+        Object partial = null;
+        for (Object result : results) {
+            partial = behavior.reduce(partial, result);
+        }
+        return partial;
+    }
+
+    @Test
+    public void sumKeepsTheTypeOfTheResults() throws ReductionException {
+        assertEquals(6, reduceAll(ReduceMode.SUM, 1, 2, 3));
+        assertEquals(6L, reduceAll(ReduceMode.SUM, 1L, 2L, 3L));
+        assertEquals(1.5, reduceAll(ReduceMode.SUM, 0.5, 1.0));
+        assertEquals(BigInteger.TEN, reduceAll(ReduceMode.SUM, BigInteger.ONE, BigInteger.valueOf(9)));
+    }
+
+    @Test
+    public void minAndMax() throws ReductionException {
+        assertEquals(-2, reduceAll(ReduceMode.MIN, 3, -2, 7));
+        assertEquals(7, reduceAll(ReduceMode.MAX, 3, -2, 7));
+        assertEquals("b", reduceAll(ReduceMode.MAX, "a", "b"));
+    }
+
+    @Test
+    public void concat() throws ReductionException {
+        assertEquals("abc", reduceAll(ReduceMode.CONCAT, "a", "b", "c"));
+
+        List<Integer> first = Collections.singletonList(1);
+        assertEquals(Arrays.asList(1, 2, 3), reduceAll(ReduceMode.CONCAT, first, Arrays.asList(2, 3)));
+        assertEquals(Collections.singletonList(1), first);
+    }
+
+    @Test
+    public void nullResultsAreIgnored() throws ReductionException {
+        assertEquals(3, reduceAll(ReduceMode.SUM, null, 1, null, 2));
+        assertNull(reduceAll(ReduceMode.MAX, null, null));
+    }
+
+    @Test(expected = ReductionException.class)
+    public void sumOfMixedTypes() throws ReductionException {
+        reduceAll(ReduceMode.SUM, 1, 2L);
+    }
+
+    @Test(expected = ReductionException.class)
+    public void sumOfNonNumbers() throws ReductionException {
+        reduceAll(ReduceMode.SUM, "a");
+    }
+
+    @Test(expected = ReductionException.class)
+    public void customIsNotAReduction() throws ReductionException {
+        reduceAll(ReduceMode.CUSTOM, 1);
+    }
+}
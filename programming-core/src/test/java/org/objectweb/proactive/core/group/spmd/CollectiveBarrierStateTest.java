@@ -0,0 +1,103 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.group.spmd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+public class CollectiveBarrierStateTest {
+
+    private final Random rand = new Random(42);
+
+    @Test
+    public void tree() {
+        for (int size : new int[] { 1, 2, 3, 4, 5, 17, 64, 100 }) {
+            assertEquals(2 * (size - 1), simulate(BarrierAlgorithm.TREE, size));
+        }
+    }
+
+    @Test
+    public void dissemination() {
+        for (int size : new int[] { 1, 2, 3, 4, 5, 17, 64, 100 }) {
+            int rounds = 32 - Integer.numberOfLeadingZeros(size - 1);
+            assertEquals(size * rounds, simulate(BarrierAlgorithm.DISSEMINATION, size));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allToAllNotSupported() {
+        new CollectiveBarrierState(BarrierAlgorithm.ALL_TO_ALL, 4);
+    }
+
+    /**
+     * Runs a barrier where members enter and messages are delivered in a random order.
+     * @return the number of messages sent
+     */
+    private int simulate(BarrierAlgorithm algorithm, int size) {
+        final CollectiveBarrierState[] states = new CollectiveBarrierState[size];
+        for (int i = 0; i < size; i++) {
+            states[i] = new CollectiveBarrierState(algorithm, size);
+        }
+        final List<int[]> inFlight = new ArrayList<int[]>();
+        CollectiveBarrierState.Messenger messenger = new CollectiveBarrierState.Messenger() {
+            public void send(int rank, int round) {
+                inFlight.add(new int[] { rank, round });
+            }
+        };
+
+        List<Integer> outside = new ArrayList<Integer>();
+        for (int i = 0; i < size; i++) {
+            outside.add(i);
+        }
+        int sent = 0;
+        while (!outside.isEmpty() || !inFlight.isEmpty()) {
+            if (!outside.isEmpty() && (inFlight.isEmpty() || rand.nextBoolean())) {
+                int rank = outside.remove(rand.nextInt(outside.size()));
+                states[rank].enter(rank, messenger);
+            } else {
+                int[] message = inFlight.remove(rand.nextInt(inFlight.size()));
+                sent++;
+                states[message[0]].receive(message[1], messenger);
+            }
+            for (CollectiveBarrierState state : states) {
+                // nobody is released before everybody entered
+                assertFalse(!outside.isEmpty() && state.isReleased());
+            }
+        }
+        for (CollectiveBarrierState state : states) {
+            assertTrue(state.isReleased());
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.jmx.mbean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.management.Notification;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+
+import org.junit.Test;
+
+
+public class BodyWrapperTest {
+
+    private static final NotificationListener LISTENER = new NotificationListener() {
+        public void handleNotification(Notification notification, Object handback) {
+        }
+    };
+
+    @Test
+    public void listenersAreTracked() throws Exception {
+        BodyWrapper wrapper = new BodyWrapper();
+        assertFalse(wrapper.hasNotificationListeners());
+
+        NotificationFilter filter = new NotificationFilter() {
+            public boolean isNotificationEnabled(Notification notification) {
+                return true;
+            }
+        };
+        wrapper.addNotificationListener(LISTENER, null, null);
+        wrapper.addNotificationListener(LISTENER, filter, null);
+        assertTrue(wrapper.hasNotificationListeners());
+
+        wrapper.removeNotificationListener(LISTENER, filter, null);
+        assertTrue(wrapper.hasNotificationListeners());
+        wrapper.removeNotificationListener(LISTENER, null, null);
+        assertFalse(wrapper.hasNotificationListeners());
+    }
+
+    @Test
+    public void removingAListenerRemovesAllItsSubscriptions() throws Exception {
+        BodyWrapper wrapper = new BodyWrapper();
+        wrapper.addNotificationListener(LISTENER, null, null);
+        wrapper.addNotificationListener(LISTENER, null, "handback");
+        wrapper.removeNotificationListener(LISTENER);
+        assertFalse(wrapper.hasNotificationListeners());
+    }
+}
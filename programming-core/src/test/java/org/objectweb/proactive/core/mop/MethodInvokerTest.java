@@ -0,0 +1,123 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+
+public class MethodInvokerTest {
+
+    @Test
+    public void invokerIsCachedPerMethod() throws Exception {
+        Method m = Target.class.getMethod("add", int.class, int.class);
+        assertSame(MethodInvoker.get(m), MethodInvoker.get(Target.class.getMethod("add", int.class, int.class)));
+    }
+
+    @Test
+    public void primitiveArgumentsAndResult() throws Exception {
+        Object res = MethodInvoker.get(Target.class.getMethod("add", int.class, int.class))
+                                  .invoke(new Target(), new Object[] { 1, 2 });
+        assertEquals(3, res);
+    }
+
+    @Test
+    public void voidReturnsNull() throws Exception {
+        Target t = new Target();
+        assertNull(MethodInvoker.get(Target.class.getMethod("set", String.class)).invoke(t, new Object[] { "foo" }));
+        assertEquals("foo", t.value);
+        assertNull(MethodInvoker.get(Target.class.getMethod("set", String.class)).invoke(t, new Object[] { null }));
+        assertNull(t.value);
+    }
+
+    @Test
+    public void protectedAndStaticMethods() throws Exception {
+        Method prot = Target.class.getDeclaredMethod("secret");
+        assertEquals("secret", MethodInvoker.get(prot).invoke(new Target(), null));
+
+        Method stat = Target.class.getMethod("twice", long.class);
+        assertEquals(4L, MethodInvoker.get(stat).invoke(null, new Object[] { 2L }));
+    }
+
+    @Test
+    public void wideningFallsBackToReflection() throws Exception {
+        Method stat = Target.class.getMethod("twice", long.class);
+        assertEquals(4L, MethodInvoker.get(stat).invoke(null, new Object[] { 2 }));
+    }
+
+    @Test
+    public void exceptionIsWrapped() throws Exception {
+        try {
+            MethodInvoker.get(Target.class.getMethod("fail")).invoke(new Target(), new Object[0]);
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            return;
+        }
+        throw new AssertionError("InvocationTargetException expected");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullForPrimitive() throws Exception {
+        MethodInvoker.get(Target.class.getMethod("add", int.class, int.class))
+                     .invoke(new Target(), new Object[] { 1, null });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongTarget() throws Exception {
+        MethodInvoker.get(Target.class.getMethod("fail")).invoke("foo", new Object[0]);
+    }
+
+    static public class Target {
+        String value;
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public void set(String value) {
+            this.value = value;
+        }
+
+        public static long twice(long l) {
+            return 2 * l;
+        }
+
+        public void fail() {
+            throw new IllegalStateException();
+        }
+
+        protected String secret() {
+            return "secret";
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.mop;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.objectweb.proactive.annotation.Immutable;
+import org.objectweb.proactive.core.util.wrapper.IntMutableWrapper;
+import org.objectweb.proactive.core.util.wrapper.IntWrapper;
+
+
+public class StructuralCopyTest {
+
+    @Test
+    public void immutablesArePassedByReference() {
+        Object[] source = new Object[] { "foo", 1, 2L, TimeUnit.SECONDS, new IntWrapper(3), new Point(1, 2), null };
+        Object[] copy = StructuralCopy.copy(source);
+
+        assertNotSame(source, copy);
+        for (int i = 0; i < source.length; i++) {
+            assertSame(source[i], copy[i]);
+        }
+    }
+
+    @Test
+    public void sharedArraysStayShared() {
+        int[] ints = new int[] { 1, 2, 3 };
+        String[] strings = new String[] { "a", "b" };
+        Object[] copy = StructuralCopy.copy(new Object[] { ints, strings, ints });
+
+        assertNotSame(ints, copy[0]);
+        assertArrayEquals(ints, (int[]) copy[0]);
+        assertSame(copy[0], copy[2]);
+        assertNotSame(strings, copy[1]);
+        assertEquals(String[].class, copy[1].getClass());
+        assertArrayEquals(strings, (String[]) copy[1]);
+    }
+
+    @Test
+    public void collectionsAreCopied() {
+        List<String> list = new ArrayList<String>();
+        list.add("foo");
+        Map<String, List<String>> map = new HashMap<String, List<String>>();
+        map.put("list", list);
+
+        Object[] copy = StructuralCopy.copy(new Object[] { map, list });
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> mapCopy = (Map<String, List<String>>) copy[0];
+
+        assertNotSame(map, mapCopy);
+        assertEquals(map, mapCopy);
+        assertNotSame(list, copy[1]);
+        assertSame(mapCopy.get("list"), copy[1]);
+    }
+
+    @Test
+    public void mutableValuesAreNotCopied() {
+        assertNull(StructuralCopy.copy(new Object[] { "foo", new AtomicInteger(1) }));
+        assertNull(StructuralCopy.copy(new Object[] { new IntMutableWrapper(1) }));
+        assertNull(StructuralCopy.copy(new Object[] { new MovingPoint(1, 2) }));
+        assertNull(StructuralCopy.copy(new Object[] { new Object[] { new AtomicInteger(1) } }));
+    }
+
+    @Test
+    public void makeDeepCopyFallsBackToSerialization() throws Exception {
+        AtomicInteger counter = new AtomicInteger(1);
+        Object[] copy = Utils.makeDeepCopy(new Object[] { "foo", counter, counter });
+
+        assertEquals("foo", copy[0]);
+        assertNotSame(counter, copy[1]);
+        assertEquals(1, ((AtomicInteger) copy[1]).get());
+        assertSame(copy[1], copy[2]);
+    }
+
+    @Immutable
+    static public class Point implements Serializable {
+        protected final int x;
+
+        protected final int y;
+
+        public Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    static public class MovingPoint extends Point {
+        public MovingPoint(int x, int y) {
+            super(x, y);
+        }
+    }
+}
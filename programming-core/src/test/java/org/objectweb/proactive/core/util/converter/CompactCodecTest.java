@@ -0,0 +1,158 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MethodCall;
+
+
+public class CompactCodecTest {
+
+    @After
+    public void unselectCodec() {
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.unset();
+    }
+
+    @Test
+    public void methodCalls() throws Exception {
+        Method method = Service.class.getMethod("call", int.class, long.class, String.class, Object.class,
+                                                Object.class, Object.class);
+        List<String> list = new ArrayList<String>();
+        list.add("foo");
+        Object[] args = new Object[] { 1, 2L, "bar", null, list, list };
+
+        byte[] standard = serialize(MethodCall.getMethodCall(method, args, null));
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.setValue(CompactCodec.NAME);
+        byte[] compact = serialize(MethodCall.getMethodCall(method, args, null));
+        assertTrue(compact.length + " >= " + standard.length, compact.length < standard.length);
+
+        // the codec is found from its identifier, whatever the selected codec
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.unset();
+        for (byte[] bytes : new byte[][] { standard, compact }) {
+            MethodCall read = (MethodCall) deserialize(bytes);
+            assertEquals(method, read.getReifiedMethod());
+            assertEquals("call", read.getName());
+            Object[] readArgs = read.getEffectiveArguments();
+            assertArrayEquals(args, readArgs);
+            assertSame(readArgs[4], readArgs[5]);
+        }
+    }
+
+    @Test
+    public void overloadedMethods() throws Exception {
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.setValue(CompactCodec.NAME);
+        for (Class<?> type : new Class<?>[] { int.class, long.class, Integer.class, String[].class }) {
+            Method method = Service.class.getMethod("overloaded", type);
+            MethodCall read = (MethodCall) deserialize(serialize(MethodCall.getMethodCall(method,
+                                                                                         new Object[] { null },
+                                                                                         null)));
+            assertEquals(method, read.getReifiedMethod());
+        }
+    }
+
+    @Test
+    public void values() throws Exception {
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.setValue(CompactCodec.NAME);
+        StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            longString.append('€');
+        }
+        Object[] values = new Object[] { null, true, (byte) 1, 'c', (short) 2, 3, 4L, 5.0f, 6.0, "€",
+                                         longString.toString(), new int[] { 7 }, new ArrayList<Object>() };
+        for (Object value : values) {
+            MethodCallResult read = (MethodCallResult) deserialize(serialize(new MethodCallResult(value, null)));
+            if (value instanceof int[]) {
+                assertArrayEquals((int[]) value, (int[]) read.getResultObjet());
+            } else {
+                assertEquals(value, read.getResultObjet());
+            }
+            assertNull(read.getException());
+        }
+
+        Exception exception = new Exception("foo");
+        MethodCallResult read = (MethodCallResult) deserialize(serialize(new MethodCallResult(null, exception)));
+        assertEquals("foo", read.getException().getMessage());
+    }
+
+    @Test
+    public void unknownCodec() throws Exception {
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.setValue("unknown");
+        MethodCallResult read = (MethodCallResult) deserialize(serialize(new MethodCallResult("foo", null)));
+        assertEquals("foo", read.getResultObjet());
+    }
+
+    static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(o);
+        oos.close();
+        return baos.toByteArray();
+    }
+
+    static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return ois.readObject();
+        } finally {
+            ois.close();
+        }
+    }
+
+    public static class Service {
+        public void call(int i, long l, String s, Object o1, Object o2, Object o3) {
+        }
+
+        public void overloaded(int i) {
+        }
+
+        public void overloaded(long l) {
+        }
+
+        public void overloaded(Integer i) {
+        }
+
+        public void overloaded(String[] s) {
+        }
+    }
+}
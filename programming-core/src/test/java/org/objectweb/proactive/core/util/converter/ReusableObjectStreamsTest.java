@@ -0,0 +1,188 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class ReusableObjectStreamsTest {
+
+    static final ReusableObjectOutput OUTPUT = new ReusableObjectOutput() {
+        @Override
+        protected ObjectOutputStream newStream(OutputStream out) throws IOException {
+            return new ObjectOutputStream(out);
+        }
+    };
+
+    static final ReusableObjectInput INPUT = new ReusableObjectInput() {
+        @Override
+        protected ObjectInputStream newStream(InputStream in) throws IOException {
+            return new ObjectInputStream(in);
+        }
+    };
+
+    @Test
+    public void outputIsTheOneOfANewStream() throws Exception {
+        List<Object> messages = new ArrayList<Object>();
+        messages.add("foo");
+        messages.add(new Node("a"));
+        messages.add("foo");
+        messages.add(Arrays.asList(1, 2, 3));
+        messages.add(new Node("a"));
+
+        for (Object message : messages) {
+            assertArrayEquals(serialize(message), OUTPUT.toByteArray(message));
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OUTPUT.writeTo(new Node("b"), baos);
+        assertArrayEquals(serialize(new Node("b")), baos.toByteArray());
+    }
+
+    @Test
+    public void sharingAndCyclesArePreserved() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Node node = new Node("n" + i);
+            node.next = node;
+            Object[] message = new Object[] { node, node };
+
+            Object[] read = (Object[]) INPUT.readObject(OUTPUT.toByteArray(message));
+            Node first = (Node) read[0];
+            assertNotSame(node, first);
+            assertEquals("n" + i, first.name);
+            assertSame(first, read[1]);
+            assertSame(first, first.next);
+        }
+    }
+
+    @Test
+    public void nestedCallsUseTheirOwnStreams() throws Exception {
+        Nested message = new Nested(new Node("inner"));
+        Nested read = (Nested) INPUT.readObject(OUTPUT.toByteArray(message));
+        assertEquals("inner", read.inner.name);
+        assertArrayEquals(serialize(message), OUTPUT.toByteArray(message));
+    }
+
+    @Test
+    public void streamsAreUsableAfterAFailure() throws Exception {
+        try {
+            OUTPUT.toByteArray(new Object[] { "foo", new Object() });
+            fail();
+        } catch (NotSerializableException e) {
+            // expected
+        }
+        assertArrayEquals(serialize("bar"), OUTPUT.toByteArray("bar"));
+
+        byte[] bytes = serialize(new Node("truncated"));
+        try {
+            INPUT.readObject(Arrays.copyOf(bytes, bytes.length - 3));
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals("bar", INPUT.readObject(serialize("bar")));
+        assertEquals("foo", ((Node) INPUT.readObject(serialize(new Node("foo")))).name);
+    }
+
+    @Test
+    public void largeMessages() throws Exception {
+        byte[] large = new byte[ReusableObjectOutput.MAX_RETAINED_BUFFER_SIZE + 1];
+        large[42] = 42;
+        byte[] bytes = OUTPUT.toByteArray(large);
+        assertArrayEquals(serialize(large), bytes);
+        assertArrayEquals(large, (byte[]) INPUT.readObject(bytes));
+        assertArrayEquals(serialize("foo"), OUTPUT.toByteArray("foo"));
+    }
+
+    @Test
+    public void largeBuffersNotRetained() throws Exception {
+        OUTPUT.toByteArray(new byte[ReusableObjectOutput.MAX_RETAINED_BUFFER_SIZE / 2]);
+        assertTrue(OUTPUT.getRetainedBufferSize() > 0);
+        assertTrue(OUTPUT.getRetainedBufferSize() <= ReusableObjectOutput.MAX_RETAINED_BUFFER_SIZE);
+
+        OUTPUT.toByteArray(new byte[ReusableObjectOutput.MAX_RETAINED_BUFFER_SIZE + 1]);
+        assertEquals(0, OUTPUT.getRetainedBufferSize());
+    }
+
+    static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(o);
+        oos.close();
+        return baos.toByteArray();
+    }
+
+    static class Node implements Serializable {
+        String name;
+
+        Node next;
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Serializes its field in a separate byte array, as method calls do with their arguments
+     */
+    static class Nested implements Serializable {
+        transient Node inner;
+
+        Nested(Node inner) {
+            this.inner = inner;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            out.writeObject(OUTPUT.toByteArray(this.inner));
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            this.inner = (Node) INPUT.readObject((byte[]) in.readObject());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util.converter.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.objectweb.proactive.core.body.future.MethodCallResult;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MethodCall;
+import org.objectweb.proactive.core.remoteobject.SynchronousReplyImpl;
+import org.objectweb.proactive.core.util.converter.CompactCodec;
+
+
+public class DescriptorDictionaryTest {
+
+    private final ProActiveMarshaller marshaller = new ProActiveMarshaller(null);
+
+    @After
+    public void unselectCodec() {
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.unset();
+    }
+
+    @Test
+    public void referencesOnceAcknowledged() throws Exception {
+        DescriptorDictionary.Writer writer = new DescriptorDictionary.Writer();
+        DescriptorDictionary.Readers readers = new DescriptorDictionary.Readers();
+
+        List<DescriptorDictionary.Entry> definitions = new ArrayList<DescriptorDictionary.Entry>();
+        byte[] first = marshaller.marshallObject(new Payload(1), writer, definitions);
+        assertFalse(definitions.isEmpty());
+        assertEquals(new Payload(1), marshaller.unmarshallObject(first, readers));
+
+        // Not acknowledged yet, the definitions are written again
+        List<DescriptorDictionary.Entry> again = new ArrayList<DescriptorDictionary.Entry>();
+        byte[] second = marshaller.marshallObject(new Payload(2), writer, again);
+        assertEquals(first.length, second.length);
+
+        assertFalse(writer.acknowledge(new SynchronousReplyImpl(new MethodCallResult(null, null)),
+                                       IOException.class,
+                                       definitions));
+        List<DescriptorDictionary.Entry> none = new ArrayList<DescriptorDictionary.Entry>();
+        byte[] third = marshaller.marshallObject(new Payload(3), writer, none);
+        assertTrue(none.isEmpty());
+        assertTrue(third.length + " >= " + first.length, third.length < first.length);
+        assertEquals(new Payload(3), marshaller.unmarshallObject(third, readers));
+
+        // Messages written without dictionary are still understood
+        assertEquals(new Payload(4), marshaller.unmarshallObject(marshaller.marshallObject(new Payload(4)), readers));
+    }
+
+    @Test
+    public void unknownReference() throws Exception {
+        DescriptorDictionary.Writer writer = new DescriptorDictionary.Writer();
+        List<DescriptorDictionary.Entry> definitions = new ArrayList<DescriptorDictionary.Entry>();
+        marshaller.marshallObject(new Payload(1), writer, definitions);
+        writer.acknowledge(null, IOException.class, definitions);
+        byte[] bytes = marshaller.marshallObject(new Payload(2), writer, new ArrayList<DescriptorDictionary.Entry>());
+
+        try {
+            marshaller.unmarshallObject(bytes, new DescriptorDictionary.Readers());
+            fail("The definitions of the descriptors are unknown");
+        } catch (UnknownDescriptorException e) {
+            // expected
+        }
+
+        try {
+            marshaller.unmarshallObject(bytes);
+            fail("A message written with a dictionary needs one to be read");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void resetOnUnknownReference() throws Exception {
+        DescriptorDictionary.Writer writer = new DescriptorDictionary.Writer();
+        List<DescriptorDictionary.Entry> definitions = new ArrayList<DescriptorDictionary.Entry>();
+        marshaller.marshallObject(new Payload(1), writer, definitions);
+
+        IOException failure = new IOException("Failed to unmarshall incoming message",
+                                              new UnknownDescriptorException("unknown"));
+        assertTrue(writer.acknowledge(new SynchronousReplyImpl(new MethodCallResult(null, failure)),
+                                      IOException.class,
+                                      definitions));
+        List<DescriptorDictionary.Entry> again = new ArrayList<DescriptorDictionary.Entry>();
+        marshaller.marshallObject(new Payload(2), writer, again);
+        assertFalse(again.isEmpty());
+
+        // Any other exception raised by the transport does not acknowledge the definitions
+        assertFalse(writer.acknowledge(new SynchronousReplyImpl(new MethodCallResult(null, new IOException())),
+                                       IOException.class,
+                                       again));
+        assertFalse(again.get(0).acknowledged);
+
+        // Exceptions raised by the application do
+        assertFalse(writer.acknowledge(new SynchronousReplyImpl(new MethodCallResult(null,
+                                                                                     new IllegalStateException())),
+                                       IOException.class,
+                                       again));
+        assertTrue(again.get(0).acknowledged);
+
+        // A new writer starts a new epoch
+        DescriptorDictionary.Readers readers = new DescriptorDictionary.Readers();
+        DescriptorDictionary.Writer reset = new DescriptorDictionary.Writer();
+        assertFalse(reset.getEpoch() == writer.getEpoch());
+        marshaller.marshallObject(new Payload(3), reset, definitions);
+        assertEquals(new Payload(3),
+                     marshaller.unmarshallObject(marshaller.marshallObject(new Payload(3), reset, definitions),
+                                                 readers));
+    }
+
+    /**
+     * A sender which reconnects starts a new epoch, which can be used before its disconnection is
+     * notified
+     */
+    @Test
+    public void newestEpochKeptOnDisconnection() throws Exception {
+        DescriptorDictionary.Readers readers = new DescriptorDictionary.Readers();
+        DescriptorDictionary.Writer disconnected = new DescriptorDictionary.Writer();
+        DescriptorDictionary.Writer reconnected = new DescriptorDictionary.Writer();
+        for (DescriptorDictionary.Writer writer : new DescriptorDictionary.Writer[] { disconnected, reconnected }) {
+            List<DescriptorDictionary.Entry> definitions = new ArrayList<DescriptorDictionary.Entry>();
+            marshaller.unmarshallObject(marshaller.marshallObject(new Payload(1), writer, definitions), readers);
+            writer.acknowledge(null, IOException.class, definitions);
+        }
+
+        assertFalse(readers.dropDisconnected());
+        List<DescriptorDictionary.Entry> none = new ArrayList<DescriptorDictionary.Entry>();
+        assertEquals(new Payload(2),
+                     marshaller.unmarshallObject(marshaller.marshallObject(new Payload(2), reconnected, none),
+                                                 readers));
+        try {
+            marshaller.unmarshallObject(marshaller.marshallObject(new Payload(3), disconnected, none), readers);
+            fail("The dictionary of the disconnected sender should have been dropped");
+        } catch (UnknownDescriptorException e) {
+            // expected
+        }
+
+        // a single epoch is dropped
+        DescriptorDictionary.Readers single = new DescriptorDictionary.Readers();
+        marshaller.unmarshallObject(marshaller.marshallObject(new Payload(4), new DescriptorDictionary.Writer(), none),
+                                    single);
+        assertTrue(single.dropDisconnected());
+    }
+
+    @Test
+    public void methodReferences() throws Exception {
+        CentralPAPropertyRepository.PA_CONVERTER_CODEC.setValue(CompactCodec.NAME);
+        Method method = Payload.class.getMethod("equals", Object.class);
+        DescriptorDictionary.Writer writer = new DescriptorDictionary.Writer();
+        DescriptorDictionary.Readers readers = new DescriptorDictionary.Readers();
+
+        List<DescriptorDictionary.Entry> definitions = new ArrayList<DescriptorDictionary.Entry>();
+        byte[] first = marshaller.marshallObject(MethodCall.getMethodCall(method, new Object[] { "foo" }, null),
+                                                 writer,
+                                                 definitions);
+        writer.acknowledge(null, IOException.class, definitions);
+        byte[] second = marshaller.marshallObject(MethodCall.getMethodCall(method, new Object[] { "bar" }, null),
+                                                  writer,
+                                                  new ArrayList<DescriptorDictionary.Entry>());
+        assertTrue(second.length + " >= " + first.length, second.length < first.length);
+
+        for (byte[] bytes : new byte[][] { first, second }) {
+            MethodCall read = (MethodCall) marshaller.unmarshallObject(bytes, readers);
+            assertEquals(method, read.getReifiedMethod());
+        }
+    }
+
+    static public class Payload implements Serializable {
+        private final int value;
+
+        public Payload(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Payload && ((Payload) obj).value == this.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.value;
+        }
+    }
+}
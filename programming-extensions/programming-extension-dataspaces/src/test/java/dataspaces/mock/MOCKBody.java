@@ -26,6 +26,7 @@
 package dataspaces.mock;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.ProActiveException;
@@ -205,6 +206,9 @@ public class MOCKBody implements Body {
     public void receiveRequest(Request request) throws IOException {
     }
 
+    public void receiveRequests(List<Request> requests) throws IOException {
+    }
+
     @Deprecated
     public void register(String url) throws ProActiveException {
 
@@ -32,6 +32,7 @@ import java.util.List;
 
 import org.objectweb.proactive.Body;
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.core.body.UniversalBody;
 import org.objectweb.proactive.core.descriptor.data.ProActiveDescriptorInternal;
 import org.objectweb.proactive.core.descriptor.data.VirtualNodeInternal;
@@ -251,4 +252,9 @@ public class MOCKProActiveRuntime implements ProActiveRuntime {
         return null;
     }
 
+    @Override
+    public List<Integer> receiveHeartbeats(List<UniqueID> bodyIds) {
+        return null;
+    }
+
 }
@@ -28,6 +28,7 @@ package org.objectweb.proactive.extensions.pamr.client;
 import java.net.URI;
 
 import org.objectweb.proactive.core.runtime.ProActiveRuntime;
+import org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary;
 import org.objectweb.proactive.extensions.pamr.exceptions.PAMRException;
 import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
 import org.objectweb.proactive.extensions.pamr.protocol.message.DataRequestMessage;
@@ -90,6 +91,31 @@ public interface Agent {
      */
     public void sendReply(DataRequestMessage request, byte[] data) throws PAMRException;
 
+    /** Return the dictionary of the messages sent to a remote {@link Agent}
+     *
+     * @param targetID
+     *            the remote {@link AgentID}
+     */
+    public DescriptorDictionary.Writer getDictionary(AgentID targetID);
+
+    /** Replace the dictionary of the messages sent to a remote {@link Agent}
+     *
+     * Nothing is done if the current dictionary is not the given one.
+     *
+     * @param targetID
+     *            the remote {@link AgentID}
+     * @param dictionary
+     *            the dictionary the remote agent has no definitions for
+     */
+    public void resetDictionary(AgentID targetID, DescriptorDictionary.Writer dictionary);
+
+    /** Return the dictionaries of the messages received from a remote {@link Agent}
+     *
+     * @param senderID
+     *            the remote {@link AgentID}
+     */
+    public DescriptorDictionary.Readers getDictionaries(AgentID senderID);
+
     /** Return the local Agent ID */
     public AgentID getAgentID();
 
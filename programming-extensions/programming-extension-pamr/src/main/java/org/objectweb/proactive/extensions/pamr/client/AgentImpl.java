@@ -36,6 +36,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +48,7 @@ import javax.management.ObjectName;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.ProActiveException;
+import org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary;
 import org.objectweb.proactive.core.util.log.Loggers;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.pamr.PAMRConfig;
@@ -124,6 +126,12 @@ public class AgentImpl implements Agent, AgentImplMBean {
 
     private ExecutorService heartbeatExecutor = Executors.newSingleThreadExecutor();
 
+    /** Dictionaries of the messages sent to each remote agent */
+    final private ConcurrentHashMap<AgentID, DescriptorDictionary.Writer> outDictionaries;
+
+    /** Dictionaries of the messages received from each remote agent */
+    final private ConcurrentHashMap<AgentID, DescriptorDictionary.Readers> inDictionaries;
+
     /**
      * Create a routing agent
      * 
@@ -178,6 +186,8 @@ public class AgentImpl implements Agent, AgentImplMBean {
         this.mailboxes = new WaitingRoom();
         this.requestIDGenerator = new AtomicLong(0);
         this.failedTunnels = new LinkedList<Tunnel>();
+        this.outDictionaries = new ConcurrentHashMap<AgentID, DescriptorDictionary.Writer>();
+        this.inDictionaries = new ConcurrentHashMap<AgentID, DescriptorDictionary.Readers>();
 
         this.socketFactory = socketFactory;
         this.agentID = agentId; // Check the agentId number
@@ -424,6 +434,10 @@ public class AgentImpl implements Agent, AgentImplMBean {
             this.t.shutdown();
             this.t = null;
             this.te = cause;
+
+            // The other agents forget our definitions when the router broadcasts our disconnection
+            this.outDictionaries.clear();
+            this.inDictionaries.clear();
         }
 
     }
@@ -470,6 +484,34 @@ public class AgentImpl implements Agent, AgentImplMBean {
         return response;
     }
 
+    public DescriptorDictionary.Writer getDictionary(AgentID targetID) {
+        DescriptorDictionary.Writer dictionary = this.outDictionaries.get(targetID);
+        if (dictionary == null) {
+            DescriptorDictionary.Writer newDictionary = new DescriptorDictionary.Writer();
+            dictionary = this.outDictionaries.putIfAbsent(targetID, newDictionary);
+            if (dictionary == null) {
+                dictionary = newDictionary;
+            }
+        }
+        return dictionary;
+    }
+
+    public void resetDictionary(AgentID targetID, DescriptorDictionary.Writer dictionary) {
+        this.outDictionaries.replace(targetID, dictionary, new DescriptorDictionary.Writer());
+    }
+
+    public DescriptorDictionary.Readers getDictionaries(AgentID senderID) {
+        DescriptorDictionary.Readers dictionaries = this.inDictionaries.get(senderID);
+        if (dictionaries == null) {
+            DescriptorDictionary.Readers newDictionaries = new DescriptorDictionary.Readers();
+            dictionaries = this.inDictionaries.putIfAbsent(senderID, newDictionaries);
+            if (dictionaries == null) {
+                dictionaries = newDictionaries;
+            }
+        }
+        return dictionaries;
+    }
+
     public void sendReply(DataRequestMessage request, byte[] data) throws PAMRException {
         DataReplyMessage reply = new DataReplyMessage(this.getAgentID(),
                                                       request.getSender(),
@@ -851,6 +893,14 @@ public class AgentImpl implements Agent, AgentImplMBean {
                      * unlock all thread that are waiting a response from this agent
                      */
                     mailboxes.unlockDueToRemoteAgentDisconnection(error.getSender());
+
+                    // A new agent with the same ID would not know our definitions, but the
+                    // dictionary of the epoch it started may already be in use
+                    outDictionaries.remove(error.getSender());
+                    DescriptorDictionary.Readers dictionaries = inDictionaries.get(error.getSender());
+                    if ((dictionaries != null) && dictionaries.dropDisconnected()) {
+                        inDictionaries.remove(error.getSender(), dictionaries);
+                    }
                     break;
                 case ERR_NOT_CONNECTED_RCPT:
                 /*
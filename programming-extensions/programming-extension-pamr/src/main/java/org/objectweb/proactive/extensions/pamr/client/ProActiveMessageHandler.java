@@ -115,7 +115,8 @@ public class ProActiveMessageHandler implements MessageHandler {
 
                 PAMRMessage message;
                 try {
-                    message = (PAMRMessage) this.marshaller.unmarshallObject(_toProcess.getData());
+                    message = (PAMRMessage) this.marshaller.unmarshallObject(_toProcess.getData(),
+                                                                         agent.getDictionaries(_toProcess.getSender()));
                 } catch (Throwable t) {
                     PAMRException e = new PAMRException("Failed to unmarshall incoming message on " +
                                                         this.agent.getAgentID() + "for " + this._toProcess, t);
@@ -28,15 +28,20 @@ package org.objectweb.proactive.extensions.pamr.remoteobject.message;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.exceptions.IOException6;
 import org.objectweb.proactive.core.runtime.ProActiveRuntimeImpl;
+import org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary;
 import org.objectweb.proactive.core.util.converter.remote.ProActiveMarshaller;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.pamr.PAMRConfig;
 import org.objectweb.proactive.extensions.pamr.client.Agent;
 import org.objectweb.proactive.extensions.pamr.exceptions.PAMRException;
+import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
 
 
 /** Any kind of routed message.
@@ -96,10 +101,20 @@ public abstract class PAMRMessage implements Serializable {
      */
     public final void send() throws IOException {
         try {
-            byte[] bytes = this.marshaller.marshallObject(this);
-            byte[] response = agent.sendMsg(this.uri, bytes, isAsynchronous);
-            if (!isAsynchronous) {
-                this.returnedObject = this.marshaller.unmarshallObject(response);
+            if (!CentralPAPropertyRepository.PA_CONVERTER_DESCRIPTOR_DICTIONARY.isTrue() || isAsynchronous) {
+                // An asynchronous message has no response: if the recipient has lost the
+                // definitions it references, it could not be sent again. Its descriptors are
+                // written inline instead.
+                send(null, null);
+                return;
+            }
+
+            AgentID targetID = new AgentID(Long.parseLong(this.uri.getHost()));
+            DescriptorDictionary.Writer dictionary = agent.getDictionary(targetID);
+            if (send(targetID, dictionary)) {
+                // the recipient has lost the definitions of this dictionary
+                agent.resetDictionary(targetID, dictionary);
+                send(targetID, agent.getDictionary(targetID));
             }
         } catch (PAMRException e) {
             if (logger.isDebugEnabled()) {
@@ -118,4 +133,22 @@ public abstract class PAMRMessage implements Serializable {
             throw new IOException6("Failed to deserialize PAMR reply (dest=" + this.uri + ")", e);
         }
     }
+
+    /** Send the message to its recipient, using a dictionary if not null
+     *
+     * @return true if the message must be sent again with a new dictionary
+     */
+    private boolean send(AgentID targetID, DescriptorDictionary.Writer dictionary)
+            throws PAMRException, IOException, ClassNotFoundException {
+        List<DescriptorDictionary.Entry> definitions = new ArrayList<DescriptorDictionary.Entry>();
+        byte[] bytes = this.marshaller.marshallObject(this, dictionary, definitions);
+        byte[] response = agent.sendMsg(this.uri, bytes, isAsynchronous);
+        if (!isAsynchronous) {
+            this.returnedObject = this.marshaller.unmarshallObject(response);
+            if (dictionary != null) {
+                return dictionary.acknowledge(this.returnedObject, PAMRException.class, definitions);
+            }
+        }
+        return false;
+    }
 }
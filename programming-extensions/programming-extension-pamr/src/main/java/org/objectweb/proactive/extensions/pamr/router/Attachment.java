@@ -30,7 +30,12 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -53,6 +58,18 @@ import org.objectweb.proactive.extensions.pamr.PAMRConfig;
  * associated to the current tunnel.</li>
  * </ul>
  * 
+ * Writes never block: what cannot be written at once is queued and flushed by 
+ * the {@link SelectorLoop} owning the connection when the channel becomes writable.
+ * A slow client thus cannot stall the workers forwarding messages to it. A client whose
+ * queue grows beyond {@link RouterConfig#setMaxQueuedBytes(long)} is disconnected.
+ * 
+ * A large data message can also be forwarded while it is being received, see 
+ * {@link #openStream(BufferPool, Attachment)}. Its chunks are written in order and no other 
+ * message is written before its last chunk. Its chunks are queued as the other messages, so
+ * the sender keeps being read while the client lags a little: only once 
+ * {@link RouterConfig#setMaxQueuedBytes(long)} bytes are queued for the client is the sender
+ * not read anymore, until half of them have been written.
+ * 
  * @since ProActive 4.1.0
  */
 public class Attachment {
@@ -80,12 +97,45 @@ public class Attachment {
 
     final private AtomicBoolean dtored;
 
+    /** The selector loop owning the connection, null if writes must block */
+    final private SelectorLoop selectorLoop;
+
+    /** The key of the connection in the selector of {@link #selectorLoop} */
+    final private SelectionKey selectionKey;
+
+    /** Messages waiting for the channel to be writable, guarded by itself */
+    final private Queue<PendingWrite> writeQueue;
+
+    /** Set once the queued messages have been drained, guarded by {@link #writeQueue} */
+    private boolean closed;
+
+    /** Number of bytes in {@link #writeQueue} not written yet, guarded by {@link #writeQueue} */
+    private long queuedBytes;
+
+    /** Number of forwarded messages whose sender is not read, guarded by {@link #writeQueue} */
+    private int pausedStreams;
+
     volatile private String agentHostname;
 
     public Attachment(RouterImpl router, SocketChannel socketChannel) {
+        this(router, socketChannel, null, null);
+    }
+
+    Attachment(RouterImpl router, SelectionKey selectionKey, SelectorLoop selectorLoop) {
+        this(router, (SocketChannel) selectionKey.channel(), selectionKey, selectorLoop);
+    }
+
+    private Attachment(RouterImpl router, SocketChannel socketChannel, SelectionKey selectionKey,
+            SelectorLoop selectorLoop) {
         this.attachmentId = AttachmentIdGenerator.getId();
         this.assembler = new MessageAssembler(router, this);
         this.socketChannel = socketChannel;
+        this.selectionKey = selectionKey;
+        this.selectorLoop = selectorLoop;
+        this.writeQueue = new ArrayDeque<PendingWrite>();
+        this.closed = false;
+        this.queuedBytes = 0;
+        this.pausedStreams = 0;
         this.client = null;
         this.dtored = new AtomicBoolean(false);
     }
@@ -185,18 +235,425 @@ public class Attachment {
 
     }
 
+    /** Send a message to the client
+     * 
+     * The whole buffer is sent, whatever its position. The message is written at once if
+     * possible, otherwise it is queued and written when the channel becomes writable. 
+     * If the connection fails once the message has been queued, the message is lost.
+     * 
+     * @param byteBuffer the message
+     * @throws IOException if the connection failed
+     */
     public void send(ByteBuffer byteBuffer) throws IOException {
+        send(byteBuffer, false);
+    }
+
+    /** Send a message to the client
+     * 
+     * @param byteBuffer the message
+     * @param mustBeCached if the message is queued and the connection fails before it has 
+     *  been sent, it is handed back to the client by {@link #drainPendingWrites()} 
+     * @throws IOException if the connection failed, or if too many bytes are already queued
+     *  for this client, which is then disconnected
+     */
+    void send(ByteBuffer byteBuffer, boolean mustBeCached) throws IOException {
+        if (this.selectorLoop == null) {
+            blockingSend(byteBuffer);
+            return;
+        }
+
+        synchronized (this.writeQueue) {
+            if (this.closed) {
+                throw new IOException("Connection closed");
+            }
+
+            byteBuffer.clear();
+            if (this.writeQueue.isEmpty()) {
+                while (byteBuffer.hasRemaining() && this.socketChannel.write(byteBuffer) > 0) {
+                    // write as much as the socket accepts
+                }
+
+                if (!byteBuffer.hasRemaining()) {
+                    logSent(byteBuffer);
+                    return;
+                }
+
+                this.selectorLoop.requestWrite(this);
+            }
+
+            checkQueuedBytes(byteBuffer.remaining());
+            this.writeQueue.add(new BufferWrite(byteBuffer.duplicate(), mustBeCached));
+        }
+    }
+
+    /** Account for bytes about to be queued, the caller must hold the lock on {@link #writeQueue}
+     * 
+     * @throws IOException if the queue would exceed its maximum size while not empty. The
+     *  connection is then closed by the selector loop and no other message is accepted.
+     */
+    private void checkQueuedBytes(long bytes) throws IOException {
+        if (this.queuedBytes > 0 && this.queuedBytes + bytes > this.selectorLoop.getMaxQueuedBytes()) {
+            String cause = "too many bytes queued (" + this.queuedBytes + "), the client does not read its messages";
+            logger.warn("Disconnecting " + this + ": " + cause);
+            this.closed = true;
+            this.selectorLoop.requestDisconnect(this, cause);
+            throw new IOException("Connection closed: " + cause);
+        }
+
+        this.queuedBytes += bytes;
+    }
+
+    /** Start forwarding a message to the client while it is being received
+     * 
+     * The chunks of the message are given to {@link StreamWrite#forward(ByteBuffer, boolean)}.
+     * 
+     * @param pool the pool the chunks are released to once written
+     * @param source the attachment of the sender
+     * @return the message to forward
+     * @throws IOException if the connection failed
+     */
+    StreamWrite openStream(BufferPool pool, Attachment source) throws IOException {
+        synchronized (this.writeQueue) {
+            if (this.closed || this.selectorLoop == null) {
+                throw new IOException("Connection closed");
+            }
+
+            StreamWrite stream = new StreamWrite(this, pool, source);
+            this.writeQueue.add(stream);
+            return stream;
+        }
+    }
+
+    /** Forward the next chunk of a message
+     * 
+     * @param stream the message, as returned by {@link #openStream(BufferPool, Attachment)}
+     * @param chunk the chunk ready to be read, owned by the attachment from now on
+     * @param last true if this is the last chunk of the message
+     * @return true if too many bytes are queued for the client: the sender must not be read until 
+     *  {@link SelectorLoop#requestRead(Attachment)} is called for it
+     * @throws IOException if the connection failed, the chunk has been released
+     */
+    boolean forward(StreamWrite stream, ByteBuffer chunk, boolean last) throws IOException {
+        synchronized (this.writeQueue) {
+            if (this.closed) {
+                stream.pool.release(chunk);
+                throw new IOException("Connection closed");
+            }
+
+            this.queuedBytes += chunk.remaining();
+            stream.chunks.add(chunk);
+            stream.complete = last;
+            stream.lastProgress = System.currentTimeMillis();
+            if (!flushQueue()) {
+                this.selectorLoop.requestWrite(this);
+            }
+
+            if (!stream.paused && this.queuedBytes >= this.selectorLoop.getMaxQueuedBytes()) {
+                stream.paused = true;
+                this.pausedStreams++;
+            }
+            return stream.paused;
+        }
+    }
+
+    /** Give up forwarding a message which made no progress for too long
+     * 
+     * If the sender of the message is not read because this client lags behind, this client
+     * does not read its messages and is disconnected by its selector loop. Otherwise the 
+     * sender stalled, see {@link #abortStream(StreamWrite)}.
+     * 
+     * @param stream the message
+     */
+    void streamTimedOut(StreamWrite stream) {
+        synchronized (this.writeQueue) {
+            if (!stream.paused) {
+                // The stream is still queued, the lock is reentrant
+                abortStream(stream);
+                return;
+            }
+
+            this.closed = true;
+        }
+
+        String cause = "a message forwarded to it made no progress, the client does not read its messages";
+        logger.warn("Disconnecting " + this + ": " + cause);
+        this.selectorLoop.requestDisconnect(this, cause);
+    }
+
+    /** Give up forwarding a message whose sender disconnected or stalled
+     * 
+     * If part of the message has already been written, the stream of the client is corrupted
+     * and the connection is closed by its selector loop. The client will reconnect.
+     * 
+     * @param stream the message
+     */
+    void abortStream(StreamWrite stream) {
+        synchronized (this.writeQueue) {
+            if (!this.writeQueue.remove(stream)) {
+                return;
+            }
+            this.queuedBytes -= stream.getBufferedBytes();
+            stream.releaseChunks();
+
+            if (!stream.started) {
+                // The messages queued behind can be written
+                if (!this.writeQueue.isEmpty()) {
+                    this.selectorLoop.requestWrite(this);
+                }
+                return;
+            }
+
+            this.closed = true;
+        }
+
+        logger.debug("Closing " + this + ": a message forwarded to it has been interrupted");
+        this.selectorLoop.requestDisconnect(this, "a message forwarded to it has been interrupted");
+    }
+
+    private void blockingSend(ByteBuffer byteBuffer) throws IOException {
         synchronized (this.socketChannel) {
             byteBuffer.clear();
             while (byteBuffer.remaining() > 0) {
-                int bytes = this.socketChannel.write(byteBuffer);
+                this.socketChannel.write(byteBuffer);
+            }
+            logSent(byteBuffer);
+        }
+    }
+
+    private void logSent(ByteBuffer byteBuffer) {
+        if (logger.isDebugEnabled()) {
+            String dstClient = this.client == null ? "unknown" : client.getAgentId().toString();
+            logger.debug("Sent a " + byteBuffer.limit() + " bytes message to client " + dstClient + " with " +
+                         this.socketChannel.socket());
+        }
+    }
+
+    /** Write the queued messages, called by the selector loop when the channel is writable
+     * 
+     * @return true if all the queued messages have been written
+     * @throws IOException if the connection failed
+     */
+    boolean flush() throws IOException {
+        synchronized (this.writeQueue) {
+            return flushQueue();
+        }
+    }
+
+    /** Write the queued messages, the caller must hold the lock on {@link #writeQueue}
+     * 
+     * @return true if nothing more can be written until a new message or chunk is queued
+     */
+    private boolean flushQueue() throws IOException {
+        PendingWrite pending;
+        while ((pending = this.writeQueue.peek()) != null) {
+            this.queuedBytes -= pending.write(this.socketChannel);
+            if (this.pausedStreams > 0 && this.queuedBytes <= this.selectorLoop.getMaxQueuedBytes() / 2) {
+                resumeStreams();
+            }
+            if (!pending.isDone()) {
+                // Either the socket is full or a forwarded message waits for its next chunk
+                return !pending.hasBufferedData();
+            }
+
+            this.writeQueue.poll();
+        }
+        return true;
+    }
+
+    /** Read again the senders of the forwarded messages, the caller must hold the lock on {@link #writeQueue} */
+    private void resumeStreams() {
+        for (PendingWrite pending : this.writeQueue) {
+            if (pending instanceof StreamWrite) {
+                ((StreamWrite) pending).resumeSource();
+            }
+        }
+    }
+
+    /** Discard the queued messages and refuse any new one
+     * 
+     * @return the discarded messages that must be sent again on reconnection
+     */
+    List<ByteBuffer> drainPendingWrites() {
+        synchronized (this.writeQueue) {
+            this.closed = true;
+
+            List<ByteBuffer> toCache = new ArrayList<ByteBuffer>();
+            for (PendingWrite pending : this.writeQueue) {
+                if (pending instanceof BufferWrite) {
+                    BufferWrite bufferWrite = (BufferWrite) pending;
+                    if (bufferWrite.mustBeCached) {
+                        toCache.add(bufferWrite.buffer);
+                    }
+                } else {
+                    ((StreamWrite) pending).releaseChunks();
+                }
+            }
+            this.writeQueue.clear();
+            this.queuedBytes = 0;
+            return toCache;
+        }
+    }
+
+    SelectorLoop getSelectorLoop() {
+        return this.selectorLoop;
+    }
+
+    SelectionKey getSelectionKey() {
+        return this.selectionKey;
+    }
+
+    /** A message, or a part of it, waiting to be written */
+    private static abstract class PendingWrite {
+
+        /** Write as much as possible
+         * 
+         * @return the number of bytes written
+         */
+        abstract long write(SocketChannel socketChannel) throws IOException;
+
+        /** @return true once the whole message has been written */
+        abstract boolean isDone();
+
+        /** @return true if some data is ready to be written */
+        abstract boolean hasBufferedData();
+    }
+
+    /** A message fully received */
+    private static class BufferWrite extends PendingWrite {
+        final ByteBuffer buffer;
+
+        final boolean mustBeCached;
+
+        BufferWrite(ByteBuffer buffer, boolean mustBeCached) {
+            this.buffer = buffer;
+            this.mustBeCached = mustBeCached;
+        }
+
+        @Override
+        long write(SocketChannel socketChannel) throws IOException {
+            return socketChannel.write(this.buffer);
+        }
 
-                if (logger.isDebugEnabled()) {
-                    String dstClient = this.client == null ? "unknown" : client.getAgentId().toString();
-                    String remaining = byteBuffer.remaining() > 0 ? byteBuffer.remaining() + " remaining to send" : "";
-                    logger.debug("Sent a " + bytes + " bytes message to client " + dstClient + " with " +
-                                 this.socketChannel.socket() + ". " + remaining);
+        @Override
+        boolean isDone() {
+            return !this.buffer.hasRemaining();
+        }
+
+        @Override
+        boolean hasBufferedData() {
+            return true;
+        }
+    }
+
+    /** A message forwarded while it is being received 
+     * 
+     * Guarded by the lock on the {@link #writeQueue} of the recipient.
+     */
+    static class StreamWrite extends PendingWrite {
+        final private Attachment attachment;
+
+        final private BufferPool pool;
+
+        /** The attachment of the sender */
+        final private Attachment source;
+
+        /** True while the sender is not read because too many bytes are queued for the recipient */
+        private boolean paused;
+
+        /** Last time a chunk was received or written */
+        volatile private long lastProgress;
+
+        /** The received chunks not written yet */
+        final private Queue<ByteBuffer> chunks;
+
+        /** True once the last chunk has been received */
+        private boolean complete;
+
+        /** True once some bytes have been written */
+        private boolean started;
+
+        StreamWrite(Attachment attachment, BufferPool pool, Attachment source) {
+            this.attachment = attachment;
+            this.pool = pool;
+            this.source = source;
+            this.paused = false;
+            this.lastProgress = System.currentTimeMillis();
+            this.chunks = new ArrayDeque<ByteBuffer>();
+            this.complete = false;
+            this.started = false;
+        }
+
+        @Override
+        long write(SocketChannel socketChannel) throws IOException {
+            long written = 0;
+            ByteBuffer chunk;
+            while ((chunk = this.chunks.peek()) != null) {
+                written += socketChannel.write(chunk);
+                if (chunk.hasRemaining()) {
+                    break;
                 }
+
+                this.chunks.poll();
+                this.pool.release(chunk);
+            }
+
+            if (written > 0) {
+                this.started = true;
+                this.lastProgress = System.currentTimeMillis();
+            }
+            return written;
+        }
+
+        @Override
+        boolean isDone() {
+            return this.complete && this.chunks.isEmpty();
+        }
+
+        @Override
+        boolean hasBufferedData() {
+            return !this.chunks.isEmpty();
+        }
+
+        /** Forward the next chunk, see {@link Attachment#forward(StreamWrite, ByteBuffer, boolean)} */
+        boolean forward(ByteBuffer chunk, boolean last) throws IOException {
+            return this.attachment.forward(this, chunk, last);
+        }
+
+        long getLastProgress() {
+            return this.lastProgress;
+        }
+
+        /** Give up forwarding, see {@link Attachment#abortStream(StreamWrite)} */
+        void abort() {
+            this.attachment.abortStream(this);
+        }
+
+        /** Give up forwarding after a timeout, see {@link Attachment#streamTimedOut(StreamWrite)} */
+        void timedOut() {
+            this.attachment.streamTimedOut(this);
+        }
+
+        long getBufferedBytes() {
+            long bytes = 0;
+            for (ByteBuffer chunk : this.chunks) {
+                bytes += chunk.remaining();
+            }
+            return bytes;
+        }
+
+        void releaseChunks() {
+            ByteBuffer chunk;
+            while ((chunk = this.chunks.poll()) != null) {
+                this.pool.release(chunk);
+            }
+            resumeSource();
+        }
+
+        private void resumeSource() {
+            if (this.paused) {
+                this.paused = false;
+                this.attachment.pausedStreams--;
+                this.source.getSelectorLoop().requestRead(this.source);
             }
         }
     }
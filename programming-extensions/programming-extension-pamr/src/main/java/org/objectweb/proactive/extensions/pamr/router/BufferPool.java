@@ -0,0 +1,86 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.pamr.router;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/** A pool of direct buffers of a given size
+ * 
+ * Buffers can be taken and released by any thread. When the pool is empty a new buffer is 
+ * allocated, when it is full a released buffer is left to the garbage collector.
+ * 
+ * @since ProActive 4.1.0
+ */
+class BufferPool {
+    final private int bufferSize;
+
+    final private int maxPooled;
+
+    final private Queue<ByteBuffer> buffers;
+
+    /** Number of buffers in {@link #buffers}, maintained apart since size() is not constant time */
+    final private AtomicInteger pooled;
+
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+        this.pooled = new AtomicInteger(0);
+    }
+
+    /** Take a cleared buffer from the pool */
+    ByteBuffer get() {
+        ByteBuffer buffer = this.buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(this.bufferSize);
+        }
+
+        this.pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /** Give back a buffer, which must not be used anymore by the caller */
+    void release(ByteBuffer buffer) {
+        if (this.pooled.incrementAndGet() <= this.maxPooled) {
+            this.buffers.add(buffer);
+        } else {
+            this.pooled.decrementAndGet();
+        }
+    }
+
+    int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    int getPooledBuffers() {
+        return this.pooled.get();
+    }
+}
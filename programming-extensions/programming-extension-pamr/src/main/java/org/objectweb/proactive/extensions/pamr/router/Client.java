@@ -27,6 +27,7 @@ package org.objectweb.proactive.extensions.pamr.router;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
@@ -175,7 +176,7 @@ public class Client {
         synchronized (this.attachment_lock) {
             try {
                 if (this.attachment != null) {
-                    attachment.send(message);
+                    attachment.send(message, true);
                 } else {
                     this.pendingMessage.add(message);
                 }
@@ -213,6 +214,40 @@ public class Client {
         this.sendMessageOrCache(ByteBuffer.wrap(message));
     }
 
+    /** Start forwarding a message to this client while it is being received
+     * 
+     * @param pool the pool the chunks of the message are released to
+     * @param source the attachment of the sender
+     * @return the message to forward, or null if the client is not connected
+     */
+    Attachment.StreamWrite openStream(BufferPool pool, Attachment source) {
+        synchronized (this.attachment_lock) {
+            if (this.attachment == null) {
+                return null;
+            }
+
+            try {
+                return this.attachment.openStream(pool, source);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /** Put back messages that could not be sent before the tunnel failed
+     * 
+     * They are sent right away if the client has already reconnected, otherwise 
+     * when it reconnects.
+     * 
+     * @param messages the messages
+     */
+    public void cacheMessages(List<ByteBuffer> messages) {
+        if (!messages.isEmpty()) {
+            this.pendingMessage.addAll(messages);
+            this.sendPendingMessage();
+        }
+    }
+
     /** Discard the current attachment 
      * 
      * Must be called when an IOException is raised by a read or write operation on the 
@@ -275,14 +310,15 @@ public class Client {
          */
         synchronized (this.attachment_lock) {
             ByteBuffer msg;
-            while ((msg = this.pendingMessage.peek()) != null) {
+            while (this.attachment != null && (msg = this.pendingMessage.peek()) != null) {
                 try {
-                    this.sendMessage(msg);
+                    // Cached again if the tunnel fails while the message is queued
+                    this.attachment.send(msg, true);
                     this.pendingMessage.remove(msg);
-                } catch (Exception e) {
-                    // The tunnel failed again and the attachment has been set
-                    // to null. Nothing we can do. This method will be called again on
-                    // client connection
+                } catch (IOException e) {
+                    // The tunnel failed again. Nothing we can do. This method will be 
+                    // called again on client connection
+                    this.discardAttachment("Exception caught while sending a message: " + e.getMessage());
                     break;
                 }
             }
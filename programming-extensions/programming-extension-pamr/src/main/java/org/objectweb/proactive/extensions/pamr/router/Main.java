@@ -73,6 +73,12 @@ public class Main {
 
     public static final String NB_PINGER_THREADS_OPTION = "N";
 
+    public static final String NB_SELECTORS_OPTION = "s";
+
+    public static final String MAX_QUEUED_BYTES_OPTION = "q";
+
+    public static final String STREAMING_TIMEOUT_OPTION = "T";
+
     public static final String CONFIG_FILE_OPTION = "f";
 
     public static final String VERBOSE_MODE = "v";
@@ -203,6 +209,36 @@ public class Main {
             }
         }
 
+        arg = line.getOptionValue(NB_SELECTORS_OPTION);
+        if (arg != null) {
+            try {
+                int i = new Integer(arg);
+                config.setNbSelectorThreads(i);
+            } catch (IllegalArgumentException e) {
+                printHelpAndExit("Invalid selector thread number: " + arg, options);
+            }
+        }
+
+        arg = line.getOptionValue(MAX_QUEUED_BYTES_OPTION);
+        if (arg != null) {
+            try {
+                long l = Long.parseLong(arg);
+                config.setMaxQueuedBytes(l);
+            } catch (IllegalArgumentException e) {
+                printHelpAndExit("Invalid maximum number of queued bytes: " + arg, options);
+            }
+        }
+
+        arg = line.getOptionValue(STREAMING_TIMEOUT_OPTION);
+        if (arg != null) {
+            try {
+                int i = new Integer(arg);
+                config.setStreamingTimeout(i);
+            } catch (IllegalArgumentException e) {
+                printHelpAndExit("Invalid streaming timeout: " + arg, options);
+            }
+        }
+
         arg = line.getOptionValue(CONFIG_FILE_OPTION);
         if (arg == null) {
             arg = defaultConfigFile;
@@ -268,11 +304,12 @@ public class Main {
         error |= line.hasOption(IP_V6_OPTION);
         error |= line.hasOption(NB_WORKERS_OPTION);
         error |= line.hasOption(NB_PINGER_THREADS_OPTION);
+        error |= line.hasOption(NB_SELECTORS_OPTION);
         error |= line.hasOption(CONFIG_FILE_OPTION);
         error |= line.hasOption(HEARTBEAT_OPTION);
         error |= line.hasOption(EVICT_TIMEOUT_OPTION);
         if (error) {
-            printHelpAndExit("Options -4 -6 -w -N -f -t -e are not compatible with -r", options);
+            printHelpAndExit("Options -4 -6 -w -N -s -f -t -e are not compatible with -r", options);
         }
 
         int port = -1;
@@ -357,6 +394,18 @@ public class Main {
                           "nbPingers",
                           true,
                           "Size of the agent pinger thread pool. Also used as the maximum size of the worker thread pool");
+        options.addOption(NB_SELECTORS_OPTION,
+                          "nbSelectors",
+                          true,
+                          "Number of selector threads reading and writing the connections");
+        options.addOption(MAX_QUEUED_BYTES_OPTION,
+                          "maxQueuedBytes",
+                          true,
+                          "Maximum number of bytes queued for a client before it is disconnected (default 64MB)");
+        options.addOption(STREAMING_TIMEOUT_OPTION,
+                          "streamingTimeout",
+                          true,
+                          "Time in milliseconds after which a forwarded message making no progress is given up (default 60000)");
         options.addOption(CONFIG_FILE_OPTION, "configFile", true, "configuration file");
         options.addOption(HELP_OPTION, "help", false, "Print help message");
         options.addOption(VERBOSE_MODE, "verbose", false, "Verbose mode. Print clients (dis)connections");
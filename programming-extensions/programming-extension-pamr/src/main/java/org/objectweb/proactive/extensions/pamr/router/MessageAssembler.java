@@ -25,6 +25,7 @@
  */
 package org.objectweb.proactive.extensions.pamr.router;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 
@@ -32,7 +33,13 @@ import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.pamr.PAMRConfig;
 import org.objectweb.proactive.extensions.pamr.exceptions.MalformedMessageException;
+import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
+import org.objectweb.proactive.extensions.pamr.protocol.TypeHelper;
+import org.objectweb.proactive.extensions.pamr.protocol.message.DataMessage;
+import org.objectweb.proactive.extensions.pamr.protocol.message.ErrorMessage;
+import org.objectweb.proactive.extensions.pamr.protocol.message.ErrorMessage.ErrorType;
 import org.objectweb.proactive.extensions.pamr.protocol.message.Message;
+import org.objectweb.proactive.extensions.pamr.protocol.message.Message.MessageType;
 
 
 /** Reassemble messages from data chunks
@@ -45,6 +52,15 @@ import org.objectweb.proactive.extensions.pamr.protocol.message.Message;
  * If an invalid message is detected (wrong message length or protocol id) the socket 
  * channel is closed
  * 
+ * Large data messages are not reassembled. Once their header is known, and if the 
+ * recipient is connected, their bytes are forwarded to the recipient while they are
+ * received, in chunks taken from the {@link BufferPool} of the {@link SelectorLoop}. 
+ * When the recipient lags behind, the assembler asks not to be fed until it catches up, see
+ * {@link #isPaused()}. All the other messages are reassembled and handled by the processors.
+ * 
+ * An assembler is only fed by the {@link SelectorLoop} owning the connection, so it 
+ * is not thread safe.
+ * 
  * @since ProActive 4.1.0
  */
 public class MessageAssembler {
@@ -54,6 +70,13 @@ public class MessageAssembler {
 
     final private Attachment attachment;
 
+    /** Data messages at least this long are forwarded while being received */
+    final static int STREAMING_THRESHOLD = 65536;
+
+    /** Length of the header of a data message */
+    final static private int DATA_HEADER_LENGTH = Message.Field.getTotalOffset() +
+                                                  DataMessage.Field.getTotalOffset();
+
     /** The current incomplete message
      * 
      * null when the length and the protocol id of the current message are
@@ -67,15 +90,40 @@ public class MessageAssembler {
      */
     private LengthAndProto lengthAndProto;
 
+    /** The header of the current large message, until the recipient is known */
+    final private byte[] header;
+
+    /** Number of bytes of the header read so far, -1 if not reading a header */
+    private int headerLength;
+
+    /** The current forwarded message, null if none or if its bytes are skipped */
+    private Attachment.StreamWrite stream;
+
+    /** The chunk being filled for the current forwarded message */
+    private ByteBuffer chunk;
+
+    /** Number of bytes of the current forwarded or skipped message still to be received */
+    private int streamRemaining;
+
+    /** True if the recipient of the current forwarded message lags behind */
+    private boolean paused;
+
     public MessageAssembler(RouterInternal router, Attachment attachment) {
         this.router = router;
         this.attachment = attachment;
 
         this.currentMessage = null;
         this.lengthAndProto = null;
+
+        this.header = new byte[DATA_HEADER_LENGTH];
+        this.headerLength = -1;
+        this.stream = null;
+        this.chunk = null;
+        this.streamRemaining = 0;
+        this.paused = false;
     }
 
-    synchronized public void pushBuffer(ByteBuffer buffer) throws MalformedMessageException {
+    public void pushBuffer(ByteBuffer buffer) throws MalformedMessageException {
         // PROACTIVE-869: Update last seen to avoid disconnection due to large message
 
         Client client = this.attachment.getClient();
@@ -83,8 +131,27 @@ public class MessageAssembler {
             client.updateLastSeen();
         }
 
+        this.paused = false;
         while (buffer.remaining() != 0) {
 
+            if (this.streamRemaining > 0) {
+                pushStreamed(buffer);
+                continue;
+            }
+
+            if (this.currentMessage == null && this.headerLength >= 0) {
+                int toCopy = Math.min(DATA_HEADER_LENGTH - this.headerLength, buffer.remaining());
+                buffer.get(this.header, this.headerLength, toCopy);
+                this.headerLength += toCopy;
+
+                if (this.headerLength < DATA_HEADER_LENGTH) {
+                    break;
+                }
+
+                startLargeMessage();
+                continue;
+            }
+
             if (this.currentMessage == null) {
 
                 if (this.lengthAndProto == null) {
@@ -111,6 +178,15 @@ public class MessageAssembler {
                         throw new MalformedMessageException("Invalid message length");
                     }
 
+                    if (l >= STREAMING_THRESHOLD && this.attachment.getSelectorLoop() != null) {
+                        // Wait for the header to decide whether the message is forwarded
+                        TypeHelper.intToByteArray(l, this.header, Message.Field.LENGTH.getOffset());
+                        TypeHelper.intToByteArray(proto, this.header, Message.Field.PROTO_ID.getOffset());
+                        this.headerLength = (int) (Message.Field.LENGTH.getLength() +
+                                                   Message.Field.PROTO_ID.getLength());
+                        continue;
+                    }
+
                     // Allocate a buffer for the reassembled message
                     currentMessage = ByteBuffer.allocate(l);
 
@@ -135,9 +211,11 @@ public class MessageAssembler {
 
             int toCopy = missingBytes > availableBytes ? availableBytes : missingBytes;
 
-            // Don't use put(ByteBuffer) it does NOT use the limit
-            currentMessage.put(buffer.array(), buffer.position(), toCopy);
-            buffer.position(buffer.position() + toCopy);
+            // Works for direct buffers too: temporarily restrict the limit to the bytes to copy
+            int limit = buffer.limit();
+            buffer.limit(buffer.position() + toCopy);
+            currentMessage.put(buffer);
+            buffer.limit(limit);
 
             // Checks if current message is complete
             if (currentMessage.remaining() == 0) {
@@ -153,6 +231,193 @@ public class MessageAssembler {
             }
         }
 
+        // Do not keep the received bytes until the chunk is full
+        if (this.stream != null && this.chunk != null && this.chunk.position() > 0) {
+            handOver(false);
+        }
+    }
+
+    /** Check if the connection must not be read until the recipient of the forwarded message
+     * catches up
+     * 
+     * @return true if the last {@link #pushBuffer(ByteBuffer)} filled the queue of the recipient
+     */
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    /** Give up the current forwarded message, since its sender is disconnected */
+    public void abort() {
+        if (this.chunk != null) {
+            this.attachment.getSelectorLoop().getBufferPool().release(this.chunk);
+            this.chunk = null;
+        }
+
+        if (this.stream != null) {
+            Attachment.StreamWrite s = this.stream;
+            closeStream();
+            s.abort();
+        }
+
+        this.streamRemaining = 0;
+    }
+
+    /** Give up the current forwarded message if it made no progress for too long
+     * 
+     * Either the sender stalled in the middle of the message or the recipient does not read it.
+     * In both cases the other messages to the recipient cannot be written. The rest of the 
+     * message is dropped.
+     * 
+     * @param now the current time
+     */
+    void checkStreamingTimeout(long now) {
+        if (this.stream == null) {
+            return;
+        }
+
+        int timeout = this.attachment.getSelectorLoop().getStreamingTimeout();
+        if (now - this.stream.getLastProgress() < timeout) {
+            return;
+        }
+
+        logger.warn("Giving up forwarding a message from " + this.attachment + ": no progress for " + timeout +
+                    " ms");
+        if (this.chunk != null) {
+            this.attachment.getSelectorLoop().getBufferPool().release(this.chunk);
+            this.chunk = null;
+        }
+
+        // Resumes the reads if the recipient lagged behind
+        Attachment.StreamWrite s = this.stream;
+        closeStream();
+        s.timedOut();
+        forwardFailed();
+    }
+
+    /** The header of a large message is known, forward it or fall back to reassembly */
+    private void startLargeMessage() {
+        this.headerLength = -1;
+        int l = Message.readLength(this.header, 0);
+
+        try {
+            MessageType type = Message.readType(this.header, 0);
+            if (type == MessageType.DATA_REQUEST || type == MessageType.DATA_REPLY) {
+                AgentID recipient = DataMessage.readRecipient(this.header, 0);
+                DataMessage.readSender(this.header, 0);
+
+                Client destClient = this.router.getClient(recipient);
+                BufferPool pool = this.attachment.getSelectorLoop().getBufferPool();
+                Attachment.StreamWrite s = destClient == null ? null
+                                                              : destClient.openStream(pool, this.attachment);
+                if (s != null) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Forwarding a message of " + l + " bytes to client " + destClient);
+                    }
+
+                    this.stream = s;
+                    this.attachment.getSelectorLoop().setStreaming(this, true);
+                    this.streamRemaining = l - DATA_HEADER_LENGTH;
+                    this.chunk = pool.get();
+                    this.chunk.put(this.header);
+                    return;
+                }
+            }
+        } catch (MalformedMessageException e) {
+            // Reported by the processor once the message is reassembled
+        }
+
+        // Unknown or disconnected recipient, or not a data message: let the processors handle it
+        this.currentMessage = ByteBuffer.allocate(l);
+        this.currentMessage.put(this.header);
+    }
+
+    /** Forward or skip the bytes of the current large message */
+    private void pushStreamed(ByteBuffer buffer) {
+        int toCopy = Math.min(this.streamRemaining, buffer.remaining());
+
+        if (this.stream == null) {
+            // Forwarding failed, the rest of the message is dropped
+            buffer.position(buffer.position() + toCopy);
+            this.streamRemaining -= toCopy;
+        } else {
+            BufferPool pool = this.attachment.getSelectorLoop().getBufferPool();
+            while (toCopy > 0 && this.stream != null) {
+                if (this.chunk == null) {
+                    this.chunk = pool.get();
+                }
+
+                int n = Math.min(toCopy, this.chunk.remaining());
+                int limit = buffer.limit();
+                buffer.limit(buffer.position() + n);
+                this.chunk.put(buffer);
+                buffer.limit(limit);
+
+                toCopy -= n;
+                this.streamRemaining -= n;
+                if (!this.chunk.hasRemaining() || this.streamRemaining == 0) {
+                    handOver(this.streamRemaining == 0);
+                }
+            }
+
+            if (this.stream == null) {
+                // handOver failed: skip the bytes not copied
+                buffer.position(buffer.position() + toCopy);
+                this.streamRemaining -= toCopy;
+            }
+        }
+
+        if (this.streamRemaining == 0) {
+            if (this.stream != null) {
+                closeStream();
+            }
+            this.lengthAndProto = null;
+        }
+    }
+
+    /** Give the current chunk to the recipient */
+    private void handOver(boolean last) {
+        ByteBuffer c = this.chunk;
+        this.chunk = null;
+        c.flip();
+
+        try {
+            this.paused = this.stream.forward(c, last);
+        } catch (IOException e) {
+            closeStream();
+            forwardFailed();
+        }
+    }
+
+    /** Stop forwarding the current message, its remaining bytes are skipped if any */
+    private void closeStream() {
+        this.stream = null;
+        this.paused = false;
+        this.attachment.getSelectorLoop().setStreaming(this, false);
+    }
+
+    /** The current large message cannot be forwarded, notify the sender if it waits for a reply */
+    private void forwardFailed() {
+        try {
+            MessageType type = Message.readType(this.header, 0);
+            AgentID sender = DataMessage.readSender(this.header, 0);
+            AgentID recipient = DataMessage.readRecipient(this.header, 0);
+
+            if (type == MessageType.DATA_REQUEST) {
+                ErrorMessage error = new ErrorMessage(ErrorType.ERR_NOT_CONNECTED_RCPT,
+                                                      sender,
+                                                      recipient,
+                                                      Message.readMessageID(this.header, 0));
+                Client srcClient = this.router.getClient(sender);
+                if (srcClient != null) {
+                    srcClient.sendMessageOrCache(error.toByteArray());
+                }
+            } else {
+                logger.warn("Failed to forward a reply to " + recipient + ", the reply is lost");
+            }
+        } catch (MalformedMessageException e) {
+            // Already checked by startLargeMessage
+            ProActiveLogger.logImpossibleException(logger, e);
+        }
     }
 
     private static class LengthAndProto {
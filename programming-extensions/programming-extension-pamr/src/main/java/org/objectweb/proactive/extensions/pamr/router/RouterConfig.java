@@ -51,6 +51,8 @@ public class RouterConfig {
 
     private int nbWorkerThreads;
 
+    private int nbSelectorThreads;
+
     private int nbPingerThreads;
 
     private InetAddress inetAddress;
@@ -61,14 +63,21 @@ public class RouterConfig {
 
     private long clientEvictionTimeout;
 
+    private long maxQueuedBytes;
+
+    private int streamingTimeout;
+
     public RouterConfig() {
         this.port = 0;
         this.isDaemon = false;
         this.nbWorkerThreads = Runtime.getRuntime().availableProcessors();
         this.nbPingerThreads = 50;
+        this.nbSelectorThreads = 1;
         this.inetAddress = null;
         this.heartbeatTimeout = 180000;
         this.clientEvictionTimeout = 86400000;
+        this.maxQueuedBytes = 64 * 1024 * 1024;
+        this.streamingTimeout = 60000;
     }
 
     public void setReadOnly() {
@@ -122,7 +131,7 @@ public class RouterConfig {
      *
      * Default is the number of available cores on the machine.
      * 
-     * Incoming messages are read by a single thread.
+     * Incoming messages are read by the selector threads, see {@link #setNbSelectorThreads(int)}.
      * 
      */
     public void setNbWorkerThreads(int nbWorkerThreads) {
@@ -130,6 +139,80 @@ public class RouterConfig {
         this.nbWorkerThreads = nbWorkerThreads;
     }
 
+    long getMaxQueuedBytes() {
+        return maxQueuedBytes;
+    }
+
+    /**
+     * Set the maximum number of bytes queued for a client
+     * 
+     * Messages that cannot be written at once to a client are queued until it reads them.
+     * When a client does not read fast enough and its queue exceeds this size, it is 
+     * disconnected to protect the memory of the router. A single message larger than this
+     * size is still accepted when nothing else is queued for the client.
+     * 
+     * Default is 64 MB
+     * 
+     * @throws IllegalArgumentException if the size is lower than 1
+     */
+    public void setMaxQueuedBytes(long maxQueuedBytes) {
+        checkReadOnly();
+
+        if (maxQueuedBytes < 1)
+            throw new IllegalArgumentException("The maximum number of queued bytes must be positive");
+
+        this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    int getStreamingTimeout() {
+        return streamingTimeout;
+    }
+
+    /**
+     * Set the maximum time, in milliseconds, a large message forwarded while being received
+     * can make no progress
+     * 
+     * No other message is written to the recipient of such a message until its last byte 
+     * is received. If neither the sender sends nor the recipient reads any byte of the message
+     * during this time, the forwarding is given up and the rest of the message is dropped.
+     * 
+     * Default is 60000
+     * 
+     * @throws IllegalArgumentException if the timeout is lower than 1
+     */
+    public void setStreamingTimeout(int streamingTimeout) {
+        checkReadOnly();
+
+        if (streamingTimeout < 1)
+            throw new IllegalArgumentException("The streaming timeout must be positive");
+
+        this.streamingTimeout = streamingTimeout;
+    }
+
+    int getNbSelectorThreads() {
+        return nbSelectorThreads;
+    }
+
+    /**
+     * Set the number of selector threads
+     * 
+     * Connections are sharded among the selector threads, which read the incoming messages 
+     * and write the outgoing ones that could not be sent at once. Increasing the number of
+     * selector threads spreads the network I/O of many connected agents over several cores.
+     * 
+     * Default is 1
+     * 
+     * @throws IllegalArgumentException if the number is lower than 1
+     */
+    public void setNbSelectorThreads(int nbSelectorThreads) {
+        checkReadOnly();
+
+        if (nbSelectorThreads < 1)
+            throw new IllegalArgumentException("There must be at least one selector thread");
+
+        this.nbSelectorThreads = nbSelectorThreads;
+    }
+
     public int getNbPingerThreads() {
         return nbPingerThreads;
     }
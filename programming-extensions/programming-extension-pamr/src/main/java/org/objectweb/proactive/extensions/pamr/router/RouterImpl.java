@@ -84,9 +84,6 @@ public class RouterImpl extends RouterInternal implements Runnable {
 
     static final public int DEFAULT_PORT = 33647;
 
-    /** Read {@link ByteBuffer} size. */
-    private final static int READ_BUFFER_SIZE = 4096;
-
     public final static long UNKNOWN_ROUTER_ID = Long.MIN_VALUE;
 
     /** True is the router must stop or is stopped*/
@@ -95,9 +92,15 @@ public class RouterImpl extends RouterInternal implements Runnable {
     /** Can pass when the router has been successfully shutdown */
     private final SweetCountDownLatch isStopped = new SweetCountDownLatch(1, logger);
 
-    /** The thread running the select loop */
+    /** The thread running the accept loop */
     private final AtomicReference<Thread> selectThread = new AtomicReference<Thread>();
 
+    /** The selector loops reading and writing the connections, see {@link SelectorLoop} */
+    private SelectorLoop[] selectorLoops;
+
+    /** The selector loop the next accepted connection will be handed over to */
+    private int nextSelectorLoop = 0;
+
     /** Thread pool used to execute all asynchronous tasks */
     private final ExecutorService tpe;
 
@@ -203,6 +206,11 @@ public class RouterImpl extends RouterInternal implements Runnable {
 
         // register the listener with the selector
         ssc.register(selector, SelectionKey.OP_ACCEPT);
+
+        this.selectorLoops = new SelectorLoop[config.getNbSelectorThreads()];
+        for (int i = 0; i < this.selectorLoops.length; i++) {
+            this.selectorLoops[i] = new SelectorLoop(this, config.getMaxQueuedBytes(), config.getStreamingTimeout());
+        }
     }
 
     /**
@@ -409,6 +417,13 @@ public class RouterImpl extends RouterInternal implements Runnable {
             createAndScheduleEvictClientsTimerTask();
         }
 
+        for (int i = 0; i < this.selectorLoops.length; i++) {
+            Thread t = new Thread(this.selectorLoops[i]);
+            t.setName("Router: selector #" + i);
+            t.setDaemon(this.isDaemon);
+            t.start();
+        }
+
         Set<SelectionKey> selectedKeys = null;
         Iterator<SelectionKey> it;
         SelectionKey key;
@@ -425,13 +440,11 @@ public class RouterImpl extends RouterInternal implements Runnable {
                     try {
                         if ((key.readyOps() & SelectionKey.OP_ACCEPT) == SelectionKey.OP_ACCEPT) {
                             this.handleAccept(key);
-                        } else if ((key.readyOps() & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
-                            this.handleRead(key);
                         } else {
                             logger.warn("Unhandled SelectionKey operation");
                         }
                     } catch (CancelledKeyException e) {
-                        clientDisconnected(key, e.getMessage());
+                        logger.warn("Server socket key cancelled", e);
                     }
                 }
 
@@ -448,6 +461,10 @@ public class RouterImpl extends RouterInternal implements Runnable {
     private void cleanup() {
         tpe.shutdown();
 
+        for (SelectorLoop selectorLoop : this.selectorLoops) {
+            selectorLoop.stop();
+        }
+
         for (Client client : clientMap.values()) {
             client.discardAttachment("Shutting down the router");
         }
@@ -466,61 +483,31 @@ public class RouterImpl extends RouterInternal implements Runnable {
         this.isStopped.countDown();
     }
 
-    /** Accept a new connection */
+    /** Accept a new connection and hand it over to a selector loop */
     private void handleAccept(SelectionKey key) {
         SocketChannel sc;
         try {
             sc = ((ServerSocketChannel) key.channel()).accept();
+            if (sc == null) {
+                return;
+            }
             sc.configureBlocking(false);
 
-            // Add the new connection to the selector
-            sc.register(selector, SelectionKey.OP_READ);
+            SelectorLoop selectorLoop = this.selectorLoops[this.nextSelectorLoop];
+            this.nextSelectorLoop = (this.nextSelectorLoop + 1) % this.selectorLoops.length;
+            selectorLoop.register(sc);
         } catch (IOException e) {
             logger.warn("Failed to accept a new connection", e);
         }
     }
 
-    /** Read available data for this key */
-    private void handleRead(SelectionKey key) {
-        SocketChannel sc;
-        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
-
-        sc = (SocketChannel) key.channel();
-
+    /** clean everything when a client disconnect */
+    void clientDisconnected(SelectionKey key, String cause) {
         Attachment attachment = (Attachment) key.attachment();
         if (attachment == null) {
-            attachment = new Attachment(this, sc);
-            key.attach(attachment);
-        }
-
-        // Read all the data available
-        try {
-            int byteRead;
-            do {
-                buffer.clear();
-                byteRead = sc.read(buffer);
-                buffer.flip();
-
-                if (byteRead > 0) {
-                    MessageAssembler assembler = attachment.getAssembler();
-                    assembler.pushBuffer(buffer);
-                }
-            } while (byteRead > 0);
-
-            if (byteRead == -1) {
-                clientDisconnected(key, "end of stream");
-            }
-        } catch (MalformedMessageException e) {
-            // Disconnect the client to avoid a disaster
-            clientDisconnected(key, e.getMessage());
-        } catch (IOException e) {
-            clientDisconnected(key, e.getMessage());
+            // already disconnected
+            return;
         }
-    }
-
-    /** clean everything when a client disconnect */
-    private void clientDisconnected(SelectionKey key, String cause) {
-        Attachment attachment = (Attachment) key.attachment();
 
         key.cancel();
         key.attach(null);
@@ -538,9 +525,16 @@ public class RouterImpl extends RouterInternal implements Runnable {
             // Miam Miam Miam
             ProActiveLogger.logEatedException(logger, e);
         }
+        // A message being forwarded from this client cannot be completed
+        attachment.getAssembler().abort();
+
+        // Messages queued but not yet written
+        List<ByteBuffer> unsent = attachment.drainPendingWrites();
+
         Client client = attachment.getClient();
         if (client != null) {
             client.discardAttachment(cause);
+            client.cacheMessages(unsent);
 
             // Broadcast the disconnection to every client
             // If client is null, then the handshake has not completed and we
@@ -40,8 +40,8 @@ import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
 public abstract class RouterInternal extends Router {
     /** Submit a job to be executed asynchronously. 
      * 
-     * All time consuming tasks should be submitted by using this method. The single threaded
-     * front end should not execute any other code than reading data chunk from {@link SocketChannel}.
+     * All time consuming tasks should be submitted by using this method. The selector threads
+     * should not execute any other code than reading data chunk from {@link SocketChannel}.
      * 
      * @param message the received message to be handled
      * @param attachment the attachment used to received the message
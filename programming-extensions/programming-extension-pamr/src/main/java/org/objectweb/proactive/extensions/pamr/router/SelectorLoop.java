@@ -0,0 +1,331 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.extensions.pamr.router;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.util.log.ProActiveLogger;
+import org.objectweb.proactive.extensions.pamr.PAMRConfig;
+import org.objectweb.proactive.extensions.pamr.exceptions.MalformedMessageException;
+
+
+/** A selector thread of the router
+ * 
+ * The connections accepted by the router are sharded among several selector loops. 
+ * A connection is owned by one and only one loop during its whole lifetime: the loop 
+ * reads its data, feeds its {@link MessageAssembler} and flushes the messages that could
+ * not be written at once by the workers. The {@link MessageAssembler} of a connection is 
+ * thus only accessed by a single thread.
+ * 
+ * Each loop reads into its own direct buffer, reused for every read. The chunks of the 
+ * large messages forwarded while being received are taken from its {@link BufferPool}. 
+ * A connection is not read while the recipient of the message it forwards lags behind, 
+ * and a forwarded message making no progress is given up, see 
+ * {@link RouterConfig#setStreamingTimeout(int)}.
+ * 
+ * @since ProActive 4.1.0
+ */
+class SelectorLoop implements Runnable {
+    public static final Logger logger = ProActiveLogger.getLogger(PAMRConfig.Loggers.PAMR_ROUTER);
+
+    /** Read {@link ByteBuffer} size, also the size of the forwarded chunks */
+    private final static int READ_BUFFER_SIZE = 16384;
+
+    /** Maximum number of chunks kept in the pool */
+    private final static int MAX_POOLED_CHUNKS = 256;
+
+    final private RouterImpl router;
+
+    final private Selector selector;
+
+    /** The buffer used for all the reads of this loop */
+    final private ByteBuffer readBuffer;
+
+    /** Chunks of the messages forwarded while being received */
+    final private BufferPool bufferPool;
+
+    /** Connections accepted by the router, waiting to be registered with the selector */
+    final private Queue<SocketChannel> newChannels;
+
+    /** Attachments with messages waiting for the channel to be writable */
+    final private Queue<Attachment> pendingWrites;
+
+    /** Attachments whose connection can be read again */
+    final private Queue<Attachment> pendingReads;
+
+    /** Assemblers forwarding a message, only accessed by the loop thread */
+    final private Set<MessageAssembler> streamingAssemblers;
+
+    /** Connections to close on behalf of other threads */
+    final private Queue<DisconnectRequest> pendingDisconnections;
+
+    /** Maximum number of bytes queued for a connection, see {@link RouterConfig#setMaxQueuedBytes(long)} */
+    final private long maxQueuedBytes;
+
+    /** See {@link RouterConfig#setStreamingTimeout(int)} */
+    final private int streamingTimeout;
+
+    volatile private boolean stopped;
+
+    SelectorLoop(RouterImpl router, long maxQueuedBytes, int streamingTimeout) throws IOException {
+        this.router = router;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.streamingTimeout = streamingTimeout;
+        this.selector = Selector.open();
+        this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        this.bufferPool = new BufferPool(READ_BUFFER_SIZE, MAX_POOLED_CHUNKS);
+        this.newChannels = new ConcurrentLinkedQueue<SocketChannel>();
+        this.pendingWrites = new ConcurrentLinkedQueue<Attachment>();
+        this.pendingReads = new ConcurrentLinkedQueue<Attachment>();
+        this.streamingAssemblers = new HashSet<MessageAssembler>();
+        this.pendingDisconnections = new ConcurrentLinkedQueue<DisconnectRequest>();
+        this.stopped = false;
+    }
+
+    /** Hand over a new connection to this loop */
+    void register(SocketChannel sc) {
+        this.newChannels.add(sc);
+        this.selector.wakeup();
+    }
+
+    /** Ask to be notified when the channel of this attachment is writable
+     * 
+     * Can be called by any thread, the interest set is only updated by the loop thread.
+     */
+    void requestWrite(Attachment attachment) {
+        this.pendingWrites.add(attachment);
+        this.selector.wakeup();
+    }
+
+    /** Ask to read again the connection of this attachment, once the recipient of the message
+     * it forwards caught up
+     * 
+     * Can be called by any thread, the interest set is only updated by the loop thread.
+     */
+    void requestRead(Attachment attachment) {
+        this.pendingReads.add(attachment);
+        this.selector.wakeup();
+    }
+
+    /** Called by the assemblers of this loop when they start or stop forwarding a message */
+    void setStreaming(MessageAssembler assembler, boolean streaming) {
+        if (streaming) {
+            this.streamingAssemblers.add(assembler);
+        } else {
+            this.streamingAssemblers.remove(assembler);
+        }
+    }
+
+    int getStreamingTimeout() {
+        return this.streamingTimeout;
+    }
+
+    /** Ask to close the connection of this attachment
+     * 
+     * Can be called by any thread. The loop thread closes the connection and tells the 
+     * router that the client is disconnected.
+     */
+    void requestDisconnect(Attachment attachment, String cause) {
+        this.pendingDisconnections.add(new DisconnectRequest(attachment, cause));
+        this.selector.wakeup();
+    }
+
+    long getMaxQueuedBytes() {
+        return this.maxQueuedBytes;
+    }
+
+    BufferPool getBufferPool() {
+        return this.bufferPool;
+    }
+
+    void stop() {
+        this.stopped = true;
+        this.selector.wakeup();
+    }
+
+    public void run() {
+        while (!this.stopped) {
+            try {
+                if (this.streamingAssemblers.isEmpty()) {
+                    this.selector.select();
+                } else {
+                    // Wake up to give up the forwarded messages making no progress
+                    this.selector.select(Math.max(1, this.streamingTimeout / 4));
+                    checkStreams();
+                }
+                registerNewChannels();
+                enableWrites();
+                enableReads();
+                disconnect();
+
+                Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (key.isWritable()) {
+                            this.handleWrite(key);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            this.handleRead(key);
+                        }
+                    } catch (CancelledKeyException e) {
+                        this.router.clientDisconnected(key, e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Select failed", e);
+            }
+        }
+
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            ProActiveLogger.logEatedException(logger, e);
+        }
+    }
+
+    private void registerNewChannels() {
+        SocketChannel sc;
+        while ((sc = this.newChannels.poll()) != null) {
+            try {
+                SelectionKey key = sc.register(this.selector, SelectionKey.OP_READ);
+                key.attach(new Attachment(this.router, key, this));
+            } catch (IOException e) {
+                logger.warn("Failed to register a new connection", e);
+            }
+        }
+    }
+
+    private void enableWrites() {
+        Attachment attachment;
+        while ((attachment = this.pendingWrites.poll()) != null) {
+            SelectionKey key = attachment.getSelectionKey();
+            if (key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    private void enableReads() {
+        Attachment attachment;
+        while ((attachment = this.pendingReads.poll()) != null) {
+            SelectionKey key = attachment.getSelectionKey();
+            if (key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void checkStreams() {
+        long now = System.currentTimeMillis();
+        // The assemblers giving up their message leave the set
+        for (MessageAssembler assembler : new ArrayList<MessageAssembler>(this.streamingAssemblers)) {
+            assembler.checkStreamingTimeout(now);
+        }
+    }
+
+    private void disconnect() {
+        DisconnectRequest request;
+        while ((request = this.pendingDisconnections.poll()) != null) {
+            SelectionKey key = request.attachment.getSelectionKey();
+            // The connection may have been closed in between
+            if (key.attachment() == request.attachment) {
+                this.router.clientDisconnected(key, request.cause);
+            }
+        }
+    }
+
+    /** Write the queued messages of this key */
+    private void handleWrite(SelectionKey key) {
+        Attachment attachment = (Attachment) key.attachment();
+        try {
+            if (attachment.flush()) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            this.router.clientDisconnected(key, e.getMessage());
+        }
+    }
+
+    /** Read available data for this key */
+    private void handleRead(SelectionKey key) {
+        SocketChannel sc = (SocketChannel) key.channel();
+        Attachment attachment = (Attachment) key.attachment();
+        ByteBuffer buffer = this.readBuffer;
+
+        MessageAssembler assembler = attachment.getAssembler();
+
+        // Read all the data available, unless the recipient of the forwarded message lags behind
+        try {
+            int byteRead;
+            do {
+                buffer.clear();
+                byteRead = sc.read(buffer);
+                buffer.flip();
+
+                if (byteRead > 0) {
+                    assembler.pushBuffer(buffer);
+                }
+            } while (byteRead > 0 && !assembler.isPaused());
+
+            if (byteRead == -1) {
+                this.router.clientDisconnected(key, "end of stream");
+            } else if (assembler.isPaused()) {
+                // Read again on requestRead()
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        } catch (MalformedMessageException e) {
+            // Disconnect the client to avoid a disaster
+            this.router.clientDisconnected(key, e.getMessage());
+        } catch (IOException e) {
+            this.router.clientDisconnected(key, e.getMessage());
+        }
+    }
+
+    private static class DisconnectRequest {
+        final Attachment attachment;
+
+        final String cause;
+
+        DisconnectRequest(Attachment attachment, String cause) {
+            this.attachment = attachment;
+            this.cause = cause;
+        }
+    }
+}
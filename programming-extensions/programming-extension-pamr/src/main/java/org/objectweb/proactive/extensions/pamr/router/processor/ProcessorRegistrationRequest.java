@@ -237,12 +237,13 @@ public class ProcessorRegistrationRequest extends Processor {
                                                                  magicCookie,
                                                                  this.router.getHeartbeatTimeout());
 
+        // The client must be known before the reply is sent, the agent can use its
+        // AgentID as soon as the reply is received
         Client client = new Client(attachment, agentId, magicCookie);
+        client.updateLastSeen();
+        this.router.addClient(client);
         boolean resp = this.sendReply(client, reply);
-        if (resp) {
-            this.router.addClient(client);
-            client.updateLastSeen();
-        } else {
+        if (!resp) {
             logger.info("Failed to send registration reply to " + this.attachment);
             this.attachment.dtor();
         }
@@ -67,6 +67,33 @@ public class MainTest {
         assertNull(testedConfig.getReservedAgentConfigFile());
     }
 
+    @Test
+    public void selector_threads_are_defined_as_parameter() throws Exception {
+        assertEquals(1, createRouterConfiguration(new String[] {}, null).getNbSelectorThreads());
+
+        final RouterConfig testedConfig = createRouterConfiguration(new String[] { "-s", "4" }, null);
+
+        assertEquals(4, testedConfig.getNbSelectorThreads());
+    }
+
+    @Test
+    public void max_queued_bytes_is_defined_as_parameter() throws Exception {
+        assertEquals(64 * 1024 * 1024, createRouterConfiguration(new String[] {}, null).getMaxQueuedBytes());
+
+        final RouterConfig testedConfig = createRouterConfiguration(new String[] { "-q", "1048576" }, null);
+
+        assertEquals(1048576, testedConfig.getMaxQueuedBytes());
+    }
+
+    @Test
+    public void streaming_timeout_is_defined_as_parameter() throws Exception {
+        assertEquals(60000, createRouterConfiguration(new String[] {}, null).getStreamingTimeout());
+
+        final RouterConfig testedConfig = createRouterConfiguration(new String[] { "-T", "5000" }, null);
+
+        assertEquals(5000, testedConfig.getStreamingTimeout());
+    }
+
     private RouterConfig createRouterConfiguration(final String[] args, final File defaultConfigFile)
             throws IOException {
         final RouterConfig[] testedConfig = new RouterConfig[1];
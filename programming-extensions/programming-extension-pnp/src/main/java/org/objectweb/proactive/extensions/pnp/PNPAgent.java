@@ -58,6 +58,7 @@ import org.jboss.netty.util.Timer;
 import org.jboss.netty.util.TimerTask;
 import org.objectweb.proactive.annotation.PublicAPI;
 import org.objectweb.proactive.core.util.ProActiveInet;
+import org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.pnp.exception.PNPException;
 import org.objectweb.proactive.extensions.pnp.exception.PNPHeartbeatTimeoutException;
@@ -153,6 +154,17 @@ public class PNPAgent {
      * @throws PNPException If the call failed to execute successfully
      */
     public InputStream sendMsg(URI uri, PNPFrameCall msgReq) throws PNPException {
+        return getChannel(uri, msgReq.getHearthbeatPeriod()).sendMessage(msgReq);
+    }
+
+    /** Gets the channel to a remote PNP server
+     *
+     * @param uri The URI of the recipient
+     * @param heartbeatPeriod The heartbeat period of the calls
+     * @return The channel to the recipient
+     * @throws PNPException If the channel cannot be opened
+     */
+    PNPClientChannel getChannel(URI uri, long heartbeatPeriod) throws PNPException {
         InetAddress address;
         InetAddress publicAddress = null;
         String publicAddressString;
@@ -189,7 +201,7 @@ public class PNPAgent {
         }
 
         int port = uri.getPort();
-        return sendMsg(address, publicAddress, port, publicPort, msgReq);
+        return channelCache.getChannel(address, publicAddress, port, publicPort, heartbeatPeriod);
     }
 
     /** Sends a call to a remote PNP server
@@ -413,6 +425,9 @@ public class PNPAgent {
         /** A reference on the channel cache to be able to remove ourself on channel close*/
         final private PNPClientChannelCache cache;
 
+        /** The dictionary of the messages sent through this channel */
+        private volatile DescriptorDictionary.Writer dictionary;
+
         /** Opens a client channel
          *
          * If an heartbeat period is specified then this method will block no longer than it.
@@ -423,6 +438,7 @@ public class PNPAgent {
             this.channelId = channelId;
             this.parking = new Parking(this.channelId, timer);
             this.cache = cache;
+            this.dictionary = new DescriptorDictionary.Writer();
             try {
                 createAndConnectSocket(bootstrap, channelId.addr, channelId.port, channelId.heartbeat);
             } catch (Exception e) {
@@ -518,6 +534,21 @@ public class PNPAgent {
             }
         }
 
+        /** Returns the dictionary of the messages sent through this channel */
+        DescriptorDictionary.Writer getDictionary() {
+            return this.dictionary;
+        }
+
+        /** Replaces the dictionary of this channel, if it is still the given one
+         *
+         * Messages are then written with a new epoch, for which the server has no definition yet.
+         */
+        synchronized void resetDictionary(DescriptorDictionary.Writer dictionary) {
+            if (this.dictionary == dictionary) {
+                this.dictionary = new DescriptorDictionary.Writer();
+            }
+        }
+
         /** Set the response of a call & unblock the calling thread
          *
          * @param response the response of the call
@@ -29,10 +29,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.log4j.Logger;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
 import org.objectweb.proactive.core.exceptions.IOException6;
 import org.objectweb.proactive.core.runtime.ProActiveRuntimeImpl;
+import org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary;
 import org.objectweb.proactive.core.util.converter.remote.ProActiveMarshaller;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.pnp.exception.PNPException;
@@ -88,20 +92,48 @@ abstract class PNPROMessage implements Serializable {
      * @throws PNPException if something bad happened when sending this message
      */
     public final void send() throws IOException {
+        // FIXME: Dynamic hearthbeat & service timeout
+        long heartbeatPeriod = PNPConfig.PA_PNP_DEFAULT_HEARTBEAT.getValue();
+
+        final PNPAgent.PNPClientChannel channel;
+        try {
+            channel = agent.getChannel(this.uri, heartbeatPeriod);
+        } catch (PNPException e) {
+            throw new IOException6("Failed to send PNP message to " + this.uri, e);
+        }
+
+        if (!CentralPAPropertyRepository.PA_CONVERTER_DESCRIPTOR_DICTIONARY.isTrue()) {
+            send(channel, heartbeatPeriod, null);
+            return;
+        }
+
+        DescriptorDictionary.Writer dictionary = channel.getDictionary();
+        if (send(channel, heartbeatPeriod, dictionary)) {
+            // the server has lost the definitions of this dictionary
+            channel.resetDictionary(dictionary);
+            send(channel, heartbeatPeriod, channel.getDictionary());
+        }
+    }
+
+    /** Send the message through a channel
+     *
+     * @return true if the message must be sent again with a new dictionary
+     */
+    private boolean send(PNPAgent.PNPClientChannel channel, long heartbeatPeriod,
+            DescriptorDictionary.Writer dictionary) throws IOException {
+        final List<DescriptorDictionary.Entry> definitions = new ArrayList<DescriptorDictionary.Entry>();
         final byte[] bytes;
         try {
-            bytes = this.marshaller.marshallObject(this);
+            bytes = this.marshaller.marshallObject(this, dictionary, definitions);
         } catch (IOException e) {
             throw new IOException6("Failed to marshall PNP message (dest=" + this.uri + ")", e);
         }
 
-        // FIXME: Dynamic hearthbeat & service timeout
-        long heartbeatPeriod = PNPConfig.PA_PNP_DEFAULT_HEARTBEAT.getValue();
         PNPFrameCall msgReq = new PNPFrameCall(agent.getCallId(), isAsynchronous, heartbeatPeriod, 0L, bytes);
 
         final InputStream response;
         try {
-            response = agent.sendMsg(uri, msgReq);
+            response = channel.sendMessage(msgReq);
         } catch (PNPException e) {
             throw new IOException6("Failed to send PNP message to " + this.uri, e);
         }
@@ -114,6 +146,11 @@ abstract class PNPROMessage implements Serializable {
             } catch (ClassNotFoundException e) {
                 throw new IOException6("Failed to unmarshall PNP response from " + this.uri, e);
             }
+
+            if (dictionary != null) {
+                return dictionary.acknowledge(this.returnedObject, PNPException.class, definitions);
+            }
         }
+        return false;
     }
 }
@@ -37,6 +37,7 @@ import org.objectweb.proactive.core.body.future.MethodCallResult;
 import org.objectweb.proactive.core.remoteobject.SynchronousReplyImpl;
 import org.objectweb.proactive.core.runtime.ProActiveRuntimeImpl;
 import org.objectweb.proactive.core.util.converter.ProActiveObjectToByteConverter;
+import org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary;
 import org.objectweb.proactive.core.util.converter.remote.ProActiveMarshaller;
 import org.objectweb.proactive.core.util.log.ProActiveLogger;
 import org.objectweb.proactive.extensions.pnp.exception.PNPException;
@@ -60,10 +61,14 @@ class PNPServerHandler extends SimpleChannelHandler {
     /** Serialization */
     final private ProActiveMarshaller marshaller;
 
+    /** The dictionaries of the messages received on this channel */
+    final private DescriptorDictionary.Readers dictionaries;
+
     public PNPServerHandler(Executor executor) {
         this.executor = executor;
         String runtimeUrl = ProActiveRuntimeImpl.getProActiveRuntime().getURL();
         this.marshaller = new ProActiveMarshaller(runtimeUrl);
+        this.dictionaries = new DescriptorDictionary.Readers();
     }
 
     @Override
@@ -74,7 +79,11 @@ class PNPServerHandler extends SimpleChannelHandler {
         }
 
         PNPFrameCall msgReq = (PNPFrameCall) message;
-        executor.execute(new RequestExecutor(msgReq, e.getChannel(), hearthbeater, this.marshaller));
+        executor.execute(new RequestExecutor(msgReq,
+                                             e.getChannel(),
+                                             hearthbeater,
+                                             this.marshaller,
+                                             this.dictionaries));
     }
 
     @Override
@@ -250,12 +259,16 @@ class PNPServerHandler extends SimpleChannelHandler {
         /** Serialization */
         final private ProActiveMarshaller marshaller;
 
+        /** The dictionaries of the channel */
+        final private DescriptorDictionary.Readers dictionaries;
+
         public RequestExecutor(PNPFrameCall req, Channel channel, Heartbeater hearthbeater,
-                ProActiveMarshaller marshaller) {
+                ProActiveMarshaller marshaller, DescriptorDictionary.Readers dictionaries) {
             this.req = req;
             this.channel = channel;
             this.hearthbeater = hearthbeater;
             this.marshaller = marshaller;
+            this.dictionaries = dictionaries;
         }
 
         public void run() {
@@ -274,7 +287,7 @@ class PNPServerHandler extends SimpleChannelHandler {
                 // Unmarshall the data
                 PNPROMessage pnpMessage = null;
                 try {
-                    pnpMessage = (PNPROMessage) marshaller.unmarshallObject(req.getPayload());
+                    pnpMessage = (PNPROMessage) marshaller.unmarshallObject(req.getPayload(), this.dictionaries);
                 } catch (Throwable t) {
                     // Sends a response call
                     PNPException e = new PNPException("Failed to unmarshall incoming message", t);
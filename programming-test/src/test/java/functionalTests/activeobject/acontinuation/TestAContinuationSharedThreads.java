@@ -0,0 +1,87 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.activeobject.acontinuation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * Test that the automatic continuations of many active objects are sent by a bounded
+ * number of shared threads
+ */
+public class TestAContinuationSharedThreads extends FunctionalTest {
+    private static final int NB_RELAYS = 30;
+
+    private boolean initialACSetting;
+
+    @Before
+    public void enableAC() {
+        initialACSetting = CentralPAPropertyRepository.PA_FUTURE_AC.getValue();
+        CentralPAPropertyRepository.PA_FUTURE_AC.setValue(true);
+    }
+
+    @After
+    public void restoreAC() {
+        CentralPAPropertyRepository.PA_FUTURE_AC.setValue(initialACSetting);
+    }
+
+    @Test
+    public void action() throws Exception {
+        AOAContinuation[] relays = new AOAContinuation[NB_RELAYS];
+        AOAContinuation[] results = new AOAContinuation[NB_RELAYS];
+        AOAContinuation target = PAActiveObject.newActive(AOAContinuation.class, new Object[] { "target" });
+        for (int i = 0; i < NB_RELAYS; i++) {
+            relays[i] = PAActiveObject.newActive(AOAContinuation.class, new Object[] { "relay" + i });
+            relays[i].initSecondDeleguate();
+        }
+        // each relay returns the future of its delegate, updated by automatic continuation
+        for (int i = 0; i < NB_RELAYS; i++) {
+            results[i] = relays[i].delegatedGetA(target);
+        }
+        for (int i = 0; i < NB_RELAYS; i++) {
+            assertEquals("target", results[i].getIdName());
+        }
+
+        int acThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName().equals("Thread for AC"));
+            if (thread.getName().startsWith("ProActive automatic continuations")) {
+                acThreads++;
+            }
+        }
+        assertTrue(acThreads <= CentralPAPropertyRepository.PA_FUTURE_AC_THREADS.getValue());
+    }
+}
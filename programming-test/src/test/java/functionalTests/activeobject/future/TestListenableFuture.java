@@ -0,0 +1,111 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.activeobject.future;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.core.util.wrapper.IntWrapper;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import functionalTests.FunctionalTest;
+
+
+public class TestListenableFuture extends FunctionalTest {
+
+    private Worker worker;
+
+    @Before
+    public void before() throws Exception {
+        worker = PAActiveObject.newActive(Worker.class, null);
+    }
+
+    @Test(timeout = 30000)
+    public void completedOnUpdate() throws Exception {
+        IntWrapper future = worker.compute(42, 500);
+        ListenableFuture<IntWrapper> view = PAFuture.toListenableFuture(future);
+        final CountDownLatch latch = new CountDownLatch(1);
+        view.addListener(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        }, MoreExecutors.directExecutor());
+
+        Assert.assertTrue(latch.await(20, TimeUnit.SECONDS));
+        Assert.assertEquals(42, view.get().getIntValue());
+        Assert.assertFalse(PAFuture.isAwaited(future));
+    }
+
+    @Test(timeout = 30000)
+    public void notAFuture() throws Exception {
+        IntWrapper value = new IntWrapper(1);
+        Assert.assertSame(value, PAFuture.toListenableFuture(value).get());
+    }
+
+    @Test(timeout = 30000)
+    public void exception() throws Exception {
+        ListenableFuture<IntWrapper> view = PAFuture.toListenableFuture(worker.fail(),
+                                                                        MoreExecutors.directExecutor());
+        try {
+            view.get();
+            Assert.fail("The call raised an exception");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void allOf() throws Exception {
+        List<IntWrapper> futures = new ArrayList<IntWrapper>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(worker.compute(i, 0));
+        }
+        List<IntWrapper> values = PAFuture.allOf(futures).get();
+        Assert.assertEquals(futures.size(), values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Assert.assertEquals(i, values.get(i).getIntValue());
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void anyOf() throws Exception {
+        Worker other = PAActiveObject.newActive(Worker.class, null);
+        List<IntWrapper> futures = new ArrayList<IntWrapper>();
+        futures.add(worker.compute(1, 10000));
+        futures.add(other.compute(2, 0));
+        Assert.assertEquals(2, PAFuture.anyOf(futures).get().getIntValue());
+    }
+}
@@ -25,12 +25,17 @@
  */
 package functionalTests.activeobject.future;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Vector;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.api.PAFuture;
 import org.objectweb.proactive.core.ProActiveTimeoutException;
+import org.objectweb.proactive.core.util.wrapper.IntWrapper;
 
 import functionalTests.FunctionalTest;
 
@@ -92,4 +97,53 @@ public class TestPAFuture extends FunctionalTest {
 
         PAFuture.waitForAll(v, 1000);
     }
+
+    @Test(timeout = 30000)
+    public void waitForAnyFirstUpdated() throws Exception {
+        Worker slow = PAActiveObject.newActive(Worker.class, null);
+        Worker fast = PAActiveObject.newActive(Worker.class, null);
+        List<IntWrapper> futures = new ArrayList<IntWrapper>();
+        futures.add(slow.compute(0, 10000));
+        futures.add(fast.compute(1, 0));
+
+        Assert.assertEquals(1, PAFuture.waitForAny(futures));
+    }
+
+    @Test(timeout = 60000)
+    public void waitForAnyN() throws Exception {
+        Worker worker = PAActiveObject.newActive(Worker.class, null);
+        List<IntWrapper> futures = new ArrayList<IntWrapper>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(worker.compute(i, 0));
+        }
+
+        List<Integer> indexes = PAFuture.waitForAnyN(futures, 10);
+        Assert.assertEquals(10, indexes.size());
+        for (int index : indexes) {
+            Assert.assertFalse(PAFuture.isAwaited(futures.get(index)));
+        }
+
+        // Served in order by a single active object
+        Iterator<IntWrapper> it = PAFuture.inCompletionOrder(futures);
+        for (int i = 0; i < futures.size(); i++) {
+            Assert.assertTrue(it.hasNext());
+            Assert.assertEquals(i, it.next().getIntValue());
+        }
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test(timeout = 30000)
+    public void waitForAnyNTimeout() throws Exception {
+        Worker worker = PAActiveObject.newActive(Worker.class, null);
+        List<IntWrapper> futures = new ArrayList<IntWrapper>();
+        futures.add(worker.compute(0, 0));
+        futures.add(worker.compute(1, 10000));
+
+        try {
+            PAFuture.waitForAnyN(futures, 2, 500);
+            Assert.fail("Only one future can be updated before the timeout");
+        } catch (ProActiveTimeoutException e) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.activeobject.futuremonitoring;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.core.ProActiveTimeoutException;
+import org.objectweb.proactive.core.body.exceptions.FutureMonitoringPingFailureException;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * Test monitoring the futures of many active objects of the same runtime, which are
+ * pinged together
+ */
+public class TestFutureMonitoringSameRuntime extends FunctionalTest {
+
+    @Test
+    public void action() throws Exception {
+        A[] objects = new A[20];
+        A[] futures = new A[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = PAActiveObject.newActive(A.class, null);
+            futures[i] = objects[i].sleepForever();
+        }
+        // waiting for the futures starts monitoring them
+        for (A future : futures) {
+            try {
+                PAFuture.waitFor(future, 10);
+            } catch (ProActiveTimeoutException e) {
+                // expected
+            }
+        }
+
+        objects[3].crashWithTerminate();
+        try {
+            futures[3].toString();
+            fail("The future of a terminated active object should be updated with an exception");
+        } catch (FutureMonitoringPingFailureException fmpfe) {
+            // expected
+        }
+
+        for (int i = 0; i < futures.length; i++) {
+            if (i != 3) {
+                assertTrue(PAFuture.isAwaited(futures[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.activeobject.multiactive;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.proactive.Body;
+import org.objectweb.proactive.MultiActiveService;
+import org.objectweb.proactive.RunActive;
+import org.objectweb.proactive.annotation.DefineGroups;
+import org.objectweb.proactive.annotation.Group;
+import org.objectweb.proactive.annotation.MemberOf;
+import org.objectweb.proactive.core.util.wrapper.BooleanWrapper;
+import org.objectweb.proactive.core.util.wrapper.IntWrapper;
+
+
+@DefineGroups({ @Group(name = "read", selfCompatible = true), @Group(name = "write") })
+public class Store implements RunActive {
+    /** Shared with the test, as the active object is created in the same runtime */
+    static volatile CyclicBarrier barrier;
+
+    private final AtomicInteger writers = new AtomicInteger();
+
+    private volatile int maxWriters;
+
+    public Store() {
+    }
+
+    /**
+     * Waits for the other readers: only returns true if all of them are served in parallel
+     */
+    @MemberOf("read")
+    public BooleanWrapper meet() {
+        try {
+            barrier.await(2, TimeUnit.SECONDS);
+            return new BooleanWrapper(true);
+        } catch (InterruptedException e) {
+            return new BooleanWrapper(false);
+        } catch (BrokenBarrierException e) {
+            return new BooleanWrapper(false);
+        } catch (TimeoutException e) {
+            return new BooleanWrapper(false);
+        }
+    }
+
+    @MemberOf("write")
+    public IntWrapper write() {
+        int concurrentWriters = this.writers.incrementAndGet();
+        this.maxWriters = Math.max(this.maxWriters, concurrentWriters);
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.writers.decrementAndGet();
+        return new IntWrapper(concurrentWriters);
+    }
+
+    @MemberOf("write")
+    public IntWrapper getMaxWriters() {
+        return new IntWrapper(this.maxWriters);
+    }
+
+    public void runActivity(Body body) {
+        new MultiActiveService(body, 4).multiActiveServing();
+    }
+}
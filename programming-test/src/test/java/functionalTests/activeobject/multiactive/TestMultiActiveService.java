@@ -0,0 +1,95 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.activeobject.multiactive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.core.util.wrapper.BooleanWrapper;
+import org.objectweb.proactive.core.util.wrapper.IntWrapper;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * serve compatible requests in parallel, and incompatible ones one at a time
+ */
+public class TestMultiActiveService extends FunctionalTest {
+    private Store store;
+
+    @Before
+    public void createStore() throws Exception {
+        this.store = PAActiveObject.newActive(Store.class, new Object[0]);
+    }
+
+    @Test
+    public void compatibleRequestsInParallel() {
+        int readers = 4;
+        Store.barrier = new CyclicBarrier(readers);
+        List<BooleanWrapper> results = new ArrayList<BooleanWrapper>();
+        for (int i = 0; i < readers; i++) {
+            results.add(this.store.meet());
+        }
+        for (BooleanWrapper result : results) {
+            assertTrue(result.getBooleanValue());
+        }
+    }
+
+    @Test
+    public void incompatibleRequestsAlone() {
+        List<IntWrapper> results = new ArrayList<IntWrapper>();
+        for (int i = 0; i < 4; i++) {
+            results.add(this.store.write());
+        }
+        for (IntWrapper result : results) {
+            assertEquals(1, result.getIntValue());
+        }
+        assertEquals(1, this.store.getMaxWriters().getIntValue());
+    }
+
+    /**
+     * A read is not served before an older write, even if a thread is available
+     */
+    @Test
+    public void fifoOrder() {
+        Store.barrier = new CyclicBarrier(2);
+        BooleanWrapper first = this.store.meet();
+        IntWrapper write = this.store.write();
+        BooleanWrapper second = this.store.meet();
+        // the second read waits for the write, which waits for the first read
+        assertFalse(first.getBooleanValue());
+        assertEquals(1, write.getIntValue());
+        assertFalse(second.getBooleanValue());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.adaptivedispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.group.DispatchMode;
+import org.objectweb.proactive.core.group.Group;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * dispatch tasks between a slow and a fast worker: the fast worker gets most of the tasks,
+ * and re-issues the tasks left on the slow worker
+ */
+public class TestAdaptiveDispatch extends FunctionalTest {
+    private static final long SLOW = 2000;
+
+    private static final long FAST = 20;
+
+    private Worker newWorkers() throws Exception {
+        return newWorkers(SLOW, FAST, 4);
+    }
+
+    private Worker newWorkers(long delay0, long delay1, int maxPrefetch) throws Exception {
+        Object[][] params = { { 0, delay0 }, { 1, delay1 } };
+        Node[] nodes = { NodeFactory.getDefaultNode(), NodeFactory.getDefaultNode() };
+        Worker workers = (Worker) PAGroup.newGroup(Worker.class.getName(), params, nodes);
+        PAGroup.setDispatchMode(workers, DispatchMode.ADAPTIVE, maxPrefetch);
+        return workers;
+    }
+
+    private Task newTasks(int nbTasks) throws Exception {
+        Task tasks = (Task) PAGroup.newGroup(Task.class.getName());
+        Group<Task> taskGroup = PAGroup.getGroup(tasks);
+        for (int i = 0; i < nbTasks; i++) {
+            taskGroup.add(new Task(i));
+        }
+        PAGroup.setScatterGroup(tasks);
+        return tasks;
+    }
+
+    @Test
+    public void fastWorkerGetsMostTasks() throws Exception {
+        int nbTasks = 20;
+        Worker workers = newWorkers();
+
+        long start = System.currentTimeMillis();
+        Task results = workers.execute(newTasks(nbTasks));
+        PAGroup.waitAll(results);
+        long duration = System.currentTimeMillis() - start;
+
+        Group<Task> resultGroup = PAGroup.getGroup(results);
+        assertEquals(nbTasks, resultGroup.size());
+        for (int i = 0; i < nbTasks; i++) {
+            // results are in the order of the tasks, and come from the fast worker
+            assertEquals(i, resultGroup.get(i).getIndex());
+            assertEquals(1, resultGroup.get(i).getWorker());
+        }
+        // the task of the slow worker was re-issued on the fast one
+        assertTrue("took " + duration + " ms", duration < SLOW);
+    }
+
+    /**
+     * The member which completes its task first is not faster, and goes idle before the task of
+     * the other member straggles: the task is re-issued once it straggles
+     */
+    @Test
+    public void stragglerReissuedByIdleWorker() throws Exception {
+        Worker workers = newWorkers(100, 120, 1);
+        PAGroup.waitAll(workers.execute(newTasks(8)));
+        PAGroup.getGroup(workers).get(0).setDelay(SLOW);
+
+        long start = System.currentTimeMillis();
+        Task results = workers.execute(newTasks(2));
+        PAGroup.waitAll(results);
+        long duration = System.currentTimeMillis() - start;
+
+        Group<Task> resultGroup = PAGroup.getGroup(results);
+        assertEquals(1, resultGroup.get(0).getWorker());
+        assertEquals(1, resultGroup.get(1).getWorker());
+        assertTrue("took " + duration + " ms", duration < SLOW);
+    }
+
+    /**
+     * The call returns once the first tasks are sent, without waiting for the members to
+     * complete them to send the other ones
+     */
+    @Test
+    public void callReturnsOnceFirstTasksSent() throws Exception {
+        int nbTasks = 8;
+        Worker workers = newWorkers(SLOW / 4, SLOW / 4, 1);
+
+        long start = System.currentTimeMillis();
+        Task results = workers.execute(newTasks(nbTasks));
+        long duration = System.currentTimeMillis() - start;
+        assertTrue("took " + duration + " ms", duration < (SLOW / 4));
+
+        PAGroup.waitAll(results);
+        Group<Task> resultGroup = PAGroup.getGroup(results);
+        for (int i = 0; i < nbTasks; i++) {
+            assertEquals(i, resultGroup.get(i).getIndex());
+        }
+    }
+
+    @Test
+    public void estimatesAreKeptBetweenCalls() throws Exception {
+        int nbTasks = 8;
+        Worker workers = newWorkers();
+        PAGroup.waitAll(workers.execute(newTasks(nbTasks)));
+
+        Task results = workers.execute(newTasks(nbTasks));
+        PAGroup.waitAll(results);
+        Group<Task> resultGroup = PAGroup.getGroup(results);
+        for (int i = 0; i < nbTasks; i++) {
+            assertEquals(i, resultGroup.get(i).getIndex());
+            assertEquals(1, resultGroup.get(i).getWorker());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.adaptivedispatch;
+
+import java.io.Serializable;
+
+
+public class Worker implements Serializable {
+
+    private int index;
+
+    private long delay;
+
+    public Worker() {
+    }
+
+    /**
+     * @param delay the time the worker takes to process a task, in ms
+     */
+    public Worker(Integer index, Long delay) {
+        this.index = index;
+        this.delay = delay;
+    }
+
+    public void setDelay(Long delay) {
+        this.delay = delay;
+    }
+
+    public Task execute(Task task) {
+        try {
+            Thread.sleep(this.delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        task.setWorker(this.index);
+        return task;
+    }
+}
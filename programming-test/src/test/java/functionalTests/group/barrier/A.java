@@ -27,6 +27,7 @@ package functionalTests.group.barrier;
 
 import org.objectweb.proactive.Active;
 import org.objectweb.proactive.api.PASPMD;
+import org.objectweb.proactive.core.group.spmd.BarrierAlgorithm;
 
 
 //@snippet-start spmd_typical_class
@@ -40,6 +41,8 @@ public class A implements Active, java.io.Serializable {
 
     private int geeCounter = 0;
 
+    private int bazCounter = 0;
+
     private String errors = "";
 
     public A() {
@@ -51,10 +54,29 @@ public class A implements Active, java.io.Serializable {
         this.name = s;
     }
 
+    public void start(BarrierAlgorithm algorithm) {
+        PASPMD.setBarrierAlgorithm(algorithm);
+        this.start();
+    }
+
     public String getErrors() {
         return this.errors;
     }
 
+    public int getBazCounter() {
+        return this.bazCounter;
+    }
+
+    public void baz() {
+        this.bazCounter++;
+    }
+
+    public void barrierThenBaz(BarrierAlgorithm algorithm) {
+        A myspmdgroup = (A) PASPMD.getSPMDGroup();
+        PASPMD.totalBarrier("'baz'", algorithm);
+        myspmdgroup.baz();
+    }
+
     public void foo() {
         this.fooCounter++;
     }
@@ -0,0 +1,131 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.barrier;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.api.PASPMD;
+import org.objectweb.proactive.core.group.Group;
+import org.objectweb.proactive.core.group.spmd.BarrierAlgorithm;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * perform tree and dissemination barrier calls on an SPMD group
+ */
+@RunWith(Parameterized.class)
+public class TestBarrierAlgorithms extends FunctionalTest {
+
+    @Parameters
+    public static Collection<Object[]> algorithms() {
+        return Arrays.asList(new Object[][] { { BarrierAlgorithm.TREE }, { BarrierAlgorithm.DISSEMINATION } });
+    }
+
+    private final BarrierAlgorithm algorithm;
+
+    public TestBarrierAlgorithms(BarrierAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    @Test
+    public void action() throws Exception {
+        Object[][] params = { { "Agent0" }, { "Agent1" }, { "Agent2" } };
+        Node node = NodeFactory.getDefaultNode();
+        A spmdgroup = (A) PASPMD.newSPMDGroup(A.class.getName(), params, new Node[] { node, node, node });
+
+        spmdgroup.start(this.algorithm);
+
+        String errors = "";
+        Iterator<A> it = PAGroup.getGroup(spmdgroup).iterator();
+        while (it.hasNext()) {
+            errors += it.next().getErrors();
+        }
+        assertEquals("", errors);
+    }
+
+    @Test
+    public void idleMember() throws Exception {
+        Object[][] params = { { "Agent0" }, { "Agent1" }, { "Agent2" } };
+        Node node = NodeFactory.getDefaultNode();
+        A spmdgroup = (A) PASPMD.newSPMDGroup(A.class.getName(), params, new Node[] { node, node, node });
+        Group<A> group = PAGroup.getGroup(spmdgroup);
+
+        // the last member has not entered the barrier yet, and has no state for it
+        group.get(0).barrierThenBaz(this.algorithm);
+        group.get(1).barrierThenBaz(this.algorithm);
+        Thread.sleep(1000);
+        for (A member : group) {
+            assertEquals(0, member.getBazCounter());
+        }
+
+        group.get(2).barrierThenBaz(this.algorithm);
+        for (A member : group) {
+            long deadline = System.currentTimeMillis() + 30000;
+            while ((member.getBazCounter() < 3) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(50);
+            }
+            assertEquals(3, member.getBazCounter());
+        }
+    }
+
+    /**
+     * Successive barriers with the same name are told apart, the first one being released
+     * everywhere or not
+     */
+    @Test
+    public void reusedBarrierName() throws Exception {
+        Object[][] params = { { "Agent0" }, { "Agent1" }, { "Agent2" } };
+        Node node = NodeFactory.getDefaultNode();
+        A spmdgroup = (A) PASPMD.newSPMDGroup(A.class.getName(), params, new Node[] { node, node, node });
+        Group<A> group = PAGroup.getGroup(spmdgroup);
+
+        int rounds = 5;
+        for (int i = 0; i < rounds; i++) {
+            for (A member : group) {
+                member.barrierThenBaz(this.algorithm);
+            }
+        }
+        for (A member : group) {
+            long deadline = System.currentTimeMillis() + 30000;
+            while ((member.getBazCounter() < (3 * rounds)) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(50);
+            }
+            assertEquals(3 * rounds, member.getBazCounter());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.concurrentcall;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.group.Group;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * call a group concurrently from two threads: each call completes only when the other one is
+ * in progress
+ */
+public class TestConcurrentCalls extends FunctionalTest {
+
+    static final CyclicBarrier RENDEZVOUS = new CyclicBarrier(2);
+
+    static final AtomicInteger FAILURES = new AtomicInteger();
+
+    public static class Member {
+        public Member() {
+        }
+
+        public void meet() {
+            try {
+                RENDEZVOUS.await(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                FAILURES.incrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void action() throws Exception {
+        final Member typedGroup = (Member) PAGroup.newGroup(Member.class.getName());
+        Group<Member> group = PAGroup.getGroup(typedGroup);
+        group.add(new Member());
+
+        Thread caller = new Thread() {
+            @Override
+            public void run() {
+                typedGroup.meet();
+            }
+        };
+        caller.start();
+        typedGroup.meet();
+        caller.join();
+
+        assertEquals(0, FAILURES.get());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.multicast;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.core.UniqueID;
+
+
+public class Member implements Serializable {
+
+    private int received = 0;
+
+    private int value = -1;
+
+    private UniqueID sender;
+
+    private String methodName;
+
+    private ArrayList<Integer> values = new ArrayList<Integer>();
+
+    public Member() {
+    }
+
+    public void receive(int[] data) {
+        // modifies the argument, which must not be shared with other members
+        data[0]++;
+        this.value = data[0];
+        this.values.add(data[0]);
+        this.received++;
+        this.sender = PAActiveObject.getContext().getCurrentRequest().getSourceBodyID();
+        this.methodName = PAActiveObject.getContext().getCurrentRequest().getMethodName();
+    }
+
+    public int getReceived() {
+        return this.received;
+    }
+
+    public int getValue() {
+        return this.value;
+    }
+
+    public UniqueID getSender() {
+        return this.sender;
+    }
+
+    public ArrayList<Integer> getValues() {
+        return this.values;
+    }
+
+    public String getMethodName() {
+        return this.methodName;
+    }
+}
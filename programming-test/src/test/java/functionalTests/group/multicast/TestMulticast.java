@@ -0,0 +1,123 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.multicast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.UniqueID;
+import org.objectweb.proactive.core.group.Group;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * multicast a one-way call on a group along a tree of the members
+ */
+public class TestMulticast extends FunctionalTest {
+    private static final int SIZE = 20;
+
+    private static final int FANOUT = 3;
+
+    private Member typedGroup;
+
+    @Before
+    public void preConditions() throws Exception {
+        Object[][] params = new Object[SIZE][];
+        Node[] nodes = new Node[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            params[i] = new Object[] {};
+            nodes[i] = NodeFactory.getDefaultNode();
+        }
+        this.typedGroup = (Member) PAGroup.newGroup(Member.class.getName(), params, nodes);
+        PAGroup.setMulticast(this.typedGroup, FANOUT);
+    }
+
+    @Test
+    public void action() throws Exception {
+        this.typedGroup.receive(new int[] { 0 });
+
+        // the members relaying the call serve the original request, from the caller
+        UniqueID caller = PAActiveObject.getBodyOnThis().getID();
+        Group<Member> group = PAGroup.getGroup(this.typedGroup);
+        for (Member member : group) {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (member.getReceived() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, member.getReceived());
+            assertEquals(1, member.getValue());
+            assertEquals(caller, member.getSender());
+            assertEquals("receive", member.getMethodName());
+        }
+    }
+
+    /**
+     * The members receive the calls of the caller in order, whatever the member relaying them
+     */
+    @Test
+    public void ordered() throws Exception {
+        int nbCalls = 10;
+        for (int i = 0; i < nbCalls; i++) {
+            this.typedGroup.receive(new int[] { i * 10 });
+        }
+
+        for (Member member : PAGroup.getGroup(this.typedGroup)) {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (member.getReceived() < nbCalls && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            List<Integer> values = member.getValues();
+            assertEquals(nbCalls, values.size());
+            for (int i = 0; i < nbCalls; i++) {
+                assertEquals(i * 10 + 1, values.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        PAGroup.setMulticast(this.typedGroup, 0);
+        this.typedGroup.receive(new int[] { 0 });
+
+        UniqueID caller = PAActiveObject.getBodyOnThis().getID();
+        for (Member member : PAGroup.getGroup(this.typedGroup)) {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (member.getReceived() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(caller.equals(member.getSender()));
+        }
+    }
+}
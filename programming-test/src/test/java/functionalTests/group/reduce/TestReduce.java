@@ -0,0 +1,121 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.reduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.api.PAFuture;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.core.group.ReduceMode;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.FunctionalTest;
+
+
+/**
+ * reduce the results of calls on a group
+ */
+public class TestReduce extends FunctionalTest {
+    private static final int SIZE = 5;
+
+    private Worker typedGroup;
+
+    @Before
+    public void preConditions() throws Exception {
+        Object[][] params = new Object[SIZE][];
+        Node[] nodes = new Node[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            params[i] = new Object[] { i + 1 };
+            nodes[i] = NodeFactory.getDefaultNode();
+        }
+        this.typedGroup = (Worker) PAGroup.newGroup(Worker.class.getName(), params, nodes);
+    }
+
+    @Test
+    public void builtInReduction() {
+        assertEquals(15, this.typedGroup.sum().intValue());
+    }
+
+    @Test
+    public void reductionToAFuture() {
+        List<Integer> values = this.typedGroup.values();
+        assertFalse(PAGroup.isGroup(values));
+
+        List<Integer> sorted = new ArrayList<Integer>(values);
+        Collections.sort(sorted);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), sorted);
+    }
+
+    @Test
+    public void customReduction() {
+        Worker.Result result = this.typedGroup.count();
+        assertEquals(SIZE, result.getCount());
+    }
+
+    /**
+     * The reduced future is updated by the caller only: it is passed with its value
+     */
+    @Test(timeout = 30000)
+    public void reductionAsParameter() throws Exception {
+        Worker worker = PAActiveObject.newActive(Worker.class, new Object[] { 0 }, NodeFactory.getDefaultNode());
+        Worker.Result result = this.typedGroup.slowCount();
+        assertTrue(PAFuture.isAwaited(result));
+        assertEquals(SIZE, worker.getCount(result));
+    }
+
+    @Test
+    public void groupReduction() {
+        PAGroup.setReduction(this.typedGroup, ReduceMode.MAX);
+        assertEquals(5, this.typedGroup.value().intValue());
+        // the reduction of the group has priority over the annotation
+        assertEquals(5, this.typedGroup.sum().intValue());
+
+        PAGroup.setReduction(this.typedGroup, null);
+        assertEquals(15, this.typedGroup.sum().intValue());
+    }
+
+    @Test
+    public void failedMember() {
+        try {
+            this.typedGroup.failing();
+            fail("the exception of a member should be raised by the reduction");
+        } catch (IllegalStateException e) {
+            assertEquals("member 2 failed", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.group.reduce;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.proactive.core.group.Reduce;
+import org.objectweb.proactive.core.group.ReduceBehavior;
+import org.objectweb.proactive.core.group.ReduceMode;
+import org.objectweb.proactive.core.group.ReductionException;
+
+
+public class Worker implements Serializable {
+
+    private int value;
+
+    public Worker() {
+    }
+
+    public Worker(Integer value) {
+        this.value = value;
+    }
+
+    @Reduce(mode = ReduceMode.SUM)
+    public Integer sum() {
+        return this.value;
+    }
+
+    public Integer value() {
+        return this.value;
+    }
+
+    @Reduce(mode = ReduceMode.CONCAT)
+    public List<Integer> values() {
+        return Collections.singletonList(this.value);
+    }
+
+    @Reduce(mode = ReduceMode.CUSTOM, customMode = Count.class)
+    public Result count() {
+        return new Result(1);
+    }
+
+    @Reduce(mode = ReduceMode.CUSTOM, customMode = Count.class)
+    public Result slowCount() {
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new Result(1);
+    }
+
+    public int getCount(Result result) {
+        return result.getCount();
+    }
+
+    @Reduce(mode = ReduceMode.MIN)
+    public Integer failing() {
+        if (this.value == 2) {
+            throw new IllegalStateException("member " + this.value + " failed");
+        }
+        return this.value;
+    }
+
+    public static class Result implements Serializable {
+        private int count;
+
+        public Result() {
+        }
+
+        public Result(int count) {
+            this.count = count;
+        }
+
+        public int getCount() {
+            return this.count;
+        }
+    }
+
+    public static class Count implements ReduceBehavior {
+        public Object reduce(Object partial, Object result) throws ReductionException {
+            if (partial == null) {
+                return result;
+            }
+            return new Result(((Result) partial).getCount() + ((Result) result).getCount());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.pamr.client;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.InetAddress;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.util.converter.remote.DescriptorDictionary;
+import org.objectweb.proactive.extensions.pamr.client.Agent;
+import org.objectweb.proactive.extensions.pamr.client.AgentImpl;
+import org.objectweb.proactive.extensions.pamr.client.MessageHandler;
+import org.objectweb.proactive.extensions.pamr.exceptions.PAMRException;
+import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
+import org.objectweb.proactive.extensions.pamr.protocol.MagicCookie;
+import org.objectweb.proactive.extensions.pamr.protocol.message.DataRequestMessage;
+import org.objectweb.proactive.extensions.pamr.remoteobject.util.socketfactory.PAMRPlainSocketFactory;
+
+import functionalTests.pamr.BlackBox;
+
+
+/**
+ * The other agents forget the definitions of an agent whose tunnel failed, so this agent
+ * must not reuse its dictionaries once reconnected.
+ */
+public class TestDictionaryReset extends BlackBox {
+
+    @Test
+    public void test() throws Exception {
+        Agent agent = new AgentImpl(InetAddress.getLocalHost(),
+                                    this.router.getPort(),
+                                    null,
+                                    new MagicCookie(),
+                                    NOOPHandler.class,
+                                    new PAMRPlainSocketFactory());
+        AgentID peer = new AgentID(4242);
+
+        DescriptorDictionary.Writer out = agent.getDictionary(peer);
+        DescriptorDictionary.Readers in = agent.getDictionaries(peer);
+        assertSame(out, agent.getDictionary(peer));
+        assertSame(in, agent.getDictionaries(peer));
+
+        agent.closeTunnel(new PAMRException("Test tunnel failure"));
+
+        assertNotSame(out, agent.getDictionary(peer));
+        assertNotSame(in, agent.getDictionaries(peer));
+    }
+
+    static public class NOOPHandler implements MessageHandler {
+
+        public NOOPHandler(Agent agent) {
+        }
+
+        public void pushMessage(DataRequestMessage message) {
+        }
+    }
+}
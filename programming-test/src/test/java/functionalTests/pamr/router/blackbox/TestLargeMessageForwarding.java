@@ -0,0 +1,120 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.pamr.router.blackbox;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.extensions.pamr.client.Agent;
+import org.objectweb.proactive.extensions.pamr.exceptions.PAMRException;
+import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
+import org.objectweb.proactive.extensions.pamr.router.Router;
+import org.objectweb.proactive.extensions.pamr.router.RouterConfig;
+
+import functionalTests.FunctionalTest;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.NOOPHandler;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.SimpleAgent;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.UpcasingHandler;
+
+
+/**
+ * Check that large data messages forwarded while being received reach their
+ * recipient intact, even when several of them are sent to the same recipient.
+ */
+public class TestLargeMessageForwarding extends FunctionalTest {
+    static final private int NB_AGENTS = 4;
+
+    static final private int NB_MESSAGES = 5;
+
+    static final private int MESSAGE_SIZE = 1024 * 1024 + 17;
+
+    private Router router;
+
+    private ExecutorService executor;
+
+    @Before
+    public void before() throws Exception {
+        RouterConfig config = new RouterConfig();
+        config.setNbSelectorThreads(2);
+        this.router = Router.createAndStart(config);
+        this.executor = Executors.newFixedThreadPool(NB_AGENTS);
+    }
+
+    @After
+    public void after() {
+        this.executor.shutdownNow();
+        this.router.stop();
+    }
+
+    @Test
+    public void concurrentLargeMessages() throws Exception {
+        InetAddress localhost = InetAddress.getLocalHost();
+        final AgentID replyingAgentId = new SimpleAgent(localhost, router.getPort(), UpcasingHandler.class).getAgentID();
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int i = 0; i < NB_AGENTS; i++) {
+            final Agent agent = new SimpleAgent(localhost, router.getPort(), NOOPHandler.class);
+            final int shift = i;
+            futures.add(this.executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    for (int j = 0; j < NB_MESSAGES; j++) {
+                        byte[] data = new byte[MESSAGE_SIZE];
+                        byte[] expected = new byte[MESSAGE_SIZE];
+                        for (int k = 0; k < MESSAGE_SIZE; k++) {
+                            data[k] = (byte) ('a' + (k + shift + j) % 26);
+                            expected[k] = (byte) ('A' + (k + shift + j) % 26);
+                        }
+
+                        byte[] reply = agent.sendMsg(replyingAgentId, data, false);
+                        Assert.assertArrayEquals(expected, reply);
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    @Test(expected = PAMRException.class)
+    public void unknownRecipient() throws Exception {
+        InetAddress localhost = InetAddress.getLocalHost();
+        Agent agent = new SimpleAgent(localhost, router.getPort(), NOOPHandler.class);
+
+        agent.sendMsg(new AgentID(0xcafe), new byte[MESSAGE_SIZE], false);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.pamr.router.blackbox;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.extensions.pamr.client.Agent;
+import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
+import org.objectweb.proactive.extensions.pamr.router.Router;
+import org.objectweb.proactive.extensions.pamr.router.RouterConfig;
+
+import functionalTests.FunctionalTest;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.NOOPHandler;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.SimpleAgent;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.UpcasingHandler;
+
+
+/**
+ * Check that agents spread over several selector threads can exchange messages,
+ * including messages too large to be written at once.
+ */
+public class TestMultipleSelectors extends FunctionalTest {
+    static final private int NB_AGENTS = 8;
+
+    static final private int NB_MESSAGES = 20;
+
+    private Router router;
+
+    private ExecutorService executor;
+
+    @Before
+    public void before() throws Exception {
+        RouterConfig config = new RouterConfig();
+        config.setNbSelectorThreads(4);
+        this.router = Router.createAndStart(config);
+        this.executor = Executors.newFixedThreadPool(NB_AGENTS);
+    }
+
+    @After
+    public void after() {
+        this.executor.shutdownNow();
+        this.router.stop();
+    }
+
+    @Test
+    public void concurrentAgents() throws Exception {
+        InetAddress localhost = InetAddress.getLocalHost();
+        final AgentID replyingAgentId = new SimpleAgent(localhost, router.getPort(), UpcasingHandler.class).getAgentID();
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int i = 0; i < NB_AGENTS; i++) {
+            final Agent agent = new SimpleAgent(localhost, router.getPort(), NOOPHandler.class);
+            final String prefix = "agent" + i + "-";
+            futures.add(this.executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    for (int j = 0; j < NB_MESSAGES; j++) {
+                        byte[] reply = agent.sendMsg(replyingAgentId, (prefix + j).getBytes(), false);
+                        Assert.assertEquals((prefix + j).toUpperCase(), new String(reply));
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    @Test
+    public void largeMessage() throws Exception {
+        InetAddress localhost = InetAddress.getLocalHost();
+        AgentID replyingAgentId = new SimpleAgent(localhost, router.getPort(), UpcasingHandler.class).getAgentID();
+        Agent agent = new SimpleAgent(localhost, router.getPort(), NOOPHandler.class);
+
+        // Larger than any socket buffer, the router has to queue it
+        byte[] data = new byte[8 * 1024 * 1024];
+        Arrays.fill(data, (byte) 'a');
+        byte[] expected = new byte[data.length];
+        Arrays.fill(expected, (byte) 'A');
+
+        byte[] reply = agent.sendMsg(replyingAgentId, data, false);
+        Assert.assertArrayEquals(expected, reply);
+    }
+}
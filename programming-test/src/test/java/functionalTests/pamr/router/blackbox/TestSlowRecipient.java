@@ -0,0 +1,164 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionalTests.pamr.router.blackbox;
+
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.core.util.ProActiveRandom;
+import org.objectweb.proactive.extensions.pamr.client.Agent;
+import org.objectweb.proactive.extensions.pamr.client.Tunnel;
+import org.objectweb.proactive.extensions.pamr.exceptions.PAMRException;
+import org.objectweb.proactive.extensions.pamr.protocol.AgentID;
+import org.objectweb.proactive.extensions.pamr.protocol.MagicCookie;
+import org.objectweb.proactive.extensions.pamr.protocol.message.Message;
+import org.objectweb.proactive.extensions.pamr.protocol.message.RegistrationReplyMessage;
+import org.objectweb.proactive.extensions.pamr.protocol.message.RegistrationRequestMessage;
+import org.objectweb.proactive.extensions.pamr.router.Router;
+import org.objectweb.proactive.extensions.pamr.router.RouterConfig;
+import org.objectweb.proactive.extensions.pamr.router.RouterImpl;
+
+import functionalTests.FunctionalTest;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.NOOPHandler;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.SimpleAgent;
+import functionalTests.pamr.router.blackbox.TestAgentCommunication.UpcasingHandler;
+
+
+/**
+ * Check that a client which never reads its messages is disconnected once too many bytes
+ * are queued for it, or once a large message forwarded to it makes no progress, and that 
+ * the router keeps serving the other clients.
+ */
+public class TestSlowRecipient extends FunctionalTest {
+    static final private long MAX_QUEUED_BYTES = 8 * 1024 * 1024;
+
+    static final private int STREAMING_TIMEOUT = 2000;
+
+    private Router router;
+
+    private Tunnel tunnel;
+
+    private ExecutorService executor;
+
+    @Before
+    public void before() throws Exception {
+        RouterConfig config = new RouterConfig();
+        config.setMaxQueuedBytes(MAX_QUEUED_BYTES);
+        config.setStreamingTimeout(STREAMING_TIMEOUT);
+        this.router = Router.createAndStart(config);
+        this.executor = Executors.newSingleThreadExecutor();
+
+        Socket s = new Socket(InetAddress.getLocalHost(), this.router.getPort());
+        this.tunnel = new Tunnel(s);
+    }
+
+    @After
+    public void after() {
+        this.executor.shutdownNow();
+        this.tunnel.shutdown();
+        this.router.stop();
+    }
+
+    @Test
+    public void recipientNeverReads() throws Exception {
+        // Far more than what the socket buffers and the queue can hold
+        sendToSlowRecipient(32 * 1024, 2048);
+    }
+
+    @Test
+    public void recipientNeverReadsForwardedMessages() throws Exception {
+        // Forwarded while being received: the sender is not read until the timeout
+        sendToSlowRecipient(256 * 1024, 256);
+    }
+
+    @Test
+    public void senderReadWhileForwardingToSlowRecipient() throws Exception {
+        AgentID slowAgentId = registerSlowRecipient();
+        InetAddress localhost = InetAddress.getLocalHost();
+        Agent agent = new SimpleAgent(localhost, router.getPort(), NOOPHandler.class);
+        AgentID replyingAgentId = new SimpleAgent(localhost, router.getPort(), UpcasingHandler.class).getAgentID();
+
+        // More than the socket buffers hold but less than what can be queued for the recipient:
+        // the tunnel of the sender keeps being read
+        agent.sendMsg(slowAgentId, new byte[(int) (MAX_QUEUED_BYTES * 3 / 4)], true);
+
+        long start = System.currentTimeMillis();
+        byte[] reply = agent.sendMsg(replyingAgentId, "Hello".getBytes(), false);
+        long duration = System.currentTimeMillis() - start;
+        Assert.assertEquals("HELLO", new String(reply));
+        Assert.assertTrue("took " + duration + " ms", duration < STREAMING_TIMEOUT / 2);
+    }
+
+    private AgentID registerSlowRecipient() throws Exception {
+        Message message = new RegistrationRequestMessage(null,
+                                                         ProActiveRandom.nextPosLong(),
+                                                         RouterImpl.UNKNOWN_ROUTER_ID,
+                                                         new MagicCookie());
+        this.tunnel.write(message.toByteArray());
+        // From now on the tunnel is never read
+        return new RegistrationReplyMessage(this.tunnel.readMessage(), 0).getAgentID();
+    }
+
+    private void sendToSlowRecipient(int messageSize, int nbMessages) throws Exception {
+        final AgentID slowAgentId = registerSlowRecipient();
+
+        InetAddress localhost = InetAddress.getLocalHost();
+        final Agent agent = new SimpleAgent(localhost, router.getPort(), NOOPHandler.class);
+
+        byte[] data = new byte[messageSize];
+        for (int i = 0; i < nbMessages; i++) {
+            agent.sendMsg(slowAgentId, data, true);
+        }
+
+        // The slow client has been disconnected: a request to it fails instead of being queued
+        Future<byte[]> future = this.executor.submit(new Callable<byte[]>() {
+            public byte[] call() throws Exception {
+                return agent.sendMsg(slowAgentId, "Hello".getBytes(), false);
+            }
+        });
+        try {
+            future.get(30, TimeUnit.SECONDS);
+            Assert.fail("The request to the slow client should have failed");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof PAMRException);
+        }
+
+        // The other clients are still served
+        AgentID replyingAgentId = new SimpleAgent(localhost, router.getPort(), UpcasingHandler.class).getAgentID();
+        byte[] reply = agent.sendMsg(replyingAgentId, "Hello".getBytes(), false);
+        Assert.assertEquals("HELLO", new String(reply));
+    }
+}
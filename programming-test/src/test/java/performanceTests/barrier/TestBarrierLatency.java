@@ -0,0 +1,131 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package performanceTests.barrier;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.objectweb.proactive.api.PAActiveObject;
+import org.objectweb.proactive.api.PAGroup;
+import org.objectweb.proactive.api.PASPMD;
+import org.objectweb.proactive.core.group.spmd.BarrierAlgorithm;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeFactory;
+
+import functionalTests.FunctionalTest;
+import performanceTests.HudsonReport;
+
+
+/**
+ * Measures the latency of PASPMD.totalBarrier for each barrier algorithm and several group sizes.
+ */
+public class TestBarrierLatency extends FunctionalTest {
+
+    static final int[] GROUP_SIZES = { 4, 16, 32 };
+
+    static final int ITERATIONS = 200;
+
+    @Test
+    public void test() throws Exception {
+        Node node = NodeFactory.getDefaultNode();
+        for (BarrierAlgorithm algorithm : BarrierAlgorithm.values()) {
+            for (int size : GROUP_SIZES) {
+                double latency = measure(algorithm, size, node);
+                System.out.println(algorithm + " barrier, " + size + " members: " + latency + " ms");
+                if (size == GROUP_SIZES[GROUP_SIZES.length - 1]) {
+                    HudsonReport.reportToHudson(TestBarrierLatency.class, latency);
+                }
+            }
+        }
+    }
+
+    private double measure(BarrierAlgorithm algorithm, int size, Node node) throws Exception {
+        Object[][] params = new Object[size][];
+        Node[] nodes = new Node[size];
+        for (int i = 0; i < size; i++) {
+            params[i] = new Object[] {};
+            nodes[i] = node;
+        }
+        Member group = (Member) PASPMD.newSPMDGroup(Member.class.getName(), params, nodes);
+
+        // Warmup
+        run(group, algorithm, ITERATIONS / 10);
+
+        long elapsed = run(group, algorithm, ITERATIONS);
+        for (Member member : PAGroup.getGroup(group)) {
+            PAActiveObject.terminateActiveObject(member, true);
+        }
+        return elapsed / 1000000.0 / ITERATIONS;
+    }
+
+    private long run(Member group, BarrierAlgorithm algorithm, int iterations) throws Exception {
+        group.start(algorithm, iterations);
+        long elapsed = 0;
+        Iterator<Member> it = PAGroup.getGroup(group).iterator();
+        while (it.hasNext()) {
+            Member member = it.next();
+            long duration;
+            while ((duration = member.getDuration()) < 0) {
+                Thread.sleep(10);
+            }
+            elapsed = Math.max(elapsed, duration);
+        }
+        return elapsed;
+    }
+
+    static public class Member implements Serializable {
+        private BarrierAlgorithm algorithm;
+
+        private long startTime;
+
+        private long duration = -1;
+
+        public Member() {
+        }
+
+        public void start(BarrierAlgorithm algorithm, int iterations) {
+            this.algorithm = algorithm;
+            this.duration = -1;
+            this.startTime = System.nanoTime();
+            ((Member) PAActiveObject.getStubOnThis()).iterate(iterations);
+        }
+
+        public void iterate(int remaining) {
+            if (remaining == 0) {
+                this.duration = System.nanoTime() - this.startTime;
+                return;
+            }
+            // requests sent after the barrier are served once every member reached it
+            PASPMD.totalBarrier("latency" + remaining, this.algorithm);
+            ((Member) PAActiveObject.getStubOnThis()).iterate(remaining - 1);
+        }
+
+        public long getDuration() {
+            return this.duration;
+        }
+    }
+}
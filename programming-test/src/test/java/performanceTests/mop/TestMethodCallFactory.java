@@ -0,0 +1,119 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package performanceTests.mop;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.TypeVariable;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.config.CentralPAPropertyRepository;
+import org.objectweb.proactive.core.mop.MethodCall;
+
+import performanceTests.HudsonReport;
+
+
+/**
+ * Measures the throughput of {@link MethodCall#getMethodCall(Method, Object[], Map)} when it is
+ * called concurrently by 1 to N threads. The factory is on the path of every stub invocation,
+ * so its throughput must grow with the number of callers.
+ */
+public class TestMethodCallFactory {
+
+    @Test
+    public void test() throws Exception {
+        final Method method = Target.class.getMethod("foo", int.class, String.class);
+        final int maxThreads = Runtime.getRuntime().availableProcessors();
+        final long duration = Math.max(1000, CentralPAPropertyRepository.PA_TEST_PERF_DURATION.getValue() /
+                                             (Integer.numberOfTrailingZeros(Integer.highestOneBit(maxThreads)) + 2));
+
+        // Warmup
+        run(method, 1, duration / 2);
+
+        double throughput = 0;
+        for (int nbThreads = 1; nbThreads <= maxThreads; nbThreads *= 2) {
+            throughput = run(method, nbThreads, duration);
+            System.out.println("Threads: " + nbThreads + " Throughput: " + throughput);
+        }
+
+        HudsonReport.reportToHudson(TestMethodCallFactory.class, throughput);
+    }
+
+    private double run(final Method method, int nbThreads, final long duration) throws InterruptedException {
+        final AtomicLong count = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(nbThreads);
+        final Object[] args = new Object[] { 1, "foo" };
+
+        for (int i = 0; i < nbThreads; i++) {
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+
+                    long local = 0;
+                    long end = System.currentTimeMillis() + duration;
+                    while (System.currentTimeMillis() < end) {
+                        for (int j = 0; j < 100; j++) {
+                            MethodCall mc = MethodCall.getMethodCall(method,
+                                                                     args,
+                                                                     (Map<TypeVariable<?>, Class<?>>) null);
+                            if (mc.isAsynchronousWayCall()) {
+                                local++;
+                            }
+                        }
+                    }
+                    count.addAndGet(local);
+                    done.countDown();
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        }
+
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        done.await();
+        long endTime = System.currentTimeMillis();
+        return (1000.0 * count.get()) / (endTime - startTime);
+    }
+
+    static public class Target {
+        public Target() {
+        }
+
+        public Object foo(int i, String s) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A hash map with primitive <code>long</code> keys.
+ * <p>
+ * Entries are stored in two parallel arrays using open addressing with linear probing, so
+ * neither the keys nor the entries are boxed. Removals shift the following entries back
+ * instead of leaving tombstones, which keeps lookups short on maps with a high turnover
+ * such as the future tables of a body.
+ * <p>
+ * <code>null</code> values are not supported. This class is not thread-safe.
+ *
+ * @param <V> type of the values
+ */
+public class LongObjectHashMap<V> implements java.io.Serializable {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // the table is grown when it is more than half full
+    private static final int MAX_LOAD_SHIFT = 1;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the map can hold without being resized
+     */
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while ((capacity >> MAX_LOAD_SHIFT) < expectedSize) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Returns the value associated to key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = this.keys.length - 1;
+        for (int i = index(key, mask); this.values[i] != null; i = (i + 1) & mask) {
+            if (this.keys[i] == key) {
+                return (V) this.values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associates value to key
+     *
+     * @return the value previously associated to key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null values are not supported");
+        }
+        int mask = this.keys.length - 1;
+        int i = index(key, mask);
+        for (; this.values[i] != null; i = (i + 1) & mask) {
+            if (this.keys[i] == key) {
+                V previous = (V) this.values[i];
+                this.values[i] = value;
+                return previous;
+            }
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.size++;
+        if (this.size > (this.keys.length >> MAX_LOAD_SHIFT)) {
+            resize(this.keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the value associated to key
+     *
+     * @return the removed value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = this.keys.length - 1;
+        for (int i = index(key, mask); this.values[i] != null; i = (i + 1) & mask) {
+            if (this.keys[i] == key) {
+                V previous = (V) this.values[i];
+                this.values[i] = null;
+                this.size--;
+                shiftBack(i, mask);
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Returns a snapshot of the values of this map
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<V>(this.size);
+        for (Object value : this.values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Moves back the entries following the freed slot so that no entry is separated from its
+     * home slot by an empty one.
+     */
+    private void shiftBack(int free, int mask) {
+        for (int i = (free + 1) & mask; this.values[i] != null; i = (i + 1) & mask) {
+            int home = index(this.keys[i], mask);
+            // the entry can fill the free slot unless its home slot lies in (free, i]
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                this.keys[free] = this.keys[i];
+                this.values[free] = this.values[i];
+                this.values[i] = null;
+                free = i;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = index(oldKeys[j], mask);
+                while (this.values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[j];
+                this.values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int index(long key, int mask) {
+        // sequence ids are consecutive: spread them to avoid long probe chains
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -29,6 +29,7 @@ import java.io.Serializable;
 
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.objectweb.proactive.annotation.Immutable;
 import org.objectweb.proactive.annotation.PublicAPI;
 
 
@@ -41,6 +42,7 @@ import org.objectweb.proactive.annotation.PublicAPI;
  * Created on Jul 28, 2005
  */
 @PublicAPI
+@Immutable
 @XmlRootElement
 public class FloatWrapper implements Serializable {
 
@@ -30,6 +30,7 @@ import java.io.Serializable;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.objectweb.proactive.annotation.Immutable;
 import org.objectweb.proactive.annotation.PublicAPI;
 
 
@@ -42,6 +43,7 @@ import org.objectweb.proactive.annotation.PublicAPI;
  * Created on Jul 28, 2005
  */
 @PublicAPI
+@Immutable
 @XmlRootElement
 public class IntWrapper implements Serializable {
 
@@ -0,0 +1,107 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.objectweb.proactive.core.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class LongObjectHashMapTest {
+    private LongObjectHashMap<String> map;
+
+    @Before
+    public void setUp() {
+        map = new LongObjectHashMap<String>();
+    }
+
+    @Test
+    public void putGetRemove() {
+        Assert.assertNull(map.put(1, "a"));
+        Assert.assertEquals("a", map.put(1, "b"));
+        Assert.assertEquals("b", map.get(1));
+        Assert.assertNull(map.get(2));
+        Assert.assertEquals(1, map.size());
+
+        Assert.assertEquals("b", map.remove(1));
+        Assert.assertNull(map.remove(1));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    /**
+     * Consecutive sequence ids, removed out of order, as done by a future map
+     */
+    @Test
+    public void sequentialKeys() {
+        int nbElem = 100000;
+        for (long i = 0; i < nbElem; i++) {
+            map.put(i, Long.toString(i));
+        }
+        Assert.assertEquals(nbElem, map.size());
+
+        for (long i = 0; i < nbElem; i += 2) {
+            Assert.assertEquals(Long.toString(i), map.remove(i));
+        }
+        Assert.assertEquals(nbElem / 2, map.size());
+        for (long i = 0; i < nbElem; i++) {
+            Assert.assertEquals((i % 2 == 0) ? null : Long.toString(i), map.get(i));
+        }
+        Assert.assertEquals(nbElem / 2, new HashSet<String>(map.values()).size());
+    }
+
+    /**
+     * Random operations, checked against a java.util.HashMap
+     */
+    @Test
+    public void randomOperations() {
+        Random rand = new Random(42);
+        Map<Long, String> reference = new HashMap<Long, String>();
+        for (int i = 0; i < 200000; i++) {
+            // small key space to get collisions and removals of existing keys
+            long key = rand.nextInt(2048) - 1024L;
+            if (rand.nextBoolean()) {
+                String value = Integer.toString(i);
+                Assert.assertEquals(reference.put(key, value), map.put(key, value));
+            } else {
+                Assert.assertEquals(reference.remove(key), map.remove(key));
+            }
+            Assert.assertEquals(reference.size(), map.size());
+        }
+        for (Map.Entry<Long, String> entry : reference.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullValue() {
+        map.put(1, null);
+    }
+}